@@ -0,0 +1,98 @@
+package com.oyealex.pipe.benchmark;
+
+import com.oyealex.pipe.basis.Pipe;
+import one.util.streamex.StreamEx;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基准测试的数据源
+ * <p/>
+ * 数据为固定随机种子生成的{@code [0, size)}之间的随机整数，存在重复元素。{@code sized}为{@code false}时，
+ * 数据源以迭代器包装，不再报告{@link Spliterator#SIZED}，用于衡量无法预知数据量时的开销。
+ * <p/>
+ * 同一组参数下，{@link Pipe}、{@link Stream}以及{@link StreamEx}使用的数据源完全相同。
+ *
+ * @author oyealex
+ * @since 2023-06-24
+ */
+@State(Scope.Benchmark)
+public class BenchmarkData {
+    private static final long SEED = 0x5EED_2023L;
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean sized;
+
+    /** 随机数据 */
+    List<Integer> values;
+
+    /** 另一组随机数据，用于合并类操作 */
+    List<Integer> others;
+
+    /** 已排序的随机数据 */
+    List<Integer> sortedValues;
+
+    /** 另一组已排序的随机数据 */
+    List<Integer> sortedOthers;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(SEED);
+        values = genRandomList(random);
+        others = genRandomList(random);
+        sortedValues = new ArrayList<>(values);
+        sortedValues.sort(null);
+        sortedOthers = new ArrayList<>(others);
+        sortedOthers.sort(null);
+    }
+
+    private List<Integer> genRandomList(Random random) {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(random.nextInt(size));
+        }
+        return list;
+    }
+
+    Spliterator<Integer> source(List<Integer> list) {
+        return sized ? list.spliterator() : Spliterators.spliteratorUnknownSize(list.iterator(), Spliterator.ORDERED);
+    }
+
+    Pipe<Integer> pipe() {
+        return pipe(values);
+    }
+
+    Pipe<Integer> pipe(List<Integer> list) {
+        return Pipe.spliterator(source(list));
+    }
+
+    Stream<Integer> stream() {
+        return stream(values);
+    }
+
+    Stream<Integer> stream(List<Integer> list) {
+        return StreamSupport.stream(source(list), false);
+    }
+
+    StreamEx<Integer> streamEx() {
+        return streamEx(values);
+    }
+
+    StreamEx<Integer> streamEx(List<Integer> list) {
+        return StreamEx.of(source(list));
+    }
+}
@@ -0,0 +1,62 @@
+package com.oyealex.pipe.benchmark;
+
+import com.oyealex.pipe.basis.Pipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 无状态操作链的基准测试：map、filter以及flatMap。
+ *
+ * @author oyealex
+ * @since 2023-06-24
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChainBenchmark {
+    @Benchmark
+    public List<Integer> mapFilter_pipe(BenchmarkData data) {
+        return data.pipe().map(value -> value * 3).takeIf(value -> (value & 1) == 0).map(value -> value + 1).toList();
+    }
+
+    @Benchmark
+    public List<Integer> mapFilter_stream(BenchmarkData data) {
+        return data.stream()
+            .map(value -> value * 3)
+            .filter(value -> (value & 1) == 0)
+            .map(value -> value + 1)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> mapFilter_streamEx(BenchmarkData data) {
+        return data.streamEx().map(value -> value * 3).filter(value -> (value & 1) == 0).map(value -> value + 1).toList();
+    }
+
+    @Benchmark
+    public long flatMap_pipe(BenchmarkData data) {
+        return data.pipe().flatMap(value -> Pipe.list(Arrays.asList(value, value + 1, value + 2))).count();
+    }
+
+    @Benchmark
+    public long flatMap_stream(BenchmarkData data) {
+        return data.stream().flatMap(value -> Arrays.asList(value, value + 1, value + 2).stream()).count();
+    }
+
+    @Benchmark
+    public long flatMap_streamEx(BenchmarkData data) {
+        return data.streamEx().flatMap(value -> Arrays.asList(value, value + 1, value + 2).stream()).count();
+    }
+}
@@ -0,0 +1,82 @@
+package com.oyealex.pipe.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 短路操作的基准测试：查找、匹配以及截取。
+ * <p/>
+ * 查找的目标元素位于数据源的中间位置，短路的效果体现在只需要处理一半的数据。
+ *
+ * @author oyealex
+ * @since 2023-06-24
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FindBenchmark {
+    private static final int LIMIT_SIZE = 10;
+
+    @Benchmark
+    public Optional<Integer> findFirst_pipe(BenchmarkData data) {
+        Integer target = data.values.get(data.size / 2);
+        return data.pipe().map(value -> value + 1).takeIf(value -> value.equals(target + 1)).findFirst();
+    }
+
+    @Benchmark
+    public Optional<Integer> findFirst_stream(BenchmarkData data) {
+        Integer target = data.values.get(data.size / 2);
+        return data.stream().map(value -> value + 1).filter(value -> value.equals(target + 1)).findFirst();
+    }
+
+    @Benchmark
+    public Optional<Integer> findFirst_streamEx(BenchmarkData data) {
+        Integer target = data.values.get(data.size / 2);
+        return data.streamEx().map(value -> value + 1).filter(value -> value.equals(target + 1)).findFirst();
+    }
+
+    @Benchmark
+    public boolean anyMatch_pipe(BenchmarkData data) {
+        Integer target = data.values.get(data.size / 2);
+        return data.pipe().anyMatch(target::equals);
+    }
+
+    @Benchmark
+    public boolean anyMatch_stream(BenchmarkData data) {
+        Integer target = data.values.get(data.size / 2);
+        return data.stream().anyMatch(target::equals);
+    }
+
+    @Benchmark
+    public boolean anyMatch_streamEx(BenchmarkData data) {
+        Integer target = data.values.get(data.size / 2);
+        return data.streamEx().anyMatch(target::equals);
+    }
+
+    @Benchmark
+    public List<Integer> limit_pipe(BenchmarkData data) {
+        return data.pipe().takeIf(value -> (value & 1) == 0).limit(LIMIT_SIZE).toList();
+    }
+
+    @Benchmark
+    public List<Integer> limit_stream(BenchmarkData data) {
+        return data.stream().filter(value -> (value & 1) == 0).limit(LIMIT_SIZE).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> limit_streamEx(BenchmarkData data) {
+        return data.streamEx().filter(value -> (value & 1) == 0).limit(LIMIT_SIZE).toList();
+    }
+}
@@ -0,0 +1,59 @@
+package com.oyealex.pipe.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 分组的基准测试：分组收集以及分组计数。
+ *
+ * @author oyealex
+ * @since 2023-06-24
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GroupBenchmark {
+    private static final int GROUP_MASK = 0xFF;
+
+    @Benchmark
+    public Map<Integer, List<Integer>> group_pipe(BenchmarkData data) {
+        return data.pipe().group(value -> value & GROUP_MASK);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Integer>> group_stream(BenchmarkData data) {
+        return data.stream().collect(Collectors.groupingBy(value -> value & GROUP_MASK));
+    }
+
+    @Benchmark
+    public Map<Integer, List<Integer>> group_streamEx(BenchmarkData data) {
+        return data.streamEx().groupingBy(value -> value & GROUP_MASK);
+    }
+
+    @Benchmark
+    public Map<Integer, Long> groupAndCount_pipe(BenchmarkData data) {
+        return data.pipe().groupAndCount(value -> value & GROUP_MASK);
+    }
+
+    @Benchmark
+    public Map<Integer, Long> groupAndCount_stream(BenchmarkData data) {
+        return data.stream().collect(Collectors.groupingBy(value -> value & GROUP_MASK, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> groupAndCount_streamEx(BenchmarkData data) {
+        return data.streamEx().groupingBy(value -> value & GROUP_MASK, Collectors.counting());
+    }
+}
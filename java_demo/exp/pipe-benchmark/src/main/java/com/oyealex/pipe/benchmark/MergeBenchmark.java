@@ -0,0 +1,78 @@
+package com.oyealex.pipe.benchmark;
+
+import one.util.streamex.StreamEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.oyealex.pipe.policy.MergePolicy.PREFER_OURS;
+import static com.oyealex.pipe.policy.MergePolicy.PREFER_THEIRS;
+import static com.oyealex.pipe.policy.MergeRemainingPolicy.TAKE_REMAINING;
+
+/**
+ * 合并两条流水线的基准测试：交替合并以及有序合并。
+ * <p/>
+ * {@link Stream}和{@link StreamEx}没有直接对应的合并操作，交替合并以按下标配对展开实现，有序合并以拼接后排序实现。
+ *
+ * @author oyealex
+ * @since 2023-06-24
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MergeBenchmark {
+    @Benchmark
+    public List<Integer> mergeAlternately_pipe(BenchmarkData data) {
+        return data.pipe().mergeAlternately(data.pipe(data.others)).toList();
+    }
+
+    @Benchmark
+    public List<Integer> mergeAlternately_stream(BenchmarkData data) {
+        List<Integer> values = data.stream().collect(Collectors.toList());
+        List<Integer> others = data.stream(data.others).collect(Collectors.toList());
+        return IntStream.range(0, values.size())
+            .boxed()
+            .flatMap(index -> Stream.of(values.get(index), others.get(index)))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> mergeAlternately_streamEx(BenchmarkData data) {
+        return StreamEx.zip(data.streamEx().toList(), data.streamEx(data.others).toList(), Stream::of)
+            .flatMap(Function.identity())
+            .toList();
+    }
+
+    @Benchmark
+    public List<Integer> mergeSorted_pipe(BenchmarkData data) {
+        return data.pipe(data.sortedValues)
+            .merge(data.pipe(data.sortedOthers), (ours, theirs) -> ours <= theirs ? PREFER_OURS : PREFER_THEIRS,
+                TAKE_REMAINING)
+            .toList();
+    }
+
+    @Benchmark
+    public List<Integer> mergeSorted_stream(BenchmarkData data) {
+        return Stream.concat(data.stream(data.sortedValues), data.stream(data.sortedOthers))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> mergeSorted_streamEx(BenchmarkData data) {
+        return data.streamEx(data.sortedValues).append(data.streamEx(data.sortedOthers)).sorted().toList();
+    }
+}
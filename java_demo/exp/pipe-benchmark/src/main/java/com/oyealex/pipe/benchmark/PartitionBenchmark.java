@@ -0,0 +1,51 @@
+package com.oyealex.pipe.benchmark;
+
+import one.util.streamex.StreamEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 按固定大小分区的基准测试。
+ * <p/>
+ * {@link java.util.stream.Stream}和{@link StreamEx}没有直接对应的流式分区操作，基准以先收集为列表再按子列表切分的方式实现。
+ *
+ * @author oyealex
+ * @since 2023-06-24
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PartitionBenchmark {
+    private static final int PARTITION_SIZE = 64;
+
+    @Benchmark
+    public List<List<Integer>> partition_pipe(BenchmarkData data) {
+        return data.pipe().partitionToList(PARTITION_SIZE).toList();
+    }
+
+    @Benchmark
+    public List<List<Integer>> partition_stream(BenchmarkData data) {
+        List<Integer> list = data.stream().collect(Collectors.toList());
+        return IntStream.range(0, (list.size() + PARTITION_SIZE - 1) / PARTITION_SIZE)
+            .mapToObj(index -> list.subList(index * PARTITION_SIZE,
+                Math.min(list.size(), (index + 1) * PARTITION_SIZE)))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<List<Integer>> partition_streamEx(BenchmarkData data) {
+        return StreamEx.ofSubLists(data.streamEx().toList(), PARTITION_SIZE).toList();
+    }
+}
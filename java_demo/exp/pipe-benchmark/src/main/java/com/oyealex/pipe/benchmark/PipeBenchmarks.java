@@ -0,0 +1,28 @@
+package com.oyealex.pipe.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 在IDE中运行流水线基准测试的入口。
+ * <p/>
+ * 参数为需要运行的基准测试的正则表达式，例如{@code SortBenchmark}或{@code .*_pipe}，不指定时运行所有基准测试。
+ * 通过命令行运行时，可以使用{@code mvn package}构建的{@code target/benchmarks.jar}，支持JMH的全部命令行参数。
+ *
+ * @author oyealex
+ * @since 2023-06-24
+ */
+public class PipeBenchmarks {
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0) {
+            builder.include(PipeBenchmarks.class.getPackage().getName() + ".*");
+        }
+        for (String regex : args) {
+            builder.include(regex);
+        }
+        new Runner(builder.build()).run();
+    }
+}
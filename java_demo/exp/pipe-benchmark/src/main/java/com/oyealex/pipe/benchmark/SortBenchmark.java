@@ -0,0 +1,73 @@
+package com.oyealex.pipe.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 需要收集全部元素的有状态操作的基准测试：排序、排序后截取以及去重。
+ *
+ * @author oyealex
+ * @since 2023-06-24
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SortBenchmark {
+    private static final int TOP_SIZE = 10;
+
+    @Benchmark
+    public List<Integer> sort_pipe(BenchmarkData data) {
+        return data.pipe().sort().toList();
+    }
+
+    @Benchmark
+    public List<Integer> sort_stream(BenchmarkData data) {
+        return data.stream().sorted().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> sort_streamEx(BenchmarkData data) {
+        return data.streamEx().sorted().toList();
+    }
+
+    @Benchmark
+    public List<Integer> sortLimit_pipe(BenchmarkData data) {
+        return data.pipe().sort().limit(TOP_SIZE).toList();
+    }
+
+    @Benchmark
+    public List<Integer> sortLimit_stream(BenchmarkData data) {
+        return data.stream().sorted().limit(TOP_SIZE).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> sortLimit_streamEx(BenchmarkData data) {
+        return data.streamEx().sorted().limit(TOP_SIZE).toList();
+    }
+
+    @Benchmark
+    public List<Integer> distinct_pipe(BenchmarkData data) {
+        return data.pipe().distinct().toList();
+    }
+
+    @Benchmark
+    public List<Integer> distinct_stream(BenchmarkData data) {
+        return data.stream().distinct().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> distinct_streamEx(BenchmarkData data) {
+        return data.streamEx().distinct().toList();
+    }
+}
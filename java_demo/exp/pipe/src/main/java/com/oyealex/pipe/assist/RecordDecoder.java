@@ -0,0 +1,57 @@
+package com.oyealex.pipe.assist;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 记录解码器，将文件中以分隔符分隔的一段字节解码为一个记录。
+ * <p/>
+ * 文件中的记录以{@link #delimiter()}分隔，分隔符不属于任何记录，文件末尾的分隔符之后不会产生空记录。
+ * 记录的字节直接从内存映射的缓冲区中读取，解码器可以直接从字节中解析出记录，避免构造中间的字符串。
+ *
+ * @param <T> 记录类型
+ * @author oyealex
+ * @since 2023-06-25
+ */
+@FunctionalInterface
+public interface RecordDecoder<T> {
+    /**
+     * 将缓冲区中指定范围内的字节解码为一个记录。
+     * <p/>
+     * 缓冲区由多个记录共享，解码器只能以绝对位置读取指定范围内的字节，不能修改缓冲区，也不能在解码之后继续持有缓冲区。
+     *
+     * @param buffer 缓冲区
+     * @param offset 记录的第一个字节在缓冲区中的位置
+     * @param length 记录的字节数，不包括分隔符
+     * @return 记录
+     */
+    T decode(ByteBuffer buffer, int offset, int length);
+
+    /**
+     * 记录之间的分隔符，默认为换行符{@code '\n'}。
+     *
+     * @return 分隔符
+     */
+    default byte delimiter() {
+        return '\n';
+    }
+
+    /**
+     * 以UTF-8编码将每一行解码为字符串的解码器，行以{@code '\n'}或{@code "\r\n"}结尾。
+     *
+     * @return 行解码器
+     */
+    static RecordDecoder<String> utf8Lines() {
+        return (buffer, offset, length) -> {
+            if (length > 0 && buffer.get(offset + length - 1) == '\r') {
+                length--;
+            }
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            ((Buffer) view).position(offset);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        };
+    }
+}
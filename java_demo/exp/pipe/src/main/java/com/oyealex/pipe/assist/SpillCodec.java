@@ -0,0 +1,96 @@
+package com.oyealex.pipe.assist;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 溢出编解码器，将元素写入临时文件以及从临时文件中读回元素，用于元素数量超出内存预算的外部排序等场景。
+ * <p/>
+ * 编解码器只需要处理非{@code null}的元素，{@code null}元素由调用方单独标记。
+ *
+ * @param <T> 元素类型
+ * @author oyealex
+ * @since 2023-06-25
+ */
+public interface SpillCodec<T> {
+    /**
+     * 将元素写入输出。
+     *
+     * @param out 输出
+     * @param value 元素，不为{@code null}
+     * @throws IOException 写入失败时抛出
+     */
+    void write(DataOutput out, T value) throws IOException;
+
+    /**
+     * 从输入中读取一个元素，读取的字节必须与{@link #write(DataOutput, Object)}写入的字节一致。
+     *
+     * @param in 输入
+     * @return 元素
+     * @throws IOException 读取失败时抛出
+     */
+    T read(DataInput in) throws IOException;
+
+    /**
+     * 以UTF-8编码读写字符串的编解码器，不限制字符串的长度。
+     *
+     * @return 字符串编解码器
+     */
+    static SpillCodec<String> ofString() {
+        return new SpillCodec<String>() {
+            @Override
+            public void write(DataOutput out, String value) throws IOException {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * 读写{@link Integer}的编解码器。
+     *
+     * @return 整数编解码器
+     */
+    static SpillCodec<Integer> ofInteger() {
+        return new SpillCodec<Integer>() {
+            @Override
+            public void write(DataOutput out, Integer value) throws IOException {
+                out.writeInt(value);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+    }
+
+    /**
+     * 读写{@link Long}的编解码器。
+     *
+     * @return 长整数编解码器
+     */
+    static SpillCodec<Long> ofLong() {
+        return new SpillCodec<Long>() {
+            @Override
+            public void write(DataOutput out, Long value) throws IOException {
+                out.writeLong(value);
+            }
+
+            @Override
+            public Long read(DataInput in) throws IOException {
+                return in.readLong();
+            }
+        };
+    }
+}
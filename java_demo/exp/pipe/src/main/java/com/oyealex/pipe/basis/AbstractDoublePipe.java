@@ -0,0 +1,1191 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.flag.PipeFlag;
+import com.oyealex.pipe.functional.LongDoublePredicate;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+
+import static com.oyealex.pipe.flag.PipeFlag.EMPTY;
+import static com.oyealex.pipe.flag.PipeFlag.IS_DISTINCT;
+import static com.oyealex.pipe.flag.PipeFlag.IS_SHORT_CIRCUIT;
+import static com.oyealex.pipe.flag.PipeFlag.IS_SIZED;
+import static com.oyealex.pipe.flag.PipeFlag.IS_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_DISTINCT;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_REVERSED_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SIZED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.SHORT_CIRCUIT;
+import static com.oyealex.pipe.flag.PipeFlag.SPLIT_MASK;
+import static java.lang.Long.MAX_VALUE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * double流水线的抽象实现
+ * <p/>
+ * 结构与{@link RefPipe}一致：每个节点持有头节点和前置节点，执行终结操作时从尾部到头部逐级封装{@link DoubleOp}，
+ * 再以头节点的{@link Spliterator.OfDouble}驱动数据。元素以基本类型double在操作之间传递，排序和去重也直接基于double数组完成。
+ * <p/>
+ * 转换元素类型的操作（例如{@link #mapToLong(DoubleToLongFunction)}）会以映射拆分器作为数据源构造新的流水线头节点，
+ * 新流水线关闭时会同时关闭当前流水线。
+ *
+ * @author oyealex
+ * @see RefPipe
+ * @see DoubleOp
+ * @since 2023-06-22
+ */
+abstract class AbstractDoublePipe implements DoublePipe {
+    /** 整条流水线的头节点，非{@code null}。 */
+    final AbstractDoublePipe headPipe;
+
+    /** 此节点的前置节点，当且仅当此节点为头节点时为{@code null}。 */
+    final AbstractDoublePipe prePipe;
+
+    /** 流水线标记 */
+    final int flag;
+
+    AbstractDoublePipe(int flag) {
+        this.headPipe = this;
+        this.prePipe = null;
+        this.flag = flag;
+    }
+
+    AbstractDoublePipe(AbstractDoublePipe prePipe, int opFlag) {
+        this.headPipe = prePipe.headPipe;
+        this.prePipe = prePipe;
+        this.flag = PipeFlag.combine(prePipe.flag, opFlag);
+    }
+
+    /**
+     * 获取流水线的数据源，此数据源来自头节点。
+     *
+     * @return 流水线的数据源
+     * @apiNote 此方法仅允许调用一次。
+     * @implNote 仅头节点可以重写此方法。
+     */
+    Spliterator.OfDouble takeDataSource() {
+        return headPipe.takeDataSource();
+    }
+
+    /**
+     * 获取由引用类型流水线转换而来时继承的求值模式，只有头节点持有此状态。
+     * <p/>
+     * double流水线自身总是串行求值，此状态只在流水线之间相互转换时传递，使转换回的引用类型流水线保持原来的求值模式。
+     *
+     * @return {@code true} - 转换回引用类型流水线后并行求值。
+     * @implNote 仅头节点可以重写此方法。
+     */
+    boolean isParallel() {
+        return headPipe.isParallel();
+    }
+
+    /**
+     * 获取由引用类型流水线转换而来时继承的性能剖析器，只有头节点持有此状态，传递方式与{@link #isParallel()}相同。
+     *
+     * @return 性能剖析器，未开启性能剖析时为{@code null}
+     * @implNote 仅头节点可以重写此方法。
+     */
+    PipeProfiler profiler() {
+        return headPipe.profiler();
+    }
+
+    /**
+     * 将当前节点的操作和下游节点的操作封装为一个操作，此操作接受的元素为上游节点的输出元素。
+     *
+     * @param nextOp 下游节点的操作
+     * @return 封装之后的操作
+     */
+    protected abstract DoubleOp wrapOp(DoubleOp nextOp);
+
+    private <R> R evaluate(DoubleOp.Terminal<R> terminalOp) {
+        driveData(headPipe.takeDataSource(), terminalOp, terminalOp.getOpFlag());
+        return terminalOp.get();
+    }
+
+    /**
+     * 以给定的数据源驱动执行当前流水线中定义的所有元素操作，并以给定的{@code tailOp}作为最终的结尾操作。
+     *
+     * @param dataSource 数据源
+     * @param tailOp 结尾操作
+     * @param tailOpFlag 结尾操作的标记
+     */
+    void driveData(Spliterator.OfDouble dataSource, DoubleOp tailOp, int tailOpFlag) {
+        DoubleOp wrappedOp = wrapAllOp(tailOp);
+        wrappedOp.begin(dataSource.getExactSizeIfKnown());
+        if (SHORT_CIRCUIT.isSet(flag | tailOpFlag)) {
+            // 如果允许短路，则尝试短路遍历
+            do {/*noop*/} while (!wrappedOp.canShortCircuit() && dataSource.tryAdvance(wrappedOp));
+        } else {
+            // 否则直接执行全量遍历
+            dataSource.forEachRemaining(wrappedOp);
+        }
+        wrappedOp.end();
+    }
+
+    /**
+     * 以给定的操作作为流水线尾部操作，将整条流水线的所有节点的操作按顺序封装为一个操作。
+     *
+     * @param tailOp 流水线尾部操作
+     * @return 封装了所有流水线节点操作的操作方法
+     */
+    DoubleOp wrapAllOp(DoubleOp tailOp) {
+        DoubleOp wrappedOp = tailOp;
+        for (AbstractDoublePipe pipe = this; pipe != headPipe; pipe = pipe.prePipe) {
+            // 从尾部到头部，逐级逆向封装
+            wrappedOp = pipe.wrapOp(wrappedOp);
+        }
+        return wrappedOp;
+    }
+
+    @Override
+    public DoublePipe takeIf(DoublePredicate predicate) {
+        requireNonNull(predicate);
+        return new AbstractDoublePipe(this, NOT_SIZED) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return new DoubleOp.Chained(nextOp) {
+                    @Override
+                    public void begin(long size) {
+                        nextOp.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(double value) {
+                        if (predicate.test(value)) {
+                            nextOp.accept(value);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public DoublePipe takeIfOrderly(LongDoublePredicate predicate) {
+        requireNonNull(predicate);
+        return new AbstractDoublePipe(this, NOT_SIZED) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return new DoubleOp.Chained(nextOp) {
+                    private long index = 0L;
+
+                    @Override
+                    public void begin(long size) {
+                        nextOp.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(double value) {
+                        if (predicate.test(index++, value)) {
+                            nextOp.accept(value);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public DoublePipe map(DoubleUnaryOperator mapper) {
+        requireNonNull(mapper);
+        return new AbstractDoublePipe(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return new DoubleOp.Chained(nextOp) {
+                    @Override
+                    public void accept(double value) {
+                        nextOp.accept(mapper.applyAsDouble(value));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public IntPipe mapToInt(DoubleToIntFunction mapper) {
+        requireNonNull(mapper);
+        return new AbstractIntPipe.Head(MappingSpliterators.doubleToInt(toSpliterator(), mapper), isParallel(),
+            profiler()).onClose(this::close);
+    }
+
+    @Override
+    public LongPipe mapToLong(DoubleToLongFunction mapper) {
+        requireNonNull(mapper);
+        return new AbstractLongPipe.Head(MappingSpliterators.doubleToLong(toSpliterator(), mapper), isParallel(),
+            profiler()).onClose(this::close);
+    }
+
+    @Override
+    public <R> Pipe<R> mapToObj(DoubleFunction<? extends R> mapper) {
+        requireNonNull(mapper);
+        return new PipeHead<R>(MappingSpliterators.doubleToObj(toSpliterator(), mapper), isParallel(),
+            profiler()).onClose(this::close);
+    }
+
+    @Override
+    public DoublePipe flatMap(DoubleFunction<? extends DoublePipe> mapper) {
+        requireNonNull(mapper);
+        return new AbstractDoublePipe(this, NOT_SIZED | NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return new DoubleOp.Chained(nextOp) {
+                    private boolean isShortCircuitRequested = false;
+
+                    @Override
+                    public void begin(long size) {
+                        nextOp.begin(-1);
+                    }
+
+                    @Override
+                    public boolean canShortCircuit() {
+                        isShortCircuitRequested = true;
+                        return nextOp.canShortCircuit();
+                    }
+
+                    @Override
+                    public void accept(double value) {
+                        // 新的流水线可能包含了关闭方法，需要确保调用close方法
+                        try (DoublePipe pipe = mapper.apply(value)) {
+                            if (pipe == null) {
+                                return;
+                            }
+                            if (isShortCircuitRequested) {
+                                Spliterator.OfDouble split = pipe.toSpliterator();
+                                while (!nextOp.canShortCircuit() && split.tryAdvance(nextOp)) {
+                                    // nothing
+                                }
+                            } else {
+                                pipe.forEach(nextOp);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public DoublePipe peek(DoubleConsumer consumer) {
+        requireNonNull(consumer);
+        return new AbstractDoublePipe(this, EMPTY) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return new DoubleOp.Chained(nextOp) {
+                    @Override
+                    public void accept(double value) {
+                        consumer.accept(value);
+                        nextOp.accept(value);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public DoublePipe limit(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("limit size cannot be negative, size: " + size);
+        }
+        if (size == 0) {
+            return DoublePipe.empty();
+        }
+        return size == MAX_VALUE ? this : slice(0, size);
+    }
+
+    @Override
+    public DoublePipe skip(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("skip size cannot be negative, size: " + size);
+        }
+        if (size == 0) {
+            return this;
+        }
+        return size == MAX_VALUE ? DoublePipe.empty() : slice(size, MAX_VALUE);
+    }
+
+    private DoublePipe slice(long skip, long limit) {
+        return new AbstractDoublePipe(this, NOT_SIZED | (limit != MAX_VALUE ? IS_SHORT_CIRCUIT : EMPTY)) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return new DoubleOp.Chained(nextOp) {
+                    private long skipped = 0L;
+
+                    private long limited = 0L;
+
+                    @Override
+                    public void begin(long size) {
+                        nextOp.begin(size <= 0 ? size : Math.min(Math.max(0, size - skip), limit));
+                    }
+
+                    @Override
+                    public void accept(double value) {
+                        if (skipped < skip) {
+                            skipped++;
+                        } else if (limited < limit) {
+                            limited++;
+                            nextOp.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public boolean canShortCircuit() {
+                        return limited >= limit || nextOp.canShortCircuit();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public DoublePipe sort() {
+        if (PipeFlag.SORTED.isSet(flag)) {
+            return this;
+        }
+        return new AbstractDoublePipe(this, IS_SORTED | NOT_REVERSED_SORTED) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return new DoubleOp.ArrayRepeater(nextOp) {
+                    @Override
+                    protected void beforeEnd() {
+                        PrimitiveArrays.sort(elements, count);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public DoublePipe cache() {
+        return this instanceof CachedHead ? this : new CachedHead(this).onClose(this::close);
+    }
+
+    @Override
+    public DoublePipe distinct() {
+        if (PipeFlag.DISTINCT.isSet(flag)) {
+            return this;
+        }
+        boolean isSorted = PipeFlag.SORTED.isSet(flag);
+        return new AbstractDoublePipe(this, IS_DISTINCT | NOT_SIZED) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return isSorted ? new SortedDistinctOp(nextOp) : new HashDistinctOp(nextOp);
+            }
+        };
+    }
+
+    @Override
+    public DoublePipe slidingSum(int size) {
+        PrimitiveArrays.checkWindowSize(size);
+        return new AbstractDoublePipe(this, NOT_SIZED | NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return new SlidingSumOp(nextOp, size);
+            }
+        };
+    }
+
+    @Override
+    public DoublePipe slidingMin(int size) {
+        return slidingExtreme(size, false);
+    }
+
+    @Override
+    public DoublePipe slidingMax(int size) {
+        return slidingExtreme(size, true);
+    }
+
+    private DoublePipe slidingExtreme(int size, boolean isMax) {
+        PrimitiveArrays.checkWindowSize(size);
+        return new AbstractDoublePipe(this, NOT_SIZED | NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
+            @Override
+            protected DoubleOp wrapOp(DoubleOp nextOp) {
+                return new SlidingExtremeOp(nextOp, size, isMax);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(DoubleConsumer consumer) {
+        requireNonNull(consumer);
+        evaluate(new DoubleOp.Terminal<Void>() {
+            @Override
+            public void accept(double value) {
+                consumer.accept(value);
+            }
+
+            @Override
+            public Void get() {
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public double sum() {
+        return evaluate(new DoubleOp.Terminal<Double>() {
+            private double sum = 0D;
+
+            /** 累加过程中丢失的低位部分 */
+            private double compensation = 0D;
+
+            /** 直接累加的结果，用于元素中存在无穷大时得到正确的结果 */
+            private double simpleSum = 0D;
+
+            @Override
+            public void accept(double value) {
+                simpleSum += value;
+                double adjusted = value - compensation;
+                double total = sum + adjusted;
+                compensation = (total - sum) - adjusted;
+                sum = total;
+            }
+
+            @Override
+            public Double get() {
+                // 补偿求和在存在无穷大时会得到NaN，此时以直接累加的结果为准
+                return Double.isNaN(sum) && Double.isInfinite(simpleSum) ? simpleSum : sum;
+            }
+        });
+    }
+
+    @Override
+    public long count() {
+        return evaluate(new DoubleOp.Terminal<Long>() {
+            private long count = 0L;
+
+            @Override
+            public void accept(double value) {
+                count++;
+            }
+
+            @Override
+            public Long get() {
+                return count;
+            }
+        });
+    }
+
+    @Override
+    public OptionalDouble min() {
+        return reduce(Math::min);
+    }
+
+    @Override
+    public OptionalDouble max() {
+        return reduce(Math::max);
+    }
+
+    @Override
+    public OptionalDouble average() {
+        DoubleSummaryStatistics statistics = summaryStatistics();
+        return statistics.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(statistics.getAverage());
+    }
+
+    @Override
+    public DoubleSummaryStatistics summaryStatistics() {
+        return evaluate(new DoubleOp.Terminal<DoubleSummaryStatistics>() {
+            private final DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+
+            @Override
+            public void accept(double value) {
+                statistics.accept(value);
+            }
+
+            @Override
+            public DoubleSummaryStatistics get() {
+                return statistics;
+            }
+        });
+    }
+
+    @Override
+    public double reduce(double initVar, DoubleBinaryOperator reducer) {
+        requireNonNull(reducer);
+        return evaluate(new DoubleOp.Terminal<Double>() {
+            private double result = initVar;
+
+            @Override
+            public void accept(double value) {
+                result = reducer.applyAsDouble(result, value);
+            }
+
+            @Override
+            public Double get() {
+                return result;
+            }
+        });
+    }
+
+    @Override
+    public OptionalDouble reduce(DoubleBinaryOperator reducer) {
+        requireNonNull(reducer);
+        return evaluate(new DoubleOp.Terminal<OptionalDouble>() {
+            private boolean isPresent = false;
+
+            private double result;
+
+            @Override
+            public void accept(double value) {
+                if (isPresent) {
+                    result = reducer.applyAsDouble(result, value);
+                } else {
+                    isPresent = true;
+                    result = value;
+                }
+            }
+
+            @Override
+            public OptionalDouble get() {
+                return isPresent ? OptionalDouble.of(result) : OptionalDouble.empty();
+            }
+        });
+    }
+
+    @Override
+    public boolean anyMatch(DoublePredicate predicate) {
+        requireNonNull(predicate);
+        return evaluate(new MatchOp() {
+            @Override
+            public void accept(double value) {
+                if (!isDone && predicate.test(value)) {
+                    isDone = true;
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean allMatch(DoublePredicate predicate) {
+        requireNonNull(predicate);
+        return !evaluate(new MatchOp() {
+            @Override
+            public void accept(double value) {
+                if (!isDone && !predicate.test(value)) {
+                    isDone = true;
+                }
+            }
+        });
+    }
+
+    @Override
+    public OptionalDouble findFirst() {
+        return evaluate(new DoubleOp.Terminal<OptionalDouble>() {
+            private boolean isPresent = false;
+
+            private double first;
+
+            @Override
+            public void accept(double value) {
+                if (!isPresent) {
+                    isPresent = true;
+                    first = value;
+                }
+            }
+
+            @Override
+            public boolean canShortCircuit() {
+                return isPresent;
+            }
+
+            @Override
+            int getOpFlag() {
+                return IS_SHORT_CIRCUIT;
+            }
+
+            @Override
+            public OptionalDouble get() {
+                return isPresent ? OptionalDouble.of(first) : OptionalDouble.empty();
+            }
+        });
+    }
+
+    @Override
+    public OptionalDouble findLast() {
+        return evaluate(new DoubleOp.Terminal<OptionalDouble>() {
+            private boolean isPresent = false;
+
+            private double last;
+
+            @Override
+            public void accept(double value) {
+                isPresent = true;
+                last = value;
+            }
+
+            @Override
+            public OptionalDouble get() {
+                return isPresent ? OptionalDouble.of(last) : OptionalDouble.empty();
+            }
+        });
+    }
+
+    @Override
+    public double[] toArray() {
+        return evaluate(new DoubleOp.Terminal<double[]>() {
+            private double[] elements;
+
+            private int count;
+
+            @Override
+            public void begin(long size) {
+                elements = new double[PrimitiveArrays.initCapacity(size)];
+                count = 0;
+            }
+
+            @Override
+            public void accept(double value) {
+                if (count == elements.length) {
+                    elements = PrimitiveArrays.grow(elements);
+                }
+                elements[count++] = value;
+            }
+
+            @Override
+            public double[] get() {
+                return count == elements.length ? elements : Arrays.copyOf(elements, count);
+            }
+        });
+    }
+
+    @Override
+    public long[] histogram(double lower, double upper, int binCount) {
+        PrimitiveArrays.checkHistogramArgs(lower, upper, binCount);
+        return evaluate(new DoubleOp.Terminal<long[]>() {
+            private final long[] bins = new long[binCount];
+
+            @Override
+            public void accept(double value) {
+                int index = PrimitiveArrays.binIndex(value, lower, upper, binCount);
+                if (index >= 0) {
+                    bins[index]++;
+                }
+            }
+
+            @Override
+            public long[] get() {
+                return bins;
+            }
+        });
+    }
+
+    @Override
+    public Spliterator.OfDouble toSpliterator() {
+        return this == headPipe ? headPipe.takeDataSource() : new WrappedSpliterator(this, headPipe.takeDataSource());
+    }
+
+    @Override
+    public PrimitiveIterator.OfDouble toIterator() {
+        return Spliterators.iterator(toSpliterator());
+    }
+
+    @Override
+    public DoublePipe onClose(Runnable closeAction) {
+        headPipe.onClose(requireNonNull(closeAction));
+        return this;
+    }
+
+    @Override
+    public void close() {
+        headPipe.close();
+    }
+
+    /**
+     * 短路的匹配操作，{@link #isDone}为{@code true}时即可结束遍历。
+     */
+    private abstract static class MatchOp extends DoubleOp.Terminal<Boolean> {
+        /** 是否已经遇到决定结果的元素 */
+        protected boolean isDone = false;
+
+        @Override
+        public boolean canShortCircuit() {
+            return isDone;
+        }
+
+        @Override
+        int getOpFlag() {
+            return IS_SHORT_CIRCUIT;
+        }
+
+        @Override
+        public Boolean get() {
+            return isDone;
+        }
+    }
+
+    /**
+     * 针对已排序元素的去重操作，只需要比较相邻的元素，与{@link Double#equals(Object)}一致，以位表示判断元素是否相同。
+     */
+    private static final class SortedDistinctOp extends DoubleOp.Chained {
+        private boolean hasLast = false;
+
+        private double last;
+
+        SortedDistinctOp(DoubleOp nextOp) {
+            super(nextOp);
+        }
+
+        @Override
+        public void begin(long size) {
+            nextOp.begin(-1);
+        }
+
+        @Override
+        public void accept(double value) {
+            if (!hasLast || Double.doubleToLongBits(value) != Double.doubleToLongBits(last)) {
+                hasLast = true;
+                last = value;
+                nextOp.accept(value);
+            }
+        }
+    }
+
+    /**
+     * 基于{@link LongHashSet}的去重操作，集合中记录元素的位表示。
+     */
+    private static final class HashDistinctOp extends DoubleOp.Chained {
+        private LongHashSet seen;
+
+        HashDistinctOp(DoubleOp nextOp) {
+            super(nextOp);
+        }
+
+        @Override
+        public void begin(long size) {
+            // 上游的元素数量只是去重结果数量的上界，预分配的容量不超过上限，超出的部分由集合自行扩容
+            seen = size > 0 ? new LongHashSet((int) Math.min(size, Op.MAX_PRESIZE_CAPACITY)) : new LongHashSet();
+            nextOp.begin(-1);
+        }
+
+        @Override
+        public void accept(double value) {
+            if (seen.add(Double.doubleToLongBits(value))) {
+                nextOp.accept(value);
+            }
+        }
+
+        @Override
+        public void end() {
+            seen = null;
+            nextOp.end();
+        }
+    }
+
+    /**
+     * 滑动窗口求和操作，以环形数组保存窗口中的元素，每个元素流入时只需要加上新元素、减去移出窗口的元素。
+     * <p/>
+     * 增量计算的舍入误差会不断累积，因此环形数组每循环一次就以窗口中的元素重新计算一次和，均摊到每个元素的时间不变。
+     * 非有限值不参与增量计算，而是分别记录窗口中正无穷、负无穷以及NaN的数量，避免其移出窗口之后仍然影响后续窗口的和。
+     */
+    private static final class SlidingSumOp extends DoubleOp.Chained {
+        private final int windowSize;
+
+        private double[] window;
+
+        /** 下一个元素在环形数组中的下标 */
+        private int index;
+
+        private long count;
+
+        /** 窗口中所有有限值的和 */
+        private double finiteSum;
+
+        /** 窗口中正无穷的数量 */
+        private int positiveInfinityCount;
+
+        /** 窗口中负无穷的数量 */
+        private int negativeInfinityCount;
+
+        /** 窗口中NaN的数量 */
+        private int nanCount;
+
+        SlidingSumOp(DoubleOp nextOp, int windowSize) {
+            super(nextOp);
+            this.windowSize = windowSize;
+        }
+
+        @Override
+        public void begin(long size) {
+            window = new double[windowSize];
+            nextOp.begin(-1);
+        }
+
+        @Override
+        public void accept(double value) {
+            double removed = window[index];
+            if (Double.isFinite(removed)) {
+                finiteSum -= removed;
+            } else {
+                countNonFinite(removed, -1);
+            }
+            if (Double.isFinite(value)) {
+                finiteSum += value;
+            } else {
+                countNonFinite(value, 1);
+            }
+            window[index] = value;
+            if (++index == windowSize) {
+                index = 0;
+                finiteSum = 0.0;
+                for (double element : window) {
+                    if (Double.isFinite(element)) {
+                        finiteSum += element;
+                    }
+                }
+            }
+            if (++count >= windowSize) {
+                nextOp.accept(currentSum());
+            }
+        }
+
+        private void countNonFinite(double value, int delta) {
+            if (Double.isNaN(value)) {
+                nanCount += delta;
+            } else if (value > 0) {
+                positiveInfinityCount += delta;
+            } else {
+                negativeInfinityCount += delta;
+            }
+        }
+
+        private double currentSum() {
+            if (nanCount > 0 || positiveInfinityCount > 0 && negativeInfinityCount > 0) {
+                return Double.NaN;
+            }
+            if (positiveInfinityCount > 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return negativeInfinityCount > 0 ? Double.NEGATIVE_INFINITY : finiteSum;
+        }
+
+        @Override
+        public void end() {
+            window = null;
+            nextOp.end();
+        }
+    }
+
+    /**
+     * 滑动窗口求最值操作，以环形数组实现的单调队列保存窗口中可能成为最值的元素及其次序，
+     * 每个元素最多入队和出队一次。
+     */
+    private static final class SlidingExtremeOp extends DoubleOp.Chained {
+        private final int windowSize;
+
+        private final boolean isMax;
+
+        private double[] values;
+
+        private long[] indexes;
+
+        /** 队首在环形数组中的下标 */
+        private int head;
+
+        private int length;
+
+        private long count;
+
+        /** 最近一个{@code NaN}的次序 */
+        private long lastNaNIndex = Long.MIN_VALUE;
+
+        SlidingExtremeOp(DoubleOp nextOp, int windowSize, boolean isMax) {
+            super(nextOp);
+            this.windowSize = windowSize;
+            this.isMax = isMax;
+        }
+
+        @Override
+        public void begin(long size) {
+            values = new double[windowSize];
+            indexes = new long[windowSize];
+            nextOp.begin(-1);
+        }
+
+        @Override
+        public void accept(double value) {
+            if (length > 0 && indexes[head] <= count - windowSize) {
+                // 队首已经移出窗口
+                head = position(1);
+                length--;
+            }
+            if (Double.isNaN(value)) {
+                // NaN不参与比较，只记录其次序，窗口中存在NaN时结果即为NaN
+                lastNaNIndex = count;
+            } else {
+                offer(value);
+            }
+            if (++count >= windowSize) {
+                nextOp.accept(lastNaNIndex > count - 1 - windowSize ? Double.NaN : values[head]);
+            }
+        }
+
+        private void offer(double value) {
+            // 弹出队尾不会再成为最值的元素
+            while (length > 0 && isDominated(values[position(length - 1)], value)) {
+                length--;
+            }
+            int tail = position(length++);
+            values[tail] = value;
+            indexes[tail] = count;
+        }
+
+        private boolean isDominated(double previous, double value) {
+            return isMax ? Double.compare(previous, value) <= 0 : Double.compare(previous, value) >= 0;
+        }
+
+        private int position(int offset) {
+            int position = head + offset;
+            return position >= windowSize ? position - windowSize : position;
+        }
+
+        @Override
+        public void end() {
+            values = null;
+            indexes = null;
+            nextOp.end();
+        }
+    }
+
+    /**
+     * double流水线的头节点，持有数据源以及关闭时执行的动作。
+     */
+    static class Head extends AbstractDoublePipe {
+        /** 流水线数据源 */
+        private Spliterator.OfDouble sourceSpliterator;
+
+        /** 流水线关闭时执行的动作 */
+        private Runnable closeAction;
+
+        /** 继承的求值模式 */
+        private final boolean parallel;
+
+        /** 继承的性能剖析器，未开启性能剖析时为{@code null} */
+        private final PipeProfiler profiler;
+
+        Head(Spliterator.OfDouble sourceSpliterator) {
+            this(sourceSpliterator, false, null);
+        }
+
+        /**
+         * 构造由其他流水线转换而来的头节点，继承原流水线的求值模式和性能剖析器。
+         *
+         * @param sourceSpliterator 流水线数据源
+         * @param parallel 原流水线的求值模式
+         * @param profiler 原流水线的性能剖析器
+         */
+        Head(Spliterator.OfDouble sourceSpliterator, boolean parallel, PipeProfiler profiler) {
+            super(PipeFlag.fromSpliterator(sourceSpliterator));
+            this.sourceSpliterator = sourceSpliterator;
+            this.parallel = parallel;
+            this.profiler = profiler;
+        }
+
+        /**
+         * 以给定的标记构造没有预先给定数据源的头节点，数据源由子类提供。
+         *
+         * @param flag 流水线标记
+         * @param parallel 继承的求值模式
+         * @param profiler 继承的性能剖析器
+         */
+        Head(int flag, boolean parallel, PipeProfiler profiler) {
+            super(flag);
+            this.parallel = parallel;
+            this.profiler = profiler;
+        }
+
+        @Override
+        boolean isParallel() {
+            return parallel;
+        }
+
+        @Override
+        PipeProfiler profiler() {
+            return profiler;
+        }
+
+        @Override
+        Spliterator.OfDouble takeDataSource() {
+            Spliterator.OfDouble spliterator = sourceSpliterator;
+            sourceSpliterator = null;
+            return spliterator;
+        }
+
+        @Override
+        protected DoubleOp wrapOp(DoubleOp nextOp) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DoublePipe onClose(Runnable closeAction) {
+            this.closeAction = this.closeAction == null ? closeAction :
+                PipeHead.composeAction(this.closeAction, closeAction);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            Runnable action = closeAction;
+            if (action != null) {
+                closeAction = null;
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * 缓存上游流水线全部输出的头节点，首次需要数据源时执行上游流水线并将其输出缓存在double数组中，之后每次需要数据源时
+     * 都返回访问此数组的新拆分器。
+     */
+    static final class CachedHead extends Head {
+        /** 上游流水线，缓存之后为{@code null} */
+        private AbstractDoublePipe sourcePipe;
+
+        /** 上游流水线的全部输出，缓存之前为{@code null} */
+        private double[] elements;
+
+        /** 首次执行上游流水线时抛出的异常，未失败时为{@code null} */
+        private Throwable failure;
+
+        CachedHead(AbstractDoublePipe sourcePipe) {
+            // 缓存的数据量总是确定的，且遍历缓存无需再考虑上游的短路操作
+            super(PipeFlag.combine(sourcePipe.flag, IS_SIZED) & ~IS_SHORT_CIRCUIT, sourcePipe.isParallel(),
+                sourcePipe.profiler());
+            this.sourcePipe = sourcePipe;
+        }
+
+        @Override
+        synchronized Spliterator.OfDouble takeDataSource() {
+            if (elements == null) {
+                // 上游流水线只能执行一次，执行失败之后只能报告此前的失败
+                CachedPipe.checkNotFailed(failure);
+                AbstractDoublePipe pipe = sourcePipe;
+                sourcePipe = null;
+                try {
+                    elements = pipe.toArray();
+                } catch (Throwable throwable) {
+                    failure = throwable;
+                    throw throwable;
+                }
+            }
+            return Spliterators.spliterator(elements, PipeFlag.toSpliteratorFlag(flag) | Spliterator.IMMUTABLE);
+        }
+    }
+
+    /**
+     * 将double流水线中的元素包装为拆分器，原理与{@link PipeSpliterator}一致。
+     * <p/>
+     * 逐个访问元素时，流水线中的一个元素可能产生多个输出元素（例如{@link #flatMap(DoubleFunction)}），
+     * 也可能在结束时才输出全部元素（例如{@link #sort()}），因此使用double数组缓存流出的元素。
+     */
+    private static final class WrappedSpliterator implements Spliterator.OfDouble {
+        /** 被包装的流水线 */
+        private final AbstractDoublePipe pipe;
+
+        /** 被包装流水线的数据源 */
+        private final Spliterator.OfDouble split;
+
+        /** 已经封装了流水线全部节点操作，并最终将元素流入缓存的操作方法 */
+        private DoubleOp wrappedOfferOp;
+
+        private double[] buffer;
+
+        /** 缓存中下一个待访问元素的下标 */
+        private int bufferIndex;
+
+        /** 缓存中元素的数量 */
+        private int bufferSize;
+
+        /** 是否已经完整遍历 */
+        private boolean isCompleted = false;
+
+        WrappedSpliterator(AbstractDoublePipe pipe, Spliterator.OfDouble split) {
+            this.pipe = pipe;
+            this.split = split;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (wrappedOfferOp == null) {
+                if (isCompleted) {
+                    return false;
+                }
+                buffer = new double[PrimitiveArrays.initCapacity(-1)];
+                wrappedOfferOp = pipe.wrapAllOp(value -> {
+                    if (bufferSize == buffer.length) {
+                        buffer = PrimitiveArrays.grow(buffer);
+                    }
+                    buffer[bufferSize++] = value;
+                });
+                wrappedOfferOp.begin(split.getExactSizeIfKnown());
+            }
+            while (bufferIndex == bufferSize) {
+                if (isCompleted) {
+                    return false;
+                }
+                bufferIndex = 0;
+                bufferSize = 0;
+                if (wrappedOfferOp.canShortCircuit() || !split.tryAdvance(wrappedOfferOp)) {
+                    // 结束时可能还会流出元素
+                    isCompleted = true;
+                    wrappedOfferOp.end();
+                }
+            }
+            action.accept(buffer[bufferIndex++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            if (wrappedOfferOp == null && !isCompleted) {
+                isCompleted = true;
+                pipe.driveData(split, action::accept, EMPTY);
+            } else {
+                do { /*noop*/ } while (tryAdvance(action));
+            }
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            // can not split anymore
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return split.estimateSize();
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return PipeFlag.SIZED.isSet(pipe.flag) ? split.getExactSizeIfKnown() : -1;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = pipe.flag & SPLIT_MASK;
+            if ((characteristics & SIZED) == SIZED) {
+                characteristics &= ~(SIZED | SUBSIZED);
+            }
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super Double> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,1124 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.flag.PipeFlag;
+import com.oyealex.pipe.functional.LongLongPredicate;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LongSummaryStatistics;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+
+import static com.oyealex.pipe.flag.PipeFlag.EMPTY;
+import static com.oyealex.pipe.flag.PipeFlag.IS_DISTINCT;
+import static com.oyealex.pipe.flag.PipeFlag.IS_SHORT_CIRCUIT;
+import static com.oyealex.pipe.flag.PipeFlag.IS_SIZED;
+import static com.oyealex.pipe.flag.PipeFlag.IS_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_DISTINCT;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_REVERSED_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SIZED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.SHORT_CIRCUIT;
+import static com.oyealex.pipe.flag.PipeFlag.SPLIT_MASK;
+import static java.lang.Long.MAX_VALUE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * long流水线的抽象实现
+ * <p/>
+ * 结构与{@link RefPipe}一致：每个节点持有头节点和前置节点，执行终结操作时从尾部到头部逐级封装{@link LongOp}，
+ * 再以头节点的{@link Spliterator.OfLong}驱动数据。元素以基本类型long在操作之间传递，排序和去重也直接基于long数组完成。
+ * <p/>
+ * 转换元素类型的操作（例如{@link #mapToInt(LongToIntFunction)}）会以映射拆分器作为数据源构造新的流水线头节点，
+ * 新流水线关闭时会同时关闭当前流水线。
+ *
+ * @author oyealex
+ * @see RefPipe
+ * @see LongOp
+ * @since 2023-06-22
+ */
+abstract class AbstractLongPipe implements LongPipe {
+    /** 整条流水线的头节点，非{@code null}。 */
+    final AbstractLongPipe headPipe;
+
+    /** 此节点的前置节点，当且仅当此节点为头节点时为{@code null}。 */
+    final AbstractLongPipe prePipe;
+
+    /** 流水线标记 */
+    final int flag;
+
+    AbstractLongPipe(int flag) {
+        this.headPipe = this;
+        this.prePipe = null;
+        this.flag = flag;
+    }
+
+    AbstractLongPipe(AbstractLongPipe prePipe, int opFlag) {
+        this.headPipe = prePipe.headPipe;
+        this.prePipe = prePipe;
+        this.flag = PipeFlag.combine(prePipe.flag, opFlag);
+    }
+
+    /**
+     * 获取流水线的数据源，此数据源来自头节点。
+     *
+     * @return 流水线的数据源
+     * @apiNote 此方法仅允许调用一次。
+     * @implNote 仅头节点可以重写此方法。
+     */
+    Spliterator.OfLong takeDataSource() {
+        return headPipe.takeDataSource();
+    }
+
+    /**
+     * 获取由引用类型流水线转换而来时继承的求值模式，只有头节点持有此状态。
+     * <p/>
+     * long流水线自身总是串行求值，此状态只在流水线之间相互转换时传递，使转换回的引用类型流水线保持原来的求值模式。
+     *
+     * @return {@code true} - 转换回引用类型流水线后并行求值。
+     * @implNote 仅头节点可以重写此方法。
+     */
+    boolean isParallel() {
+        return headPipe.isParallel();
+    }
+
+    /**
+     * 获取由引用类型流水线转换而来时继承的性能剖析器，只有头节点持有此状态，传递方式与{@link #isParallel()}相同。
+     *
+     * @return 性能剖析器，未开启性能剖析时为{@code null}
+     * @implNote 仅头节点可以重写此方法。
+     */
+    PipeProfiler profiler() {
+        return headPipe.profiler();
+    }
+
+    /**
+     * 将当前节点的操作和下游节点的操作封装为一个操作，此操作接受的元素为上游节点的输出元素。
+     *
+     * @param nextOp 下游节点的操作
+     * @return 封装之后的操作
+     */
+    protected abstract LongOp wrapOp(LongOp nextOp);
+
+    private <R> R evaluate(LongOp.Terminal<R> terminalOp) {
+        driveData(headPipe.takeDataSource(), terminalOp, terminalOp.getOpFlag());
+        return terminalOp.get();
+    }
+
+    /**
+     * 以给定的数据源驱动执行当前流水线中定义的所有元素操作，并以给定的{@code tailOp}作为最终的结尾操作。
+     *
+     * @param dataSource 数据源
+     * @param tailOp 结尾操作
+     * @param tailOpFlag 结尾操作的标记
+     */
+    void driveData(Spliterator.OfLong dataSource, LongOp tailOp, int tailOpFlag) {
+        LongOp wrappedOp = wrapAllOp(tailOp);
+        wrappedOp.begin(dataSource.getExactSizeIfKnown());
+        if (SHORT_CIRCUIT.isSet(flag | tailOpFlag)) {
+            // 如果允许短路，则尝试短路遍历
+            do {/*noop*/} while (!wrappedOp.canShortCircuit() && dataSource.tryAdvance(wrappedOp));
+        } else {
+            // 否则直接执行全量遍历
+            dataSource.forEachRemaining(wrappedOp);
+        }
+        wrappedOp.end();
+    }
+
+    /**
+     * 以给定的操作作为流水线尾部操作，将整条流水线的所有节点的操作按顺序封装为一个操作。
+     *
+     * @param tailOp 流水线尾部操作
+     * @return 封装了所有流水线节点操作的操作方法
+     */
+    LongOp wrapAllOp(LongOp tailOp) {
+        LongOp wrappedOp = tailOp;
+        for (AbstractLongPipe pipe = this; pipe != headPipe; pipe = pipe.prePipe) {
+            // 从尾部到头部，逐级逆向封装
+            wrappedOp = pipe.wrapOp(wrappedOp);
+        }
+        return wrappedOp;
+    }
+
+    @Override
+    public LongPipe takeIf(LongPredicate predicate) {
+        requireNonNull(predicate);
+        return new AbstractLongPipe(this, NOT_SIZED) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return new LongOp.Chained(nextOp) {
+                    @Override
+                    public void begin(long size) {
+                        nextOp.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(long value) {
+                        if (predicate.test(value)) {
+                            nextOp.accept(value);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public LongPipe takeIfOrderly(LongLongPredicate predicate) {
+        requireNonNull(predicate);
+        return new AbstractLongPipe(this, NOT_SIZED) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return new LongOp.Chained(nextOp) {
+                    private long index = 0L;
+
+                    @Override
+                    public void begin(long size) {
+                        nextOp.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(long value) {
+                        if (predicate.test(index++, value)) {
+                            nextOp.accept(value);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public LongPipe map(LongUnaryOperator mapper) {
+        requireNonNull(mapper);
+        return new AbstractLongPipe(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return new LongOp.Chained(nextOp) {
+                    @Override
+                    public void accept(long value) {
+                        nextOp.accept(mapper.applyAsLong(value));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public IntPipe mapToInt(LongToIntFunction mapper) {
+        requireNonNull(mapper);
+        return new AbstractIntPipe.Head(MappingSpliterators.longToInt(toSpliterator(), mapper), isParallel(),
+            profiler()).onClose(this::close);
+    }
+
+    @Override
+    public DoublePipe mapToDouble(LongToDoubleFunction mapper) {
+        requireNonNull(mapper);
+        return new AbstractDoublePipe.Head(MappingSpliterators.longToDouble(toSpliterator(), mapper), isParallel(),
+            profiler()).onClose(this::close);
+    }
+
+    @Override
+    public <R> Pipe<R> mapToObj(LongFunction<? extends R> mapper) {
+        requireNonNull(mapper);
+        return new PipeHead<R>(MappingSpliterators.longToObj(toSpliterator(), mapper), isParallel(),
+            profiler()).onClose(this::close);
+    }
+
+    @Override
+    public LongPipe flatMap(LongFunction<? extends LongPipe> mapper) {
+        requireNonNull(mapper);
+        return new AbstractLongPipe(this, NOT_SIZED | NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return new LongOp.Chained(nextOp) {
+                    private boolean isShortCircuitRequested = false;
+
+                    @Override
+                    public void begin(long size) {
+                        nextOp.begin(-1);
+                    }
+
+                    @Override
+                    public boolean canShortCircuit() {
+                        isShortCircuitRequested = true;
+                        return nextOp.canShortCircuit();
+                    }
+
+                    @Override
+                    public void accept(long value) {
+                        // 新的流水线可能包含了关闭方法，需要确保调用close方法
+                        try (LongPipe pipe = mapper.apply(value)) {
+                            if (pipe == null) {
+                                return;
+                            }
+                            if (isShortCircuitRequested) {
+                                Spliterator.OfLong split = pipe.toSpliterator();
+                                while (!nextOp.canShortCircuit() && split.tryAdvance(nextOp)) {
+                                    // nothing
+                                }
+                            } else {
+                                pipe.forEach(nextOp);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public LongPipe peek(LongConsumer consumer) {
+        requireNonNull(consumer);
+        return new AbstractLongPipe(this, EMPTY) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return new LongOp.Chained(nextOp) {
+                    @Override
+                    public void accept(long value) {
+                        consumer.accept(value);
+                        nextOp.accept(value);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public LongPipe limit(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("limit size cannot be negative, size: " + size);
+        }
+        if (size == 0) {
+            return LongPipe.empty();
+        }
+        return size == MAX_VALUE ? this : slice(0, size);
+    }
+
+    @Override
+    public LongPipe skip(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("skip size cannot be negative, size: " + size);
+        }
+        if (size == 0) {
+            return this;
+        }
+        return size == MAX_VALUE ? LongPipe.empty() : slice(size, MAX_VALUE);
+    }
+
+    private LongPipe slice(long skip, long limit) {
+        return new AbstractLongPipe(this, NOT_SIZED | (limit != MAX_VALUE ? IS_SHORT_CIRCUIT : EMPTY)) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return new LongOp.Chained(nextOp) {
+                    private long skipped = 0L;
+
+                    private long limited = 0L;
+
+                    @Override
+                    public void begin(long size) {
+                        nextOp.begin(size <= 0 ? size : Math.min(Math.max(0, size - skip), limit));
+                    }
+
+                    @Override
+                    public void accept(long value) {
+                        if (skipped < skip) {
+                            skipped++;
+                        } else if (limited < limit) {
+                            limited++;
+                            nextOp.accept(value);
+                        }
+                    }
+
+                    @Override
+                    public boolean canShortCircuit() {
+                        return limited >= limit || nextOp.canShortCircuit();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public LongPipe sort() {
+        if (PipeFlag.SORTED.isSet(flag)) {
+            return this;
+        }
+        return new AbstractLongPipe(this, IS_SORTED | NOT_REVERSED_SORTED) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return new LongOp.ArrayRepeater(nextOp) {
+                    @Override
+                    protected void beforeEnd() {
+                        PrimitiveArrays.sort(elements, count);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public LongPipe cache() {
+        return this instanceof CachedHead ? this : new CachedHead(this).onClose(this::close);
+    }
+
+    @Override
+    public LongPipe distinct() {
+        if (PipeFlag.DISTINCT.isSet(flag)) {
+            return this;
+        }
+        boolean isSorted = PipeFlag.SORTED.isSet(flag);
+        return new AbstractLongPipe(this, IS_DISTINCT | NOT_SIZED) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return isSorted ? new SortedDistinctOp(nextOp) : new HashDistinctOp(nextOp);
+            }
+        };
+    }
+
+    @Override
+    public LongPipe slidingSum(int size) {
+        PrimitiveArrays.checkWindowSize(size);
+        return new AbstractLongPipe(this, NOT_SIZED | NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return new SlidingSumOp(nextOp, size);
+            }
+        };
+    }
+
+    @Override
+    public LongPipe slidingMin(int size) {
+        return slidingExtreme(size, false);
+    }
+
+    @Override
+    public LongPipe slidingMax(int size) {
+        return slidingExtreme(size, true);
+    }
+
+    private LongPipe slidingExtreme(int size, boolean isMax) {
+        PrimitiveArrays.checkWindowSize(size);
+        return new AbstractLongPipe(this, NOT_SIZED | NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
+            @Override
+            protected LongOp wrapOp(LongOp nextOp) {
+                return new SlidingExtremeOp(nextOp, size, isMax);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(LongConsumer consumer) {
+        requireNonNull(consumer);
+        evaluate(new LongOp.Terminal<Void>() {
+            @Override
+            public void accept(long value) {
+                consumer.accept(value);
+            }
+
+            @Override
+            public Void get() {
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public long sum() {
+        return evaluate(new LongOp.Terminal<Long>() {
+            private long sum = 0L;
+
+            @Override
+            public void accept(long value) {
+                sum += value;
+            }
+
+            @Override
+            public Long get() {
+                return sum;
+            }
+        });
+    }
+
+    @Override
+    public long count() {
+        return evaluate(new LongOp.Terminal<Long>() {
+            private long count = 0L;
+
+            @Override
+            public void accept(long value) {
+                count++;
+            }
+
+            @Override
+            public Long get() {
+                return count;
+            }
+        });
+    }
+
+    @Override
+    public OptionalLong min() {
+        return PipeFlag.SORTED.isSet(flag) ? findFirst() : reduce(Math::min);
+    }
+
+    @Override
+    public OptionalLong max() {
+        return PipeFlag.SORTED.isSet(flag) ? findLast() : reduce(Math::max);
+    }
+
+    @Override
+    public OptionalDouble average() {
+        LongSummaryStatistics statistics = summaryStatistics();
+        return statistics.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(statistics.getAverage());
+    }
+
+    @Override
+    public LongSummaryStatistics summaryStatistics() {
+        return evaluate(new LongOp.Terminal<LongSummaryStatistics>() {
+            private final LongSummaryStatistics statistics = new LongSummaryStatistics();
+
+            @Override
+            public void accept(long value) {
+                statistics.accept(value);
+            }
+
+            @Override
+            public LongSummaryStatistics get() {
+                return statistics;
+            }
+        });
+    }
+
+    @Override
+    public long reduce(long initVar, LongBinaryOperator reducer) {
+        requireNonNull(reducer);
+        return evaluate(new LongOp.Terminal<Long>() {
+            private long result = initVar;
+
+            @Override
+            public void accept(long value) {
+                result = reducer.applyAsLong(result, value);
+            }
+
+            @Override
+            public Long get() {
+                return result;
+            }
+        });
+    }
+
+    @Override
+    public OptionalLong reduce(LongBinaryOperator reducer) {
+        requireNonNull(reducer);
+        return evaluate(new LongOp.Terminal<OptionalLong>() {
+            private boolean isPresent = false;
+
+            private long result;
+
+            @Override
+            public void accept(long value) {
+                if (isPresent) {
+                    result = reducer.applyAsLong(result, value);
+                } else {
+                    isPresent = true;
+                    result = value;
+                }
+            }
+
+            @Override
+            public OptionalLong get() {
+                return isPresent ? OptionalLong.of(result) : OptionalLong.empty();
+            }
+        });
+    }
+
+    @Override
+    public boolean anyMatch(LongPredicate predicate) {
+        requireNonNull(predicate);
+        return evaluate(new MatchOp() {
+            @Override
+            public void accept(long value) {
+                if (!isDone && predicate.test(value)) {
+                    isDone = true;
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean allMatch(LongPredicate predicate) {
+        requireNonNull(predicate);
+        return !evaluate(new MatchOp() {
+            @Override
+            public void accept(long value) {
+                if (!isDone && !predicate.test(value)) {
+                    isDone = true;
+                }
+            }
+        });
+    }
+
+    @Override
+    public OptionalLong findFirst() {
+        return evaluate(new LongOp.Terminal<OptionalLong>() {
+            private boolean isPresent = false;
+
+            private long first;
+
+            @Override
+            public void accept(long value) {
+                if (!isPresent) {
+                    isPresent = true;
+                    first = value;
+                }
+            }
+
+            @Override
+            public boolean canShortCircuit() {
+                return isPresent;
+            }
+
+            @Override
+            int getOpFlag() {
+                return IS_SHORT_CIRCUIT;
+            }
+
+            @Override
+            public OptionalLong get() {
+                return isPresent ? OptionalLong.of(first) : OptionalLong.empty();
+            }
+        });
+    }
+
+    @Override
+    public OptionalLong findLast() {
+        return evaluate(new LongOp.Terminal<OptionalLong>() {
+            private boolean isPresent = false;
+
+            private long last;
+
+            @Override
+            public void accept(long value) {
+                isPresent = true;
+                last = value;
+            }
+
+            @Override
+            public OptionalLong get() {
+                return isPresent ? OptionalLong.of(last) : OptionalLong.empty();
+            }
+        });
+    }
+
+    @Override
+    public long[] toArray() {
+        return evaluate(new LongOp.Terminal<long[]>() {
+            private long[] elements;
+
+            private int count;
+
+            @Override
+            public void begin(long size) {
+                elements = new long[PrimitiveArrays.initCapacity(size)];
+                count = 0;
+            }
+
+            @Override
+            public void accept(long value) {
+                if (count == elements.length) {
+                    elements = PrimitiveArrays.grow(elements);
+                }
+                elements[count++] = value;
+            }
+
+            @Override
+            public long[] get() {
+                return count == elements.length ? elements : Arrays.copyOf(elements, count);
+            }
+        });
+    }
+
+    @Override
+    public long[] histogram(long lower, long upper, int binCount) {
+        PrimitiveArrays.checkHistogramArgs(lower, upper, binCount);
+        return evaluate(new LongOp.Terminal<long[]>() {
+            private final long[] bins = new long[binCount];
+
+            @Override
+            public void accept(long value) {
+                int index = PrimitiveArrays.binIndex(value, lower, upper, binCount);
+                if (index >= 0) {
+                    bins[index]++;
+                }
+            }
+
+            @Override
+            public long[] get() {
+                return bins;
+            }
+        });
+    }
+
+    @Override
+    public Spliterator.OfLong toSpliterator() {
+        return this == headPipe ? headPipe.takeDataSource() : new WrappedSpliterator(this, headPipe.takeDataSource());
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong toIterator() {
+        return Spliterators.iterator(toSpliterator());
+    }
+
+    @Override
+    public LongPipe onClose(Runnable closeAction) {
+        headPipe.onClose(requireNonNull(closeAction));
+        return this;
+    }
+
+    @Override
+    public void close() {
+        headPipe.close();
+    }
+
+    /**
+     * 短路的匹配操作，{@link #isDone}为{@code true}时即可结束遍历。
+     */
+    private abstract static class MatchOp extends LongOp.Terminal<Boolean> {
+        /** 是否已经遇到决定结果的元素 */
+        protected boolean isDone = false;
+
+        @Override
+        public boolean canShortCircuit() {
+            return isDone;
+        }
+
+        @Override
+        int getOpFlag() {
+            return IS_SHORT_CIRCUIT;
+        }
+
+        @Override
+        public Boolean get() {
+            return isDone;
+        }
+    }
+
+    /**
+     * 针对已排序元素的去重操作，只需要比较相邻的元素。
+     */
+    private static final class SortedDistinctOp extends LongOp.Chained {
+        private boolean hasLast = false;
+
+        private long last;
+
+        SortedDistinctOp(LongOp nextOp) {
+            super(nextOp);
+        }
+
+        @Override
+        public void begin(long size) {
+            nextOp.begin(-1);
+        }
+
+        @Override
+        public void accept(long value) {
+            if (!hasLast || value != last) {
+                hasLast = true;
+                last = value;
+                nextOp.accept(value);
+            }
+        }
+    }
+
+    /**
+     * 基于{@link LongHashSet}的去重操作。
+     */
+    private static final class HashDistinctOp extends LongOp.Chained {
+        private LongHashSet seen;
+
+        HashDistinctOp(LongOp nextOp) {
+            super(nextOp);
+        }
+
+        @Override
+        public void begin(long size) {
+            // 上游的元素数量只是去重结果数量的上界，预分配的容量不超过上限，超出的部分由集合自行扩容
+            seen = size > 0 ? new LongHashSet((int) Math.min(size, Op.MAX_PRESIZE_CAPACITY)) : new LongHashSet();
+            nextOp.begin(-1);
+        }
+
+        @Override
+        public void accept(long value) {
+            if (seen.add(value)) {
+                nextOp.accept(value);
+            }
+        }
+
+        @Override
+        public void end() {
+            seen = null;
+            nextOp.end();
+        }
+    }
+
+    /**
+     * 滑动窗口求和操作，以环形数组保存窗口中的元素，每个元素流入时只需要加上新元素、减去移出窗口的元素。
+     */
+    private static final class SlidingSumOp extends LongOp.Chained {
+        private final int windowSize;
+
+        private long[] window;
+
+        /** 下一个元素在环形数组中的下标 */
+        private int index;
+
+        private long count;
+
+        private long sum;
+
+        SlidingSumOp(LongOp nextOp, int windowSize) {
+            super(nextOp);
+            this.windowSize = windowSize;
+        }
+
+        @Override
+        public void begin(long size) {
+            window = new long[windowSize];
+            nextOp.begin(-1);
+        }
+
+        @Override
+        public void accept(long value) {
+            sum += value - window[index];
+            window[index] = value;
+            if (++index == windowSize) {
+                index = 0;
+            }
+            if (++count >= windowSize) {
+                nextOp.accept(sum);
+            }
+        }
+
+        @Override
+        public void end() {
+            window = null;
+            nextOp.end();
+        }
+    }
+
+    /**
+     * 滑动窗口求最值操作，以环形数组实现的单调队列保存窗口中可能成为最值的元素及其次序，
+     * 每个元素最多入队和出队一次。
+     */
+    private static final class SlidingExtremeOp extends LongOp.Chained {
+        private final int windowSize;
+
+        private final boolean isMax;
+
+        private long[] values;
+
+        private long[] indexes;
+
+        /** 队首在环形数组中的下标 */
+        private int head;
+
+        private int length;
+
+        private long count;
+
+        SlidingExtremeOp(LongOp nextOp, int windowSize, boolean isMax) {
+            super(nextOp);
+            this.windowSize = windowSize;
+            this.isMax = isMax;
+        }
+
+        @Override
+        public void begin(long size) {
+            values = new long[windowSize];
+            indexes = new long[windowSize];
+            nextOp.begin(-1);
+        }
+
+        @Override
+        public void accept(long value) {
+            if (length > 0 && indexes[head] <= count - windowSize) {
+                // 队首已经移出窗口
+                head = position(1);
+                length--;
+            }
+            offer(value);
+            if (++count >= windowSize) {
+                nextOp.accept(values[head]);
+            }
+        }
+
+        private void offer(long value) {
+            // 弹出队尾不会再成为最值的元素
+            while (length > 0 && isDominated(values[position(length - 1)], value)) {
+                length--;
+            }
+            int tail = position(length++);
+            values[tail] = value;
+            indexes[tail] = count;
+        }
+
+        private boolean isDominated(long previous, long value) {
+            return isMax ? previous <= value : previous >= value;
+        }
+
+        private int position(int offset) {
+            int position = head + offset;
+            return position >= windowSize ? position - windowSize : position;
+        }
+
+        @Override
+        public void end() {
+            values = null;
+            indexes = null;
+            nextOp.end();
+        }
+    }
+
+    /**
+     * long流水线的头节点，持有数据源以及关闭时执行的动作。
+     */
+    static class Head extends AbstractLongPipe {
+        /** 流水线数据源 */
+        private Spliterator.OfLong sourceSpliterator;
+
+        /** 流水线关闭时执行的动作 */
+        private Runnable closeAction;
+
+        /** 继承的求值模式 */
+        private final boolean parallel;
+
+        /** 继承的性能剖析器，未开启性能剖析时为{@code null} */
+        private final PipeProfiler profiler;
+
+        Head(Spliterator.OfLong sourceSpliterator) {
+            this(sourceSpliterator, false, null);
+        }
+
+        /**
+         * 构造由其他流水线转换而来的头节点，继承原流水线的求值模式和性能剖析器。
+         *
+         * @param sourceSpliterator 流水线数据源
+         * @param parallel 原流水线的求值模式
+         * @param profiler 原流水线的性能剖析器
+         */
+        Head(Spliterator.OfLong sourceSpliterator, boolean parallel, PipeProfiler profiler) {
+            super(PipeFlag.fromSpliterator(sourceSpliterator));
+            this.sourceSpliterator = sourceSpliterator;
+            this.parallel = parallel;
+            this.profiler = profiler;
+        }
+
+        /**
+         * 以给定的标记构造没有预先给定数据源的头节点，数据源由子类提供。
+         *
+         * @param flag 流水线标记
+         * @param parallel 继承的求值模式
+         * @param profiler 继承的性能剖析器
+         */
+        Head(int flag, boolean parallel, PipeProfiler profiler) {
+            super(flag);
+            this.parallel = parallel;
+            this.profiler = profiler;
+        }
+
+        @Override
+        boolean isParallel() {
+            return parallel;
+        }
+
+        @Override
+        PipeProfiler profiler() {
+            return profiler;
+        }
+
+        @Override
+        Spliterator.OfLong takeDataSource() {
+            Spliterator.OfLong spliterator = sourceSpliterator;
+            sourceSpliterator = null;
+            return spliterator;
+        }
+
+        @Override
+        protected LongOp wrapOp(LongOp nextOp) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public LongPipe onClose(Runnable closeAction) {
+            this.closeAction = this.closeAction == null ? closeAction :
+                PipeHead.composeAction(this.closeAction, closeAction);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            Runnable action = closeAction;
+            if (action != null) {
+                closeAction = null;
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * 缓存上游流水线全部输出的头节点，首次需要数据源时执行上游流水线并将其输出缓存在long数组中，之后每次需要数据源时
+     * 都返回访问此数组的新拆分器。
+     */
+    static final class CachedHead extends Head {
+        /** 上游流水线，缓存之后为{@code null} */
+        private AbstractLongPipe sourcePipe;
+
+        /** 上游流水线的全部输出，缓存之前为{@code null} */
+        private long[] elements;
+
+        /** 首次执行上游流水线时抛出的异常，未失败时为{@code null} */
+        private Throwable failure;
+
+        CachedHead(AbstractLongPipe sourcePipe) {
+            // 缓存的数据量总是确定的，且遍历缓存无需再考虑上游的短路操作
+            super(PipeFlag.combine(sourcePipe.flag, IS_SIZED) & ~IS_SHORT_CIRCUIT, sourcePipe.isParallel(),
+                sourcePipe.profiler());
+            this.sourcePipe = sourcePipe;
+        }
+
+        @Override
+        synchronized Spliterator.OfLong takeDataSource() {
+            if (elements == null) {
+                // 上游流水线只能执行一次，执行失败之后只能报告此前的失败
+                CachedPipe.checkNotFailed(failure);
+                AbstractLongPipe pipe = sourcePipe;
+                sourcePipe = null;
+                try {
+                    elements = pipe.toArray();
+                } catch (Throwable throwable) {
+                    failure = throwable;
+                    throw throwable;
+                }
+            }
+            return Spliterators.spliterator(elements, PipeFlag.toSpliteratorFlag(flag) | Spliterator.IMMUTABLE);
+        }
+    }
+
+    /**
+     * 将long流水线中的元素包装为拆分器，原理与{@link PipeSpliterator}一致。
+     * <p/>
+     * 逐个访问元素时，流水线中的一个元素可能产生多个输出元素（例如{@link #flatMap(LongFunction)}），
+     * 也可能在结束时才输出全部元素（例如{@link #sort()}），因此使用long数组缓存流出的元素。
+     */
+    private static final class WrappedSpliterator implements Spliterator.OfLong {
+        /** 被包装的流水线 */
+        private final AbstractLongPipe pipe;
+
+        /** 被包装流水线的数据源 */
+        private final Spliterator.OfLong split;
+
+        /** 已经封装了流水线全部节点操作，并最终将元素流入缓存的操作方法 */
+        private LongOp wrappedOfferOp;
+
+        private long[] buffer;
+
+        /** 缓存中下一个待访问元素的下标 */
+        private int bufferIndex;
+
+        /** 缓存中元素的数量 */
+        private int bufferSize;
+
+        /** 是否已经完整遍历 */
+        private boolean isCompleted = false;
+
+        WrappedSpliterator(AbstractLongPipe pipe, Spliterator.OfLong split) {
+            this.pipe = pipe;
+            this.split = split;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (wrappedOfferOp == null) {
+                if (isCompleted) {
+                    return false;
+                }
+                buffer = new long[PrimitiveArrays.initCapacity(-1)];
+                wrappedOfferOp = pipe.wrapAllOp(value -> {
+                    if (bufferSize == buffer.length) {
+                        buffer = PrimitiveArrays.grow(buffer);
+                    }
+                    buffer[bufferSize++] = value;
+                });
+                wrappedOfferOp.begin(split.getExactSizeIfKnown());
+            }
+            while (bufferIndex == bufferSize) {
+                if (isCompleted) {
+                    return false;
+                }
+                bufferIndex = 0;
+                bufferSize = 0;
+                if (wrappedOfferOp.canShortCircuit() || !split.tryAdvance(wrappedOfferOp)) {
+                    // 结束时可能还会流出元素
+                    isCompleted = true;
+                    wrappedOfferOp.end();
+                }
+            }
+            action.accept(buffer[bufferIndex++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            if (wrappedOfferOp == null && !isCompleted) {
+                isCompleted = true;
+                pipe.driveData(split, action::accept, EMPTY);
+            } else {
+                do { /*noop*/ } while (tryAdvance(action));
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            // can not split anymore
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return split.estimateSize();
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return PipeFlag.SIZED.isSet(pipe.flag) ? split.getExactSizeIfKnown() : -1;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = pipe.flag & SPLIT_MASK;
+            if ((characteristics & SIZED) == SIZED) {
+                characteristics &= ~(SIZED | SUBSIZED);
+            }
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            throw new IllegalStateException();
+        }
+    }
+}
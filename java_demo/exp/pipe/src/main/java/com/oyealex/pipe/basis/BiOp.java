@@ -0,0 +1,127 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.flag.PipeFlag;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 两元组流水线的操作接口，两元组的第一个元素和第二个元素作为两个参数在操作之间传递，不会为每个两元组创建{@link
+ * com.oyealex.pipe.assist.Tuple}对象。
+ *
+ * @param <F> 第一个元素类型
+ * @param <S> 第二个元素类型
+ * @author oyealex
+ * @see Op
+ * @since 2023-06-25
+ */
+interface BiOp<F, S> {
+    /**
+     * 准备好开始接收元素。
+     *
+     * @param size 元素数量，-1表示未知或无限
+     */
+    default void begin(long size) {}
+
+    /**
+     * 接收一个两元组。
+     *
+     * @param first 第一个元素
+     * @param second 第二个元素
+     */
+    void accept(F first, S second);
+
+    /**
+     * 结束接收元素。
+     */
+    default void end() {}
+
+    /**
+     * 判断是否可以执行短路操作，提前结束数据流。
+     *
+     * @return {@code true} - 可以提前结束数据流。
+     */
+    default boolean canShortCircuit() {return false;}
+
+    /**
+     * 支持链接的两元组操作
+     *
+     * @param <F> 接收的第一个元素类型
+     * @param <S> 接收的第二个元素类型
+     * @param <NF> 下游操作接收的第一个元素类型
+     * @param <NS> 下游操作接收的第二个元素类型
+     */
+    abstract class Chained<F, S, NF, NS> implements BiOp<F, S> {
+        /** 下一个操作 */
+        protected final BiOp<? super NF, ? super NS> nextOp;
+
+        Chained(BiOp<? super NF, ? super NS> nextOp) {
+            this.nextOp = Objects.requireNonNull(nextOp);
+        }
+
+        @Override
+        public void begin(long size) {
+            nextOp.begin(size);
+        }
+
+        @Override
+        public void end() {
+            nextOp.end();
+        }
+
+        @Override
+        public boolean canShortCircuit() {
+            return nextOp.canShortCircuit();
+        }
+    }
+
+    /**
+     * 将引用流水线的元素拆分为两元组的操作，作为两元组流水线头节点的操作。
+     *
+     * @param <T> 接收的元素类型
+     * @param <F> 下游操作接收的第一个元素类型
+     * @param <S> 下游操作接收的第二个元素类型
+     */
+    abstract class Split<T, F, S> implements Op<T> {
+        /** 下一个操作 */
+        protected final BiOp<? super F, ? super S> nextOp;
+
+        Split(BiOp<? super F, ? super S> nextOp) {
+            this.nextOp = Objects.requireNonNull(nextOp);
+        }
+
+        @Override
+        public void begin(long size, long minSize, long maxSize) {
+            nextOp.begin(size);
+        }
+
+        @Override
+        public void end() {
+            nextOp.end();
+        }
+
+        @Override
+        public boolean canShortCircuit() {
+            return nextOp.canShortCircuit();
+        }
+    }
+
+    /**
+     * 两元组流水线的终结操作
+     *
+     * @param <F> 第一个元素类型
+     * @param <S> 第二个元素类型
+     * @param <R> 结果类型
+     */
+    abstract class Terminal<F, S, R> implements BiOp<F, S>, Supplier<R> {
+        /**
+         * 获取此终结操作的标记。
+         *
+         * @return 终结操作的标记
+         * @see TerminalOp#getOpFlag()
+         */
+        int getOpFlag() {
+            return PipeFlag.EMPTY;
+        }
+    }
+}
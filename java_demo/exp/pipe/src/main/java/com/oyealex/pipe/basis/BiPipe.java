@@ -3,13 +3,251 @@ package com.oyealex.pipe.basis;
 import com.oyealex.pipe.BasePipe;
 import com.oyealex.pipe.assist.Tuple;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
 /**
  * 支持两元组的流水线
+ * <p/>
+ * 两元组的第一个元素和第二个元素作为两个参数在流水线的各个节点之间传递，中间操作不会为每个两元组创建{@link Tuple}对象，
+ * 只有显式地需要两元组对象时（例如{@link #toTuples()}、{@link #findFirst()}）才会创建。
+ * <p/>
+ * 两元组流水线总是以一条引用流水线为数据源，与{@link Pipe}相同，只能执行一次终结操作；转换回引用流水线时（例如
+ * {@link #map(BiFunction)}），两元组流水线中的所有节点会合并为引用流水线中的一个节点。
  *
  * @param <F> 第一个元素类型
  * @param <S> 第二个元素类型
  * @author oyealex
+ * @see Pipe#extendToTuple(Function, Function)
+ * @see Pipe#pairExtend(boolean)
+ * @see Pipe#combine(Pipe)
+ * @see Pipe#groupAndExtend(Function)
  * @since 2023-03-04
  */
 public interface BiPipe<F, S> extends BasePipe<Tuple<F, S>, BiPipe<F, S>> {
+    /**
+     * 映射两元组的第一个元素。
+     *
+     * @param mapper 映射方法。
+     * @param <NF> 映射之后第一个元素的类型。
+     * @return 新的两元组流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    <NF> BiPipe<NF, S> mapFirst(Function<? super F, ? extends NF> mapper);
+
+    /**
+     * 映射两元组的第二个元素。
+     *
+     * @param mapper 映射方法。
+     * @param <NS> 映射之后第二个元素的类型。
+     * @return 新的两元组流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    <NS> BiPipe<F, NS> mapSecond(Function<? super S, ? extends NS> mapper);
+
+    /**
+     * 保留满足条件的两元组。
+     *
+     * @param predicate 条件，第一个参数为两元组的第一个元素，第二个参数为两元组的第二个元素。
+     * @return 新的两元组流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     * @see #takeIfFirst(Predicate)
+     * @see #takeIfSecond(Predicate)
+     */
+    BiPipe<F, S> takeIf(BiPredicate<? super F, ? super S> predicate);
+
+    /**
+     * 保留第一个元素满足条件的两元组。
+     *
+     * @param predicate 条件。
+     * @return 新的两元组流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    BiPipe<F, S> takeIfFirst(Predicate<? super F> predicate);
+
+    /**
+     * 保留第二个元素满足条件的两元组。
+     *
+     * @param predicate 条件。
+     * @return 新的两元组流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    BiPipe<F, S> takeIfSecond(Predicate<? super S> predicate);
+
+    /**
+     * 丢弃满足条件的两元组。
+     *
+     * @param predicate 条件。
+     * @return 新的两元组流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    default BiPipe<F, S> dropIf(BiPredicate<? super F, ? super S> predicate) {
+        requireNonNull(predicate);
+        return takeIf(predicate.negate());
+    }
+
+    /**
+     * 交换两元组的第一个元素和第二个元素。
+     *
+     * @return 新的两元组流水线。
+     */
+    BiPipe<S, F> swap();
+
+    /**
+     * 访问两元组，但不改变两元组。
+     *
+     * @param consumer 访问方法。
+     * @return 新的两元组流水线。
+     * @throws NullPointerException 当{@code consumer}为{@code null}时抛出。
+     */
+    BiPipe<F, S> peek(BiConsumer<? super F, ? super S> consumer);
+
+    /**
+     * 最多保留前{@code size}个两元组。
+     *
+     * @param size 保留的两元组数量。
+     * @return 新的两元组流水线。
+     * @throws IllegalArgumentException 当{@code size}为负数时抛出。
+     */
+    BiPipe<F, S> limit(long size);
+
+    /**
+     * 以第一个元素为键，使用{@code reducer}合并键相同的两元组的第二个元素，合并之后的两元组按照键首次出现的顺序输出。
+     *
+     * @param reducer 合并第二个元素的方法，第一个参数为已合并的结果，第二个参数为新的元素。
+     * @return 新的两元组流水线，其中每个键只出现一次。
+     * @throws NullPointerException 当{@code reducer}为{@code null}时抛出。
+     */
+    BiPipe<F, S> reduceByKey(BinaryOperator<S> reducer);
+
+    /**
+     * 将两元组映射为新的元素，得到引用类型的流水线。
+     *
+     * @param mapper 映射方法，第一个参数为两元组的第一个元素，第二个参数为两元组的第二个元素。
+     * @param <R> 映射结果的类型。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    <R> Pipe<R> map(BiFunction<? super F, ? super S, ? extends R> mapper);
+
+    /**
+     * 只保留两元组的第一个元素，得到引用类型的流水线。
+     *
+     * @return 包含两元组第一个元素的流水线。
+     */
+    default Pipe<F> firsts() {
+        return map((first, second) -> first);
+    }
+
+    /**
+     * 只保留两元组的第二个元素，得到引用类型的流水线。
+     *
+     * @return 包含两元组第二个元素的流水线。
+     */
+    default Pipe<S> seconds() {
+        return map((first, second) -> second);
+    }
+
+    /**
+     * 将两元组封装为{@link Tuple}对象，得到引用类型的流水线。
+     *
+     * @return 包含两元组对象的流水线。
+     */
+    default Pipe<Tuple<F, S>> toTuples() {
+        return map(Tuple::of);
+    }
+
+    /**
+     * 对每个两元组执行给定的方法。
+     *
+     * @param consumer 给定的方法。
+     * @throws NullPointerException 当{@code consumer}为{@code null}时抛出。
+     */
+    void forEach(BiConsumer<? super F, ? super S> consumer);
+
+    /**
+     * 以第一个元素为键、第二个元素为值收集到{@link java.util.HashMap}中，对于键相同的两元组，仅保留次序较后者。
+     *
+     * @return 收集结果。
+     */
+    Map<F, S> toMap();
+
+    /**
+     * 以第一个元素为键、第二个元素为值收集到给定的map中，对于键相同的两元组，仅保留次序较后者。
+     *
+     * @param mapSupplier map的构造方法。
+     * @param <M> map的类型。
+     * @return 收集结果。
+     * @throws NullPointerException 当{@code mapSupplier}为{@code null}时抛出。
+     */
+    <M extends Map<F, S>> M toMap(Supplier<M> mapSupplier);
+
+    /**
+     * 获取两元组的数量。
+     *
+     * @return 两元组的数量。
+     */
+    long count();
+
+    /**
+     * 判断是否存在满足条件的两元组，遇到满足条件的两元组即结束遍历。
+     *
+     * @param predicate 条件。
+     * @return {@code true} - 存在满足条件的两元组。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    boolean anyMatch(BiPredicate<? super F, ? super S> predicate);
+
+    /**
+     * 判断是否所有两元组都满足条件，遇到不满足条件的两元组即结束遍历。
+     *
+     * @param predicate 条件。
+     * @return {@code true} - 所有两元组都满足条件，或者没有任何两元组。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    default boolean allMatch(BiPredicate<? super F, ? super S> predicate) {
+        requireNonNull(predicate);
+        return !anyMatch(predicate.negate());
+    }
+
+    /**
+     * 判断是否没有任何两元组满足条件。
+     *
+     * @param predicate 条件。
+     * @return {@code true} - 没有任何两元组满足条件。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    default boolean noneMatch(BiPredicate<? super F, ? super S> predicate) {
+        return !anyMatch(predicate);
+    }
+
+    /**
+     * 获取第一个两元组。
+     *
+     * @return 第一个两元组，流水线为空时返回{@link Optional#empty()}。
+     */
+    Optional<Tuple<F, S>> findFirst();
+
+    /**
+     * 从给定的map中生成两元组流水线，两元组的第一个元素为键，第二个元素为值。
+     *
+     * @param map 给定的map。
+     * @param <K> 键的类型。
+     * @param <V> 值的类型。
+     * @return 新的两元组流水线。
+     * @throws NullPointerException 当{@code map}为{@code null}时抛出。
+     */
+    static <K, V> BiPipe<K, V> entries(Map<? extends K, ? extends V> map) {
+        Pipe<Map.Entry<? extends K, ? extends V>> pipe = Pipe.spliterator(requireNonNull(map).entrySet().spliterator());
+        return pipe.extendToTuple(Map.Entry::getKey, Map.Entry::getValue);
+    }
 }
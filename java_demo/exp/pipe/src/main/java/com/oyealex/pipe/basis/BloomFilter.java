@@ -0,0 +1,140 @@
+package com.oyealex.pipe.basis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.oyealex.pipe.utils.MiscUtil.MAX_ARRAY_LENGTH;
+
+/**
+ * 可扩展的布隆过滤器，用于近似去重。
+ * <p/>
+ * 由多个子过滤器组成，当前子过滤器写满预期数量的元素之后，新建一个容量翻倍、误判率减半的子过滤器继续写入，
+ * 因此无需预先知道元素总数，并且总的误判率不超过构造时给定的误判率。
+ * <p/>
+ * 判断元素是否存在时不会漏判，但是可能将不存在的元素误判为已存在。
+ *
+ * @author oyealex
+ * @since 2023-06-24
+ */
+final class BloomFilter {
+    private static final int MIN_EXPECTED_SIZE = 1 << 10;
+
+    /** 后一个子过滤器的误判率相对前一个的比例 */
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private static final double LN2 = Math.log(2);
+
+    private final List<Stage> stages = new ArrayList<>();
+
+    private Stage current;
+
+    BloomFilter(long expectedSize, double falsePositiveRate) {
+        // 各个子过滤器误判率之和为等比数列，首项取总误判率的(1 - r)倍，使总和不超过给定的误判率
+        current = new Stage(Math.max(expectedSize, MIN_EXPECTED_SIZE), falsePositiveRate * (1 - TIGHTENING_RATIO));
+        stages.add(current);
+    }
+
+    /**
+     * 添加元素。
+     *
+     * @param key 元素，可以为{@code null}
+     * @return {@code true} - 元素一定不在过滤器中，已添加；{@code false} - 元素可能已在过滤器中。
+     */
+    boolean add(Object key) {
+        long mixed = mix(hash64(key));
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32);
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return false;
+            }
+        }
+        if (current.count >= current.expectedSize) {
+            current = new Stage(current.expectedSize << 1, current.falsePositiveRate * TIGHTENING_RATIO);
+            stages.add(current);
+        }
+        current.put(h1, h2);
+        return true;
+    }
+
+    /**
+     * 计算元素的64位哈希值。
+     * <p/>
+     * 布隆过滤器的误判率只在不同元素的哈希值不同时成立，而{@link Object#hashCode()}只有32位，元素数量达到数万时
+     * 就会出现大量碰撞，并且{@link Long}、{@link Double}等类型本身就会将不同的值映射为相同的哈希值。
+     * 因此对于整数、浮点数和字符序列直接根据其内容计算64位哈希值，其他类型只能使用{@link Object#hashCode()}。
+     *
+     * @param key 元素，可以为{@code null}
+     * @return 64位哈希值
+     */
+    static long hash64(Object key) {
+        if (key == null) {
+            return 0L;
+        } else if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return ((Number) key).longValue();
+        } else if (key instanceof Double) {
+            return Double.doubleToLongBits((Double) key);
+        } else if (key instanceof Float) {
+            return Double.doubleToLongBits((Float) key);
+        } else if (key instanceof CharSequence) {
+            // FNV-1a
+            CharSequence chars = (CharSequence) key;
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0, length = chars.length(); i < length; i++) {
+                hash = (hash ^ chars.charAt(i)) * 0x100000001B3L;
+            }
+            return hash;
+        }
+        return key.hashCode();
+    }
+
+    private static long mix(long hash) {
+        long value = hash * 0x9E3779B97F4A7C15L;
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static final class Stage {
+        private final long expectedSize;
+
+        private final double falsePositiveRate;
+
+        private final long[] bits;
+
+        private final long bitSize;
+
+        private final int hashCount;
+
+        private long count;
+
+        Stage(long expectedSize, double falsePositiveRate) {
+            this.expectedSize = expectedSize;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBitSize = (long) Math.ceil(-expectedSize * Math.log(falsePositiveRate) / (LN2 * LN2));
+            this.bits = new long[(int) Math.min((optimalBitSize + 63) >>> 6, MAX_ARRAY_LENGTH)];
+            this.bitSize = (long) bits.length << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedSize * LN2));
+        }
+
+        boolean mightContain(int h1, int h2) {
+            long combined = h1;
+            for (int i = 0; i < hashCount; i++, combined += h2) {
+                long index = (combined & Long.MAX_VALUE) % bitSize;
+                if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(int h1, int h2) {
+            long combined = h1;
+            for (int i = 0; i < hashCount; i++, combined += h2) {
+                long index = (combined & Long.MAX_VALUE) % bitSize;
+                bits[(int) (index >>> 6)] |= 1L << index;
+            }
+            count++;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.flag.PipeFlag;
+
+import java.util.Spliterator;
+
+import static com.oyealex.pipe.flag.PipeFlag.IS_SHORT_CIRCUIT;
+import static com.oyealex.pipe.flag.PipeFlag.IS_SIZED;
+
+/**
+ * 缓存上游流水线全部输出的头节点，可以反复执行终结操作。
+ * <p/>
+ * 首次需要数据源时执行上游流水线，并将其全部输出按照遇到顺序缓存在{@link SpinedBuffer}中，之后每次需要数据源时都返回
+ * 访问此缓存的新拆分器，因此在此节点上执行的多个终结操作，以及由此节点构造的多条流水线，都只会执行一次上游流水线。
+ * 上游流水线以其自身的并行模式求值，缓存之后的求值则以此节点的并行模式为准。
+ *
+ * @param <OUT> 缓存的元素类型
+ * @author oyealex
+ * @see Pipe#cache()
+ * @since 2023-06-25
+ */
+final class CachedPipe<OUT> extends PipeHead<OUT> {
+    /** 上游流水线，缓存之后为{@code null} */
+    private RefPipe<?, ? extends OUT> sourcePipe;
+
+    /** 上游流水线的全部输出，缓存之前为{@code null} */
+    private SpinedBuffer<OUT> elements;
+
+    /** 首次执行上游流水线时抛出的异常，未失败时为{@code null} */
+    private Throwable failure;
+
+    CachedPipe(RefPipe<?, ? extends OUT> sourcePipe) {
+        // 缓存的数据量总是确定的，且遍历缓存无需再考虑上游的短路操作
+        super(PipeFlag.combine(sourcePipe.flag, IS_SIZED) & ~IS_SHORT_CIRCUIT);
+        this.sourcePipe = sourcePipe;
+        setParallel(sourcePipe.isParallel());
+        setProfiler(sourcePipe.profiler());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Spliterator<Object> takeDataSource() {
+        return (Spliterator<Object>) materialize().spliterator();
+    }
+
+    /**
+     * 获取缓存的全部元素，尚未缓存时先执行上游流水线。
+     *
+     * @return 缓存的全部元素
+     */
+    @SuppressWarnings("unchecked")
+    synchronized SpinedBuffer<OUT> materialize() {
+        if (elements == null) {
+            // 上游流水线只能执行一次，执行失败之后只能报告此前的失败
+            checkNotFailed(failure);
+            RefPipe<?, ? extends OUT> pipe = sourcePipe;
+            sourcePipe = null;
+            try {
+                elements = (SpinedBuffer<OUT>) pipe.toSpinedBuffer();
+            } catch (Throwable throwable) {
+                failure = throwable;
+                throw throwable;
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * 检查此前缓存上游流水线的输出时是否失败，失败时抛出以此前的异常为原因的异常。
+     *
+     * @param failure 此前缓存时抛出的异常，未失败时为{@code null}
+     * @throws IllegalStateException 此前缓存失败时抛出
+     */
+    static void checkNotFailed(Throwable failure) {
+        if (failure != null) {
+            throw new IllegalStateException("failed to cache the upstream pipe", failure);
+        }
+    }
+}
@@ -1,9 +1,5 @@
 package com.oyealex.pipe.basis;
 
-import com.oyealex.pipe.utils.MiscUtil;
-
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -21,8 +17,8 @@ abstract class ChainedOp<IN, OUT> implements Op<IN> { // OPT 2023-05-31 22:53 
     }
 
     @Override
-    public void begin(long size) {
-        nextOp.begin(size);
+    public void begin(long size, long minSize, long maxSize) {
+        nextOp.begin(size, minSize, maxSize);
     }
 
     @Override
@@ -30,6 +26,11 @@ abstract class ChainedOp<IN, OUT> implements Op<IN> { // OPT 2023-05-31 22:53 
         nextOp.end();
     }
 
+    @Override
+    public void abort() {
+        nextOp.abort();
+    }
+
     @Override
     public boolean canShortCircuit() {
         return nextOp.canShortCircuit();
@@ -76,21 +77,20 @@ abstract class ChainedOp<IN, OUT> implements Op<IN> { // OPT 2023-05-31 22:53 
     }
 
     static abstract class ToList<IN, OUT> extends NonShortCircuit<IN, OUT> {
-        protected List<IN> elements; // OPT 2023-05-19 01:31 进一步优化，使用支持多段数组的方式避免数组扩容拷贝
+        protected SpinedBuffer<IN> elements;
 
         ToList(Op<? super OUT> nextOp) {
             super(nextOp);
         }
 
         @Override
-        public void begin(long size) {
-            MiscUtil.checkArraySize(size);
-            elements = size >= 0 ? new ArrayList<>((int) size) : new ArrayList<>();
+        public void begin(long size, long minSize, long maxSize) {
+            elements = new SpinedBuffer<>(Op.initCapacity(size, minSize, maxSize));
         }
 
         @Override
         public void accept(IN value) {
-            elements.add(value);
+            elements.accept(value);
         }
     }
 
@@ -107,14 +107,9 @@ abstract class ChainedOp<IN, OUT> implements Op<IN> { // OPT 2023-05-31 22:53 
         @Override
         public void end() {
             beforeEnd();
-            nextOp.begin(elements.size());
+            nextOp.begin(elements.count());
             if (isShortCircuitRequested) {
-                for (T value : elements) {
-                    if (nextOp.canShortCircuit()) {
-                        break;
-                    }
-                    nextOp.accept(value);
-                }
+                elements.forEach(nextOp, nextOp::canShortCircuit);
             } else {
                 elements.forEach(nextOp);
             }
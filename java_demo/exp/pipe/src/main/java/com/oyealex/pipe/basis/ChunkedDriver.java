@@ -0,0 +1,95 @@
+package com.oyealex.pipe.basis;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterator.SIZED;
+import static java.util.Spliterator.SUBSIZED;
+
+/**
+ * 以分块的方式驱动可短路的流水线。
+ * <p/>
+ * 逐个调用{@link Spliterator#tryAdvance(Consumer)}驱动元素时，每个元素都需要经过一次完整的拆分器调用。
+ * 对于有序且可以精确拆分的数据源（例如数组和{@link java.util.ArrayList}），从数据源头部逐块拆分出不超过
+ * {@link #CHUNK_SIZE}个元素的分块，每个分块通过{@link Spliterator#forEachRemaining(Consumer)}批量驱动，
+ * 一旦下游请求短路，分块中剩余的元素会被直接跳过，之后的分块也不会再被访问。
+ * <p/>
+ * 拆分出的前半部分明显小于一半时，说明数据源是按批次从迭代器中拷贝元素的，继续拆分会拷贝越来越多的元素，
+ * 此时剩余的元素仍然逐个驱动。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+final class ChunkedDriver {
+    /** 分块的最大元素数量 */
+    static final int CHUNK_SIZE = 1 << 10;
+
+    private ChunkedDriver() {}
+
+    /**
+     * 以可短路的方式，将数据源中的元素驱动到给定的操作中，操作的开始和结束由调用者负责。
+     *
+     * @param dataSource 数据源
+     * @param op 接收元素的操作
+     * @param <T> 元素类型
+     */
+    static <T> void drive(Spliterator<T> dataSource, Op<T> op) {
+        if (!dataSource.hasCharacteristics(ORDERED | SIZED | SUBSIZED)) {
+            driveOneByOne(dataSource, op);
+            return;
+        }
+        Gate<T> gate = new Gate<>(op);
+        Deque<Spliterator<T>> suffixes = new ArrayDeque<>();
+        Spliterator<T> current = dataSource;
+        boolean splittable = true;
+        while (!op.canShortCircuit()) {
+            long size;
+            while (splittable && (size = current.estimateSize()) > CHUNK_SIZE) {
+                Spliterator<T> prefix = current.trySplit();
+                if (prefix == null) {
+                    break;
+                }
+                suffixes.push(current);
+                current = prefix;
+                splittable = prefix.estimateSize() >= size >>> 2;
+            }
+            if (current.estimateSize() <= CHUNK_SIZE) {
+                current.forEachRemaining(gate);
+            } else {
+                driveOneByOne(current, op);
+            }
+            if (gate.stopped || suffixes.isEmpty()) {
+                return;
+            }
+            current = suffixes.pop();
+        }
+    }
+
+    private static <T> void driveOneByOne(Spliterator<T> dataSource, Op<T> op) {
+        do {/*noop*/} while (!op.canShortCircuit() && dataSource.tryAdvance(op));
+    }
+
+    /**
+     * 批量驱动分块时使用的元素入口，下游请求短路之后不再传递元素。
+     */
+    private static final class Gate<T> implements Consumer<T> {
+        private final Op<T> op;
+
+        private boolean stopped;
+
+        private Gate(Op<T> op) {
+            this.op = op;
+        }
+
+        @Override
+        public void accept(T value) {
+            if (!stopped) {
+                op.accept(value);
+                stopped = op.canShortCircuit();
+            }
+        }
+    }
+}
@@ -5,10 +5,14 @@ import com.oyealex.pipe.functional.LongBiFunction;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
+import static com.oyealex.pipe.basis.Op.MAX_PRESIZE_CAPACITY;
 import static com.oyealex.pipe.flag.PipeFlag.IS_DISTINCT;
 import static com.oyealex.pipe.flag.PipeFlag.NOT_DISTINCT;
 import static com.oyealex.pipe.flag.PipeFlag.NOT_SIZED;
+import static com.oyealex.pipe.utils.MiscUtil.isStdIdentify;
 
 /**
  * DistinctStage
@@ -21,6 +25,21 @@ abstract class DistinctOp<T> extends RefPipe<T, T> {
         super(prePipe, extraFlag | NOT_SIZED);
     }
 
+    /**
+     * 计算去重所用集合的初始容量。
+     * <p/>
+     * 上游的元素数量只是去重结果数量的上界，重复元素较多时按此预分配会浪费大量内存，因此初始容量不超过
+     * {@link Op#MAX_PRESIZE_CAPACITY}，超出的部分由集合自行扩容。
+     *
+     * @param size 元素数量，-1表示未知
+     * @param minSize 元素数量的下界
+     * @param maxSize 元素数量的上界，-1表示未知
+     * @return 初始容量，-1表示没有可用的信息
+     */
+    static int presizeCapacity(long size, long minSize, long maxSize) {
+        return Math.min(Op.initCapacity(size, minSize, maxSize), MAX_PRESIZE_CAPACITY);
+    }
+
     static class NaturalSorted<T> extends DistinctOp<T> {
         NaturalSorted(RefPipe<?, ? extends T> prePipe) {
             super(prePipe, IS_DISTINCT);
@@ -34,10 +53,10 @@ abstract class DistinctOp<T> extends RefPipe<T, T> {
                 private boolean nullExisted;
 
                 @Override
-                public void begin(long size) {
+                public void begin(long size, long minSize, long maxSize) {
                     last = null;
                     nullExisted = false;
-                    nextOp.begin(-1);
+                    nextOp.begin(-1, Math.min(minSize, 1), maxSize);
                 }
 
                 @Override
@@ -119,15 +138,132 @@ abstract class DistinctOp<T> extends RefPipe<T, T> {
         }
     }
 
+    static class IntKeyed<T> extends DistinctOp<T> {
+        private final ToIntFunction<? super T> mapper;
+
+        IntKeyed(RefPipe<?, ? extends T> prePipe, ToIntFunction<? super T> mapper) {
+            super(prePipe, NOT_DISTINCT); // 根据key去重，不是自然序去重
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<T> nextOp) {
+            return new ChainedOp<T, T>(nextOp) {
+                private IntHashSet seen;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    int capacity = presizeCapacity(size, minSize, maxSize);
+                    seen = capacity > 0 ? new IntHashSet(capacity) : new IntHashSet();
+                    nextOp.begin(-1, Math.min(minSize, 1), maxSize);
+                }
+
+                @Override
+                public void end() {
+                    seen = null;
+                    nextOp.end();
+                }
+
+                @Override
+                public void accept(T value) {
+                    if (seen.add(mapper.applyAsInt(value))) {
+                        nextOp.accept(value);
+                    }
+                }
+            };
+        }
+    }
+
+    static class LongKeyed<T> extends DistinctOp<T> {
+        private final ToLongFunction<? super T> mapper;
+
+        LongKeyed(RefPipe<?, ? extends T> prePipe, ToLongFunction<? super T> mapper) {
+            super(prePipe, NOT_DISTINCT); // 根据key去重，不是自然序去重
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<T> nextOp) {
+            return new ChainedOp<T, T>(nextOp) {
+                private LongHashSet seen;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    int capacity = presizeCapacity(size, minSize, maxSize);
+                    seen = capacity > 0 ? new LongHashSet(capacity) : new LongHashSet();
+                    nextOp.begin(-1, Math.min(minSize, 1), maxSize);
+                }
+
+                @Override
+                public void end() {
+                    seen = null;
+                    nextOp.end();
+                }
+
+                @Override
+                public void accept(T value) {
+                    if (seen.add(mapper.applyAsLong(value))) {
+                        nextOp.accept(value);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * 基于布隆过滤器的近似去重，重复的元素一定会被丢弃，但是不重复的元素也可能因为误判而被丢弃。
+     */
+    static class Approximate<T, K> extends DistinctOp<T> {
+        private final Function<? super T, ? extends K> mapper;
+
+        private final double falsePositiveRate;
+
+        Approximate(RefPipe<?, ? extends T> prePipe, Function<? super T, ? extends K> mapper,
+            double falsePositiveRate) {
+            // 不会漏判重复元素，所以按照元素自身去重时结果仍然是去重的
+            super(prePipe, isStdIdentify(mapper) ? IS_DISTINCT : NOT_DISTINCT);
+            this.mapper = mapper;
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<T> nextOp) {
+            return new ChainedOp<T, T>(nextOp) {
+                private BloomFilter seen;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    seen = new BloomFilter(presizeCapacity(size, minSize, maxSize), falsePositiveRate);
+                    nextOp.begin(-1, Math.min(minSize, 1), maxSize);
+                }
+
+                @Override
+                public void end() {
+                    seen = null;
+                    nextOp.end();
+                }
+
+                @Override
+                public void accept(T value) {
+                    if (seen.add(mapper.apply(value))) {
+                        nextOp.accept(value);
+                    }
+                }
+            };
+        }
+    }
+
     private abstract static class SetBasedDistinctOp<T, K> extends ChainedOp<T, T> {
         private Set<K> seen;
 
         public SetBasedDistinctOp(Op<T> nextOp) {super(nextOp);}
 
         @Override
-        public void begin(long size) {
-            seen = new HashSet<>();
-            nextOp.begin(-1);
+        public void begin(long size, long minSize, long maxSize) {
+            int capacity = presizeCapacity(size, minSize, maxSize);
+            // 按照HashSet默认的负载因子预分配容量，避免扩容
+            seen = capacity > 0 ? new HashSet<>((int) (capacity / 0.75f) + 1) : new HashSet<>();
+            nextOp.begin(-1, Math.min(minSize, 1), maxSize);
         }
 
         @Override
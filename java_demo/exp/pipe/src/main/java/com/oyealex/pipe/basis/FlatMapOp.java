@@ -3,6 +3,8 @@ package com.oyealex.pipe.basis;
 import com.oyealex.pipe.functional.LongBiFunction;
 
 import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static com.oyealex.pipe.flag.PipeFlag.NOT_DISTINCT;
@@ -29,6 +31,11 @@ abstract class FlatMapOp<T, R> extends RefPipe<T, R> {
             this.mapper = mapper;
         }
 
+        @Override
+        boolean isStateless() {
+            return true;
+        }
+
         @Override
         protected Op<T> wrapOp(Op<R> nextOp) {
             return new InternalOp<T, R>(nextOp) {
@@ -61,13 +68,53 @@ abstract class FlatMapOp<T, R> extends RefPipe<T, R> {
         }
     }
 
+    /**
+     * 由展开方法直接向下游推送新元素，不为每个元素构造新的流水线。
+     */
+    static class Push<T, R> extends FlatMapOp<T, R> {
+        private final BiConsumer<? super T, ? super Consumer<R>> pusher;
+
+        Push(RefPipe<?, ? extends T> prePipe, BiConsumer<? super T, ? super Consumer<R>> pusher) {
+            super(prePipe);
+            this.pusher = pusher;
+        }
+
+        @Override
+        boolean isStateless() {
+            return true;
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<R> nextOp) {
+            return new ChainedOp.ShortCircuitRecorded<T, R>(nextOp) {
+                /** 传递给展开方法的下游，所有元素共享同一个实例 */
+                private final Consumer<R> downstream = value -> {
+                    // 下游已经可以短路时丢弃剩余的新元素
+                    if (!shouldShortCircuit()) {
+                        nextOp.accept(value);
+                    }
+                };
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    nextOp.begin(-1);
+                }
+
+                @Override
+                public void accept(T value) {
+                    pusher.accept(value, downstream);
+                }
+            };
+        }
+    }
+
     private static abstract class InternalOp<T, R> extends ChainedOp.ShortCircuitRecorded<T, R> {
         private InternalOp(Op<R> nextOp) {
             super(nextOp);
         }
 
         @Override
-        public void begin(long size) {
+        public void begin(long size, long minSize, long maxSize) {
             nextOp.begin(-1);
         }
 
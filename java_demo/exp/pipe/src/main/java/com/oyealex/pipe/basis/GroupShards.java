@@ -0,0 +1,153 @@
+package com.oyealex.pipe.basis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 按照键的哈希值分片的分组容器，每个分片是一个独立的map，同一个键总是落在同一个分片中。
+ * <p/>
+ * 并行分组时每个数据分段各自构造容器，合并两个容器时只需要逐个合并对应的分片，分片之间互不影响，
+ * 因此分片较大时可以并行合并。串行分组时只有一个分片，此分片即为最终结果，不需要额外的拷贝。
+ * 所有分片以及最终结果都是{@link HashMap}。
+ * <p/>
+ * 每个键对应一个可变的累加器，元素直接累加到累加器中，避免每次累加都产生新的装箱对象。
+ *
+ * @param <K> 键类型
+ * @param <A> 累加器类型
+ * @author oyealex
+ * @since 2023-06-25
+ */
+final class GroupShards<K, A> {
+    /** 合并分片中的键值对总数超过此值时并行合并 */
+    private static final int PARALLEL_MERGE_THRESHOLD = 1 << 12;
+
+    private final HashMap<K, A>[] shards;
+
+    private final Function<? super K, ? extends A> accumulatorFactory;
+
+    /**
+     * 构造分组容器。
+     *
+     * @param shardCount 分片数量，必须为2的幂
+     * @param accumulatorFactory 累加器的构造方法
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    GroupShards(int shardCount, Function<? super K, ? extends A> accumulatorFactory) {
+        this.shards = new HashMap[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new HashMap<>();
+        }
+        this.accumulatorFactory = accumulatorFactory;
+    }
+
+    /**
+     * 计算并行分组时的分片数量，为不小于并行度的2的幂。
+     *
+     * @return 分片数量
+     */
+    static int parallelShardCount() {
+        int parallelism = Math.max(ForkJoinPool.getCommonPoolParallelism(), 2);
+        return Integer.highestOneBit(parallelism - 1) << 1;
+    }
+
+    private HashMap<K, A> shardOf(K key) {
+        if (shards.length == 1) {
+            return shards[0];
+        }
+        int hash = key == null ? 0 : key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    /**
+     * 获取键对应的累加器，不存在时新建。
+     *
+     * @param key 键
+     * @return 累加器
+     */
+    A accumulatorOf(K key) {
+        return shardOf(key).computeIfAbsent(key, accumulatorFactory);
+    }
+
+    /**
+     * 将另一个容器合并到此容器中，两个容器的分片数量必须相同。
+     *
+     * @param other 另一个容器，合并之后不能再使用
+     * @param combiner 将第二个累加器合并到第一个累加器的方法
+     */
+    void merge(GroupShards<K, A> other, BiConsumer<? super A, ? super A> combiner) {
+        long size = 0L;
+        for (Map<K, A> shard : other.shards) {
+            size += shard.size();
+        }
+        if (shards.length == 1 || size < PARALLEL_MERGE_THRESHOLD) {
+            for (int i = 0; i < shards.length; i++) {
+                mergeShard(shards[i], other.shards[i], combiner);
+            }
+            return;
+        }
+        List<RecursiveAction> tasks = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            Map<K, A> target = shards[i];
+            Map<K, A> source = other.shards[i];
+            tasks.add(new RecursiveAction() {
+                private static final long serialVersionUID = 2977367290356203532L;
+
+                @Override
+                protected void compute() {
+                    mergeShard(target, source, combiner);
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    private static <K, A> void mergeShard(Map<K, A> target, Map<K, A> source,
+        BiConsumer<? super A, ? super A> combiner) {
+        source.forEach((key, right) -> {
+            A left = target.putIfAbsent(key, right);
+            if (left != null) {
+                combiner.accept(left, right);
+            }
+        });
+    }
+
+    /**
+     * 将所有分片汇总为最终结果。
+     *
+     * @return 最终结果
+     */
+    HashMap<K, A> finish() {
+        if (shards.length == 1) {
+            return shards[0];
+        }
+        int size = 0;
+        for (Map<K, A> shard : shards) {
+            size += shard.size();
+        }
+        HashMap<K, A> result = new HashMap<>((int) (size / 0.75f) + 1);
+        for (Map<K, A> shard : shards) {
+            result.putAll(shard);
+        }
+        return result;
+    }
+
+    /**
+     * 将以单元素数组累加的long值转换为装箱的long值，每个键只会装箱一次。
+     *
+     * @param cells 分组到单元素数组的map
+     * @param <K> 键类型
+     * @return 分组到long值的map
+     */
+    static <K> Map<K, Long> toLongValues(Map<K, long[]> cells) {
+        Map<K, Long> result = new HashMap<>((int) (cells.size() / 0.75f) + 1);
+        cells.forEach((key, cell) -> result.put(key, cell[0]));
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package com.oyealex.pipe.basis;
+
+import static com.oyealex.pipe.utils.MiscUtil.MAX_ARRAY_LENGTH;
+
+/**
+ * 基于开放寻址（线性探测）的int集合，直接以基本类型存储元素，添加元素时不会装箱也不会创建节点对象。
+ * <p/>
+ * 以{@code 0}作为空槽位标记，元素{@code 0}单独记录。
+ *
+ * @author oyealex
+ * @since 2023-06-21
+ */
+final class IntHashSet {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] table;
+
+    private int mask;
+
+    private int size;
+
+    private boolean containsZero;
+
+    IntHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    IntHashSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        // 负载因子为0.5
+        while (capacity < MAX_ARRAY_LENGTH / 2 && capacity < (long) expectedSize << 1) {
+            capacity <<= 1;
+        }
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 添加元素。
+     *
+     * @param value 元素
+     * @return {@code true} - 元素此前不在集合中。
+     */
+    boolean add(int value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            return true;
+        }
+        int[] tab = table;
+        int index = mix(value) & mask;
+        for (int current; (current = tab[index]) != 0; index = (index + 1) & mask) {
+            if (current == value) {
+                return false;
+            }
+        }
+        tab[index] = value;
+        if (++size << 1 > tab.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    private void rehash() {
+        int[] oldTable = table;
+        if (oldTable.length >= MAX_ARRAY_LENGTH / 2) {
+            throw new IllegalStateException("Set size exceeds max capacity");
+        }
+        int[] newTable = new int[oldTable.length << 1];
+        int newMask = newTable.length - 1;
+        for (int value : oldTable) {
+            if (value != 0) {
+                int index = mix(value) & newMask;
+                while (newTable[index] != 0) {
+                    index = (index + 1) & newMask;
+                }
+                newTable[index] = value;
+            }
+        }
+        table = newTable;
+        mask = newMask;
+    }
+
+    static int mix(int value) {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
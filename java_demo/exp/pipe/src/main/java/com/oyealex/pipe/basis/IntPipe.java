@@ -3,16 +3,429 @@ package com.oyealex.pipe.basis;
 import com.oyealex.pipe.BasePipe;
 import com.oyealex.pipe.functional.LongIntPredicate;
 
+import java.util.IntSummaryStatistics;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
 import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
 
 /**
- * IntPipe
+ * int流水线接口
+ * <p/>
+ * 元素以基本类型int在流水线的各个节点之间传递，除非显式地转换为引用类型的流水线（例如{@link #boxed()}），否则不会发生装箱。
+ * <p/>
+ * 与{@link Pipe}相同，int流水线总是串行执行，并且只能执行一次终结操作。
  *
  * @author oyealex
+ * @see Pipe
+ * @see LongPipe
+ * @see DoublePipe
  * @since 2023-03-03
  */
 public interface IntPipe extends BasePipe<Integer, IntPipe> {
+    /**
+     * 保留满足条件的元素。
+     *
+     * @param predicate 条件。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
     IntPipe takeIf(IntPredicate predicate);
 
+    /**
+     * 保留满足条件的元素，条件同时接收元素的次序（从0开始）。
+     *
+     * @param predicate 条件。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
     IntPipe takeIfOrderly(LongIntPredicate predicate);
+
+    /**
+     * 丢弃满足条件的元素。
+     *
+     * @param predicate 条件。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    default IntPipe dropIf(IntPredicate predicate) {
+        return takeIf(requireNonNull(predicate).negate());
+    }
+
+    /**
+     * 将元素映射为新的int值。
+     *
+     * @param mapper 映射方法。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    IntPipe map(IntUnaryOperator mapper);
+
+    /**
+     * 将元素映射为long值。
+     *
+     * @param mapper 映射方法。
+     * @return long流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    LongPipe mapToLong(IntToLongFunction mapper);
+
+    /**
+     * 将元素映射为double值。
+     *
+     * @param mapper 映射方法。
+     * @return double流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    DoublePipe mapToDouble(IntToDoubleFunction mapper);
+
+    /**
+     * 将元素映射为引用类型的值。
+     *
+     * @param mapper 映射方法。
+     * @param <R> 映射结果类型。
+     * @return 引用类型的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    <R> Pipe<R> mapToObj(IntFunction<? extends R> mapper);
+
+    /**
+     * 将元素转换为long值。
+     *
+     * @return long流水线。
+     */
+    default LongPipe asLongPipe() {
+        return mapToLong(value -> value);
+    }
+
+    /**
+     * 将元素转换为double值。
+     *
+     * @return double流水线。
+     */
+    default DoublePipe asDoublePipe() {
+        return mapToDouble(value -> value);
+    }
+
+    /**
+     * 将元素装箱为{@link Integer}。
+     *
+     * @return 引用类型的流水线。
+     */
+    default Pipe<Integer> boxed() {
+        return mapToObj(Integer::valueOf);
+    }
+
+    /**
+     * 将每个元素映射为一个int流水线，并将这些流水线的元素按顺序展开。
+     *
+     * @param mapper 映射方法，映射结果为{@code null}时忽略。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    IntPipe flatMap(IntFunction<? extends IntPipe> mapper);
+
+    /**
+     * 访问元素，但不改变元素。
+     *
+     * @param consumer 访问方法。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code consumer}为{@code null}时抛出。
+     */
+    IntPipe peek(IntConsumer consumer);
+
+    /**
+     * 最多保留前{@code size}个元素。
+     *
+     * @param size 保留的元素数量。
+     * @return 新的流水线。
+     * @throws IllegalArgumentException 当{@code size}为负数时抛出。
+     */
+    IntPipe limit(long size);
+
+    /**
+     * 跳过前{@code size}个元素。
+     *
+     * @param size 跳过的元素数量。
+     * @return 新的流水线。
+     * @throws IllegalArgumentException 当{@code size}为负数时抛出。
+     */
+    IntPipe skip(long size);
+
+    /**
+     * 将元素按照自然顺序排序，元素收集在int数组中排序。
+     *
+     * @return 新的流水线。
+     */
+    IntPipe sort();
+
+    /**
+     * 缓存流水线中的全部元素，得到可以反复执行终结操作的流水线，元素缓存在int数组中。
+     * <p/>
+     * 首次对返回的流水线或者由其构造的流水线执行终结操作时执行当前流水线，之后的终结操作都直接从缓存中读取元素。
+     * 返回的流水线关闭时会同时关闭当前流水线。
+     *
+     * @return 缓存了全部元素的新流水线。
+     * @see Pipe#cache()
+     */
+    IntPipe cache();
+
+    /**
+     * 对元素去重，基于开放寻址的int集合判断元素是否重复，已排序的流水线只比较相邻元素。
+     *
+     * @return 新的流水线。
+     */
+    IntPipe distinct();
+
+    /**
+     * 计算每个滑动窗口中元素的和，每个窗口包含{@code size}个连续的元素，相邻窗口的起点相差1个元素，
+     * 不足{@code size}个元素的窗口不会输出。
+     * <p/>
+     * 窗口中的元素保存在大小为{@code size}的环形数组中，每个元素流入时只需要加上新元素、减去移出窗口的元素。窗口的和以long计算，不会溢出。
+     *
+     * @param size 窗口包含的元素数量。
+     * @return 包含每个窗口的和的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于1时抛出。
+     */
+    default LongPipe slidingSum(int size) {
+        return asLongPipe().slidingSum(size);
+    }
+
+    /**
+     * 计算每个滑动窗口中元素的平均值，窗口的定义与{@link #slidingSum(int)}相同。
+     *
+     * @param size 窗口包含的元素数量。
+     * @return 包含每个窗口的平均值的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于1时抛出。
+     * @see #slidingSum(int)
+     */
+    default DoublePipe slidingAverage(int size) {
+        return asLongPipe().slidingAverage(size);
+    }
+
+    /**
+     * 计算每个滑动窗口中的最小值，窗口的定义与{@link #slidingSum(int)}相同。
+     * <p/>
+     * 以单调队列保存窗口中可能成为最小值的元素，均摊到每个元素的时间与窗口大小无关。
+     *
+     * @param size 窗口包含的元素数量。
+     * @return 包含每个窗口的最小值的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于1时抛出。
+     * @see #slidingMax(int)
+     */
+    IntPipe slidingMin(int size);
+
+    /**
+     * 计算每个滑动窗口中的最大值，窗口的定义与{@link #slidingSum(int)}相同。
+     * <p/>
+     * 以单调队列保存窗口中可能成为最大值的元素，均摊到每个元素的时间与窗口大小无关。
+     *
+     * @param size 窗口包含的元素数量。
+     * @return 包含每个窗口的最大值的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于1时抛出。
+     * @see #slidingMin(int)
+     */
+    IntPipe slidingMax(int size);
+
+    /**
+     * 对每个元素执行给定的方法。
+     *
+     * @param consumer 给定的方法。
+     * @throws NullPointerException 当{@code consumer}为{@code null}时抛出。
+     */
+    void forEach(IntConsumer consumer);
+
+    /**
+     * 计算元素之和，以long累加避免溢出。
+     *
+     * @return 元素之和，流水线为空时返回0。
+     */
+    long sum();
+
+    /**
+     * 计算元素数量。
+     *
+     * @return 元素数量。
+     */
+    long count();
+
+    /**
+     * 获取最小的元素。
+     *
+     * @return 最小的元素。
+     */
+    OptionalInt min();
+
+    /**
+     * 获取最大的元素。
+     *
+     * @return 最大的元素。
+     */
+    OptionalInt max();
+
+    /**
+     * 计算元素的平均值。
+     *
+     * @return 平均值，流水线为空时返回{@link OptionalDouble#empty()}。
+     */
+    OptionalDouble average();
+
+    /**
+     * 计算元素的统计信息，包括数量、和、最小值、最大值以及平均值。
+     *
+     * @return 统计信息。
+     */
+    IntSummaryStatistics summaryStatistics();
+
+    /**
+     * 以{@code initVar}为初始值，依次使用{@code reducer}缩减每个元素。
+     *
+     * @param initVar 初始值。
+     * @param reducer 缩减方法。
+     * @return 缩减结果。
+     * @throws NullPointerException 当{@code reducer}为{@code null}时抛出。
+     */
+    int reduce(int initVar, IntBinaryOperator reducer);
+
+    /**
+     * 以第一个元素为初始值，依次使用{@code reducer}缩减后续元素。
+     *
+     * @param reducer 缩减方法。
+     * @return 缩减结果，流水线为空时返回{@link OptionalInt#empty()}。
+     * @throws NullPointerException 当{@code reducer}为{@code null}时抛出。
+     */
+    OptionalInt reduce(IntBinaryOperator reducer);
+
+    /**
+     * 判断是否存在满足条件的元素。
+     *
+     * @param predicate 条件。
+     * @return {@code true} - 存在满足条件的元素。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    boolean anyMatch(IntPredicate predicate);
+
+    /**
+     * 判断是否所有元素都满足条件。
+     *
+     * @param predicate 条件。
+     * @return {@code true} - 所有元素都满足条件，流水线为空时也返回{@code true}。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    boolean allMatch(IntPredicate predicate);
+
+    /**
+     * 判断是否所有元素都不满足条件。
+     *
+     * @param predicate 条件。
+     * @return {@code true} - 所有元素都不满足条件，流水线为空时也返回{@code true}。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    default boolean noneMatch(IntPredicate predicate) {
+        return !anyMatch(requireNonNull(predicate));
+    }
+
+    /**
+     * 获取第一个元素。
+     *
+     * @return 第一个元素。
+     */
+    OptionalInt findFirst();
+
+    /**
+     * 获取最后一个元素。
+     *
+     * @return 最后一个元素。
+     */
+    OptionalInt findLast();
+
+    /**
+     * 将元素收集到int数组中。
+     *
+     * @return 包含所有元素的数组。
+     */
+    int[] toArray();
+
+    /**
+     * 将区间{@code [lower, upper)}等分为{@code binCount}个子区间，统计落在每个子区间的元素数量，
+     * 区间之外的元素会被忽略。
+     *
+     * @param lower 下界（含）。
+     * @param upper 上界（不含）。
+     * @param binCount 子区间数量。
+     * @return 每个子区间的元素数量。
+     * @throws IllegalArgumentException 当{@code lower}不小于{@code upper}或{@code binCount}小于1时抛出。
+     */
+    long[] histogram(int lower, int upper, int binCount);
+
+    @Override
+    Spliterator.OfInt toSpliterator();
+
+    @Override
+    PrimitiveIterator.OfInt toIterator();
+
+    /**
+     * 获取空的int流水线。
+     *
+     * @return 空的int流水线。
+     */
+    static IntPipe empty() {
+        return spliterator(Spliterators.emptyIntSpliterator());
+    }
+
+    /**
+     * 以给定的拆分器作为数据源构造int流水线。
+     *
+     * @param spliterator 拆分器。
+     * @return int流水线。
+     * @throws NullPointerException 当{@code spliterator}为{@code null}时抛出。
+     */
+    static IntPipe spliterator(Spliterator.OfInt spliterator) {
+        return new AbstractIntPipe.Head(requireNonNull(spliterator));
+    }
+
+    /**
+     * 以给定的元素构造int流水线。
+     *
+     * @param values 元素。
+     * @return int流水线。
+     * @throws NullPointerException 当{@code values}为{@code null}时抛出。
+     */
+    static IntPipe of(int... values) {
+        return spliterator(
+            Spliterators.spliterator(requireNonNull(values), Spliterator.ORDERED | Spliterator.IMMUTABLE));
+    }
+
+    /**
+     * 构造包含区间{@code [startInclusive, endExclusive)}中所有整数的int流水线。
+     *
+     * @param startInclusive 起始值（含）。
+     * @param endExclusive 结束值（不含）。
+     * @return int流水线。
+     */
+    static IntPipe range(int startInclusive, int endExclusive) {
+        return spliterator(IntStream.range(startInclusive, endExclusive).spliterator());
+    }
+
+    /**
+     * 构造包含区间{@code [startInclusive, endInclusive]}中所有整数的int流水线。
+     *
+     * @param startInclusive 起始值（含）。
+     * @param endInclusive 结束值（含）。
+     * @return int流水线。
+     */
+    static IntPipe rangeClosed(int startInclusive, int endInclusive) {
+        return spliterator(IntStream.rangeClosed(startInclusive, endInclusive).spliterator());
+    }
 }
@@ -0,0 +1,134 @@
+package com.oyealex.pipe.basis;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static com.oyealex.pipe.basis.Pipe.spliterator;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 惰性分区拆分器，每个分区都是直接从上游拆分器中读取元素的流水线，分区中的元素不会被缓存。
+ * <p/>
+ * 所有分区共享同一个上游拆分器，因此分区需要按顺序访问：获取下一个分区时，上一个分区中尚未访问的元素会被跳过，
+ * 并且上一个分区不会再流出任何元素。除了为判断是否存在下一个分区而预读的一个元素之外，不会持有任何元素。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+class LazyPartitionSpliterator<T> implements Spliterator<Pipe<T>> {
+    /** 分区允许继承的上游拆分器特征 */
+    private static final int PARTITION_CHARACTERISTICS = ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+
+    /** 上游拆分器 */
+    private final Spliterator<T> upstream;
+
+    private final int partitionSize;
+
+    /** 当前正在访问的分区，{@code null}表示尚未开始访问 */
+    private Partition current;
+
+    /** 预读的元素 */
+    private T head;
+
+    LazyPartitionSpliterator(Spliterator<T> upstream, int partitionSize) {
+        this.upstream = upstream;
+        this.partitionSize = partitionSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Pipe<T>> action) {
+        requireNonNull(action);
+        if (current != null) {
+            current.skipRemaining();
+        }
+        if (!upstream.tryAdvance(value -> head = value)) {
+            current = null;
+            return false;
+        }
+        current = new Partition(head);
+        head = null;
+        action.accept(spliterator(current));
+        return true;
+    }
+
+    @Override
+    public Spliterator<Pipe<T>> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = upstream.estimateSize();
+        return size == Long.MAX_VALUE ? size : size / partitionSize + (size % partitionSize == 0 ? 0 : 1);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * 分区，最多从上游拆分器中读取{@code partitionSize}个元素，包括预读的第一个元素。
+     */
+    private final class Partition implements Spliterator<T> {
+        private T first;
+
+        private boolean firstTaken;
+
+        /** 还可以从上游读取的元素数量 */
+        private int remaining = partitionSize - 1;
+
+        private Partition(T first) {
+            this.first = first;
+        }
+
+        private void skipRemaining() {
+            if (!firstTaken) {
+                firstTaken = true;
+                first = null;
+            }
+            while (remaining > 0) {
+                remaining--;
+                if (!upstream.tryAdvance(ignored -> {})) {
+                    remaining = 0;
+                }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            requireNonNull(action);
+            if (!firstTaken) {
+                T value = first;
+                firstTaken = true;
+                first = null;
+                action.accept(value);
+                return true;
+            }
+            if (remaining <= 0) {
+                return false;
+            }
+            remaining--;
+            if (upstream.tryAdvance(action)) {
+                return true;
+            }
+            remaining = 0;
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining + (firstTaken ? 0 : 1);
+        }
+
+        @Override
+        public int characteristics() {
+            return upstream.characteristics() & PARTITION_CHARACTERISTICS;
+        }
+    }
+}
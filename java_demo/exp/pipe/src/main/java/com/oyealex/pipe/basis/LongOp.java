@@ -0,0 +1,133 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.flag.PipeFlag;
+
+import java.util.Objects;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * long流水线的操作接口，元素以基本类型long在操作之间传递，不会发生装箱。
+ *
+ * @author oyealex
+ * @see Op
+ * @since 2023-06-21
+ */
+interface LongOp extends LongConsumer {
+    /**
+     * 准备好开始接收元素。
+     *
+     * @param size 元素数量，-1表示未知或无限
+     */
+    default void begin(long size) {}
+
+    @Override
+    void accept(long value);
+
+    /**
+     * 结束接收元素。
+     */
+    default void end() {}
+
+    /**
+     * 判断是否可以执行短路操作，提前结束数据流。
+     *
+     * @return {@code true} - 可以提前结束数据流。
+     */
+    default boolean canShortCircuit() {return false;}
+
+    /**
+     * 支持链接的int操作
+     */
+    abstract class Chained implements LongOp {
+        /** 下一个操作 */
+        protected final LongOp nextOp;
+
+        Chained(LongOp nextOp) {
+            this.nextOp = Objects.requireNonNull(nextOp);
+        }
+
+        @Override
+        public void begin(long size) {
+            nextOp.begin(size);
+        }
+
+        @Override
+        public void end() {
+            nextOp.end();
+        }
+
+        @Override
+        public boolean canShortCircuit() {
+            return nextOp.canShortCircuit();
+        }
+    }
+
+    /**
+     * 先把元素收集到数组中，执行一些特定操作后再继续传递元素到下游操作。
+     */
+    abstract class ArrayRepeater extends Chained {
+        protected long[] elements;
+
+        protected int count;
+
+        private boolean isShortCircuitRequested = false;
+
+        ArrayRepeater(LongOp nextOp) {
+            super(nextOp);
+        }
+
+        @Override
+        public void begin(long size) {
+            elements = new long[PrimitiveArrays.initCapacity(size)];
+            count = 0;
+        }
+
+        @Override
+        public void accept(long value) {
+            if (count == elements.length) {
+                elements = PrimitiveArrays.grow(elements);
+            }
+            elements[count++] = value;
+        }
+
+        @Override
+        public boolean canShortCircuit() {
+            isShortCircuitRequested = true;
+            return false;
+        }
+
+        @Override
+        public void end() {
+            beforeEnd();
+            nextOp.begin(count);
+            for (int i = 0; i < count; i++) {
+                if (isShortCircuitRequested && nextOp.canShortCircuit()) {
+                    break;
+                }
+                nextOp.accept(elements[i]);
+            }
+            nextOp.end();
+            elements = null;
+        }
+
+        protected abstract void beforeEnd();
+    }
+
+    /**
+     * long流水线的终结操作
+     *
+     * @param <R> 结果类型
+     */
+    abstract class Terminal<R> implements LongOp, Supplier<R> {
+        /**
+         * 获取此终结操作的标记。
+         *
+         * @return 终结操作的标记
+         * @see TerminalOp#getOpFlag()
+         */
+        int getOpFlag() {
+            return PipeFlag.EMPTY;
+        }
+    }
+}
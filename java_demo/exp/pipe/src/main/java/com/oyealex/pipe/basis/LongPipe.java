@@ -1,10 +1,420 @@
 package com.oyealex.pipe.basis;
 
+import com.oyealex.pipe.BasePipe;
+import com.oyealex.pipe.functional.LongLongPredicate;
+
+import java.util.LongSummaryStatistics;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+import static java.util.Objects.requireNonNull;
+
 /**
- * LongPipe
+ * long流水线接口
+ * <p/>
+ * 元素以基本类型long在流水线的各个节点之间传递，除非显式地转换为引用类型的流水线（例如{@link #boxed()}），否则不会发生装箱。
+ * <p/>
+ * 与{@link Pipe}相同，long流水线总是串行执行，并且只能执行一次终结操作。
  *
  * @author oyealex
+ * @see Pipe
+ * @see IntPipe
+ * @see DoublePipe
  * @since 2023-03-03
  */
-public interface LongPipe {
+public interface LongPipe extends BasePipe<Long, LongPipe> {
+    /**
+     * 保留满足条件的元素。
+     *
+     * @param predicate 条件。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    LongPipe takeIf(LongPredicate predicate);
+
+    /**
+     * 保留满足条件的元素，条件同时接收元素的次序（从0开始）。
+     *
+     * @param predicate 条件。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    LongPipe takeIfOrderly(LongLongPredicate predicate);
+
+    /**
+     * 丢弃满足条件的元素。
+     *
+     * @param predicate 条件。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    default LongPipe dropIf(LongPredicate predicate) {
+        return takeIf(requireNonNull(predicate).negate());
+    }
+
+    /**
+     * 将元素映射为新的long值。
+     *
+     * @param mapper 映射方法。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    LongPipe map(LongUnaryOperator mapper);
+
+    /**
+     * 将元素映射为int值。
+     *
+     * @param mapper 映射方法。
+     * @return int流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    IntPipe mapToInt(LongToIntFunction mapper);
+
+    /**
+     * 将元素映射为double值。
+     *
+     * @param mapper 映射方法。
+     * @return double流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    DoublePipe mapToDouble(LongToDoubleFunction mapper);
+
+    /**
+     * 将元素映射为引用类型的值。
+     *
+     * @param mapper 映射方法。
+     * @param <R> 映射结果类型。
+     * @return 引用类型的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    <R> Pipe<R> mapToObj(LongFunction<? extends R> mapper);
+
+    /**
+     * 将元素转换为double值。
+     *
+     * @return double流水线。
+     */
+    default DoublePipe asDoublePipe() {
+        return mapToDouble(value -> value);
+    }
+
+    /**
+     * 将元素装箱为{@link Long}。
+     *
+     * @return 引用类型的流水线。
+     */
+    default Pipe<Long> boxed() {
+        return mapToObj(Long::valueOf);
+    }
+
+    /**
+     * 将每个元素映射为一个long流水线，并将这些流水线的元素按顺序展开。
+     *
+     * @param mapper 映射方法，映射结果为{@code null}时忽略。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     */
+    LongPipe flatMap(LongFunction<? extends LongPipe> mapper);
+
+    /**
+     * 访问元素，但不改变元素。
+     *
+     * @param consumer 访问方法。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code consumer}为{@code null}时抛出。
+     */
+    LongPipe peek(LongConsumer consumer);
+
+    /**
+     * 最多保留前{@code size}个元素。
+     *
+     * @param size 保留的元素数量。
+     * @return 新的流水线。
+     * @throws IllegalArgumentException 当{@code size}为负数时抛出。
+     */
+    LongPipe limit(long size);
+
+    /**
+     * 跳过前{@code size}个元素。
+     *
+     * @param size 跳过的元素数量。
+     * @return 新的流水线。
+     * @throws IllegalArgumentException 当{@code size}为负数时抛出。
+     */
+    LongPipe skip(long size);
+
+    /**
+     * 将元素按照自然顺序排序，元素收集在long数组中排序。
+     *
+     * @return 新的流水线。
+     */
+    LongPipe sort();
+
+    /**
+     * 缓存流水线中的全部元素，得到可以反复执行终结操作的流水线，元素缓存在long数组中。
+     * <p/>
+     * 首次对返回的流水线或者由其构造的流水线执行终结操作时执行当前流水线，之后的终结操作都直接从缓存中读取元素。
+     * 返回的流水线关闭时会同时关闭当前流水线。
+     *
+     * @return 缓存了全部元素的新流水线。
+     * @see Pipe#cache()
+     */
+    LongPipe cache();
+
+    /**
+     * 对元素去重，基于开放寻址的long集合判断元素是否重复，已排序的流水线只比较相邻元素。
+     *
+     * @return 新的流水线。
+     */
+    LongPipe distinct();
+
+    /**
+     * 计算每个滑动窗口中元素的和，每个窗口包含{@code size}个连续的元素，相邻窗口的起点相差1个元素，
+     * 不足{@code size}个元素的窗口不会输出。
+     * <p/>
+     * 窗口中的元素保存在大小为{@code size}的环形数组中，每个元素流入时只需要加上新元素、减去移出窗口的元素。与{@link #sum()}相同，和溢出时不会抛出异常。
+     *
+     * @param size 窗口包含的元素数量。
+     * @return 包含每个窗口的和的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于1时抛出。
+     */
+    LongPipe slidingSum(int size);
+
+    /**
+     * 计算每个滑动窗口中元素的平均值，窗口的定义与{@link #slidingSum(int)}相同。
+     *
+     * @param size 窗口包含的元素数量。
+     * @return 包含每个窗口的平均值的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于1时抛出。
+     * @see #slidingSum(int)
+     */
+    default DoublePipe slidingAverage(int size) {
+        return slidingSum(size).mapToDouble(sum -> (double) sum / size);
+    }
+
+    /**
+     * 计算每个滑动窗口中的最小值，窗口的定义与{@link #slidingSum(int)}相同。
+     * <p/>
+     * 以单调队列保存窗口中可能成为最小值的元素，均摊到每个元素的时间与窗口大小无关。
+     *
+     * @param size 窗口包含的元素数量。
+     * @return 包含每个窗口的最小值的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于1时抛出。
+     * @see #slidingMax(int)
+     */
+    LongPipe slidingMin(int size);
+
+    /**
+     * 计算每个滑动窗口中的最大值，窗口的定义与{@link #slidingSum(int)}相同。
+     * <p/>
+     * 以单调队列保存窗口中可能成为最大值的元素，均摊到每个元素的时间与窗口大小无关。
+     *
+     * @param size 窗口包含的元素数量。
+     * @return 包含每个窗口的最大值的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于1时抛出。
+     * @see #slidingMin(int)
+     */
+    LongPipe slidingMax(int size);
+
+    /**
+     * 对每个元素执行给定的方法。
+     *
+     * @param consumer 给定的方法。
+     * @throws NullPointerException 当{@code consumer}为{@code null}时抛出。
+     */
+    void forEach(LongConsumer consumer);
+
+    /**
+     * 计算元素之和，溢出时与long的加法运算一致。
+     *
+     * @return 元素之和，流水线为空时返回0。
+     */
+    long sum();
+
+    /**
+     * 计算元素数量。
+     *
+     * @return 元素数量。
+     */
+    long count();
+
+    /**
+     * 获取最小的元素。
+     *
+     * @return 最小的元素。
+     */
+    OptionalLong min();
+
+    /**
+     * 获取最大的元素。
+     *
+     * @return 最大的元素。
+     */
+    OptionalLong max();
+
+    /**
+     * 计算元素的平均值。
+     *
+     * @return 平均值，流水线为空时返回{@link OptionalDouble#empty()}。
+     */
+    OptionalDouble average();
+
+    /**
+     * 计算元素的统计信息，包括数量、和、最小值、最大值以及平均值。
+     *
+     * @return 统计信息。
+     */
+    LongSummaryStatistics summaryStatistics();
+
+    /**
+     * 以{@code initVar}为初始值，依次使用{@code reducer}缩减每个元素。
+     *
+     * @param initVar 初始值。
+     * @param reducer 缩减方法。
+     * @return 缩减结果。
+     * @throws NullPointerException 当{@code reducer}为{@code null}时抛出。
+     */
+    long reduce(long initVar, LongBinaryOperator reducer);
+
+    /**
+     * 以第一个元素为初始值，依次使用{@code reducer}缩减后续元素。
+     *
+     * @param reducer 缩减方法。
+     * @return 缩减结果，流水线为空时返回{@link OptionalLong#empty()}。
+     * @throws NullPointerException 当{@code reducer}为{@code null}时抛出。
+     */
+    OptionalLong reduce(LongBinaryOperator reducer);
+
+    /**
+     * 判断是否存在满足条件的元素。
+     *
+     * @param predicate 条件。
+     * @return {@code true} - 存在满足条件的元素。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    boolean anyMatch(LongPredicate predicate);
+
+    /**
+     * 判断是否所有元素都满足条件。
+     *
+     * @param predicate 条件。
+     * @return {@code true} - 所有元素都满足条件，流水线为空时也返回{@code true}。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    boolean allMatch(LongPredicate predicate);
+
+    /**
+     * 判断是否所有元素都不满足条件。
+     *
+     * @param predicate 条件。
+     * @return {@code true} - 所有元素都不满足条件，流水线为空时也返回{@code true}。
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     */
+    default boolean noneMatch(LongPredicate predicate) {
+        return !anyMatch(requireNonNull(predicate));
+    }
+
+    /**
+     * 获取第一个元素。
+     *
+     * @return 第一个元素。
+     */
+    OptionalLong findFirst();
+
+    /**
+     * 获取最后一个元素。
+     *
+     * @return 最后一个元素。
+     */
+    OptionalLong findLast();
+
+    /**
+     * 将元素收集到long数组中。
+     *
+     * @return 包含所有元素的数组。
+     */
+    long[] toArray();
+
+    /**
+     * 将区间{@code [lower, upper)}等分为{@code binCount}个子区间，统计落在每个子区间的元素数量，
+     * 区间之外的元素会被忽略。
+     *
+     * @param lower 下界（含）。
+     * @param upper 上界（不含）。
+     * @param binCount 子区间数量。
+     * @return 每个子区间的元素数量。
+     * @throws IllegalArgumentException 当{@code lower}不小于{@code upper}或{@code binCount}小于1时抛出。
+     */
+    long[] histogram(long lower, long upper, int binCount);
+
+    @Override
+    Spliterator.OfLong toSpliterator();
+
+    @Override
+    PrimitiveIterator.OfLong toIterator();
+
+    /**
+     * 获取空的long流水线。
+     *
+     * @return 空的long流水线。
+     */
+    static LongPipe empty() {
+        return spliterator(Spliterators.emptyLongSpliterator());
+    }
+
+    /**
+     * 以给定的拆分器作为数据源构造long流水线。
+     *
+     * @param spliterator 拆分器。
+     * @return long流水线。
+     * @throws NullPointerException 当{@code spliterator}为{@code null}时抛出。
+     */
+    static LongPipe spliterator(Spliterator.OfLong spliterator) {
+        return new AbstractLongPipe.Head(requireNonNull(spliterator));
+    }
+
+    /**
+     * 以给定的元素构造long流水线。
+     *
+     * @param values 元素。
+     * @return long流水线。
+     * @throws NullPointerException 当{@code values}为{@code null}时抛出。
+     */
+    static LongPipe of(long... values) {
+        return spliterator(
+            Spliterators.spliterator(requireNonNull(values), Spliterator.ORDERED | Spliterator.IMMUTABLE));
+    }
+
+    /**
+     * 构造包含区间{@code [startInclusive, endExclusive)}中所有整数的long流水线。
+     *
+     * @param startInclusive 起始值（含）。
+     * @param endExclusive 结束值（不含）。
+     * @return long流水线。
+     */
+    static LongPipe range(long startInclusive, long endExclusive) {
+        return spliterator(LongStream.range(startInclusive, endExclusive).spliterator());
+    }
+
+    /**
+     * 构造包含区间{@code [startInclusive, endInclusive]}中所有整数的long流水线。
+     *
+     * @param startInclusive 起始值（含）。
+     * @param endInclusive 结束值（含）。
+     * @return long流水线。
+     */
+    static LongPipe rangeClosed(long startInclusive, long endInclusive) {
+        return spliterator(LongStream.rangeClosed(startInclusive, endInclusive).spliterator());
+    }
 }
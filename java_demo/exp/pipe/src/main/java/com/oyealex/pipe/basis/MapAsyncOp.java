@@ -0,0 +1,285 @@
+package com.oyealex.pipe.basis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.oyealex.pipe.flag.PipeFlag.NOT_DISTINCT;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_NONNULL;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_REVERSED_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SORTED;
+
+/**
+ * 异步映射节点，在给定的执行器上并发执行映射方法，同时执行中的映射任务不超过{@code maxConcurrency}个。
+ * <p/>
+ * 在途任务已满时，接收上游元素的线程会等待最早（有序）或者最先完成（无序）的任务并将其结果传递给下游，以此形成反压。
+ * 下游可以短路，或者流水线因为上下游的异常提前结束时，剩余的在途任务会被取消。通过{@code toIterator}等方式拉取元素时，
+ * 放弃迭代不会经过上述流程，此时剩余的在途任务在流水线关闭时取消。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+abstract class MapAsyncOp<T, R> extends RefPipe<T, R> {
+    /**
+     * 默认的执行器，运行环境支持虚拟线程时为每个任务创建一个虚拟线程，否则使用专用的守护线程缓存线程池。
+     * <p/>
+     * 不使用公共的{@link ForkJoinPool}：其并行度可能小于{@code maxConcurrency}，且阻塞的映射方法会占用并行求值所需的线程。
+     * 每个节点的在途任务数量不超过{@code maxConcurrency}，因此缓存线程池中的线程数量同样受此限制。
+     */
+    private static final Executor DEFAULT_EXECUTOR = initDefaultExecutor();
+
+    protected final Function<? super T, ? extends R> mapper;
+
+    protected final int maxConcurrency;
+
+    protected final Executor executor;
+
+    /** 此节点提交的所有尚未完成的任务，流水线关闭时全部取消 */
+    private final Set<Future<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+    private MapAsyncOp(RefPipe<?, ? extends T> prePipe, Function<? super T, ? extends R> mapper, int maxConcurrency,
+        Executor executor) {
+        super(prePipe, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | NOT_NONNULL);
+        this.mapper = mapper;
+        this.maxConcurrency = maxConcurrency;
+        this.executor = executor;
+        onClose(this::cancelInFlight);
+    }
+
+    /**
+     * 取消此节点提交的所有尚未完成的任务，可以在任意线程中调用。
+     */
+    private void cancelInFlight() {
+        for (Future<?> future : inFlight) {
+            future.cancel(true);
+        }
+    }
+
+    static Executor defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    private static Executor initDefaultExecutor() {
+        try {
+            // 虚拟线程自Java 21起提供，通过反射获取以兼容更低版本的运行环境
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "pipe-map-async-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 按照上游元素的次序输出映射结果。
+     */
+    static class Ordered<T, R> extends MapAsyncOp<T, R> {
+        Ordered(RefPipe<?, ? extends T> prePipe, Function<? super T, ? extends R> mapper, int maxConcurrency,
+            Executor executor) {
+            super(prePipe, mapper, maxConcurrency, executor);
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<R> nextOp) {
+            return new AsyncOp(nextOp) {
+                private ArrayDeque<Future<R>> pending;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    pending = new ArrayDeque<>(Math.min(maxConcurrency, 16));
+                    nextOp.begin(size, minSize, maxSize);
+                }
+
+                @Override
+                public void accept(T value) {
+                    // 在途任务已满时等待最早的任务，同时顺带输出已经完成的任务
+                    while (!pending.isEmpty() && (pending.size() >= maxConcurrency || pending.peekFirst().isDone())) {
+                        emit(pending.pollFirst(), pending);
+                    }
+                    if (!shouldShortCircuit()) {
+                        pending.addLast(submit(value, null));
+                    }
+                }
+
+                @Override
+                public void end() {
+                    while (!pending.isEmpty()) {
+                        emit(pending.pollFirst(), pending);
+                    }
+                    pending = null;
+                    nextOp.end();
+                }
+
+                @Override
+                public void abort() {
+                    if (pending != null) {
+                        cancelAll(pending);
+                    }
+                    super.abort();
+                }
+            };
+        }
+    }
+
+    /**
+     * 按照映射任务完成的次序输出映射结果。
+     */
+    static class Unordered<T, R> extends MapAsyncOp<T, R> {
+        Unordered(RefPipe<?, ? extends T> prePipe, Function<? super T, ? extends R> mapper, int maxConcurrency,
+            Executor executor) {
+            super(prePipe, mapper, maxConcurrency, executor);
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<R> nextOp) {
+            return new AsyncOp(nextOp) {
+                /** 在途的任务 */
+                private Set<Future<R>> pending;
+
+                /** 已经完成的任务，按照完成的次序排列 */
+                private BlockingQueue<Future<R>> completed;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    pending = new LinkedHashSet<>();
+                    completed = new LinkedBlockingQueue<>();
+                    nextOp.begin(size, minSize, maxSize);
+                }
+
+                @Override
+                public void accept(T value) {
+                    Future<R> done;
+                    while ((done = completed.poll()) != null) {
+                        emitCompleted(done);
+                    }
+                    while (pending.size() >= maxConcurrency) {
+                        emitCompleted(awaitCompleted());
+                    }
+                    if (!shouldShortCircuit()) {
+                        pending.add(submit(value, completed));
+                    }
+                }
+
+                @Override
+                public void end() {
+                    while (!pending.isEmpty()) {
+                        emitCompleted(awaitCompleted());
+                    }
+                    pending = null;
+                    completed = null;
+                    nextOp.end();
+                }
+
+                @Override
+                public void abort() {
+                    if (pending != null) {
+                        cancelAll(pending);
+                    }
+                    super.abort();
+                }
+
+                private Future<R> awaitCompleted() {
+                    try {
+                        return completed.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        cancelAll(pending);
+                        throw new IllegalStateException("interrupted while waiting for async mapping", e);
+                    }
+                }
+
+                private void emitCompleted(Future<R> future) {
+                    pending.remove(future);
+                    emit(future, pending);
+                }
+            };
+        }
+    }
+
+    /**
+     * 提交映射任务并传递映射结果的操作。
+     */
+    abstract class AsyncOp extends ChainedOp.ShortCircuitRecorded<T, R> {
+        AsyncOp(Op<? super R> nextOp) {
+            super(nextOp);
+        }
+
+        /**
+         * 将元素的映射任务提交到执行器中。
+         *
+         * @param value 需要映射的元素
+         * @param completed 任务完成之后放入的队列，可以为{@code null}
+         * @return 映射任务
+         */
+        Future<R> submit(T value, BlockingQueue<Future<R>> completed) {
+            FutureTask<R> task = new FutureTask<R>(() -> mapper.apply(value)) {
+                @Override
+                protected void done() {
+                    inFlight.remove(this);
+                    if (completed != null) {
+                        completed.add(this);
+                    }
+                }
+            };
+            inFlight.add(task);
+            executor.execute(task);
+            return task;
+        }
+
+        /**
+         * 等待映射任务完成并将结果传递给下游，下游已经可以短路时取消所有剩余的任务。
+         *
+         * @param future 映射任务
+         * @param remaining 剩余的在途任务
+         */
+        void emit(Future<R> future, Collection<Future<R>> remaining) {
+            if (shouldShortCircuit()) {
+                future.cancel(true);
+                cancelAll(remaining);
+                return;
+            }
+            R result;
+            try {
+                result = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll(remaining);
+                throw new IllegalStateException("interrupted while waiting for async mapping", e);
+            } catch (ExecutionException e) {
+                cancelAll(remaining);
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+            nextOp.accept(result);
+        }
+
+        void cancelAll(Collection<Future<R>> remaining) {
+            for (Future<R> future : new ArrayList<>(remaining)) {
+                future.cancel(true);
+            }
+            remaining.clear();
+        }
+    }
+}
@@ -0,0 +1,714 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.BasePipe;
+import com.oyealex.pipe.utils.NoInstance;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 在不同元素类型的流水线之间转换时使用的映射拆分器。
+ * <p/>
+ * 元素类型发生变化时，下游流水线以映射拆分器作为新的数据源，逐个映射上游流水线的元素，基本类型的元素不会发生装箱。
+ * 映射之后的元素不再保证有序和唯一，因此映射拆分器会清除{@link Spliterator#SORTED}、{@link Spliterator#DISTINCT}
+ * 以及{@link Spliterator#NONNULL}特征。
+ *
+ * @author oyealex
+ * @since 2023-06-22
+ */
+final class MappingSpliterators extends NoInstance {
+    /** 映射之后不再保留的特征 */
+    private static final int CLEAR_MASK = Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL;
+
+    static Spliterator.OfLong intToLong(Spliterator.OfInt source, IntToLongFunction mapper) {
+        return new ToLong<Spliterator.OfInt>(source) {
+            @Override
+            public boolean tryAdvance(LongConsumer action) {
+                return source.tryAdvance((IntConsumer) value -> action.accept(mapper.applyAsLong(value)));
+            }
+
+            @Override
+            public void forEachRemaining(LongConsumer action) {
+                source.forEachRemaining((IntConsumer) value -> action.accept(mapper.applyAsLong(value)));
+            }
+        };
+    }
+
+    static Spliterator.OfDouble intToDouble(Spliterator.OfInt source, IntToDoubleFunction mapper) {
+        return new ToDouble<Spliterator.OfInt>(source) {
+            @Override
+            public boolean tryAdvance(DoubleConsumer action) {
+                return source.tryAdvance((IntConsumer) value -> action.accept(mapper.applyAsDouble(value)));
+            }
+
+            @Override
+            public void forEachRemaining(DoubleConsumer action) {
+                source.forEachRemaining((IntConsumer) value -> action.accept(mapper.applyAsDouble(value)));
+            }
+        };
+    }
+
+    static <R> Spliterator<R> intToObj(Spliterator.OfInt source, IntFunction<? extends R> mapper) {
+        return new ToObj<Spliterator.OfInt, R>(source) {
+            @Override
+            public boolean tryAdvance(Consumer<? super R> action) {
+                return source.tryAdvance((IntConsumer) value -> action.accept(mapper.apply(value)));
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super R> action) {
+                source.forEachRemaining((IntConsumer) value -> action.accept(mapper.apply(value)));
+            }
+        };
+    }
+
+    static Spliterator.OfInt longToInt(Spliterator.OfLong source, LongToIntFunction mapper) {
+        return new ToInt<Spliterator.OfLong>(source) {
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                return source.tryAdvance((LongConsumer) value -> action.accept(mapper.applyAsInt(value)));
+            }
+
+            @Override
+            public void forEachRemaining(IntConsumer action) {
+                source.forEachRemaining((LongConsumer) value -> action.accept(mapper.applyAsInt(value)));
+            }
+        };
+    }
+
+    static Spliterator.OfDouble longToDouble(Spliterator.OfLong source, LongToDoubleFunction mapper) {
+        return new ToDouble<Spliterator.OfLong>(source) {
+            @Override
+            public boolean tryAdvance(DoubleConsumer action) {
+                return source.tryAdvance((LongConsumer) value -> action.accept(mapper.applyAsDouble(value)));
+            }
+
+            @Override
+            public void forEachRemaining(DoubleConsumer action) {
+                source.forEachRemaining((LongConsumer) value -> action.accept(mapper.applyAsDouble(value)));
+            }
+        };
+    }
+
+    static <R> Spliterator<R> longToObj(Spliterator.OfLong source, LongFunction<? extends R> mapper) {
+        return new ToObj<Spliterator.OfLong, R>(source) {
+            @Override
+            public boolean tryAdvance(Consumer<? super R> action) {
+                return source.tryAdvance((LongConsumer) value -> action.accept(mapper.apply(value)));
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super R> action) {
+                source.forEachRemaining((LongConsumer) value -> action.accept(mapper.apply(value)));
+            }
+        };
+    }
+
+    static Spliterator.OfInt doubleToInt(Spliterator.OfDouble source, DoubleToIntFunction mapper) {
+        return new ToInt<Spliterator.OfDouble>(source) {
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                return source.tryAdvance((DoubleConsumer) value -> action.accept(mapper.applyAsInt(value)));
+            }
+
+            @Override
+            public void forEachRemaining(IntConsumer action) {
+                source.forEachRemaining((DoubleConsumer) value -> action.accept(mapper.applyAsInt(value)));
+            }
+        };
+    }
+
+    static Spliterator.OfLong doubleToLong(Spliterator.OfDouble source, DoubleToLongFunction mapper) {
+        return new ToLong<Spliterator.OfDouble>(source) {
+            @Override
+            public boolean tryAdvance(LongConsumer action) {
+                return source.tryAdvance((DoubleConsumer) value -> action.accept(mapper.applyAsLong(value)));
+            }
+
+            @Override
+            public void forEachRemaining(LongConsumer action) {
+                source.forEachRemaining((DoubleConsumer) value -> action.accept(mapper.applyAsLong(value)));
+            }
+        };
+    }
+
+    static <R> Spliterator<R> doubleToObj(Spliterator.OfDouble source, DoubleFunction<? extends R> mapper) {
+        return new ToObj<Spliterator.OfDouble, R>(source) {
+            @Override
+            public boolean tryAdvance(Consumer<? super R> action) {
+                return source.tryAdvance((DoubleConsumer) value -> action.accept(mapper.apply(value)));
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super R> action) {
+                source.forEachRemaining((DoubleConsumer) value -> action.accept(mapper.apply(value)));
+            }
+        };
+    }
+
+    static <T> Spliterator.OfInt refToInt(Spliterator<T> source, ToIntFunction<? super T> mapper) {
+        return new ToInt<Spliterator<T>>(source) {
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                return source.tryAdvance(value -> action.accept(mapper.applyAsInt(value)));
+            }
+
+            @Override
+            public void forEachRemaining(IntConsumer action) {
+                source.forEachRemaining(value -> action.accept(mapper.applyAsInt(value)));
+            }
+        };
+    }
+
+    static <T> Spliterator.OfLong refToLong(Spliterator<T> source, ToLongFunction<? super T> mapper) {
+        return new ToLong<Spliterator<T>>(source) {
+            @Override
+            public boolean tryAdvance(LongConsumer action) {
+                return source.tryAdvance(value -> action.accept(mapper.applyAsLong(value)));
+            }
+
+            @Override
+            public void forEachRemaining(LongConsumer action) {
+                source.forEachRemaining(value -> action.accept(mapper.applyAsLong(value)));
+            }
+        };
+    }
+
+    static <T> Spliterator.OfDouble refToDouble(Spliterator<T> source, ToDoubleFunction<? super T> mapper) {
+        return new ToDouble<Spliterator<T>>(source) {
+            @Override
+            public boolean tryAdvance(DoubleConsumer action) {
+                return source.tryAdvance(value -> action.accept(mapper.applyAsDouble(value)));
+            }
+
+            @Override
+            public void forEachRemaining(DoubleConsumer action) {
+                source.forEachRemaining(value -> action.accept(mapper.applyAsDouble(value)));
+            }
+        };
+    }
+
+    static <T> Spliterator.OfInt refFlatMapToInt(Spliterator<T> source,
+        Function<? super T, ? extends IntPipe> mapper) {
+        return new FlatToInt<>(source, mapper);
+    }
+
+    static <T> Spliterator.OfLong refFlatMapToLong(Spliterator<T> source,
+        Function<? super T, ? extends LongPipe> mapper) {
+        return new FlatToLong<>(source, mapper);
+    }
+
+    static <T> Spliterator.OfDouble refFlatMapToDouble(Spliterator<T> source,
+        Function<? super T, ? extends DoublePipe> mapper) {
+        return new FlatToDouble<>(source, mapper);
+    }
+
+    static <T> Spliterator.OfInt refPushToInt(Spliterator<T> source,
+        BiConsumer<? super T, ? super IntConsumer> pusher) {
+        return new PushToInt<>(source, pusher);
+    }
+
+    static <T> Spliterator.OfLong refPushToLong(Spliterator<T> source,
+        BiConsumer<? super T, ? super LongConsumer> pusher) {
+        return new PushToLong<>(source, pusher);
+    }
+
+    static <T> Spliterator.OfDouble refPushToDouble(Spliterator<T> source,
+        BiConsumer<? super T, ? super DoubleConsumer> pusher) {
+        return new PushToDouble<>(source, pusher);
+    }
+
+    private abstract static class Mapping<S extends Spliterator<?>> {
+        /** 被映射的拆分器 */
+        protected final S source;
+
+        Mapping(S source) {
+            this.source = source;
+        }
+
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        public long getExactSizeIfKnown() {
+            return source.getExactSizeIfKnown();
+        }
+
+        public int characteristics() {
+            return source.characteristics() & ~CLEAR_MASK;
+        }
+    }
+
+    private abstract static class ToInt<S extends Spliterator<?>> extends Mapping<S> implements Spliterator.OfInt {
+        ToInt(S source) {
+            super(source);
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            return null;
+        }
+    }
+
+    private abstract static class ToLong<S extends Spliterator<?>> extends Mapping<S> implements Spliterator.OfLong {
+        ToLong(S source) {
+            super(source);
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            return null;
+        }
+    }
+
+    private abstract static class ToDouble<S extends Spliterator<?>> extends Mapping<S>
+        implements Spliterator.OfDouble {
+        ToDouble(S source) {
+            super(source);
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            return null;
+        }
+    }
+
+    private abstract static class ToObj<S extends Spliterator<?>, R> extends Mapping<S> implements Spliterator<R> {
+        ToObj(S source) {
+            super(source);
+        }
+
+        @Override
+        public Spliterator<R> trySplit() {
+            return null;
+        }
+    }
+
+    /**
+     * 将每个元素映射为一个基本类型流水线，并将这些流水线的元素按顺序展开的拆分器。
+     *
+     * @param <T> 被映射的元素类型
+     * @param <P> 映射得到的流水线类型
+     * @param <S> 映射得到的流水线的拆分器类型
+     */
+    private abstract static class Flat<T, P extends BasePipe<?, ?>, S extends Spliterator<?>>
+        extends Mapping<Spliterator<T>> {
+        private final Function<? super T, ? extends P> mapper;
+
+        /** 当前正在展开的流水线 */
+        private P currentPipe;
+
+        /** 当前正在展开的流水线的拆分器 */
+        protected S current;
+
+        Flat(Spliterator<T> source, Function<? super T, ? extends P> mapper) {
+            super(source);
+            this.mapper = mapper;
+        }
+
+        /**
+         * 映射上游的下一个元素，并将映射得到的流水线作为当前正在展开的流水线。
+         *
+         * @return {@code true} - 上游仍有元素。
+         */
+        protected boolean advanceSource() {
+            closeCurrent();
+            return source.tryAdvance(value -> {
+                currentPipe = mapper.apply(value);
+                current = currentPipe == null ? null : toSpliterator(currentPipe);
+            });
+        }
+
+        protected void closeCurrent() {
+            P pipe = currentPipe;
+            current = null;
+            currentPipe = null;
+            if (pipe != null) {
+                pipe.close();
+            }
+        }
+
+        protected P mapToPipe(T value) {
+            return mapper.apply(value);
+        }
+
+        protected abstract S toSpliterator(P pipe);
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return -1;
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & Spliterator.ORDERED;
+        }
+    }
+
+    private static final class FlatToInt<T> extends Flat<T, IntPipe, Spliterator.OfInt> implements Spliterator.OfInt {
+        FlatToInt(Spliterator<T> source, Function<? super T, ? extends IntPipe> mapper) {
+            super(source, mapper);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            while (current == null || !current.tryAdvance(action)) {
+                if (!advanceSource()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (current != null) {
+                current.forEachRemaining(action);
+            }
+            closeCurrent();
+            source.forEachRemaining(value -> {
+                // 新的流水线可能包含了关闭方法，需要确保调用close方法
+                try (IntPipe pipe = mapToPipe(value)) {
+                    if (pipe != null) {
+                        pipe.forEach(action);
+                    }
+                }
+            });
+        }
+
+        @Override
+        protected Spliterator.OfInt toSpliterator(IntPipe pipe) {
+            return pipe.toSpliterator();
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            return null;
+        }
+    }
+
+    private static final class FlatToLong<T> extends Flat<T, LongPipe, Spliterator.OfLong>
+        implements Spliterator.OfLong {
+        FlatToLong(Spliterator<T> source, Function<? super T, ? extends LongPipe> mapper) {
+            super(source, mapper);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            while (current == null || !current.tryAdvance(action)) {
+                if (!advanceSource()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            if (current != null) {
+                current.forEachRemaining(action);
+            }
+            closeCurrent();
+            source.forEachRemaining(value -> {
+                // 新的流水线可能包含了关闭方法，需要确保调用close方法
+                try (LongPipe pipe = mapToPipe(value)) {
+                    if (pipe != null) {
+                        pipe.forEach(action);
+                    }
+                }
+            });
+        }
+
+        @Override
+        protected Spliterator.OfLong toSpliterator(LongPipe pipe) {
+            return pipe.toSpliterator();
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            return null;
+        }
+    }
+
+    private static final class FlatToDouble<T> extends Flat<T, DoublePipe, Spliterator.OfDouble>
+        implements Spliterator.OfDouble {
+        FlatToDouble(Spliterator<T> source, Function<? super T, ? extends DoublePipe> mapper) {
+            super(source, mapper);
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            while (current == null || !current.tryAdvance(action)) {
+                if (!advanceSource()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            if (current != null) {
+                current.forEachRemaining(action);
+            }
+            closeCurrent();
+            source.forEachRemaining(value -> {
+                // 新的流水线可能包含了关闭方法，需要确保调用close方法
+                try (DoublePipe pipe = mapToPipe(value)) {
+                    if (pipe != null) {
+                        pipe.forEach(action);
+                    }
+                }
+            });
+        }
+
+        @Override
+        protected Spliterator.OfDouble toSpliterator(DoublePipe pipe) {
+            return pipe.toSpliterator();
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            return null;
+        }
+    }
+
+    /**
+     * 由展开方法直接推送int值的拆分器：批量访问时直接推送给访问方法，逐个访问时先推送到复用的缓冲区中再逐个取出。
+     */
+    private static final class PushToInt<T> extends Mapping<Spliterator<T>> implements Spliterator.OfInt {
+        private final BiConsumer<? super T, ? super IntConsumer> pusher;
+
+        /** 将上游元素展开到缓冲区中的方法，所有元素共享同一个实例 */
+        private final Consumer<T> bufferPusher;
+
+        private int[] buffer = new int[16];
+
+        private int count;
+
+        /** 缓冲区中下一个待取出的元素下标 */
+        private int index;
+
+        PushToInt(Spliterator<T> source, BiConsumer<? super T, ? super IntConsumer> pusher) {
+            super(source);
+            this.pusher = pusher;
+            IntConsumer appender = this::append;
+            this.bufferPusher = value -> pusher.accept(value, appender);
+        }
+
+        private void append(int value) {
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count << 1);
+            }
+            buffer[count++] = value;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            while (index >= count) {
+                index = 0;
+                count = 0;
+                if (!source.tryAdvance(bufferPusher)) {
+                    return false;
+                }
+            }
+            action.accept(buffer[index++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            while (index < count) {
+                action.accept(buffer[index++]);
+            }
+            source.forEachRemaining(value -> pusher.accept(value, action));
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return -1;
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & Spliterator.ORDERED;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            return null;
+        }
+    }
+
+    /**
+     * 由展开方法直接推送long值的拆分器：批量访问时直接推送给访问方法，逐个访问时先推送到复用的缓冲区中再逐个取出。
+     */
+    private static final class PushToLong<T> extends Mapping<Spliterator<T>> implements Spliterator.OfLong {
+        private final BiConsumer<? super T, ? super LongConsumer> pusher;
+
+        /** 将上游元素展开到缓冲区中的方法，所有元素共享同一个实例 */
+        private final Consumer<T> bufferPusher;
+
+        private long[] buffer = new long[16];
+
+        private int count;
+
+        /** 缓冲区中下一个待取出的元素下标 */
+        private int index;
+
+        PushToLong(Spliterator<T> source, BiConsumer<? super T, ? super LongConsumer> pusher) {
+            super(source);
+            this.pusher = pusher;
+            LongConsumer appender = this::append;
+            this.bufferPusher = value -> pusher.accept(value, appender);
+        }
+
+        private void append(long value) {
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count << 1);
+            }
+            buffer[count++] = value;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            while (index >= count) {
+                index = 0;
+                count = 0;
+                if (!source.tryAdvance(bufferPusher)) {
+                    return false;
+                }
+            }
+            action.accept(buffer[index++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            while (index < count) {
+                action.accept(buffer[index++]);
+            }
+            source.forEachRemaining(value -> pusher.accept(value, action));
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return -1;
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & Spliterator.ORDERED;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            return null;
+        }
+    }
+
+    /**
+     * 由展开方法直接推送double值的拆分器：批量访问时直接推送给访问方法，逐个访问时先推送到复用的缓冲区中再逐个取出。
+     */
+    private static final class PushToDouble<T> extends Mapping<Spliterator<T>> implements Spliterator.OfDouble {
+        private final BiConsumer<? super T, ? super DoubleConsumer> pusher;
+
+        /** 将上游元素展开到缓冲区中的方法，所有元素共享同一个实例 */
+        private final Consumer<T> bufferPusher;
+
+        private double[] buffer = new double[16];
+
+        private int count;
+
+        /** 缓冲区中下一个待取出的元素下标 */
+        private int index;
+
+        PushToDouble(Spliterator<T> source, BiConsumer<? super T, ? super DoubleConsumer> pusher) {
+            super(source);
+            this.pusher = pusher;
+            DoubleConsumer appender = this::append;
+            this.bufferPusher = value -> pusher.accept(value, appender);
+        }
+
+        private void append(double value) {
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count << 1);
+            }
+            buffer[count++] = value;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            while (index >= count) {
+                index = 0;
+                count = 0;
+                if (!source.tryAdvance(bufferPusher)) {
+                    return false;
+                }
+            }
+            action.accept(buffer[index++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            while (index < count) {
+                action.accept(buffer[index++]);
+            }
+            source.forEachRemaining(value -> pusher.accept(value, action));
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public long getExactSizeIfKnown() {
+            return -1;
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & Spliterator.ORDERED;
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            return null;
+        }
+    }
+}
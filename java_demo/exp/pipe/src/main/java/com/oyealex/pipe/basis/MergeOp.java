@@ -69,7 +69,7 @@ class MergeOp<OURS, THEIRS, RESULT> extends ChainedOp.ShortCircuitRecorded<OURS,
     }
 
     @Override
-    public void begin(long size) {
+    public void begin(long size, long minSize, long maxSize) {
         nextOp.begin(-1);
     }
 
@@ -2,6 +2,8 @@ package com.oyealex.pipe.basis;
 
 import java.util.function.Consumer;
 
+import static com.oyealex.pipe.utils.MiscUtil.checkArraySize;
+
 /**
  * 操作接口
  *
@@ -9,18 +11,29 @@ import java.util.function.Consumer;
  * @since 2023-02-09
  */
 interface Op<T> extends Consumer<T> {
+    /** 元素数量未知时，仅根据上界预分配的最大容量，避免上界远大于实际数量时浪费空间 */
+    int MAX_PRESIZE_CAPACITY = 1 << 16;
+
     /**
      * 准备好开始接收元素。
      *
      * @param size 元素数量，-1表示未知或无限
      */
-    default void begin(long size) {}
-
-    // TODO 2023-05-19 02:05 根据size的上下界做更进一步的优化
-    default void begin(long size, long minSize, long maxSize) {
-        begin(size);
+    default void begin(long size) {
+        begin(size, Math.max(size, 0), size);
     }
 
+    /**
+     * 准备好开始接收元素，同时给出元素数量的上下界，元素数量确定时三者相等。
+     * <p/>
+     * 需要缓存元素的操作可以根据上下界预分配空间，减少扩容带来的拷贝，传递给下游时应当按照自身的语义调整上下界。
+     *
+     * @param size 元素数量，-1表示未知或无限
+     * @param minSize 元素数量的下界
+     * @param maxSize 元素数量的上界，-1表示未知或无限
+     */
+    default void begin(long size, long minSize, long maxSize) {}
+
     @Override
     void accept(T value);
 
@@ -29,10 +42,40 @@ interface Op<T> extends Consumer<T> {
      */
     default void end() {}
 
+    /**
+     * 因为异常提前结束接收元素，此后不会再调用{@link #end()}。
+     * <p/>
+     * 持有外部资源（例如在途的异步任务）的操作应当在此释放资源，并继续通知下游操作。
+     */
+    default void abort() {}
+
     /**
      * 判断是否可以执行短路操作，提前结束数据流。
      *
      * @return {@code true} - 可以提前结束数据流。
      */
     default boolean canShortCircuit() {return false;}
+
+    /**
+     * 根据元素数量及其上下界计算缓存的初始容量。
+     * <p/>
+     * 元素数量确定时直接使用此数量，否则使用上界，但不超过{@link #MAX_PRESIZE_CAPACITY}与下界中的较大者。
+     *
+     * @param size 元素数量，-1表示未知
+     * @param minSize 元素数量的下界
+     * @param maxSize 元素数量的上界，-1表示未知
+     * @return 初始容量，-1表示没有可用的信息
+     */
+    static int initCapacity(long size, long minSize, long maxSize) {
+        long capacity;
+        if (size >= 0) {
+            capacity = size;
+        } else if (maxSize >= 0) {
+            capacity = Math.min(maxSize, Math.max(minSize, MAX_PRESIZE_CAPACITY));
+        } else {
+            capacity = minSize > 0 ? minSize : -1;
+        }
+        checkArraySize(capacity);
+        return (int) capacity;
+    }
 }
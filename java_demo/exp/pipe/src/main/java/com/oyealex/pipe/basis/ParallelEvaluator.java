@@ -0,0 +1,217 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.utils.NoInstance;
+
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.oyealex.pipe.flag.PipeFlag.ORDERED;
+import static com.oyealex.pipe.flag.PipeFlag.SHORT_CIRCUIT;
+
+/**
+ * 基于fork/join的流水线并行求值器。
+ * <p/>
+ * 求值时将头节点的数据源逐级拆分，每个叶子分段独立地执行流水线中的操作，再将各个分段的结果按照遇到顺序逐级合并：
+ * <ol>
+ *     <li/>流水线全部由无状态节点组成，并且终结操作可合并：每个分段执行完整的操作链和独立的终结操作，最后合并终结操作的结果；
+ *     <li/>流水线包含有状态节点，或者终结操作不可合并：并行执行首个有状态节点之前的无状态节点，按照遇到顺序缓存其输出，
+ *     再以缓存为数据源串行执行剩余的节点和终结操作；如果首个有状态节点自身支持分段求值（例如抽样），
+ *     则由其并行地得到输出，再串行执行其后的节点和终结操作；
+ *     <li/>流水线或终结操作可短路，或者不存在可以并行执行的无状态节点：退化为串行求值。
+ * </ol>
+ *
+ * @author oyealex
+ * @since 2023-06-20
+ */
+final class ParallelEvaluator extends NoInstance {
+    /** 数据源大小未知时，叶子分段的元素数量阈值 */
+    private static final long UNKNOWN_SIZE_LEAF_THRESHOLD = 1 << 10;
+
+    /** 期望每个工作线程处理的叶子分段数量 */
+    private static final int LEAF_PER_THREAD = 4;
+
+    /**
+     * 并行执行流水线并得到最终结果。
+     *
+     * @param pipe 流水线尾节点
+     * @param terminalOpSupplier 终结操作的构造方法
+     * @param combiner 合并相邻分段结果的方法，为{@code null}时表示终结操作不可合并
+     * @param <OUT> 流水线输出的元素类型
+     * @param <R> 结果类型
+     * @return 流水线的最终结果
+     */
+    @SuppressWarnings("unchecked")
+    static <OUT, R> R evaluate(RefPipe<?, OUT> pipe, Supplier<? extends TerminalOp<OUT, R>> terminalOpSupplier,
+        BinaryOperator<R> combiner) {
+        TerminalOp<OUT, R> terminalOp = terminalOpSupplier.get();
+        Spliterator<Object> dataSource = (Spliterator<Object>) pipe.headPipe.takeDataSource();
+        if (SHORT_CIRCUIT.isSet(pipe.flag | terminalOp.getOpFlag())) {
+            pipe.driveData(dataSource, terminalOp);
+            return terminalOp.get();
+        }
+        RefPipe<?, ?> statefulPipe = findFirstStatefulPipe(pipe);
+        if (statefulPipe == null && combiner != null) {
+            return new EvaluateTask<>(dataSource, calcLeafThreshold(dataSource), null, (split, random) -> {
+                TerminalOp<OUT, R> leafOp = terminalOpSupplier.get();
+                pipe.driveData(split, leafOp);
+                return leafOp.get();
+            }, combiner).invoke();
+        }
+        if (statefulPipe != null) {
+            Spliterator<Object> output = statefulPipe.evaluateInParallel(dataSource);
+            if (output != null) {
+                pipe.driveData(output, terminalOp, statefulPipe);
+                return terminalOp.get();
+            }
+        }
+        RefPipe<?, ?> statelessTail = statefulPipe == null ? pipe : statefulPipe.prePipe;
+        if (statelessTail == pipe.headPipe) {
+            pipe.driveData(dataSource, terminalOp);
+        } else {
+            pipe.driveData(collectInParallel(statelessTail, dataSource), terminalOp, statelessTail);
+        }
+        return terminalOp.get();
+    }
+
+    /**
+     * 并行执行从头节点到{@code statelessTail}的所有无状态节点，每个分段的输出交由独立的结尾操作归约，
+     * 再按照遇到顺序合并各分段的结果。
+     *
+     * @param statelessTail 无状态节点的尾节点
+     * @param dataSource 头节点的数据源
+     * @param leafOpSupplier 分段结尾操作的构造方法
+     * @param combiner 合并两个相邻分段结果的方法，左侧结果在前
+     * @param <R> 结果类型
+     * @return 合并之后的结果
+     */
+    static <R> R reduce(RefPipe<?, ?> statelessTail, Spliterator<Object> dataSource,
+        Supplier<? extends TerminalOp<?, R>> leafOpSupplier, BinaryOperator<R> combiner) {
+        return reduce(statelessTail, dataSource, null, random -> leafOpSupplier.get(), combiner);
+    }
+
+    /**
+     * 与{@link #reduce(RefPipe, Spliterator, Supplier, BinaryOperator)}相同，但是每个分段都有独立的随机数生成器。
+     * <p/>
+     * 每次拆分时左侧分段使用由当前生成器拆分得到的新生成器，右侧分段沿用当前生成器，因此每个分段的生成器只取决于
+     * {@code random}的种子以及分段在拆分树中的位置，与线程调度无关，数据源的拆分方式相同时结果可以复现。
+     *
+     * @param statelessTail 无状态节点的尾节点
+     * @param dataSource 头节点的数据源
+     * @param random 根分段的随机数生成器，为{@code null}时各分段都没有随机数生成器
+     * @param leafOpFactory 以分段的随机数生成器构造分段结尾操作的方法
+     * @param combiner 合并两个相邻分段结果的方法，左侧结果在前
+     * @param <R> 结果类型
+     * @return 合并之后的结果
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <R> R reduce(RefPipe<?, ?> statelessTail, Spliterator<Object> dataSource, SplittableRandom random,
+        Function<SplittableRandom, ? extends TerminalOp<?, R>> leafOpFactory, BinaryOperator<R> combiner) {
+        return new EvaluateTask<>(dataSource, calcLeafThreshold(dataSource), random, (split, splitRandom) -> {
+            TerminalOp leafOp = leafOpFactory.apply(splitRandom);
+            ((RefPipe) statelessTail).driveData(split, leafOp);
+            return (R) leafOp.get();
+        }, combiner).invoke();
+    }
+
+    /**
+     * 并行执行从头节点到{@code statelessTail}的所有无状态节点，并将其输出缓存为新的数据源。
+     * <p/>
+     * 如果原数据源存在确定的遇到顺序，则缓存的元素保持此顺序，否则按照各分段完成的先后顺序缓存。
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Spliterator<Object> collectInParallel(RefPipe statelessTail, Spliterator<Object> dataSource) {
+        boolean ordered = ORDERED.isSet(statelessTail.flag);
+        Queue<SpinedBuffer<Object>> unorderedParts = ordered ? null : new ConcurrentLinkedQueue<>();
+        SpinedBuffer<Object> elements = new EvaluateTask<SpinedBuffer<Object>>(dataSource,
+            calcLeafThreshold(dataSource), null, (split, random) -> {
+            SpinedBuffer<Object> part = new SpinedBuffer<>();
+            statelessTail.driveData(split, TerminalOp.wrap(part));
+            if (ordered) {
+                return part;
+            }
+            unorderedParts.add(part);
+            return new SpinedBuffer<>();
+        }, (left, right) -> {
+            // 直接拼接分段，不拷贝元素
+            left.appendAll(right);
+            return left;
+        }).invoke();
+        if (!ordered) {
+            unorderedParts.forEach(elements::appendAll);
+        }
+        return elements.spliterator();
+    }
+
+    /**
+     * 从头节点开始查找第一个有状态的节点。
+     *
+     * @return 第一个有状态的节点，如果全部节点均为无状态节点则返回{@code null}
+     */
+    private static RefPipe<?, ?> findFirstStatefulPipe(RefPipe<?, ?> pipe) {
+        RefPipe<?, ?> statefulPipe = null;
+        for (RefPipe<?, ?> current = pipe; current != pipe.headPipe; current = current.prePipe) {
+            if (!current.isStateless()) {
+                statefulPipe = current;
+            }
+        }
+        return statefulPipe;
+    }
+
+    private static long calcLeafThreshold(Spliterator<?> dataSource) {
+        long size = dataSource.estimateSize();
+        if (size == Long.MAX_VALUE) {
+            return UNKNOWN_SIZE_LEAF_THRESHOLD;
+        }
+        return Math.max(size / ((long) ForkJoinPool.getCommonPoolParallelism() * LEAF_PER_THREAD), 1L);
+    }
+
+    /**
+     * 拆分数据源并行求值的任务，左侧分段交由其他线程执行，右侧分段在当前线程继续拆分，最终按照左右顺序合并结果。
+     */
+    private static final class EvaluateTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = -6163440164735186466L;
+
+        private final transient Spliterator<Object> split;
+
+        private final long leafThreshold;
+
+        /** 此分段的随机数生成器，可以为{@code null} */
+        private final transient SplittableRandom random;
+
+        private final transient BiFunction<Spliterator<Object>, SplittableRandom, R> leafEvaluator;
+
+        private final transient BinaryOperator<R> combiner;
+
+        EvaluateTask(Spliterator<Object> split, long leafThreshold, SplittableRandom random,
+            BiFunction<Spliterator<Object>, SplittableRandom, R> leafEvaluator, BinaryOperator<R> combiner) {
+            this.split = split;
+            this.leafThreshold = leafThreshold;
+            this.random = random;
+            this.leafEvaluator = leafEvaluator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            Spliterator<Object> leftSplit;
+            if (split.estimateSize() <= leafThreshold || (leftSplit = split.trySplit()) == null) {
+                return leafEvaluator.apply(split, random);
+            }
+            // 在拆分数据源的同时拆分随机数生成器，使每个分段的生成器只取决于其在拆分树中的位置
+            SplittableRandom leftRandom = random == null ? null : random.split();
+            EvaluateTask<R> leftTask = new EvaluateTask<>(leftSplit, leafThreshold, leftRandom, leafEvaluator,
+                combiner);
+            leftTask.fork();
+            R rightResult = new EvaluateTask<>(split, leafThreshold, random, leafEvaluator, combiner).compute();
+            return combiner.apply(leftTask.join(), rightResult);
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.oyealex.pipe.functional.LongBiFunction;
 import com.oyealex.pipe.policy.PartitionPolicy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static com.oyealex.pipe.basis.Pipe.list;
@@ -44,18 +47,31 @@ abstract class PartitionOp<T> extends RefPipe<T, Pipe<T>> {
 
                 private int index;
 
+                /** 尚未流入的元素数量上界，-1表示未知，用于避免为最后一个分区分配过大的数组 */
+                private long remainingMaxSize;
+
                 @Override
-                public void begin(long size) {
-                    if (size == 0) { // 不会有数据流入
+                public void begin(long size, long minSize, long maxSize) {
+                    if (size == 0 || maxSize == 0) { // 不会有数据流入
                         nextOp.begin(0);
                         return;
                     }
+                    remainingMaxSize = maxSize;
                     prepareNewPartition();
-                    nextOp.begin(size > 0 ? size / partitionSize + (size % partitionSize == 0 ? 0 : 1) : -1);
+                    nextOp.begin(size < 0 ? -1 : partitionCount(size), partitionCount(minSize),
+                        maxSize < 0 ? -1 : partitionCount(maxSize));
+                }
+
+                private long partitionCount(long count) {
+                    return count / partitionSize + (count % partitionSize == 0 ? 0 : 1);
                 }
 
                 @Override
                 public void accept(T value) {
+                    if (index == partition.length) {
+                        // 上界只用于预分配，防御性地扩容到完整的分区大小
+                        partition = Arrays.copyOf(partition, partitionSize);
+                    }
                     partition[index++] = value;
                     if (index >= partitionSize) {
                         if (shouldShortCircuit()) {
@@ -85,7 +101,12 @@ abstract class PartitionOp<T> extends RefPipe<T, Pipe<T>> {
 
                 private T[] prepareNewPartition() {
                     T[] previous = partition;
-                    @SuppressWarnings("unchecked") T[] array = (T[]) new Object[partitionSize];
+                    int capacity = partitionSize;
+                    if (remainingMaxSize >= 0) {
+                        remainingMaxSize -= index;
+                        capacity = (int) Math.min(capacity, remainingMaxSize);
+                    }
+                    @SuppressWarnings("unchecked") T[] array = (T[]) new Object[capacity];
                     partition = array;
                     index = 0;
                     return previous;
@@ -94,6 +115,61 @@ abstract class PartitionOp<T> extends RefPipe<T, Pipe<T>> {
         }
     }
 
+    /**
+     * 按照给定数量分区，并依次以分区列表调用{@code action}的终结操作。
+     * <p/>
+     * 所有分区复用同一个缓存列表，{@code action}返回之后列表即被清空，因此不能在{@code action}之外持有此列表。
+     *
+     * @param partitionSize 分区大小
+     * @param action 访问分区列表的方法
+     * @param <T> 元素类型
+     * @return 终结操作
+     */
+    static <T> TerminalOp<T, Void> forEachPartitionOp(int partitionSize, Consumer<? super List<T>> action) {
+        return new TerminalOp<T, Void>() {
+            private ArrayList<T> buffer;
+
+            private List<T> view;
+
+            @Override
+            public void begin(long size, long minSize, long maxSize) {
+                int capacity = Op.initCapacity(size, minSize, maxSize);
+                buffer = capacity < 0 ? new ArrayList<>() : new ArrayList<>(Math.min(capacity, partitionSize));
+                view = Collections.unmodifiableList(buffer);
+            }
+
+            @Override
+            public void accept(T value) {
+                buffer.add(value);
+                if (buffer.size() >= partitionSize) {
+                    consumePartition();
+                }
+            }
+
+            @Override
+            public void end() {
+                if (!buffer.isEmpty()) {
+                    consumePartition();
+                }
+                buffer = null;
+                view = null;
+            }
+
+            private void consumePartition() {
+                try {
+                    action.accept(view);
+                } finally {
+                    buffer.clear();
+                }
+            }
+
+            @Override
+            public Void get() {
+                return null;
+            }
+        };
+    }
+
     static class Policy<T> extends Conditional<T> {
         private final Function<? super T, PartitionPolicy> policyFunction;
 
@@ -103,7 +179,7 @@ abstract class PartitionOp<T> extends RefPipe<T, Pipe<T>> {
         }
 
         @Override
-        protected PartitionPolicy getPolicy(T value) {
+        protected PartitionPolicy getPolicy(long index, T value) {
             return requireNonNull(policyFunction.apply(value));
         }
     }
@@ -111,16 +187,14 @@ abstract class PartitionOp<T> extends RefPipe<T, Pipe<T>> {
     static class PolicyOrderly<T> extends Conditional<T> {
         private final LongBiFunction<? super T, PartitionPolicy> policyFunction;
 
-        private long index = 0L;
-
         PolicyOrderly(RefPipe<?, ? extends T> prePipe, LongBiFunction<? super T, PartitionPolicy> policyFunction) {
             super(prePipe);
             this.policyFunction = policyFunction;
         }
 
         @Override
-        protected PartitionPolicy getPolicy(T value) {
-            return requireNonNull(policyFunction.apply(index++, value));
+        protected PartitionPolicy getPolicy(long index, T value) {
+            return requireNonNull(policyFunction.apply(index, value));
         }
     }
 
@@ -134,9 +208,12 @@ abstract class PartitionOp<T> extends RefPipe<T, Pipe<T>> {
             return new ChainedOp.ShortCircuitRecorded<T, Pipe<T>>(nextOp) {
                 private List<T> partition;
 
+                /** 元素的次序，每次求值都从0开始计算 */
+                private long index = 0L;
+
                 @Override
                 public void accept(T value) {
-                    switch (getPolicy(value)) {
+                    switch (getPolicy(index++, value)) {
                         case BEGIN: // 当前分区结束
                             completeCurrentPartition();
                         case IN: // 添加数据到新分区
@@ -176,6 +253,13 @@ abstract class PartitionOp<T> extends RefPipe<T, Pipe<T>> {
             };
         }
 
-        protected abstract PartitionPolicy getPolicy(T value);
+        /**
+         * 获取元素的分区策略。
+         *
+         * @param index 元素的次序
+         * @param value 元素
+         * @return 分区策略
+         */
+        protected abstract PartitionPolicy getPolicy(long index, T value);
     }
 }
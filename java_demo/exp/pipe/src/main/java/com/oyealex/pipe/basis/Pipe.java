@@ -2,25 +2,38 @@ package com.oyealex.pipe.basis;
 
 import com.oyealex.pipe.BasePipe;
 import com.oyealex.pipe.annotations.Todo;
+import com.oyealex.pipe.assist.RecordDecoder;
+import com.oyealex.pipe.assist.SpillCodec;
 import com.oyealex.pipe.assist.Tuple;
 import com.oyealex.pipe.flag.PipeFlag;
 import com.oyealex.pipe.functional.LongBiConsumer;
 import com.oyealex.pipe.functional.LongBiFunction;
 import com.oyealex.pipe.functional.LongBiPredicate;
+import com.oyealex.pipe.functional.LongBiToDoubleFunction;
+import com.oyealex.pipe.functional.LongBiToIntFunction;
+import com.oyealex.pipe.functional.LongBiToLongFunction;
 import com.oyealex.pipe.policy.MergePolicy;
 import com.oyealex.pipe.policy.MergeRemainingPolicy;
 import com.oyealex.pipe.policy.PartitionPolicy;
+import com.oyealex.pipe.profile.MetricsSink;
 import com.oyealex.pipe.spliterator.MoreSpliterators;
 import com.oyealex.pipe.utils.MiscUtil;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -29,12 +42,16 @@ import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.StringJoiner;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
@@ -48,6 +65,7 @@ import static com.oyealex.pipe.policy.MergePolicy.OURS_FIRST;
 import static com.oyealex.pipe.policy.MergePolicy.THEIRS_FIRST;
 import static com.oyealex.pipe.policy.MergeRemainingPolicy.TAKE_REMAINING;
 import static com.oyealex.pipe.utils.MiscUtil.isStdIdentify;
+import static com.oyealex.pipe.utils.MiscUtil.isStdReverseOrder;
 import static com.oyealex.pipe.utils.MiscUtil.naturalOrderIfNull;
 import static com.oyealex.pipe.utils.MiscUtil.optimizedReverseOrder;
 import static java.util.Collections.unmodifiableMap;
@@ -59,7 +77,7 @@ import static java.util.function.Function.identity;
 /**
  * 流水线接口
  * <p/>
- * 定义一条<b>串行</b>流水线的接口。
+ * 定义一条流水线的接口，流水线默认<b>串行</b>求值，可以通过{@link #parallel()}切换为并行求值。
  * <p/>
  * 流水线由单个数据源和多个数据操作组成，数据操作包括非终结操作和终结操作，每个流水线至少包含一个终结操作，
  * 流水线的最终结果由终结操作给出。
@@ -95,7 +113,7 @@ import static java.util.function.Function.identity;
  * 终结操作没有下游输出数据，但是一般会有一个最终结果（部分API不会产生显式结果，可以认为最终结果为{@code null}，
  * 例如{@link #forEach(Consumer)}）。
  * <br/>
- * 终结操作会启动流水线的数据运算，将数据源的数据<b>串行地</b>逐个经过各个节点地处理，最终流入终结操作产生一个最终结果。
+ * 终结操作会启动流水线的数据运算，将数据源的数据逐个经过各个节点地处理，最终流入终结操作产生一个最终结果。
  * <h2>短路</h2>
  * 并不是所有情况下数据源中的数据都会经历完整的运算，有些操作会导致流水线短路。
  * <br/>
@@ -117,10 +135,19 @@ import static java.util.function.Function.identity;
  * <p/>
  *
  * <h1>线程安全和并行流水线</h1>
- * 由于实际运用中并行流水线很少使用，为了降低实现复杂度并执行更多的针对性优化，并结合本库的核心目标，
- * 在当前实现中流水线的任何API均不是线程安全的，并且均不会并行执行，哪怕提供了线程安全的数据源和操作，流水线总是串行执行数据操作。
+ * 流水线的任何API均不是线程安全的，构造流水线和执行终结操作需要在同一个线程中完成。
  * <p/>
- * <i>不排除后续扩展为支持线程安全的可能。</i>
+ * 默认情况下流水线串行执行数据操作，调用{@link #parallel()}之后，终结操作会基于fork/join框架拆分数据源并行求值：
+ * <ul>
+ *     <li/>由{@link #takeIf(Predicate)}、{@link #map(Function)}、{@link #peek(Consumer)}、{@link #flatMap(Function)}
+ *     等无状态操作组成的流水线，配合{@link #reduce(BinaryOperator)}、{@link #count()}、{@link #toList()}、
+ *     {@link #group(Function)}、{@link #minMax(Comparator)}等可合并的终结操作，各个分段完整地并行执行，再合并各个分段的结果；
+ *     <li/>流水线包含{@link #sort()}、{@link #distinct()}等有状态操作，或者终结操作不可合并时，
+ *     仅并行执行第一个有状态操作之前的无状态操作，剩余部分以其输出为数据源串行执行；
+ *     <li/>包含短路操作的流水线（例如{@link #limit(long)}、{@link #findFirst()}）总是串行执行。
+ * </ul>
+ * 当数据源存在确定的遇到顺序（参见{@link com.oyealex.pipe.flag.PipeFlag#ORDERED}）时，并行求值的结果与串行求值的结果保持一致，
+ * 但是{@link #forEach(Consumer)}、{@link #peek(Consumer)}等操作的给定方法会在多个线程中并发地执行，需要确保其线程安全。
  *
  * @param <E> 数据类型
  * @author oyealex
@@ -647,6 +674,73 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      */
     <R> Pipe<R> mapIfNonNull(Function<? super E, ? extends R> mapper);
 
+    /**
+     * 在默认的执行器上并发地将元素映射为其他值，并按照元素原有的次序输出映射结果。
+     * <p/>
+     * 运行环境支持虚拟线程时，默认的执行器为每个映射任务创建一个虚拟线程，否则使用专用的守护线程缓存线程池，
+     * 同时执行的映射任务数量只受{@code maxConcurrency}限制。流水线因为异常提前结束时，在途的映射任务会被取消。
+     *
+     * @param mapper 映射方法，通常为调用远程服务等耗时的阻塞操作。
+     * @param maxConcurrency 同时执行的映射任务的最大数量。
+     * @param <R> 映射结果的类型。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     * @throws IllegalArgumentException 当{@code maxConcurrency}小于1时抛出。
+     * @see #mapAsync(Function, int, Executor)
+     * @see #mapAsyncUnordered(Function, int)
+     */
+    <R> Pipe<R> mapAsync(Function<? super E, ? extends R> mapper, int maxConcurrency);
+
+    /**
+     * 在给定的执行器上并发地将元素映射为其他值，并按照元素原有的次序输出映射结果。
+     * <p/>
+     * 同时执行的映射任务达到{@code maxConcurrency}个时，流水线会等待最早的任务完成之后再继续接收元素；下游可以短路时，
+     * 剩余的映射任务会被取消。映射方法抛出的异常会在流水线所在的线程中重新抛出。
+     * <p/>
+     * 通过{@link #toIterator()}等方式拉取元素时，放弃迭代之后应当关闭流水线，剩余的映射任务会在关闭时被取消。
+     *
+     * @param mapper 映射方法，通常为调用远程服务等耗时的阻塞操作。
+     * @param maxConcurrency 同时执行的映射任务的最大数量。
+     * @param executor 执行映射任务的执行器。
+     * @param <R> 映射结果的类型。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code mapper}或{@code executor}为{@code null}时抛出。
+     * @throws IllegalArgumentException 当{@code maxConcurrency}小于1时抛出。
+     * @see #map(Function)
+     * @see #mapAsyncUnordered(Function, int, Executor)
+     */
+    <R> Pipe<R> mapAsync(Function<? super E, ? extends R> mapper, int maxConcurrency, Executor executor);
+
+    /**
+     * 在默认的执行器上并发地将元素映射为其他值，并按照映射完成的次序输出映射结果。
+     *
+     * @param mapper 映射方法，通常为调用远程服务等耗时的阻塞操作。
+     * @param maxConcurrency 同时执行的映射任务的最大数量。
+     * @param <R> 映射结果的类型。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     * @throws IllegalArgumentException 当{@code maxConcurrency}小于1时抛出。
+     * @see #mapAsync(Function, int)
+     * @see #mapAsyncUnordered(Function, int, Executor)
+     */
+    <R> Pipe<R> mapAsyncUnordered(Function<? super E, ? extends R> mapper, int maxConcurrency);
+
+    /**
+     * 在给定的执行器上并发地将元素映射为其他值，并按照映射完成的次序输出映射结果。
+     * <p/>
+     * 与{@link #mapAsync(Function, int, Executor)}相比，较慢的映射任务不会阻塞其他已经完成的映射结果向下游传递。
+     *
+     * @param mapper 映射方法，通常为调用远程服务等耗时的阻塞操作。
+     * @param maxConcurrency 同时执行的映射任务的最大数量。
+     * @param executor 执行映射任务的执行器。
+     * @param <R> 映射结果的类型。
+     * @return 新的流水线。
+     * @throws NullPointerException 当{@code mapper}或{@code executor}为{@code null}时抛出。
+     * @throws IllegalArgumentException 当{@code maxConcurrency}小于1时抛出。
+     * @see #mapAsync(Function, int, Executor)
+     */
+    <R> Pipe<R> mapAsyncUnordered(Function<? super E, ? extends R> mapper, int maxConcurrency, Executor executor);
+
     /**
      * 将流水线中的元素映射为int类型。
      *
@@ -655,7 +749,6 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code intMapper}为{@code null}时抛出
      * @see Stream#mapToInt(ToIntFunction)
      */
-    @Todo
     IntPipe mapToInt(ToIntFunction<? super E> intMapper);
 
     /**
@@ -666,9 +759,7 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code intMapper}为{@code null}时抛出
      * @see Stream#mapToInt(ToIntFunction)
      */
-    // OPT 2023-05-10 01:39 添加对应的基于次序的函数式接口
-    @Todo
-    IntPipe mapToIntOrderly(ToIntFunction<? super E> intMapper);
+    IntPipe mapToIntOrderly(LongBiToIntFunction<? super E> intMapper);
 
     /**
      * 将流水线中的元素映射为long类型。
@@ -678,7 +769,6 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code longMapper}为{@code null}时抛出
      * @see Stream#mapToLong(ToLongFunction)
      */
-    @Todo
     LongPipe mapToLong(ToLongFunction<? super E> longMapper);
 
     /**
@@ -689,9 +779,7 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code longMapper}为{@code null}时抛出
      * @see Stream#mapToLong(ToLongFunction)
      */
-    // OPT 2023-05-10 01:39 添加对应的基于次序的函数式接口
-    @Todo
-    LongPipe mapToLongOrderly(ToLongFunction<? super E> longMapper);
+    LongPipe mapToLongOrderly(LongBiToLongFunction<? super E> longMapper);
 
     /**
      * 将流水线中的元素映射为double类型。
@@ -701,20 +789,17 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code doubleMapper}为{@code null}时抛出
      * @see Stream#mapToDouble(ToDoubleFunction)
      */
-    @Todo
     DoublePipe mapToDouble(ToDoubleFunction<? super E> doubleMapper);
 
     /**
      * 将流水线中的元素映射为double类型，支持访问元素的次序。
      *
-     * @param longMapper 映射方法：第一个参数为访问的元素在流水线中的次序，从0开始计算；第二个参数为需要映射的元素。
+     * @param doubleMapper 映射方法：第一个参数为访问的元素在流水线中的次序，从0开始计算；第二个参数为需要映射的元素。
      * @return double流水线
-     * @throws NullPointerException 当{@code longMapper}为{@code null}时抛出
+     * @throws NullPointerException 当{@code doubleMapper}为{@code null}时抛出
      * @see Stream#mapToDouble(ToDoubleFunction)
      */
-    // OPT 2023-05-10 01:39 添加对应的基于次序的函数式接口
-    @Todo
-    DoublePipe mapToDoubleOrderly(ToDoubleFunction<? super E> longMapper);
+    DoublePipe mapToDoubleOrderly(LongBiToDoubleFunction<? super E> doubleMapper);
 
     /**
      * 将流水线中的元素映射为新的流水线，并按照次序拼接为一条流水线。
@@ -801,7 +886,6 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code intPipeMapper}为{@code null}时抛出
      * @see Stream#flatMapToInt(Function)
      */
-    @Todo
     IntPipe flatMapToInt(Function<? super E, ? extends IntPipe> intPipeMapper);
 
     /**
@@ -812,7 +896,6 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code intPipeMapper}为{@code null}时抛出
      * @see Stream#flatMapToInt(Function)
      */
-    @Todo
     IntPipe flatMapToIntOrderly(LongBiFunction<? super E, ? extends IntPipe> intPipeMapper);
 
     /**
@@ -823,7 +906,6 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code longPipeMapper}为{@code null}时抛出
      * @see Stream#flatMapToLong(Function)
      */
-    @Todo
     LongPipe flatMapToLong(Function<? super E, ? extends LongPipe> longPipeMapper);
 
     /**
@@ -834,7 +916,6 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code longPipeMapper}为{@code null}时抛出
      * @see Stream#flatMapToLong(Function)
      */
-    @Todo
     LongPipe flatMapToLongOrderly(LongBiFunction<? super E, ? extends LongPipe> longPipeMapper);
 
     /**
@@ -845,7 +926,6 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code doublePipeMapper}为{@code null}时抛出
      * @see Stream#flatMapToDouble(Function)
      */
-    @Todo
     DoublePipe flatMapToDouble(Function<? super E, ? extends DoublePipe> doublePipeMapper);
 
     /**
@@ -856,9 +936,61 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @throws NullPointerException 当{@code doublePipeMapper}为{@code null}时抛出
      * @see Stream#flatMapToDouble(Function)
      */
-    @Todo
     DoublePipe flatMapToDoubleOrderly(LongBiFunction<? super E, ? extends DoublePipe> doublePipeMapper);
 
+    /**
+     * 将流水线中的每个元素展开为零个或多个新元素，新元素由{@code pusher}直接推送到下游，并按照次序拼接为一条流水线。
+     * <p/>
+     * 大致等同于：
+     * <pre>{@code
+     * for (E element : getPipeElements()) {
+     *     pusher.accept(element, newElement -> doSomething(newElement));
+     * }
+     * }</pre>
+     * 与{@link #flatMap(Function)}不同，此方法不会为每个元素构造新的流水线，适合每个元素只展开为少量新元素的场景。
+     *
+     * @param pusher 展开方法：第一个参数为需要展开的元素；第二个参数为接收新元素的下游，仅在此方法执行期间有效。
+     * @param <R> 新元素的类型。
+     * @return 展开并拼接后的流水线。
+     * @throws NullPointerException 当{@code pusher}为{@code null}时抛出。
+     * @apiNote 当下游已经可以短路时，推送的新元素会被直接丢弃，但{@code pusher}本身不会被中断。
+     * @see #flatMap(Function)
+     */
+    <R> Pipe<R> flatMapPush(BiConsumer<? super E, ? super Consumer<R>> pusher);
+
+    /**
+     * 将流水线中的每个元素展开为零个或多个int值，int值由{@code pusher}直接推送到下游，并按照次序拼接为一条int流水线。
+     *
+     * @param pusher 展开方法：第一个参数为需要展开的元素；第二个参数为接收int值的下游，仅在此方法执行期间有效。
+     * @return 展开并拼接后的int流水线。
+     * @throws NullPointerException 当{@code pusher}为{@code null}时抛出。
+     * @see #flatMapPush(BiConsumer)
+     * @see #flatMapToInt(Function)
+     */
+    IntPipe flatMapPushToInt(BiConsumer<? super E, ? super IntConsumer> pusher);
+
+    /**
+     * 将流水线中的每个元素展开为零个或多个long值，long值由{@code pusher}直接推送到下游，并按照次序拼接为一条long流水线。
+     *
+     * @param pusher 展开方法：第一个参数为需要展开的元素；第二个参数为接收long值的下游，仅在此方法执行期间有效。
+     * @return 展开并拼接后的long流水线。
+     * @throws NullPointerException 当{@code pusher}为{@code null}时抛出。
+     * @see #flatMapPush(BiConsumer)
+     * @see #flatMapToLong(Function)
+     */
+    LongPipe flatMapPushToLong(BiConsumer<? super E, ? super LongConsumer> pusher);
+
+    /**
+     * 将流水线中的每个元素展开为零个或多个double值，double值由{@code pusher}直接推送到下游，并按照次序拼接为一条double流水线。
+     *
+     * @param pusher 展开方法：第一个参数为需要展开的元素；第二个参数为接收double值的下游，仅在此方法执行期间有效。
+     * @return 展开并拼接后的double流水线。
+     * @throws NullPointerException 当{@code pusher}为{@code null}时抛出。
+     * @see #flatMapPush(BiConsumer)
+     * @see #flatMapToDouble(Function)
+     */
+    DoublePipe flatMapPushToDouble(BiConsumer<? super E, ? super DoubleConsumer> pusher);
+
     /**
      * 使用给定的映射方法，将此流水线扩展为两元组的流水线，其中两元组的第一个元素仍然为当前流水线中的元素。
      *
@@ -954,6 +1086,66 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      */
     <K> Pipe<E> distinctByOrderly(LongBiFunction<? super E, ? extends K> mapper);
 
+    /**
+     * 对流水线中的元素去重，以给定的int映射结果为依据。
+     * <p/>
+     * 映射结果以基本类型保存在开放寻址的int集合中，去重过程中不会装箱，也不会为每个元素创建集合节点。
+     *
+     * @param mapper 去重依据的映射方法。
+     * @return 元素按照映射结果去重之后的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     * @see #distinctBy(Function)
+     * @see #distinctByLong(ToLongFunction)
+     */
+    Pipe<E> distinctByInt(ToIntFunction<? super E> mapper);
+
+    /**
+     * 对流水线中的元素去重，以给定的long映射结果为依据。
+     * <p/>
+     * 映射结果以基本类型保存在开放寻址的long集合中，去重过程中不会装箱，也不会为每个元素创建集合节点。
+     *
+     * @param mapper 去重依据的映射方法。
+     * @return 元素按照映射结果去重之后的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     * @see #distinctBy(Function)
+     * @see #distinctByInt(ToIntFunction)
+     */
+    Pipe<E> distinctByLong(ToLongFunction<? super E> mapper);
+
+    /**
+     * 对流水线中的元素近似去重，以元素的哈希值为依据。
+     *
+     * @param falsePositiveRate 误判率，即不重复的元素被当作重复元素丢弃的概率，取值范围为{@code (0, 1)}。
+     * @return 元素近似去重之后的流水线。
+     * @throws IllegalArgumentException 当{@code falsePositiveRate}不在{@code (0, 1)}之间时抛出。
+     * @see #distinctByApproximately(Function, double)
+     */
+    default Pipe<E> distinctApproximately(double falsePositiveRate) {
+        return distinctByApproximately(identity(), falsePositiveRate);
+    }
+
+    /**
+     * 对流水线中的元素近似去重，以给定的映射结果的哈希值为依据。
+     * <p/>
+     * 基于可扩展的布隆过滤器实现，占用的空间只与元素数量和误判率相关，与元素本身的大小无关，适用于数据量非常大且允许近似去重的场景。
+     * 重复的元素一定会被丢弃，但是不重复的元素也可能以不超过{@code falsePositiveRate}的概率被丢弃，
+     * 映射结果的哈希值相同的元素总是被当作重复元素。
+     * <p/>
+     * 映射结果为整数、浮点数或者字符序列时根据其内容计算64位的哈希值，其他类型则使用{@link Object#hashCode()}。
+     * 后者只有32位，不同的映射结果哈希值相同的概率随元素数量增加而迅速增大，此时误判率的上限只在不同的映射结果
+     * 具有不同的{@link Object#hashCode()}时成立，元素数量很大时建议将映射结果转换为上述类型。
+     *
+     * @param mapper 去重依据的映射方法。
+     * @param falsePositiveRate 误判率，即不重复的元素被当作重复元素丢弃的概率，取值范围为{@code (0, 1)}。
+     * @param <K> 映射结果的类型。
+     * @return 元素按照映射结果近似去重之后的流水线。
+     * @throws NullPointerException 当{@code mapper}为{@code null}时抛出。
+     * @throws IllegalArgumentException 当{@code falsePositiveRate}不在{@code (0, 1)}之间时抛出。
+     * @see #distinctBy(Function)
+     * @see #distinctApproximately(double)
+     */
+    <K> Pipe<E> distinctByApproximately(Function<? super E, ? extends K> mapper, double falsePositiveRate);
+
     /**
      * 对流水线中的元素排序，以自然顺序排序。
      * <p/>
@@ -1072,6 +1264,86 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      */
     <K> Pipe<E> sortByOrderly(LongBiFunction<? super E, ? extends K> mapper, Comparator<? super K> comparator);
 
+    /**
+     * 对流水线中的元素进行外部排序，适用于元素总量超出内存的场景，以给定的比较方法稳定排序。
+     * <p/>
+     * 内存中最多缓存{@code runSize}个元素，缓存满时将其排序后通过{@code codec}写入临时文件，
+     * 所有元素流入之后惰性地多路归并所有的有序分段，元素逐个从临时文件中读回并流向下游。
+     * 元素总数不超过{@code runSize}时不会产生临时文件，与{@link #sort(Comparator)}相同。
+     * 同时打开的临时文件最多64个，分段过多时先分组归并为更大的分段并写回临时文件，再进行最终的归并。
+     * <p/>
+     * 临时文件在归并结束后删除，归并未能正常结束时（例如下游抛出异常）在关闭流水线时删除。
+     *
+     * @param comparator 元素比较器，如果比较器为{@code null}则默认以{@link Comparator#naturalOrder()}作为比较器。
+     * @param codec 将元素写入临时文件以及从临时文件读回元素的编解码器。
+     * @param runSize 内存中最多缓存的元素数量，即每个有序分段的最大元素数量。
+     * @return 元素排序后的流水线。
+     * @throws NullPointerException 当{@code codec}为{@code null}时抛出。
+     * @throws IllegalArgumentException 当{@code runSize}小于1时抛出。
+     * @throws java.io.UncheckedIOException 读写临时文件失败时在终结操作中抛出。
+     * @see #sort(Comparator)
+     * @see SpillCodec
+     */
+    Pipe<E> sortExternally(Comparator<? super E> comparator, SpillCodec<E> codec, int runSize);
+
+    /**
+     * 保留按照自然顺序排序后最小的{@code size}个元素，结果按照自然顺序排序。
+     *
+     * @param size 保留的元素数量。
+     * @return 最多包含{@code size}个元素的新的流水线。
+     * @throws IllegalArgumentException 当{@code size}小于0时抛出。
+     * @implNote 等价于{@code sort().limit(size)}，排序后截取会被融合为有界堆，只需要保存{@code size}个元素。
+     * @see #takeMin(int, Comparator)
+     * @see #takeMax(int)
+     */
+    default Pipe<E> takeMin(int size) {
+        return takeMin(size, null);
+    }
+
+    /**
+     * 保留按照给定比较器排序后最小的{@code size}个元素，结果按照比较器排序，比较结果相同的元素保持原有的相对次序。
+     *
+     * @param size 保留的元素数量。
+     * @param comparator 元素比较器，如果比较器为{@code null}则默认以{@link Comparator#naturalOrder()}作为比较器。
+     * @return 最多包含{@code size}个元素的新的流水线。
+     * @throws IllegalArgumentException 当{@code size}小于0时抛出。
+     * @implNote 等价于{@code sort(comparator).limit(size)}，排序后截取会被融合为有界堆，只需要保存{@code size}个元素。
+     * @see #takeMin(int)
+     * @see #takeMax(int, Comparator)
+     */
+    default Pipe<E> takeMin(int size, Comparator<? super E> comparator) {
+        return sort(comparator).limit(size);
+    }
+
+    /**
+     * 保留按照自然顺序排序后最大的{@code size}个元素，结果按照自然逆序排序。
+     *
+     * @param size 保留的元素数量。
+     * @return 最多包含{@code size}个元素的新的流水线。
+     * @throws IllegalArgumentException 当{@code size}小于0时抛出。
+     * @implNote 等价于{@code sortReversely().limit(size)}，排序后截取会被融合为有界堆，只需要保存{@code size}个元素。
+     * @see #takeMax(int, Comparator)
+     * @see #takeMin(int)
+     */
+    default Pipe<E> takeMax(int size) {
+        return takeMax(size, null);
+    }
+
+    /**
+     * 保留按照给定比较器排序后最大的{@code size}个元素，结果按照比较器逆序排序，比较结果相同的元素保持原有的相对次序。
+     *
+     * @param size 保留的元素数量。
+     * @param comparator 元素比较器，如果比较器为{@code null}则默认以{@link Comparator#naturalOrder()}作为比较器。
+     * @return 最多包含{@code size}个元素的新的流水线。
+     * @throws IllegalArgumentException 当{@code size}小于0时抛出。
+     * @implNote 等价于{@code sort(comparator.reversed()).limit(size)}，排序后截取会被融合为有界堆，只需要保存{@code size}个元素。
+     * @see #takeMax(int)
+     * @see #takeMin(int, Comparator)
+     */
+    default Pipe<E> takeMax(int size, Comparator<? super E> comparator) {
+        return sort(MiscUtil.optimizedReverseOrder(comparator)).limit(size);
+    }
+
     /**
      * 将被选中的元素置于流水线的头部，选中的元素和未选中的元素各自相对位置保持不变。
      * <p/>
@@ -1194,6 +1466,84 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      */
     Pipe<E> shuffle(Random random);
 
+    /**
+     * 从流水线中等概率地随机抽取最多{@code size}个元素，抽取的元素保持原有的遇到顺序。
+     * <p/>
+     * 使用的随机数非安全随机数，如果对随机有要求，请使用{@link #sample(int, Random)}。
+     *
+     * @param size 抽取的元素数量。
+     * @return 包含抽取的元素的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于0时抛出。
+     * @see #sample(int, Random)
+     */
+    default Pipe<E> sample(int size) {
+        return sample(size, new Random());
+    }
+
+    /**
+     * 使用给定的随机数生成器从流水线中等概率地随机抽取最多{@code size}个元素，抽取的元素保持原有的遇到顺序。
+     * <p/>
+     * 抽样使用蓄水池算法，无论流水线中有多少元素，都只缓存最多{@code size}个元素；并行模式下每个数据分段独立抽样，
+     * 再合并各分段的抽样结果。并行模式下只从{@code random}中取一次种子，
+     * 各分段使用按照其拆分位置由此派生的独立随机数生成器，因此不会争用{@code random}，
+     * 并且种子相同时结果仍然可以复现，但是抽样结果与串行模式不同。
+     *
+     * @param size 抽取的元素数量。
+     * @param random 随机数生成器。
+     * @return 包含抽取的元素的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于0时抛出。
+     * @throws NullPointerException 当{@code random}为{@code null}时抛出。
+     * @see #sample(int)
+     * @see #sampleWeighted(int, ToDoubleFunction, Random)
+     */
+    Pipe<E> sample(int size, Random random);
+
+    /**
+     * 按照元素的权重从流水线中随机抽取最多{@code size}个元素，抽取的元素保持原有的遇到顺序。
+     * <p/>
+     * 每次抽取时，剩余元素被选中的概率与其权重成正比；权重不大于0（或者为{@code NaN}）的元素不会被抽取。
+     * 与{@link #sample(int, Random)}相同，只缓存最多{@code size}个元素。
+     *
+     * @param size 抽取的元素数量。
+     * @param weigher 计算元素权重的方法。
+     * @param random 随机数生成器。
+     * @return 包含抽取的元素的新流水线。
+     * @throws IllegalArgumentException 当{@code size}小于0时抛出。
+     * @throws NullPointerException 当{@code weigher}或{@code random}为{@code null}时抛出。
+     * @see #sample(int, Random)
+     */
+    Pipe<E> sampleWeighted(int size, ToDoubleFunction<? super E> weigher, Random random);
+
+    /**
+     * 以给定的概率独立地保留流水线中的每个元素。
+     * <p/>
+     * 使用的随机数非安全随机数，如果对随机有要求，请使用{@link #sampleFraction(double, Random)}。
+     *
+     * @param fraction 每个元素被保留的概率，取值范围为{@code [0, 1]}。
+     * @return 包含保留的元素的新流水线。
+     * @throws IllegalArgumentException 当{@code fraction}不在{@code [0, 1]}范围内时抛出。
+     * @see #sampleFraction(double, Random)
+     */
+    default Pipe<E> sampleFraction(double fraction) {
+        return sampleFraction(fraction, new Random());
+    }
+
+    /**
+     * 使用给定的随机数生成器，以给定的概率独立地保留流水线中的每个元素。
+     * <p/>
+     * 此操作为无状态操作，不缓存任何元素，保留的元素数量不确定。每次求值时从{@code random}中取种子派生新的随机数生成器，
+     * 并行模式下每个分段各自派生，因此不会争用{@code random}；但是分段取种子的先后取决于线程调度，
+     * 所以并行模式下即使{@code random}的种子相同，结果也可能不同。
+     *
+     * @param fraction 每个元素被保留的概率，取值范围为{@code [0, 1]}。
+     * @param random 随机数生成器。
+     * @return 包含保留的元素的新流水线。
+     * @throws IllegalArgumentException 当{@code fraction}不在{@code [0, 1]}范围内时抛出。
+     * @throws NullPointerException 当{@code random}为{@code null}时抛出。
+     * @see #sampleFraction(double)
+     */
+    Pipe<E> sampleFraction(double fraction, Random random);
+
     /**
      * 以给定方法访问流水线中的元素。
      * <p/>
@@ -1218,6 +1568,23 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      */
     Pipe<E> peekOrderly(LongBiConsumer<? super E> consumer);
 
+    /**
+     * 缓存流水线中的全部元素，得到可以反复执行终结操作的流水线。
+     * <p/>
+     * 首次对返回的流水线或者由其构造的流水线执行终结操作时，执行当前流水线并将全部元素按照遇到顺序缓存在内存中，之后的
+     * 终结操作都直接从缓存中读取元素，不会再次执行当前流水线，适用于上游操作代价较高且需要多次使用结果的场景，例如：
+     * <pre>{@code
+     * Pipe<Order> orders = Pipe.list(ids).map(repository::load).cache();
+     * long paid = orders.takeIf(Order::isPaid).count();
+     * List<Order> overdue = orders.takeIf(Order::isOverdue).toList();
+     * }</pre>
+     * 返回的流水线关闭时会同时关闭当前流水线。
+     *
+     * @return 缓存了全部元素的新流水线。
+     * @apiNote 缓存会持有全部元素，不适用于无限流水线。
+     */
+    Pipe<E> cache();
+
     /**
      * 跳过指定数量的元素。
      * <p/>
@@ -1612,6 +1979,62 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      */
     Pipe<Pipe<E>> partitionOrderly(LongBiFunction<? super E, PartitionPolicy> policyFunction);
 
+    /**
+     * 根据固定数量对元素进行惰性分区，每个分区都是直接从上游读取元素的流水线，分区中的元素不会被缓存。
+     * <p/>
+     * 与{@link #partition(int)}不同，此方法不会为每个分区分配数组，无论分区多大都只占用常量的内存，
+     * 适用于分批处理大量元素的场景。由于所有分区共享同一个上游数据源，分区需要按顺序使用：
+     * 获取下一个分区时，上一个分区中尚未访问的元素会被跳过。
+     *
+     * @param size 需要分区的元素数量。
+     * @return 新的包含惰性分区的流水线。
+     * @throws IllegalArgumentException 当给定的分区元素数量小于1时抛出。
+     * @implNote 分区只能在获取下一个分区之前使用，例如{@code partitionLazily(size).toList()}得到的分区均已失效。
+     * @see #partition(int)
+     * @see #forEachPartition(int, Consumer)
+     */
+    Pipe<Pipe<E>> partitionLazily(int size);
+
+    /**
+     * 以固定大小的滑动窗口遍历元素，每个窗口包含{@code size}个连续的元素，相邻窗口的起点相差{@code step}个元素。
+     * <p/>
+     * 一个示意：
+     * <pre><code>
+     * ┌─────────────┐  window(3, 2)  ┌───────────────────────┐
+     * │ 1 2 3 4 5 6 │ =============> │ [1 2 3] [3 4 5]       │
+     * └─────────────┘                └───────────────────────┘
+     * </code></pre>
+     * 不足{@code size}个元素的窗口不会输出；{@code step}等于{@code size}时为不重叠的滚动窗口，大于{@code size}时窗口之间的元素被跳过。
+     * <p/>
+     * 所有窗口复用同一个大小为{@code size}的环形缓冲区，窗口是缓冲区的只读视图，输出窗口时不会拷贝元素。
+     *
+     * @param size 窗口包含的元素数量。
+     * @param step 相邻窗口起点之间的元素数量。
+     * @return 新的包含窗口的流水线。
+     * @throws IllegalArgumentException 当{@code size}或{@code step}小于1时抛出。
+     * @implNote 窗口只在下游处理它的期间有效，例如{@code window(size, step).toList()}得到的窗口均已失效，
+     * 如果需要保留窗口，请拷贝其中的元素，例如{@code window(size, step).map(ArrayList::new)}。
+     * @see #windowBy(ToLongFunction, long)
+     * @see #partition(int)
+     */
+    Pipe<List<E>> window(int size, int step);
+
+    /**
+     * 以时间滑动窗口遍历元素，每个元素流入时输出以此元素结尾的窗口，窗口中所有元素的时间戳与此元素的时间戳相差小于{@code duration}。
+     * <p/>
+     * 元素的时间戳需要单调不减，窗口的大小随时间跨度内的元素数量变化，缓冲区只保留最近一个窗口中的元素。
+     * 与{@link #window(int, int)}相同，窗口是缓冲区的只读视图。
+     *
+     * @param timestampExtractor 获取元素时间戳的方法。
+     * @param duration 窗口的时间跨度，与时间戳的单位相同。
+     * @return 新的包含窗口的流水线，窗口数量与元素数量相同。
+     * @throws NullPointerException 当{@code timestampExtractor}为{@code null}时抛出。
+     * @throws IllegalArgumentException 当{@code duration}小于1时抛出。
+     * @implNote 窗口只在下游处理它的期间有效；如果元素的时间戳减小，会导致流水线运行期间抛出{@link IllegalStateException}异常。
+     * @see #window(int, int)
+     */
+    Pipe<List<E>> windowBy(ToLongFunction<? super E> timestampExtractor, long duration);
+
     /**
      * 按照给定数量，对元素进行分区，并将分区结果封装为列表。
      * <p/>
@@ -1869,6 +2292,20 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      */
     void forEachOrderly(LongBiConsumer<? super E> consumer);
 
+    /**
+     * 按照给定数量对元素进行分区，依次访问每个分区的列表，并结束此流水线。
+     * <p/>
+     * 所有分区复用同一个列表缓存，不会为每个分区分配新的列表，最多只缓存一个分区的元素。
+     *
+     * @param size 需要分区的元素数量。
+     * @param action 访问分区列表的方法，分区列表不可修改，并且只在方法执行期间有效，方法返回后列表会被清空。
+     * @throws IllegalArgumentException 当给定的分区元素数量小于1时抛出。
+     * @throws NullPointerException 当访问方法{@code action}为{@code null}时抛出。
+     * @see #partitionToList(int)
+     * @see #partitionLazily(int)
+     */
+    void forEachPartition(int size, Consumer<? super List<E>> action);
+
     /**
      * 执行并结束此流水线。
      */
@@ -1981,6 +2418,32 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
         });
     }
 
+    /**
+     * 使用给定方法构造结果容器，对流水线中的每个元素执行给定的操作{@code accumulator}，最后返回结果容器。
+     * <p/>
+     * 串行求值时只会构造一个结果容器，不会执行{@code combiner}；并行求值时每个数据分段各自构造结果容器，
+     * 再按照遇到顺序将右侧分段的结果容器通过{@code combiner}合并到左侧分段的结果容器中。
+     * <p/>
+     * 大致等同于：
+     * <pre>{@code
+     * R result = containerSupplier.get();
+     * for (E element : getPipeElements()) {
+     *     accumulator.accept(result, element);
+     * }
+     * return result;
+     * }</pre>
+     *
+     * @param containerSupplier 结果容器的构造方法。
+     * @param accumulator 操作。
+     * @param combiner 将第二个结果容器合并到第一个结果容器的方法。
+     * @param <R> 最终结果类型。
+     * @return 最终结果。
+     * @throws NullPointerException 当任意参数为{@code null}时抛出。
+     * @see #reduceTo(Object, BiConsumer)
+     */
+    <R> R reduceTo(Supplier<? extends R> containerSupplier, BiConsumer<? super R, ? super E> accumulator,
+        BiConsumer<? super R, ? super R> combiner);
+
     /**
      * 获取流水线中自然顺序最小的元素。
      * <p/>
@@ -2223,6 +2686,42 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
             minMax(comparing(mapper, comparator));
     }
 
+    /**
+     * 只遍历一次流水线，同时执行两个终结操作。
+     * <p/>
+     * 每个元素依次分发给两个终结操作，已经可以短路的终结操作不再接收后续元素；只有两个终结操作都可以短路时，才会提前结束
+     * 遍历。例如同时获取元素的数量和最小最大值：
+     * <pre>{@code
+     * Tuple<Long, Tuple<Optional<Integer>, Optional<Integer>>> result =
+     *     pipe.fork(PipeTerminal.count(), PipeTerminal.minMax(null));
+     * }</pre>
+     *
+     * @param first 第一个终结操作。
+     * @param second 第二个终结操作。
+     * @param <R1> 第一个终结操作的结果类型。
+     * @param <R2> 第二个终结操作的结果类型。
+     * @return 两个终结操作的结果组成的二元组。
+     * @throws NullPointerException 当{@code first}或{@code second}为{@code null}时抛出。
+     * @see #fork(List)
+     * @see PipeTerminal
+     */
+    <R1, R2> Tuple<R1, R2> fork(PipeTerminal<? super E, R1> first, PipeTerminal<? super E, R2> second);
+
+    /**
+     * 只遍历一次流水线，同时执行多个终结操作，结果按照终结操作的次序排列。
+     * <p/>
+     * 每个元素依次分发给各个终结操作，已经可以短路的终结操作不再接收后续元素；只有所有的终结操作都可以短路时，才会提前结束
+     * 遍历。以并行模式求值时，各个分段按照次序依次分发给各个终结操作。
+     *
+     * @param terminals 终结操作列表。
+     * @return 各个终结操作的结果组成的列表。
+     * @throws NullPointerException 当{@code terminals}或其中的终结操作为{@code null}时抛出。
+     * @throws IllegalArgumentException 当{@code terminals}为空时抛出。
+     * @see #fork(PipeTerminal, PipeTerminal)
+     * @see PipeTerminal
+     */
+    List<Object> fork(List<? extends PipeTerminal<? super E, ?>> terminals);
+
     /**
      * 获取流水线中最小和最大的元素，以给定的映射方法映射后的结果自然顺序为准，支持访问元素次序。
      * <p/>
@@ -2545,7 +3044,7 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      */
     default <C extends Collection<E>> C toCollection(Supplier<C> collectionSupplier) {
         requireNonNull(collectionSupplier);
-        return reduceTo(collectionSupplier.get(), Collection::add);
+        return reduceTo(collectionSupplier, Collection::add, Collection::addAll);
     }
 
     /**
@@ -2587,7 +3086,7 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
     default <K, M extends Map<K, E>> M toMapKeyed(Function<? super E, ? extends K> keyMapper, Supplier<M> mapSupplier) {
         requireNonNull(mapSupplier);
         requireNonNull(keyMapper);
-        return reduceTo(mapSupplier.get(), (map, value) -> map.put(keyMapper.apply(value), value));
+        return reduceTo(mapSupplier, (map, value) -> map.put(keyMapper.apply(value), value), Map::putAll);
     }
 
     /**
@@ -2630,7 +3129,7 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
         Supplier<M> mapSupplier) {
         requireNonNull(mapSupplier);
         requireNonNull(valueMapper);
-        return reduceTo(mapSupplier.get(), (map, value) -> map.put(value, valueMapper.apply(value)));
+        return reduceTo(mapSupplier, (map, value) -> map.put(value, valueMapper.apply(value)), Map::putAll);
     }
 
     /**
@@ -2680,7 +3179,8 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
         requireNonNull(mapSupplier);
         requireNonNull(keyMapper);
         requireNonNull(valueMapper);
-        return reduceTo(mapSupplier.get(), (map, value) -> map.put(keyMapper.apply(value), valueMapper.apply(value)));
+        return reduceTo(mapSupplier, (map, value) -> map.put(keyMapper.apply(value), valueMapper.apply(value)),
+            Map::putAll);
     }
 
     /**
@@ -2753,15 +3253,19 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
     }
 
     default <K> Map<K, List<E>> group(Function<? super E, ? extends K> classifier) {
-        return group(classifier, HashMap::new);
+        return groupAndAccumulate(classifier, ArrayList::new, List::add, List::addAll);
     }
 
     default <K, M extends Map<K, List<E>>> M group(Function<? super E, ? extends K> classifier,
         Supplier<? extends M> mapSupplier) {
         requireNonNull(classifier);
         requireNonNull(mapSupplier);
-        return reduceTo(mapSupplier.get(),
-            (map, value) -> map.computeIfAbsent(classifier.apply(value), key -> new ArrayList<>()).add(value));
+        return reduceTo(mapSupplier,
+            (map, value) -> map.computeIfAbsent(classifier.apply(value), key -> new ArrayList<>()).add(value),
+            (map, another) -> another.forEach((key, list) -> map.merge(key, list, (left, right) -> {
+                left.addAll(right);
+                return left;
+            })));
     }
 
     @SuppressWarnings("unchecked")
@@ -2769,17 +3273,116 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
         BiFunction<K, List<E>, V> finisher) {
         requireNonNull(classifier);
         requireNonNull(finisher);
-        HashMap<K, Object> result = reduceTo(new HashMap<>(),
-            (map, value) -> ((ArrayList<E>) map.computeIfAbsent(classifier.apply(value),
-                key -> new ArrayList<E>())).add(value));
+        Map<K, List<E>> groups = group(classifier);
+        Map<K, Object> result = (Map<K, Object>) (Map<K, ?>) groups;
         result.replaceAll((key, list) -> finisher.apply(key, (List<E>) list));
         return (Map<K, V>) result;
     }
 
+    /**
+     * 根据分类方法对元素分组，每个分组对应一个可变的累加器，分组内的元素依次累加到累加器中，最终返回分组到累加器的map。
+     * <p/>
+     * 并行求值时，每个数据分段按照键的哈希值将分组分散到多个分片中独立累加，合并时逐个合并对应的分片，
+     * 同一个键的累加器按照遇到顺序通过{@code combiner}合并，即右侧分段的累加器合并到左侧分段的累加器中。
+     * <p/>
+     * 大致等同于：
+     * <pre>{@code
+     * Map<K, A> result = new HashMap<>();
+     * for (E element : getPipeElements()) {
+     *     accumulator.accept(result.computeIfAbsent(classifier.apply(element), key -> accumulatorSupplier.get()),
+     *         element);
+     * }
+     * return result;
+     * }</pre>
+     *
+     * @param classifier 分类方法，允许返回{@code null}。
+     * @param accumulatorSupplier 累加器的构造方法，返回的累加器不能为{@code null}。
+     * @param accumulator 将元素累加到累加器的方法。
+     * @param combiner 将第二个累加器合并到第一个累加器的方法。
+     * @param <K> 分组的键类型。
+     * @param <A> 累加器类型。
+     * @return 分组到累加器的map，为{@link HashMap}。
+     * @throws NullPointerException 当任意参数为{@code null}时抛出。
+     * @see #reduceTo(Supplier, BiConsumer, BiConsumer)
+     */
+    <K, A> Map<K, A> groupAndAccumulate(Function<? super E, ? extends K> classifier,
+        Supplier<? extends A> accumulatorSupplier, BiConsumer<? super A, ? super E> accumulator,
+        BiConsumer<? super A, ? super A> combiner);
+
     default <K> Map<K, Long> groupAndCount(Function<? super E, ? extends K> classifier) {
-        requireNonNull(classifier);
-        return reduceTo(new HashMap<>(),
-            (map, value) -> map.compute(classifier.apply(value), (key, count) -> count == null ? 1L : count + 1));
+        return GroupShards.toLongValues(groupAndAccumulate(classifier, () -> new long[1], (count, value) -> count[0]++,
+            (count, another) -> count[0] += another[0]));
+    }
+
+    /**
+     * 根据分类方法对元素分组，并计算每个分组内元素映射为long值之和。
+     * <p/>
+     * 每个分组以一个long值累加，累加过程中不会装箱。
+     *
+     * @param classifier 分类方法。
+     * @param mapper 将元素映射为long值的方法。
+     * @param <K> 分组的键类型。
+     * @return 分组到元素之和的map。
+     * @throws NullPointerException 当{@code classifier}或{@code mapper}为{@code null}时抛出。
+     * @see #groupAndSummarizeLong(Function, ToLongFunction)
+     */
+    default <K> Map<K, Long> groupAndSumLong(Function<? super E, ? extends K> classifier,
+        ToLongFunction<? super E> mapper) {
+        requireNonNull(mapper);
+        return GroupShards.toLongValues(groupAndAccumulate(classifier, () -> new long[1],
+            (sum, value) -> sum[0] += mapper.applyAsLong(value), (sum, another) -> sum[0] += another[0]));
+    }
+
+    /**
+     * 根据分类方法对元素分组，并计算每个分组内元素映射为double值之和。
+     *
+     * @param classifier 分类方法。
+     * @param mapper 将元素映射为double值的方法。
+     * @param <K> 分组的键类型。
+     * @return 分组到元素之和的map。
+     * @throws NullPointerException 当{@code classifier}或{@code mapper}为{@code null}时抛出。
+     * @see #groupAndSummarizeDouble(Function, ToDoubleFunction)
+     */
+    default <K> Map<K, Double> groupAndSumDouble(Function<? super E, ? extends K> classifier,
+        ToDoubleFunction<? super E> mapper) {
+        Map<K, DoubleSummaryStatistics> statistics = groupAndSummarizeDouble(classifier, mapper);
+        Map<K, Double> result = new HashMap<>((int) (statistics.size() / 0.75f) + 1);
+        statistics.forEach((key, statistic) -> result.put(key, statistic.getSum()));
+        return result;
+    }
+
+    /**
+     * 根据分类方法对元素分组，并统计每个分组内元素映射得到的long值，包括数量、和、最小值、最大值以及平均值。
+     * <p/>
+     * 每个分组以一个{@link LongSummaryStatistics}累加，累加过程中不会装箱。
+     *
+     * @param classifier 分类方法。
+     * @param mapper 将元素映射为long值的方法。
+     * @param <K> 分组的键类型。
+     * @return 分组到统计信息的map。
+     * @throws NullPointerException 当{@code classifier}或{@code mapper}为{@code null}时抛出。
+     */
+    default <K> Map<K, LongSummaryStatistics> groupAndSummarizeLong(Function<? super E, ? extends K> classifier,
+        ToLongFunction<? super E> mapper) {
+        requireNonNull(mapper);
+        return groupAndAccumulate(classifier, LongSummaryStatistics::new,
+            (statistics, value) -> statistics.accept(mapper.applyAsLong(value)), LongSummaryStatistics::combine);
+    }
+
+    /**
+     * 根据分类方法对元素分组，并统计每个分组内元素映射得到的double值，包括数量、和、最小值、最大值以及平均值。
+     *
+     * @param classifier 分类方法。
+     * @param mapper 将元素映射为double值的方法。
+     * @param <K> 分组的键类型。
+     * @return 分组到统计信息的map。
+     * @throws NullPointerException 当{@code classifier}或{@code mapper}为{@code null}时抛出。
+     */
+    default <K> Map<K, DoubleSummaryStatistics> groupAndSummarizeDouble(Function<? super E, ? extends K> classifier,
+        ToDoubleFunction<? super E> mapper) {
+        requireNonNull(mapper);
+        return groupAndAccumulate(classifier, DoubleSummaryStatistics::new,
+            (statistics, value) -> statistics.accept(mapper.applyAsDouble(value)), DoubleSummaryStatistics::combine);
     }
 
     default <K> Map<K, List<E>> groupAndExecute(Function<? super E, ? extends K> classifier,
@@ -2885,6 +3488,49 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
         return requireNonNull(function).apply(this);
     }
 
+    /**
+     * 将流水线切换为并行求值模式，此设置作用于整条流水线，以最后一次设置为准。
+     * <p/>
+     * 并行求值的具体策略参见{@link Pipe}中关于并行流水线的说明。
+     *
+     * @return 流水线自身。
+     * @see #sequential()
+     * @see #isParallel()
+     */
+    Pipe<E> parallel();
+
+    /**
+     * 将流水线切换为串行求值模式，此设置作用于整条流水线，以最后一次设置为准。
+     *
+     * @return 流水线自身。
+     * @see #parallel()
+     * @see #isParallel()
+     */
+    Pipe<E> sequential();
+
+    /**
+     * 判断流水线当前是否为并行求值模式。
+     *
+     * @return {@code true} - 流水线为并行求值模式。
+     * @see #parallel()
+     * @see #sequential()
+     */
+    boolean isParallel();
+
+    /**
+     * 开启流水线的性能剖析，此设置作用于整条流水线，以最后一次设置为准。
+     * <p/>
+     * 开启后，求值时会在每个节点的操作之前插入探针，记录每个节点流入和流出的元素数量、自身及下游的耗时、
+     * 请求短路时已流入的元素数量，以及排序等需要缓存全部元素的节点的缓存峰值。
+     * 求值结束后，按照从上游到下游的顺序，以节点的实现类（例如{@code SortOp.Normal}）为名称，将运行报告输出到给定的接收方。
+     *
+     * @param sink 运行报告的接收方。
+     * @return 流水线自身。
+     * @throws NullPointerException 当{@code sink}为{@code null}时抛出。
+     * @apiNote 探针需要为每个元素记录时间，会明显降低流水线的吞吐量，仅建议在定位性能问题时使用。
+     */
+    Pipe<E> profile(MetricsSink sink);
+
     /* ╔════════════════════════════════════════════════════════════════════════════════════════════════════════╗ */
     /* ║ ╔════════════════════════════════════════════════════════════════════════════════════════════════════╗ ║ */
     /* ║ ║                                      Static Construct Methods                                      ║ ║ */
@@ -3050,9 +3696,7 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @see #values(Map, Predicate)
      */
     static <T, V> Pipe<T> keys(Map<? extends T, ? extends V> map, Predicate<? super V> valuePredicate) {
-        // OPT 2023-06-05 23:23 使用BiPipe优化
-        return spliterator(requireNonNull(map).entrySet().spliterator()).filter(
-            entry -> valuePredicate.test(entry.getValue())).map(Map.Entry::getKey);
+        return BiPipe.<T, V>entries(map).takeIfSecond(valuePredicate).firsts();
     }
 
     /**
@@ -3082,9 +3726,7 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
      * @see #keys(Map, Predicate)
      */
     static <T, K> Pipe<T> values(Map<? extends K, ? extends T> map, Predicate<? super K> keyPredicate) {
-        // OPT 2023-06-05 23:23 使用BiPipe优化
-        return spliterator(requireNonNull(map).entrySet().spliterator()).filter(
-            entry -> keyPredicate.test(entry.getKey())).map(Map.Entry::getValue);
+        return BiPipe.<K, T>entries(map).takeIfFirst(keyPredicate).seconds();
     }
 
     /**
@@ -3115,11 +3757,101 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
         if (pipes == null || pipes.length == 0) {
             return empty();
         }
-        Pipe<T> resPipe = empty();
+        List<Spliterator<? extends T>> spliterators = new ArrayList<>(pipes.length);
         for (Pipe<? extends T> pipe : pipes) {
-            resPipe = resPipe.append(pipe);
+            spliterators.add(requireNonNull(pipe).toSpliterator());
+        }
+        Pipe<T> resPipe = spliterator(MoreSpliterators.concat(spliterators));
+        return resPipe.onClose(PipeHead.closeAllAction(pipes.clone()));
+    }
+
+    /**
+     * 归并给定的多个有序流水线，每个流水线都需要已经按照给定的比较器排序，归并后的流水线同样按照此比较器有序。
+     * <p/>
+     * 以小顶堆维护每个流水线的当前元素，每个元素的归并开销为{@code O(log k)}，{@code k}为流水线的数量。
+     * 比较结果相同的元素按照流水线的先后顺序流出。归并是惰性的，每次只会从一个流水线中读取一个元素，
+     * 因此可以与{@link #limit(long)}等短路操作配合，甚至可以归并无限长的有序流水线。
+     * <p/>
+     * 使用自然顺序或逆自然顺序归并时，结果流水线会被标记为有序或逆序，后续相同顺序的排序操作可以被省略。
+     *
+     * @param comparator 各个流水线排序所使用的比较器，为{@code null}时使用自然顺序。
+     * @param pipes 需要归并的有序流水线。
+     * @param <T> 元素类型。
+     * @return 归并后的流水线。
+     * @throws NullPointerException 当流水线{@code pipes}存在{@code null}时抛出。
+     * @apiNote 此方法不会检查输入的流水线是否真的有序，输入无序时结果的顺序不确定。
+     * @see #concat(Pipe[])
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    static <T> Pipe<T> mergeSorted(Comparator<? super T> comparator, Pipe<? extends T>... pipes) {
+        if (pipes == null || pipes.length == 0) {
+            return empty();
+        }
+        List<Spliterator<? extends T>> spliterators = new ArrayList<>(pipes.length);
+        for (Pipe<? extends T> pipe : pipes) {
+            spliterators.add(requireNonNull(pipe).toSpliterator());
+        }
+        Spliterator<T> merged = MoreSpliterators.mergeSorted(comparator, spliterators);
+        Pipe<T> resPipe = isStdReverseOrder(comparator) ? spliterator(merged, PipeFlag.IS_REVERSED_SORTED) :
+            spliterator(merged);
+        return resPipe.onClose(PipeHead.closeAllAction(pipes.clone()));
+    }
+
+    /**
+     * 创建一个新的流水线，以UTF-8编码逐行读取给定的文件，行以{@code '\n'}或{@code "\r\n"}结尾。
+     * <p/>
+     * 文件通过内存映射读取，不经过{@link java.io.BufferedReader}，支持在行的边界处拆分以并行读取。
+     * 关闭流水线时关闭文件。
+     *
+     * @param path 文件路径。
+     * @return 以文件中的每一行为元素的流水线。
+     * @throws NullPointerException 当{@code path}为{@code null}时抛出。
+     * @throws UncheckedIOException 打开文件失败时抛出，读取文件失败时在终结操作中抛出。
+     * @see #records(Path, RecordDecoder)
+     * @see RecordDecoder#utf8Lines()
+     */
+    static Pipe<String> lines(Path path) {
+        return records(path, RecordDecoder.utf8Lines());
+    }
+
+    /**
+     * 创建一个新的流水线，从给定的文件中读取以分隔符分隔的记录，每个记录由给定的解码器直接从文件的字节中解码。
+     * <p/>
+     * 文件通过内存映射读取，支持在记录的边界处拆分以并行读取。关闭流水线时关闭文件。
+     *
+     * @param path 文件路径。
+     * @param decoder 记录解码器。
+     * @param <T> 记录类型。
+     * @return 以文件中的每个记录为元素的流水线。
+     * @throws NullPointerException 当{@code path}或{@code decoder}为{@code null}时抛出。
+     * @throws UncheckedIOException 打开文件失败时抛出，读取文件失败时在终结操作中抛出。
+     * @see #lines(Path)
+     */
+    static <T> Pipe<T> records(Path path, RecordDecoder<? extends T> decoder) {
+        requireNonNull(decoder);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(requireNonNull(path), StandardOpenOption.READ);
+            Pipe<T> pipe = spliterator(MoreSpliterators.mappedRecords(channel, decoder));
+            FileChannel opened = channel;
+            return pipe.onClose(() -> {
+                try {
+                    opened.close();
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (IOException exception) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    exception.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException(exception);
         }
-        return resPipe;
     }
 
     /**
@@ -3269,4 +4001,31 @@ public interface Pipe<E> extends BasePipe<E, Pipe<E>> {
     static <T> Pipe<T> collection(Collection<? extends T> collection, int extraFlag) {
         return collection == null || collection.isEmpty() ? empty() : spliterator(collection.spliterator(), extraFlag);
     }
+
+    /**
+     * 以给定的程序定义编译可以重复使用的流水线程序。
+     * <p/>
+     * 程序定义以一个没有数据源的模板流水线为参数，在其之上追加中间操作并返回最终的流水线，例如：
+     * <pre>{@code
+     * PipeProgram<Order, String> program = Pipe.compile(orders -> orders.takeIf(Order::isPaid)
+     *     .map(Order::getId)
+     *     .distinct()
+     *     .sort());
+     * List<String> ids = program.apply(todayOrders).toList();
+     * }</pre>
+     * 程序中的节点只在编译时构造一次，之后每次应用到新的数据源时都不再重新构造。
+     *
+     * @param definition 程序定义。
+     * @param <T> 数据源的元素类型。
+     * @param <R> 程序输出的元素类型。
+     * @return 编译得到的流水线程序。
+     * @throws NullPointerException 当{@code definition}为{@code null}时抛出。
+     * @throws IllegalArgumentException 当程序定义返回的流水线不是由模板流水线构造时抛出。
+     * @throws UnsupportedOperationException 当程序定义中对模板流水线执行终结操作、注册关闭动作，或者使用了需要在构造时
+     * 获取数据源的操作（例如{@link #mapToInt(ToIntFunction)}）时抛出。
+     * @see PipeProgram
+     */
+    static <T, R> PipeProgram<T, R> compile(Function<? super Pipe<T>, ? extends Pipe<R>> definition) {
+        return RefPipeProgram.compile(requireNonNull(definition));
+    }
 }
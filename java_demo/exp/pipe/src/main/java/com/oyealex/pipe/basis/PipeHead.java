@@ -1,5 +1,6 @@
 package com.oyealex.pipe.basis;
 
+import com.oyealex.pipe.BasePipe;
 import com.oyealex.pipe.flag.PipeFlag;
 
 import java.util.Spliterator;
@@ -18,6 +19,12 @@ class PipeHead<OUT> extends RefPipe<Void, OUT> {
     /** 流水线关闭时执行的动作 */
     private Runnable closeAction;
 
+    /** 是否以并行模式求值 */
+    private boolean parallel = false;
+
+    /** 性能剖析器，未开启性能剖析时为{@code null} */
+    private PipeProfiler profiler;
+
     PipeHead(Spliterator<? extends OUT> sourceSpliterator) {
         super(PipeFlag.fromSpliterator(sourceSpliterator));
         this.sourceSpliterator = sourceSpliterator;
@@ -28,6 +35,28 @@ class PipeHead<OUT> extends RefPipe<Void, OUT> {
         this.sourceSpliterator = sourceSpliterator;
     }
 
+    /**
+     * 构造由其他流水线转换或派生而来的头节点，继承原流水线的求值模式和性能剖析器。
+     *
+     * @param sourceSpliterator 流水线数据源
+     * @param parallel 原流水线的求值模式
+     * @param profiler 原流水线的性能剖析器
+     */
+    PipeHead(Spliterator<? extends OUT> sourceSpliterator, boolean parallel, PipeProfiler profiler) {
+        this(sourceSpliterator);
+        this.parallel = parallel;
+        this.profiler = profiler;
+    }
+
+    /**
+     * 以给定的标记构造没有预先给定数据源的头节点，数据源由子类提供。
+     *
+     * @param flag 流水线标记
+     */
+    PipeHead(int flag) {
+        super(flag);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected Spliterator<Object> takeDataSource() {
@@ -45,6 +74,26 @@ class PipeHead<OUT> extends RefPipe<Void, OUT> {
         }
     }
 
+    @Override
+    void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    @Override
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    @Override
+    PipeProfiler profiler() {
+        return profiler;
+    }
+
+    @Override
+    void setProfiler(PipeProfiler profiler) {
+        this.profiler = profiler;
+    }
+
     @Override
     protected Op<Void> wrapOp(Op<OUT> nextOp) {
         throw new UnsupportedOperationException();
@@ -60,7 +109,7 @@ class PipeHead<OUT> extends RefPipe<Void, OUT> {
         return this;
     }
 
-    private static Runnable composeAction(Runnable action, Runnable anotherAction) {
+    static Runnable composeAction(Runnable action, Runnable anotherAction) {
         return () -> {
             try {
                 action.run();
@@ -79,4 +128,36 @@ class PipeHead<OUT> extends RefPipe<Void, OUT> {
             anotherAction.run();
         };
     }
+
+    /**
+     * 构造依次关闭给定的全部流水线的关闭动作。
+     * <p/>
+     * 不同于反复调用{@link #composeAction(Runnable, Runnable)}逐层嵌套，此动作以循环关闭全部流水线，
+     * 调用深度与流水线的数量无关。某个流水线关闭失败时仍会继续关闭其余流水线，首个异常在最后抛出，其余异常作为其抑制异常。
+     *
+     * @param pipes 需要关闭的流水线
+     * @return 关闭全部流水线的动作
+     */
+    static Runnable closeAllAction(BasePipe<?, ?>[] pipes) {
+        return () -> {
+            Throwable throwable = null;
+            for (BasePipe<?, ?> pipe : pipes) {
+                try {
+                    pipe.close();
+                } catch (Throwable anotherThrowable) {
+                    if (throwable == null) {
+                        throwable = anotherThrowable;
+                    } else if (throwable != anotherThrowable) {
+                        throwable.addSuppressed(anotherThrowable);
+                    }
+                }
+            }
+            // 流水线的关闭方法不声明受检异常，因此捕获到的只能是非受检异常或错误
+            if (throwable instanceof Error) {
+                throw (Error) throwable;
+            } else if (throwable != null) {
+                throw (RuntimeException) throwable;
+            }
+        };
+    }
 }
@@ -0,0 +1,183 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.profile.MetricsSink;
+import com.oyealex.pipe.profile.PipeProfile;
+import com.oyealex.pipe.profile.StageMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 流水线性能剖析器，由头节点持有，封装节点操作时在相邻的两个节点之间插入探针，记录元素数量、耗时、短路位置以及缓存峰值。
+ * <p/>
+ * 每个探针只在自身所在的线程中计数，结束时才汇总到节点的记录中，因此并行求值时的开销与串行求值相同。
+ * 每个元素都需要记录两次时间，剖析会明显降低流水线的吞吐量，只适合用于定位问题。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+final class PipeProfiler {
+    private final MetricsSink sink;
+
+    private final Map<RefPipe<?, ?>, StageRecorder> recorders = new ConcurrentHashMap<>();
+
+    private boolean reported;
+
+    PipeProfiler(MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * 在上游节点与下游节点之间插入探针。
+     *
+     * @param upstream 上游节点，为{@code null}表示下游节点的元素直接来自数据源
+     * @param downstream 下游节点，为{@code null}表示上游节点的元素直接流入结尾操作
+     * @param op 下游节点的操作，或者结尾操作
+     * @param <T> 元素类型
+     * @return 探针
+     */
+    <T> Op<T> probe(RefPipe<?, ?> upstream, RefPipe<?, ?> downstream, Op<T> op) {
+        return new Probe<>(recorderOf(upstream), recorderOf(downstream), op);
+    }
+
+    private StageRecorder recorderOf(RefPipe<?, ?> pipe) {
+        return pipe == null ? null : recorders.computeIfAbsent(pipe, ignored -> new StageRecorder());
+    }
+
+    /**
+     * 向接收方输出从头节点到{@code tailPipe}的运行报告，只有第一次调用有效。
+     *
+     * @param tailPipe 求值的尾节点
+     */
+    void report(RefPipe<?, ?> tailPipe) {
+        synchronized (this) {
+            if (reported) {
+                return;
+            }
+            reported = true;
+        }
+        List<StageMetrics> stages = new ArrayList<>();
+        for (RefPipe<?, ?> pipe = tailPipe; pipe != pipe.headPipe; pipe = pipe.prePipe) {
+            StageRecorder recorder = recorders.get(pipe);
+            if (recorder != null) {
+                stages.add(recorder.toMetrics(stageName(pipe.getClass())));
+            }
+        }
+        Collections.reverse(stages);
+        sink.report(new PipeProfile(stages));
+    }
+
+    /**
+     * 获取节点实现类在包内的名称，例如{@code SortOp.Normal}。
+     */
+    private static String stageName(Class<?> stageClass) {
+        String name = stageClass.getName();
+        return name.substring(name.lastIndexOf('.') + 1).replace('$', '.');
+    }
+
+    /**
+     * 节点的运行记录。
+     */
+    private static final class StageRecorder {
+        private long elementsIn;
+
+        private long elementsOut;
+
+        private long totalNanos;
+
+        private long downstreamNanos;
+
+        private long shortCircuitAt = -1L;
+
+        private long bufferPeak = -1L;
+
+        private synchronized void recordIn(long count, long nanos, long shortCircuitAt, long bufferPeak) {
+            elementsIn += count;
+            totalNanos += nanos;
+            if (shortCircuitAt >= 0 && this.shortCircuitAt < 0) {
+                this.shortCircuitAt = shortCircuitAt;
+            }
+            this.bufferPeak = Math.max(this.bufferPeak, bufferPeak);
+        }
+
+        private synchronized void recordOut(long count, long nanos) {
+            elementsOut += count;
+            downstreamNanos += nanos;
+        }
+
+        private synchronized StageMetrics toMetrics(String stage) {
+            long selfNanos = Math.max(totalNanos - downstreamNanos, 0L);
+            return new StageMetrics(stage, elementsIn, elementsOut, totalNanos, selfNanos, shortCircuitAt, bufferPeak);
+        }
+    }
+
+    /**
+     * 插入在两个相邻节点之间的探针，流过探针的元素既是上游节点流出的元素，也是下游节点流入的元素。
+     */
+    private static final class Probe<T> implements Op<T> {
+        private final StageRecorder upstream;
+
+        private final StageRecorder downstream;
+
+        private final Op<T> op;
+
+        private long count;
+
+        private long nanos;
+
+        private long shortCircuitAt = -1L;
+
+        private Probe(StageRecorder upstream, StageRecorder downstream, Op<T> op) {
+            this.upstream = upstream;
+            this.downstream = downstream;
+            this.op = op;
+        }
+
+        @Override
+        public void begin(long size, long minSize, long maxSize) {
+            op.begin(size, minSize, maxSize);
+        }
+
+        @Override
+        public void accept(T value) {
+            long start = System.nanoTime();
+            op.accept(value);
+            nanos += System.nanoTime() - start;
+            count++;
+        }
+
+        @Override
+        public void end() {
+            long bufferPeak = -1L;
+            if (op instanceof ChainedOp.ToList && ((ChainedOp.ToList<?, ?>) op).elements != null) {
+                bufferPeak = ((ChainedOp.ToList<?, ?>) op).elements.count();
+            }
+            long start = System.nanoTime();
+            op.end();
+            nanos += System.nanoTime() - start;
+            if (upstream != null) {
+                upstream.recordOut(count, nanos);
+            }
+            if (downstream != null) {
+                downstream.recordIn(count, nanos, shortCircuitAt, bufferPeak);
+            }
+        }
+
+        @Override
+        public void abort() {
+            op.abort();
+        }
+
+        @Override
+        public boolean canShortCircuit() {
+            boolean canShortCircuit = op.canShortCircuit();
+            if (canShortCircuit && shortCircuitAt < 0) {
+                shortCircuitAt = count;
+            }
+            return canShortCircuit;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.oyealex.pipe.basis;
+
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 预先编译的流水线程序，冻结了一组流水线中间操作，可以反复地应用到新的数据源上。
+ * <p/>
+ * 程序中的各个节点只在编译时构造一次，每次应用只需要构造数据源节点和一个代表整个程序的节点，因此适合在热点路径上
+ * 对大量的小数据集反复执行相同的流水线。节点本身不持有求值过程中的状态，元素次序、缓存等状态都保存在每次求值时新建的
+ * 操作中，因此同一个程序多次应用的结果互不影响。定义程序时传入的对象（例如映射方法、{@link java.util.Random}）会被
+ * 所有应用共享，只有这些对象都是线程安全的，才能在多个线程中同时应用同一个程序。
+ *
+ * @param <T> 数据源的元素类型
+ * @param <R> 程序输出的元素类型
+ * @author oyealex
+ * @see Pipe#compile(Function)
+ * @since 2023-06-25
+ */
+public interface PipeProgram<T, R> {
+    /**
+     * 将程序应用到给定的数据源上，得到新的流水线，此流水线与其他流水线一样只能执行一次终结操作。
+     *
+     * @param source 数据源
+     * @return 新的流水线
+     * @throws NullPointerException 当{@code source}为{@code null}时抛出。
+     */
+    Pipe<R> apply(Spliterator<? extends T> source);
+
+    /**
+     * 将程序应用到给定的集合上，得到新的流水线。
+     *
+     * @param source 数据源集合
+     * @return 新的流水线
+     * @throws NullPointerException 当{@code source}为{@code null}时抛出。
+     * @see #apply(Spliterator)
+     */
+    default Pipe<R> apply(Collection<? extends T> source) {
+        return apply(requireNonNull(source).spliterator());
+    }
+}
@@ -3,7 +3,9 @@ package com.oyealex.pipe.basis;
 import com.oyealex.pipe.assist.Box;
 import com.oyealex.pipe.flag.PipeFlag;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Spliterator;
 import java.util.function.Consumer;
 
@@ -39,6 +41,12 @@ class PipeSpliterator<OUT> implements Spliterator<OUT> {
 
     private Box<Boolean> dataMark;
 
+    /** 单个缓存位置被占用时继续流出的元素，例如排序等有状态节点在结束时一次性流出的全部元素 */
+    private final List<OUT> pending = new ArrayList<>();
+
+    /** 下一个需要处理的{@link #pending}中的元素的下标 */
+    private int pendingIndex;
+
     /** 已经封装了流水线全部节点操作，并最终将元素流入缓存队列的操作方法 */
     private Op<Object> wrappedOfferOp;
 
@@ -52,12 +60,22 @@ class PipeSpliterator<OUT> implements Spliterator<OUT> {
 
     @Override
     public boolean tryAdvance(Consumer<? super OUT> action) {
-        boolean hasNext = advance();
-        if (hasNext) {
+        if (!advance()) {
+            return false;
+        }
+        OUT value;
+        if (dataMark.get()) {
             dataMark.set(false);
-            action.accept(dataHolder.remove());
+            value = dataHolder.remove();
+        } else {
+            value = pending.set(pendingIndex++, null);
+            if (pendingIndex == pending.size()) {
+                pending.clear();
+                pendingIndex = 0;
+            }
         }
-        return hasNext;
+        action.accept(value);
+        return true;
     }
 
     @Override
@@ -65,6 +83,7 @@ class PipeSpliterator<OUT> implements Spliterator<OUT> {
         if (dataHolder == null && !isCompleted) {
             pipe.driveData(split, TerminalOp.wrap(action));
             isCompleted = true;
+            pipe.reportProfile();
         } else {
             do { /*noop*/ } while (tryAdvance(action));
         }
@@ -77,24 +96,37 @@ class PipeSpliterator<OUT> implements Spliterator<OUT> {
             }
             dataHolder = Box.box();
             dataMark = Box.box(false);
-            wrappedOfferOp = pipe.wrapAllOp(value -> {
-                dataHolder.set(value);
-                dataMark.set(true);
-            });
+            wrappedOfferOp = pipe.wrapAllOp(this::offer);
             wrappedOfferOp.begin(split.getExactSizeIfKnown());
-            return takeNextData();
+        }
+        // 有状态的节点可能在流入多个元素之后才流出元素，因此需要持续驱动直到有元素流出或者完成遍历
+        while (!hasBuffered()) {
+            if (isCompleted || !takeNextData()) {
+                return hasBuffered();
+            }
+        }
+        return true;
+    }
+
+    private void offer(OUT value) {
+        if (dataMark.get() || pendingIndex < pending.size()) {
+            pending.add(value);
         } else {
-            return dataMark.get() || takeNextData();
+            dataHolder.set(value);
+            dataMark.set(true);
         }
     }
 
+    private boolean hasBuffered() {
+        return dataMark.get() || pendingIndex < pending.size();
+    }
+
     private boolean takeNextData() {
         if (wrappedOfferOp.canShortCircuit() || !split.tryAdvance(wrappedOfferOp)) {
             if (!isCompleted) {
                 wrappedOfferOp.end();
                 isCompleted = true;
-                dataHolder.remove();
-                dataMark.set(false);
+                pipe.reportProfile();
             }
             return false;
         }
@@ -128,7 +160,7 @@ class PipeSpliterator<OUT> implements Spliterator<OUT> {
 
     @Override
     public Comparator<? super OUT> getComparator() {
-        if (hasCharacteristics(Spliterator.ORDERED)) {
+        if (hasCharacteristics(Spliterator.SORTED)) {
             return null;
         }
         throw new IllegalStateException();
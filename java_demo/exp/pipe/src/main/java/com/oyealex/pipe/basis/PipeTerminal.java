@@ -0,0 +1,314 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.assist.Tuple;
+import com.oyealex.pipe.flag.PipeFlag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+import static com.oyealex.pipe.flag.PipeFlag.IS_SHORT_CIRCUIT;
+import static com.oyealex.pipe.utils.MiscUtil.naturalOrderIfNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 可以在{@link Pipe#fork(List)}中使用的终结操作描述，每次执行时都会创建新的终结操作，因此同一个描述可以重复使用。
+ *
+ * @param <T> 终结操作接收的元素类型
+ * @param <R> 终结操作的结果类型
+ * @author oyealex
+ * @see Pipe#fork(List)
+ * @see Pipe#fork(PipeTerminal, PipeTerminal)
+ * @since 2023-06-25
+ */
+public final class PipeTerminal<T, R> {
+    private final Supplier<? extends TerminalOp<T, R>> opSupplier;
+
+    private PipeTerminal(Supplier<? extends TerminalOp<T, R>> opSupplier) {
+        this.opSupplier = opSupplier;
+    }
+
+    TerminalOp<T, R> newOp() {
+        return opSupplier.get();
+    }
+
+    /**
+     * 计算元素的数量。
+     *
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @see Pipe#count()
+     */
+    public static <T> PipeTerminal<T, Long> count() {
+        return new PipeTerminal<>(SimpleOps::countOp);
+    }
+
+    /**
+     * 将元素收集到{@link ArrayList}中。
+     *
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @see Pipe#toList()
+     */
+    public static <T> PipeTerminal<T, List<T>> toList() {
+        return new PipeTerminal<>(() -> SimpleOps.reduceToTerminalOp(new ArrayList<>(), List::add));
+    }
+
+    /**
+     * 对每个元素执行给定的方法。
+     *
+     * @param consumer 给定的方法
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @throws NullPointerException 当{@code consumer}为{@code null}时抛出。
+     * @see Pipe#forEach(Consumer)
+     */
+    public static <T> PipeTerminal<T, Void> forEach(Consumer<? super T> consumer) {
+        requireNonNull(consumer);
+        return new PipeTerminal<>(() -> SimpleOps.forEachOp(consumer));
+    }
+
+    /**
+     * 获取最小的元素。
+     *
+     * @param comparator 比较器，为{@code null}时按照自然顺序比较
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @see Pipe#min(Comparator)
+     */
+    public static <T> PipeTerminal<T, Optional<T>> min(Comparator<? super T> comparator) {
+        Comparator<? super T> finalComparator = naturalOrderIfNull(comparator);
+        return new PipeTerminal<>(() -> SimpleOps.minTerminalOp(finalComparator));
+    }
+
+    /**
+     * 获取最大的元素。
+     *
+     * @param comparator 比较器，为{@code null}时按照自然顺序比较
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @see Pipe#max(Comparator)
+     */
+    public static <T> PipeTerminal<T, Optional<T>> max(Comparator<? super T> comparator) {
+        Comparator<? super T> finalComparator = naturalOrderIfNull(comparator);
+        return new PipeTerminal<>(() -> SimpleOps.minTerminalOp(finalComparator.reversed()));
+    }
+
+    /**
+     * 同时获取最小的元素和最大的元素。
+     *
+     * @param comparator 比较器，为{@code null}时按照自然顺序比较
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @see Pipe#minMax(Comparator)
+     */
+    public static <T> PipeTerminal<T, Tuple<Optional<T>, Optional<T>>> minMax(Comparator<? super T> comparator) {
+        Comparator<? super T> finalComparator = naturalOrderIfNull(comparator);
+        return new PipeTerminal<>(() -> SimpleOps.minMaxTerminalOp(finalComparator));
+    }
+
+    /**
+     * 根据分类方法对元素分组，并计算每个分组内元素的数量。
+     *
+     * @param classifier 分类方法
+     * @param <T> 元素类型
+     * @param <K> 分组的键类型
+     * @return 终结操作描述，结果为{@link HashMap}
+     * @throws NullPointerException 当{@code classifier}为{@code null}时抛出。
+     * @see Pipe#groupAndCount(Function)
+     */
+    public static <T, K> PipeTerminal<T, Map<K, Long>> groupAndCount(Function<? super T, ? extends K> classifier) {
+        requireNonNull(classifier);
+        return new PipeTerminal<>(() -> SimpleOps.reduceToTerminalOp(new HashMap<>(),
+            (Map<K, Long> counts, T value) -> counts.merge(classifier.apply(value), 1L, Long::sum)));
+    }
+
+    /**
+     * 使用给定的方法合并所有元素。
+     *
+     * @param reducer 合并方法
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @throws NullPointerException 当{@code reducer}为{@code null}时抛出。
+     * @see Pipe#reduce(BinaryOperator)
+     */
+    public static <T> PipeTerminal<T, Optional<T>> reduce(BinaryOperator<T> reducer) {
+        requireNonNull(reducer);
+        return new PipeTerminal<>(() -> SimpleOps.reduceTerminalOp(reducer));
+    }
+
+    /**
+     * 以给定的初始值，使用给定的方法合并所有元素。
+     *
+     * @param initVar 初始值
+     * @param reducer 合并方法
+     * @param <T> 元素类型
+     * @param <R> 结果类型
+     * @return 终结操作描述
+     * @throws NullPointerException 当{@code reducer}为{@code null}时抛出。
+     * @see Pipe#reduce(Object, BiFunction)
+     */
+    public static <T, R> PipeTerminal<T, R> reduce(R initVar, BiFunction<? super R, ? super T, ? extends R> reducer) {
+        requireNonNull(reducer);
+        return new PipeTerminal<>(() -> SimpleOps.reduceTerminalOp(initVar, reducer));
+    }
+
+    /**
+     * 使用给定的收集器收集所有元素。
+     *
+     * @param collector 收集器
+     * @param <T> 元素类型
+     * @param <A> 收集器的中间容器类型
+     * @param <R> 结果类型
+     * @return 终结操作描述
+     * @throws NullPointerException 当{@code collector}为{@code null}时抛出。
+     */
+    public static <T, A, R> PipeTerminal<T, R> collect(Collector<? super T, A, R> collector) {
+        requireNonNull(collector);
+        return new PipeTerminal<>(() -> {
+            BiConsumer<A, ? super T> accumulator = collector.accumulator();
+            return new TerminalOp<T, R>() {
+                private final A container = collector.supplier().get();
+
+                @Override
+                public void accept(T value) {
+                    accumulator.accept(container, value);
+                }
+
+                @Override
+                public R get() {
+                    return collector.finisher().apply(container);
+                }
+            };
+        });
+    }
+
+    /**
+     * 判断是否存在满足条件的元素，遇到满足条件的元素之后即不再接收元素。
+     *
+     * @param predicate 条件
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     * @see Pipe#anyMatch(Predicate)
+     */
+    public static <T> PipeTerminal<T, Boolean> anyMatch(Predicate<? super T> predicate) {
+        requireNonNull(predicate);
+        return new PipeTerminal<>(() -> SimpleOps.anyMatchTerminalOp(predicate));
+    }
+
+    /**
+     * 判断是否所有元素都满足条件，遇到不满足条件的元素之后即不再接收元素。
+     *
+     * @param predicate 条件
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @throws NullPointerException 当{@code predicate}为{@code null}时抛出。
+     * @see Pipe#allMatch(Predicate)
+     */
+    public static <T> PipeTerminal<T, Boolean> allMatch(Predicate<? super T> predicate) {
+        requireNonNull(predicate);
+        return new PipeTerminal<>(() -> SimpleOps.allMatchTerminalOp(predicate));
+    }
+
+    /**
+     * 获取第一个元素，获取之后即不再接收元素。
+     *
+     * @param <T> 元素类型
+     * @return 终结操作描述
+     * @see Pipe#findFirst()
+     */
+    public static <T> PipeTerminal<T, Optional<T>> findFirst() {
+        return new PipeTerminal<>(SimpleOps::findFirstTerminalOp);
+    }
+
+    /**
+     * 将每个元素分发给多个终结操作的终结操作，所有可以短路的分支都已经满足时才能短路。
+     * <p/>
+     * 已经可以短路的分支不会再接收元素；只要存在不能短路的分支，整个终结操作就不能短路。
+     */
+    static final class Fork<T> implements TerminalOp<T, List<Object>> {
+        private final TerminalOp<? super T, ?>[] branches;
+
+        /** 仍在接收元素的分支数量 */
+        private int activeCount;
+
+        /** 各个分支是否已经满足短路条件 */
+        private final boolean[] satisfied;
+
+        private final int opFlag;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Fork(List<? extends PipeTerminal<? super T, ?>> terminals) {
+            this.branches = new TerminalOp[terminals.size()];
+            this.satisfied = new boolean[branches.length];
+            boolean allShortCircuit = true;
+            for (int i = 0; i < branches.length; i++) {
+                branches[i] = terminals.get(i).newOp();
+                allShortCircuit &= PipeFlag.SHORT_CIRCUIT.isSet(branches[i].getOpFlag());
+            }
+            this.activeCount = branches.length;
+            this.opFlag = allShortCircuit ? IS_SHORT_CIRCUIT : PipeFlag.EMPTY;
+        }
+
+        @Override
+        public void begin(long size, long minSize, long maxSize) {
+            for (TerminalOp<? super T, ?> branch : branches) {
+                branch.begin(size, minSize, maxSize);
+            }
+        }
+
+        @Override
+        public void accept(T value) {
+            for (int i = 0; i < branches.length; i++) {
+                if (satisfied[i]) {
+                    continue;
+                }
+                TerminalOp<? super T, ?> branch = branches[i];
+                branch.accept(value);
+                if (branch.canShortCircuit()) {
+                    satisfied[i] = true;
+                    activeCount--;
+                }
+            }
+        }
+
+        @Override
+        public void end() {
+            for (TerminalOp<? super T, ?> branch : branches) {
+                branch.end();
+            }
+        }
+
+        @Override
+        public boolean canShortCircuit() {
+            return activeCount == 0;
+        }
+
+        @Override
+        public int getOpFlag() {
+            return opFlag;
+        }
+
+        @Override
+        public List<Object> get() {
+            Object[] results = new Object[branches.length];
+            for (int i = 0; i < branches.length; i++) {
+                results[i] = branches[i].get();
+            }
+            return Arrays.asList(results);
+        }
+    }
+}
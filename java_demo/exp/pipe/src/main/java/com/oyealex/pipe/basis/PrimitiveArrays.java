@@ -0,0 +1,128 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.utils.MiscUtil;
+import com.oyealex.pipe.utils.NoInstance;
+
+import java.util.Arrays;
+
+import static com.oyealex.pipe.utils.MiscUtil.MAX_ARRAY_LENGTH;
+
+/**
+ * 基本类型数组的辅助方法，用于基本类型流水线收集元素。
+ *
+ * @author oyealex
+ * @since 2023-06-21
+ */
+final class PrimitiveArrays extends NoInstance {
+    /** 元素数量未知时数组的初始容量 */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * 根据元素数量计算数组的初始容量。
+     *
+     * @param size 元素数量，-1表示未知
+     * @return 数组的初始容量
+     */
+    static int initCapacity(long size) {
+        MiscUtil.checkArraySize(size);
+        return size >= 0 ? (int) size : DEFAULT_CAPACITY;
+    }
+
+    static int[] grow(int[] array) {
+        return Arrays.copyOf(array, calcGrownCapacity(array.length));
+    }
+
+    static long[] grow(long[] array) {
+        return Arrays.copyOf(array, calcGrownCapacity(array.length));
+    }
+
+    static double[] grow(double[] array) {
+        return Arrays.copyOf(array, calcGrownCapacity(array.length));
+    }
+
+    /**
+     * 对数组的前{@code count}个元素排序，元素数量达到{@link SortOp#PARALLEL_SORT_THRESHOLD}时并行排序。
+     *
+     * @param array 数组
+     * @param count 元素数量
+     */
+    static void sort(int[] array, int count) {
+        if (count >= SortOp.PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(array, 0, count);
+        } else {
+            Arrays.sort(array, 0, count);
+        }
+    }
+
+    static void sort(long[] array, int count) {
+        if (count >= SortOp.PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(array, 0, count);
+        } else {
+            Arrays.sort(array, 0, count);
+        }
+    }
+
+    static void sort(double[] array, int count) {
+        if (count >= SortOp.PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(array, 0, count);
+        } else {
+            Arrays.sort(array, 0, count);
+        }
+    }
+
+    private static int calcGrownCapacity(int capacity) {
+        if (capacity >= MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("Pipe size exceeds max array size");
+        }
+        return (int) Math.min(Math.max((long) capacity << 1, DEFAULT_CAPACITY), MAX_ARRAY_LENGTH);
+    }
+
+    /**
+     * 计算元素在直方图中所属区间的下标。
+     *
+     * @param value 元素
+     * @param lower 直方图下界（含）
+     * @param upper 直方图上界（不含）
+     * @param binCount 区间数量
+     * @return 区间下标，元素不在直方图范围内时返回-1
+     */
+    static int binIndex(int value, int lower, int upper, int binCount) {
+        if (value < lower || value >= upper) {
+            return -1;
+        }
+        // 差值不超过2^32，乘以区间数量之后不会溢出long
+        return (int) (((long) value - lower) * binCount / ((long) upper - lower));
+    }
+
+    static int binIndex(long value, long lower, long upper, int binCount) {
+        if (value < lower || value >= upper) {
+            return -1;
+        }
+        // 差值可能溢出long，使用double计算，再修正浮点误差导致的越界
+        int index = (int) (((double) value - lower) / ((double) upper - lower) * binCount);
+        return Math.min(index, binCount - 1);
+    }
+
+    static int binIndex(double value, double lower, double upper, int binCount) {
+        if (!(value >= lower && value < upper)) {
+            return -1;
+        }
+        int index = (int) ((value - lower) / (upper - lower) * binCount);
+        return Math.min(index, binCount - 1);
+    }
+
+    static void checkWindowSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("window size cannot be less then 1, size: " + size);
+        }
+    }
+
+    static void checkHistogramArgs(double lower, double upper, int binCount) {
+        if (!(lower < upper)) {
+            throw new IllegalArgumentException("invalid histogram bound: [" + lower + ", " + upper + ")");
+        }
+        if (binCount < 1) {
+            throw new IllegalArgumentException("histogram bin count cannot be less then 1, count: " + binCount);
+        }
+    }
+}
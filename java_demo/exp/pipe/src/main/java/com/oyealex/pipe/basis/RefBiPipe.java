@@ -3,31 +3,51 @@ package com.oyealex.pipe.basis;
 import com.oyealex.pipe.assist.Tuple;
 import com.oyealex.pipe.flag.PipeFlag;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
-import static com.oyealex.pipe.flag.PipeFlag.SHORT_CIRCUIT;
+import static com.oyealex.pipe.flag.PipeFlag.EMPTY;
+import static com.oyealex.pipe.flag.PipeFlag.IS_SHORT_CIRCUIT;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SIZED;
+import static java.util.Objects.requireNonNull;
 
 /**
- * RefBiPipe
+ * 基于引用的两元组流水线实现
+ * <p/>
+ * 头节点以一条引用流水线为数据源，并持有将数据源的元素拆分为两元组的拆分操作；其余节点以{@link BiOp}逐级传递两元组的两个元素。
+ * 转换回引用流水线或者执行终结操作时，以{@link ToRef}节点接在数据源流水线之后，{@link ToRef}节点的操作由拆分操作、
+ * 所有两元组节点的操作以及尾部操作逐级封装而成，因此两元组流水线可以直接复用引用流水线的求值、并行以及短路能力。
  *
  * @author oyealex
+ * @see BiPipe
+ * @see BiOp
  * @since 2023-06-24
  */
 abstract class RefBiPipe<FI, SI, FO, SO> implements BiPipe<FO, SO> {
-    /** 整条流水线的头节点，元素类型未知，非{@code null}。 */
-    private final RefBiPipe<?, ?, ?, ?> headPipe;
+    /** 整条流水线的头节点，非{@code null}。 */
+    final Head<?, ?, ?> headPipe;
 
     /** 此节点的前置节点，当且仅当此节点为头节点时为{@code null}。 */
-    private final RefBiPipe<?, ?, ? extends FI, ? extends SI> prePipe;
+    final RefBiPipe<?, ?, ? extends FI, ? extends SI> prePipe;
 
-    /** 流水线标记 */
-    final int flag; // MK 2023-05-12 23:04 final标记很重要，如果后续开发移除final，则需要重新审视所有使用flag字段的地方
+    /** 从头节点到此节点累积的操作标记，转换回引用流水线时合并到数据源流水线的标记中 */
+    final int opFlag;
 
-    RefBiPipe(int flag) {
-        this.headPipe = this;
+    private RefBiPipe(int opFlag) {
+        this.headPipe = (Head<?, ?, ?>) this;
         this.prePipe = null;
-        this.flag = flag;
+        this.opFlag = opFlag;
     }
 
     /**
@@ -39,91 +59,487 @@ abstract class RefBiPipe<FI, SI, FO, SO> implements BiPipe<FO, SO> {
     RefBiPipe(RefBiPipe<?, ?, ? extends FI, ? extends SI> prePipe, int opFlag) {
         this.headPipe = prePipe.headPipe;
         this.prePipe = prePipe;
-        this.flag = PipeFlag.combine(prePipe.flag, opFlag);
+        this.opFlag = PipeFlag.combine(prePipe.opFlag, opFlag);
     }
 
     /**
-     * 获取流水线的数据源，此数据源来自头节点。
+     * 将当前节点的操作和下游节点的操作封装为一个操作，此操作接受的两元组为上游节点的输出。
      *
-     * @return 流水线的数据源
-     * @apiNote 此方法仅允许调用一次。
-     * @implNote 仅头节点可以重写此方法。
+     * @param nextOp 下游节点的操作
+     * @return 封装之后的操作
      */
-    protected Spliterator<?> takeDataSource() {
-        return headPipe.takeDataSource();
-    }
+    protected abstract BiOp<FI, SI> wrapOp(BiOp<FO, SO> nextOp);
 
     /**
-     * 将当前节点的操作和下游节点的操作封装为一个操作，此操作接受的元素为上游节点的输出元素。
+     * 判断此节点是否为无状态节点。
      *
-     * @param nextOp 下游节点的操作
-     * @return 封装之后的操作
+     * @return {@code true} - 此节点为无状态节点。
+     * @see RefPipe#isStateless()
      */
-    protected abstract Op<Tuple<FI, SI>> wrapOp(Op<Tuple<FO, SO>> nextOp);
-
-    @SuppressWarnings("unchecked")
-    private <R> R evaluate(TerminalOp<Tuple<FO, SO>, R> terminalOp) {
-        driveData((Spliterator<Object>) headPipe.takeDataSource(), terminalOp);
-        return terminalOp.get();
+    boolean isStateless() {
+        return false;
     }
 
     /**
-     * 以给定的数据源{@code dataSource}驱动执行当前流水线中定义的所有元素操作，并以给定的{@code tailOp}作为最终的结尾操作。
-     *
-     * @param dataSource 数据源
-     * @param tailOp 结尾操作
-     * @param <OP> 结尾操作类型
+     * 判断从头节点到此节点是否均为无状态节点。
      */
-    <OP extends TerminalOp<Tuple<FO, SO>, ?>> void driveData(Spliterator<Object> dataSource, OP tailOp) {
-        Op<Object> wrappedOp = wrapAllOp(tailOp);
-        wrappedOp.begin(dataSource.getExactSizeIfKnown());
-        if (SHORT_CIRCUIT.isSet(flag | tailOp.getOpFlag())) {
-            // 如果允许短路，则尝试短路遍历
-            do {/*noop*/} while (!wrappedOp.canShortCircuit() && dataSource.tryAdvance(wrappedOp));
-        } else {
-            // 否则直接执行全量遍历
-            dataSource.forEachRemaining(wrappedOp);
+    private boolean isAllStateless() {
+        for (RefBiPipe<?, ?, ?, ?> pipe = this; pipe != null; pipe = pipe.prePipe) {
+            if (!pipe.isStateless()) {
+                return false;
+            }
         }
-        wrappedOp.end();
+        return true;
     }
 
     /**
-     * 以给定的操作作为流水线尾部操作，将整条流水线的所有节点的操作按顺序封装为一个操作。
+     * 以给定的操作作为尾部操作，将整条流水线的所有节点的操作按顺序封装为一个接收数据源元素的操作。
      *
-     * @param tailOp 流水线尾部操作
-     * @return 封装了所有流水线节点操作的操作方法
+     * @param tailOp 尾部操作
+     * @return 封装了所有节点操作的操作
      */
-    @SuppressWarnings("unchecked")
-    Op<Object> wrapAllOp(Op<Tuple<FO, SO>> tailOp) {
-        Op<?> wrappedOp = tailOp;
-        for (@SuppressWarnings("rawtypes") RefBiPipe pipe = this; pipe.prePipe != null; pipe = pipe.prePipe) {
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Op<Object> wrapAllOp(BiOp<FO, SO> tailOp) {
+        BiOp wrappedOp = tailOp;
+        for (RefBiPipe pipe = this; pipe != headPipe; pipe = pipe.prePipe) {
             // 从尾部到头部，逐级逆向封装
             wrappedOp = pipe.wrapOp(wrappedOp);
         }
-        return (Op<Object>) wrappedOp;
+        return headPipe.splitOp(wrappedOp);
+    }
+
+    private <R> R evaluate(BiOp.Terminal<FO, SO, R> terminalOp) {
+        new ToRef<FO, SO, Void>(this, ignored -> terminalOp, terminalOp.getOpFlag(), false).run();
+        return terminalOp.get();
+    }
+
+    @Override
+    public <NF> BiPipe<NF, SO> mapFirst(Function<? super FO, ? extends NF> mapper) {
+        requireNonNull(mapper);
+        return new Stateless<FO, SO, NF, SO>(this, EMPTY) {
+            @Override
+            protected BiOp<FO, SO> wrapOp(BiOp<NF, SO> nextOp) {
+                return new BiOp.Chained<FO, SO, NF, SO>(nextOp) {
+                    @Override
+                    public void accept(FO first, SO second) {
+                        nextOp.accept(mapper.apply(first), second);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public <NS> BiPipe<FO, NS> mapSecond(Function<? super SO, ? extends NS> mapper) {
+        requireNonNull(mapper);
+        return new Stateless<FO, SO, FO, NS>(this, EMPTY) {
+            @Override
+            protected BiOp<FO, SO> wrapOp(BiOp<FO, NS> nextOp) {
+                return new BiOp.Chained<FO, SO, FO, NS>(nextOp) {
+                    @Override
+                    public void accept(FO first, SO second) {
+                        nextOp.accept(first, mapper.apply(second));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public BiPipe<FO, SO> takeIf(BiPredicate<? super FO, ? super SO> predicate) {
+        requireNonNull(predicate);
+        return new Stateless<FO, SO, FO, SO>(this, NOT_SIZED) {
+            @Override
+            protected BiOp<FO, SO> wrapOp(BiOp<FO, SO> nextOp) {
+                return new BiOp.Chained<FO, SO, FO, SO>(nextOp) {
+                    @Override
+                    public void begin(long size) {
+                        nextOp.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(FO first, SO second) {
+                        if (predicate.test(first, second)) {
+                            nextOp.accept(first, second);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public BiPipe<FO, SO> takeIfFirst(Predicate<? super FO> predicate) {
+        requireNonNull(predicate);
+        return takeIf((first, second) -> predicate.test(first));
+    }
+
+    @Override
+    public BiPipe<FO, SO> takeIfSecond(Predicate<? super SO> predicate) {
+        requireNonNull(predicate);
+        return takeIf((first, second) -> predicate.test(second));
+    }
+
+    @Override
+    public BiPipe<SO, FO> swap() {
+        return new Stateless<FO, SO, SO, FO>(this, EMPTY) {
+            @Override
+            protected BiOp<FO, SO> wrapOp(BiOp<SO, FO> nextOp) {
+                return new BiOp.Chained<FO, SO, SO, FO>(nextOp) {
+                    @Override
+                    public void accept(FO first, SO second) {
+                        nextOp.accept(second, first);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public BiPipe<FO, SO> peek(BiConsumer<? super FO, ? super SO> consumer) {
+        requireNonNull(consumer);
+        return new Stateless<FO, SO, FO, SO>(this, EMPTY) {
+            @Override
+            protected BiOp<FO, SO> wrapOp(BiOp<FO, SO> nextOp) {
+                return new BiOp.Chained<FO, SO, FO, SO>(nextOp) {
+                    @Override
+                    public void accept(FO first, SO second) {
+                        consumer.accept(first, second);
+                        nextOp.accept(first, second);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public BiPipe<FO, SO> limit(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("limit size cannot be negative, size: " + size);
+        }
+        return new RefBiPipe<FO, SO, FO, SO>(this, NOT_SIZED | IS_SHORT_CIRCUIT) {
+            @Override
+            protected BiOp<FO, SO> wrapOp(BiOp<FO, SO> nextOp) {
+                return new BiOp.Chained<FO, SO, FO, SO>(nextOp) {
+                    private long limited = 0L;
+
+                    @Override
+                    public void begin(long count) {
+                        nextOp.begin(count < 0 ? -1 : Math.min(count, size));
+                    }
+
+                    @Override
+                    public void accept(FO first, SO second) {
+                        if (limited < size) {
+                            limited++;
+                            nextOp.accept(first, second);
+                        }
+                    }
+
+                    @Override
+                    public boolean canShortCircuit() {
+                        return limited >= size || nextOp.canShortCircuit();
+                    }
+                };
+            }
+        };
     }
 
-    protected boolean isFlagSet(PipeFlag pipeFlag) {
-        return pipeFlag.isSet(flag);
+    @Override
+    public BiPipe<FO, SO> reduceByKey(BinaryOperator<SO> reducer) {
+        requireNonNull(reducer);
+        return new RefBiPipe<FO, SO, FO, SO>(this, NOT_SIZED) {
+            @Override
+            protected BiOp<FO, SO> wrapOp(BiOp<FO, SO> nextOp) {
+                return new BiOp.Chained<FO, SO, FO, SO>(nextOp) {
+                    private Map<FO, SO> reduced;
+
+                    private boolean isShortCircuitRequested = false;
+
+                    @Override
+                    public void begin(long size) {
+                        reduced = new LinkedHashMap<>();
+                    }
+
+                    @Override
+                    public void accept(FO first, SO second) {
+                        SO previous = reduced.get(first);
+                        if (previous == null && !reduced.containsKey(first)) {
+                            reduced.put(first, second);
+                        } else {
+                            reduced.put(first, reducer.apply(previous, second));
+                        }
+                    }
+
+                    @Override
+                    public boolean canShortCircuit() {
+                        isShortCircuitRequested = true;
+                        return false;
+                    }
+
+                    @Override
+                    public void end() {
+                        nextOp.begin(reduced.size());
+                        for (Map.Entry<FO, SO> entry : reduced.entrySet()) {
+                            if (isShortCircuitRequested && nextOp.canShortCircuit()) {
+                                break;
+                            }
+                            nextOp.accept(entry.getKey(), entry.getValue());
+                        }
+                        reduced = null;
+                        nextOp.end();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public <R> Pipe<R> map(BiFunction<? super FO, ? super SO, ? extends R> mapper) {
+        requireNonNull(mapper);
+        return new ToRef<FO, SO, R>(this, nextOp -> new BiOp<FO, SO>() {
+            @Override
+            public void begin(long size) {
+                nextOp.begin(size);
+            }
+
+            @Override
+            public void accept(FO first, SO second) {
+                nextOp.accept(mapper.apply(first, second));
+            }
+
+            @Override
+            public void end() {
+                nextOp.end();
+            }
+
+            @Override
+            public boolean canShortCircuit() {
+                return nextOp.canShortCircuit();
+            }
+        }, StatelessOp.Mapper.OP_FLAG, true);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super FO, ? super SO> consumer) {
+        requireNonNull(consumer);
+        evaluate(new BiOp.Terminal<FO, SO, Void>() {
+            @Override
+            public void accept(FO first, SO second) {
+                consumer.accept(first, second);
+            }
+
+            @Override
+            public Void get() {
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public Map<FO, SO> toMap() {
+        return toMap(HashMap::new);
+    }
+
+    @Override
+    public <M extends Map<FO, SO>> M toMap(Supplier<M> mapSupplier) {
+        M map = requireNonNull(mapSupplier).get();
+        forEach(map::put);
+        return map;
+    }
+
+    @Override
+    public long count() {
+        return evaluate(new BiOp.Terminal<FO, SO, Long>() {
+            private long count = 0L;
+
+            @Override
+            public void accept(FO first, SO second) {
+                count++;
+            }
+
+            @Override
+            public Long get() {
+                return count;
+            }
+        });
+    }
+
+    @Override
+    public boolean anyMatch(BiPredicate<? super FO, ? super SO> predicate) {
+        requireNonNull(predicate);
+        return evaluate(new BiOp.Terminal<FO, SO, Boolean>() {
+            private boolean matched = false;
+
+            @Override
+            public void accept(FO first, SO second) {
+                if (!matched && predicate.test(first, second)) {
+                    matched = true;
+                }
+            }
+
+            @Override
+            public boolean canShortCircuit() {
+                return matched;
+            }
+
+            @Override
+            int getOpFlag() {
+                return IS_SHORT_CIRCUIT;
+            }
+
+            @Override
+            public Boolean get() {
+                return matched;
+            }
+        });
+    }
+
+    @Override
+    public Optional<Tuple<FO, SO>> findFirst() {
+        return evaluate(new BiOp.Terminal<FO, SO, Optional<Tuple<FO, SO>>>() {
+            private Tuple<FO, SO> found;
+
+            @Override
+            public void accept(FO first, SO second) {
+                if (found == null) {
+                    found = Tuple.of(first, second);
+                }
+            }
+
+            @Override
+            public boolean canShortCircuit() {
+                return found != null;
+            }
+
+            @Override
+            int getOpFlag() {
+                return IS_SHORT_CIRCUIT;
+            }
+
+            @Override
+            public Optional<Tuple<FO, SO>> get() {
+                return Optional.ofNullable(found);
+            }
+        });
     }
 
     @Override
     public Spliterator<Tuple<FO, SO>> toSpliterator() {
-        return null;
+        return toTuples().toSpliterator();
     }
 
     @Override
     public Iterator<Tuple<FO, SO>> toIterator() {
-        return null;
+        return toTuples().toIterator();
     }
 
     @Override
     public BiPipe<FO, SO> onClose(Runnable closeAction) {
-        return null;
+        headPipe.sourcePipe.onClose(requireNonNull(closeAction));
+        return this;
     }
 
     @Override
     public void close() {
+        headPipe.sourcePipe.close();
+    }
+
+    /**
+     * 两元组流水线的头节点，以一条引用流水线为数据源。
+     *
+     * @param <T> 数据源流水线的元素类型
+     * @param <F> 第一个元素类型
+     * @param <S> 第二个元素类型
+     */
+    static final class Head<T, F, S> extends RefBiPipe<F, S, F, S> {
+        /** 数据源流水线 */
+        private final RefPipe<?, ? extends T> sourcePipe;
+
+        /** 根据两元组操作构造接收数据源元素的拆分操作 */
+        private final Function<BiOp<F, S>, Op<T>> splitter;
 
+        /** 拆分操作是否与其他元素无关 */
+        private final boolean stateless;
+
+        /**
+         * 构造头节点。
+         *
+         * @param sourcePipe 数据源流水线
+         * @param opFlag 拆分操作的操作标记
+         * @param stateless 拆分操作是否与其他元素无关
+         * @param splitter 根据两元组操作构造接收数据源元素的拆分操作
+         */
+        Head(RefPipe<?, ? extends T> sourcePipe, int opFlag, boolean stateless,
+            Function<BiOp<F, S>, Op<T>> splitter) {
+            super(opFlag);
+            this.sourcePipe = sourcePipe;
+            this.splitter = splitter;
+            this.stateless = stateless;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Op<Object> splitOp(BiOp<F, S> op) {
+            return (Op<Object>) splitter.apply(op);
+        }
+
+        @Override
+        boolean isStateless() {
+            return stateless;
+        }
+
+        @Override
+        protected BiOp<F, S> wrapOp(BiOp<F, S> nextOp) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * 无状态的两元组流水线节点。
+     */
+    private abstract static class Stateless<FI, SI, FO, SO> extends RefBiPipe<FI, SI, FO, SO> {
+        private Stateless(RefBiPipe<?, ?, ? extends FI, ? extends SI> prePipe, int opFlag) {
+            super(prePipe, opFlag);
+        }
+
+        @Override
+        boolean isStateless() {
+            return true;
+        }
+    }
+
+    /**
+     * 将两元组流水线接回引用流水线的节点，作为数据源流水线的下游节点，其操作由整条两元组流水线的操作封装而成。
+     *
+     * @param <F> 第一个元素类型
+     * @param <S> 第二个元素类型
+     * @param <R> 输出的元素类型
+     */
+    private static final class ToRef<F, S, R> extends RefPipe<Object, R> {
+        private final RefBiPipe<?, ?, F, S> biPipe;
+
+        /** 根据下游操作构造两元组流水线的尾部操作 */
+        private final Function<Op<R>, BiOp<F, S>> tailOpFactory;
+
+        private final boolean stateless;
+
+        private ToRef(RefBiPipe<?, ?, F, S> biPipe, Function<Op<R>, BiOp<F, S>> tailOpFactory, int opFlag,
+            boolean stateless) {
+            super(biPipe.headPipe.sourcePipe, PipeFlag.combine(biPipe.opFlag, opFlag));
+            this.biPipe = biPipe;
+            this.tailOpFactory = tailOpFactory;
+            this.stateless = stateless;
+        }
+
+        @Override
+        protected Op<Object> wrapOp(Op<R> nextOp) {
+            return biPipe.wrapAllOp(tailOpFactory.apply(nextOp));
+        }
+
+        @Override
+        boolean isStateless() {
+            // 尾部操作带有副作用时不能在各个数据分段中执行
+            return stateless && biPipe.isAllStateless();
+        }
     }
 }
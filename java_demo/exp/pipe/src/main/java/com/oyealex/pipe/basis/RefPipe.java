@@ -1,27 +1,44 @@
 package com.oyealex.pipe.basis;
 
+import com.oyealex.pipe.assist.SpillCodec;
 import com.oyealex.pipe.assist.Tuple;
 import com.oyealex.pipe.flag.PipeFlag;
 import com.oyealex.pipe.functional.LongBiConsumer;
 import com.oyealex.pipe.functional.LongBiFunction;
 import com.oyealex.pipe.functional.LongBiPredicate;
+import com.oyealex.pipe.functional.LongBiToDoubleFunction;
+import com.oyealex.pipe.functional.LongBiToIntFunction;
+import com.oyealex.pipe.functional.LongBiToLongFunction;
 import com.oyealex.pipe.policy.MergePolicy;
 import com.oyealex.pipe.policy.MergeRemainingPolicy;
 import com.oyealex.pipe.policy.PartitionPolicy;
+import com.oyealex.pipe.profile.MetricsSink;
 import com.oyealex.pipe.spliterator.MoreSpliterators;
+import com.oyealex.pipe.utils.MiscUtil;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
@@ -29,10 +46,12 @@ import java.util.function.ToIntFunction;
 import java.util.function.ToLongFunction;
 
 import static com.oyealex.pipe.basis.Pipe.empty;
+import static com.oyealex.pipe.basis.Pipe.list;
 import static com.oyealex.pipe.basis.Pipe.spliterator;
 import static com.oyealex.pipe.flag.PipeFlag.DISTINCT;
 import static com.oyealex.pipe.flag.PipeFlag.EMPTY;
 import static com.oyealex.pipe.flag.PipeFlag.IS_NONNULL;
+import static com.oyealex.pipe.flag.PipeFlag.IS_SHORT_CIRCUIT;
 import static com.oyealex.pipe.flag.PipeFlag.NONNULL;
 import static com.oyealex.pipe.flag.PipeFlag.NOT_DISTINCT;
 import static com.oyealex.pipe.flag.PipeFlag.NOT_NONNULL;
@@ -43,6 +62,7 @@ import static com.oyealex.pipe.flag.PipeFlag.REVERSED_SORTED;
 import static com.oyealex.pipe.flag.PipeFlag.SHORT_CIRCUIT;
 import static com.oyealex.pipe.flag.PipeFlag.SORTED;
 import static com.oyealex.pipe.policy.MergeRemainingPolicy.TAKE_REMAINING;
+import static com.oyealex.pipe.utils.MiscUtil.isStdIdentify;
 import static com.oyealex.pipe.utils.MiscUtil.isStdNaturalOrder;
 import static com.oyealex.pipe.utils.MiscUtil.isStdReverseOrder;
 import static com.oyealex.pipe.utils.MiscUtil.naturalOrderIfNull;
@@ -119,10 +139,10 @@ import static java.util.Objects.requireNonNull;
 // TODO 2023-05-06 22:43 关注流水线的重复消费问题，参见 java.util.stream.AbstractPipeline.linkedOrConsumed
 abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
     /** 整条流水线的头节点，元素类型未知，非{@code null}。 */
-    private final RefPipe<?, ?> headPipe;
+    final RefPipe<?, ?> headPipe;
 
     /** 此节点的前置节点，当且仅当此节点为头节点时为{@code null}。 */
-    private final RefPipe<?, ? extends IN> prePipe;
+    final RefPipe<?, ? extends IN> prePipe;
 
     /** 流水线标记 */
     final int flag; // MK 2023-05-12 23:04 final标记很重要，如果后续开发移除final，则需要重新审视所有使用flag字段的地方
@@ -164,10 +184,91 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
      */
     protected abstract Op<IN> wrapOp(Op<OUT> nextOp);
 
+    /**
+     * 判断此节点是否为无状态节点，无状态节点对每个元素的处理与其他元素以及元素的位置无关。
+     *
+     * @return {@code true} - 此节点为无状态节点。
+     * @see StatelessOp
+     */
+    boolean isStateless() {
+        return false;
+    }
+
+    /**
+     * 并行求值时，以头节点的数据源并行地得到此节点的全部输出，仅当此节点为流水线中首个有状态节点时调用。
+     * <p/>
+     * 此节点之前的节点均为无状态节点，可以按分段独立执行；能够按分段求值再合并的有状态节点可以重写此方法，
+     * 避免先串行缓存全部的上游输出。
+     *
+     * @param dataSource 头节点的数据源
+     * @return 此节点的全部输出，为{@code null}表示此节点不支持分段求值
+     */
+    Spliterator<Object> evaluateInParallel(Spliterator<Object> dataSource) {
+        return null;
+    }
+
     @SuppressWarnings("unchecked")
     private <R> R evaluate(TerminalOp<OUT, R> terminalOp) {
-        driveData((Spliterator<Object>) headPipe.takeDataSource(), terminalOp);
-        return terminalOp.get();
+        try {
+            if (isParallel()) {
+                return ParallelEvaluator.evaluate(this, () -> terminalOp, null);
+            }
+            driveData((Spliterator<Object>) headPipe.takeDataSource(), terminalOp);
+            return terminalOp.get();
+        } finally {
+            reportProfile();
+        }
+    }
+
+    /**
+     * 以可合并的终结操作执行流水线，并行模式下每个数据分段使用独立的终结操作，各分段的结果按照遇到顺序通过{@code combiner}合并。
+     *
+     * @param terminalOpSupplier 终结操作的构造方法
+     * @param combiner 合并两个相邻分段结果的方法，左侧结果在前
+     * @param <R> 结果类型
+     * @return 流水线的最终结果
+     */
+    private <R> R evaluate(Supplier<? extends TerminalOp<OUT, R>> terminalOpSupplier, BinaryOperator<R> combiner) {
+        if (!isParallel()) {
+            return evaluate(terminalOpSupplier.get());
+        }
+        try {
+            return ParallelEvaluator.evaluate(this, terminalOpSupplier, combiner);
+        } finally {
+            reportProfile();
+        }
+    }
+
+    /**
+     * 执行流水线，并将全部输出按照遇到顺序缓存在多段数组中，并行模式下各分段的缓存直接拼接，不拷贝元素。
+     *
+     * @return 流水线的全部输出
+     */
+    SpinedBuffer<OUT> toSpinedBuffer() {
+        return evaluate(() -> new TerminalOp.Find<OUT, SpinedBuffer<OUT>>(null) {
+            @Override
+            public void begin(long size, long minSize, long maxSize) {
+                result = new SpinedBuffer<>(Op.initCapacity(size, minSize, maxSize));
+            }
+
+            @Override
+            public void accept(OUT value) {
+                result.accept(value);
+            }
+        }, (left, right) -> {
+            left.appendAll(right);
+            return left;
+        });
+    }
+
+    /**
+     * 如果开启了性能剖析，则输出从头节点到当前节点的运行报告。
+     */
+    void reportProfile() {
+        PipeProfiler profiler = profiler();
+        if (profiler != null) {
+            profiler.report(this);
+        }
     }
 
     /**
@@ -178,16 +279,39 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
      * @param <OP> 结尾操作类型
      */
     <OP extends TerminalOp<OUT, ?>> void driveData(Spliterator<Object> dataSource, OP tailOp) {
-        Op<Object> wrappedOp = wrapAllOp(tailOp);
-        wrappedOp.begin(dataSource.getExactSizeIfKnown());
-        if (SHORT_CIRCUIT.isSet(flag | tailOp.getOpFlag())) {
-            // 如果允许短路，则尝试短路遍历
-            do {/*noop*/} while (!wrappedOp.canShortCircuit() && dataSource.tryAdvance(wrappedOp));
-        } else {
-            // 否则直接执行全量遍历
-            dataSource.forEachRemaining(wrappedOp);
+        driveData(dataSource, tailOp, headPipe);
+    }
+
+    /**
+     * 以给定的数据源{@code dataSource}驱动执行从{@code stopPipe}（不含）到当前节点的所有元素操作，
+     * 数据源中的元素需要是{@code stopPipe}的输出元素。
+     *
+     * @param dataSource 数据源
+     * @param tailOp 结尾操作
+     * @param stopPipe 停止封装的上游节点
+     * @param <OP> 结尾操作类型
+     */
+    <OP extends TerminalOp<OUT, ?>> void driveData(Spliterator<Object> dataSource, OP tailOp, RefPipe<?, ?> stopPipe) {
+        Op<Object> wrappedOp = wrapOpUntil(tailOp, stopPipe);
+        try {
+            wrappedOp.begin(dataSource.getExactSizeIfKnown());
+            if (SHORT_CIRCUIT.isSet(flag | tailOp.getOpFlag())) {
+                // 如果允许短路，则尝试分块短路遍历
+                ChunkedDriver.drive(dataSource, wrappedOp);
+            } else {
+                // 否则直接执行全量遍历
+                dataSource.forEachRemaining(wrappedOp);
+            }
+            wrappedOp.end();
+        } catch (Throwable throwable) {
+            // 通知各个操作释放资源，例如取消在途的异步任务
+            try {
+                wrappedOp.abort();
+            } catch (Throwable abortThrowable) {
+                throwable.addSuppressed(abortThrowable);
+            }
+            throw throwable;
         }
-        wrappedOp.end();
     }
 
     /**
@@ -196,12 +320,32 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
      * @param tailOp 流水线尾部操作
      * @return 封装了所有流水线节点操作的操作方法
      */
-    @SuppressWarnings("unchecked")
     Op<Object> wrapAllOp(Op<OUT> tailOp) {
+        return wrapOpUntil(tailOp, headPipe);
+    }
+
+    /**
+     * 以给定的操作作为流水线尾部操作，将从{@code stopPipe}（不含）到当前节点的所有节点的操作按顺序封装为一个操作。
+     *
+     * @param tailOp 流水线尾部操作
+     * @param stopPipe 停止封装的上游节点，必须是当前节点自身或其上游节点
+     * @return 封装了相应节点操作的操作方法
+     */
+    @SuppressWarnings("unchecked")
+    Op<Object> wrapOpUntil(Op<OUT> tailOp, RefPipe<?, ?> stopPipe) {
         Op<?> wrappedOp = tailOp;
-        for (@SuppressWarnings("rawtypes") RefPipe pipe = this; pipe.prePipe != null; pipe = pipe.prePipe) {
+        PipeProfiler profiler = profiler();
+        RefPipe<?, ?> downstream = null;
+        for (@SuppressWarnings("rawtypes") RefPipe pipe = this; pipe != stopPipe; pipe = pipe.prePipe) {
             // 从尾部到头部，逐级逆向封装
+            if (profiler != null) {
+                wrappedOp = profiler.probe(pipe, downstream, wrappedOp);
+            }
             wrappedOp = pipe.wrapOp(wrappedOp);
+            downstream = pipe;
+        }
+        if (profiler != null && downstream != null) {
+            wrappedOp = profiler.probe(null, downstream, wrappedOp);
         }
         return (Op<Object>) wrappedOp;
     }
@@ -212,13 +356,7 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
 
     @Override
     public Pipe<OUT> takeIf(Predicate<? super OUT> predicate) {
-        requireNonNull(predicate);
-        return new RefPipe<OUT, OUT>(this, NOT_SIZED) {
-            @Override
-            protected Op<OUT> wrapOp(Op<OUT> nextOp) {
-                return SimpleOps.takeIfOp(nextOp, predicate);
-            }
-        };
+        return new StatelessOp.Filter<>(this, requireNonNull(predicate), NOT_SIZED);
     }
 
     @Override
@@ -279,30 +417,19 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
         if (isFlagSet(NONNULL)) {
             return this;
         }
-        return new RefPipe<OUT, OUT>(this, NOT_SIZED | IS_NONNULL) {
-            @Override
-            protected Op<OUT> wrapOp(Op<OUT> nextOp) {
-                return SimpleOps.takeIfOp(nextOp, Objects::nonNull);
-            }
-        };
+        return new StatelessOp.Filter<>(this, Objects::nonNull, NOT_SIZED | IS_NONNULL);
     }
 
     @Override
     public <R> Pipe<R> map(Function<? super OUT, ? extends R> mapper) {
-        requireNonNull(mapper);
-        return new RefPipe<OUT, R>(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | NOT_NONNULL) {
-            @Override
-            protected Op<OUT> wrapOp(Op<R> nextOp) {
-                return SimpleOps.mapOp(nextOp, mapper);
-            }
-        };
+        return new StatelessOp.Mapper<>(this, requireNonNull(mapper));
     }
 
     @Override
     public Pipe<OUT> mapIf(Predicate<? super OUT> condition, Function<? super OUT, ? extends OUT> mapper) {
         requireNonNull(condition);
         requireNonNull(mapper);
-        return new RefPipe<OUT, OUT>(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | NOT_NONNULL) {
+        return new StatelessOp<OUT, OUT>(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | NOT_NONNULL) {
             @Override
             protected Op<OUT> wrapOp(Op<OUT> nextOp) {
                 return SimpleOps.mapIfOp(nextOp, condition, mapper);
@@ -313,7 +440,7 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
     @Override
     public <R extends Optional<? extends OUT>> Pipe<OUT> mapIf(Function<? super OUT, R> optionalMapper) {
         requireNonNull(optionalMapper);
-        return new RefPipe<OUT, OUT>(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
+        return new StatelessOp<OUT, OUT>(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT) {
             @Override
             protected Op<OUT> wrapOp(Op<OUT> nextOp) {
                 return SimpleOps.mapIfOp(nextOp, optionalMapper);
@@ -324,7 +451,7 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
     @Override
     public <R> Pipe<R> mapIfNonNull(Function<? super OUT, ? extends R> mapper) {
         requireNonNull(mapper);
-        return new RefPipe<OUT, R>(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | NOT_NONNULL) {
+        return new StatelessOp<OUT, R>(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | NOT_NONNULL) {
             @Override
             protected Op<OUT> wrapOp(Op<R> nextOp) {
                 return SimpleOps.mapIfNonNull(nextOp, mapper);
@@ -335,7 +462,7 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
     @Override
     public Pipe<OUT> mapIfNull(Supplier<? extends OUT> replacementSupplier) {
         requireNonNull(replacementSupplier);
-        return new RefPipe<OUT, OUT>(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | IS_NONNULL) {
+        return new StatelessOp<OUT, OUT>(this, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | IS_NONNULL) {
             @Override
             protected Op<OUT> wrapOp(Op<OUT> nextOp) {
                 return SimpleOps.mapIfNullOp(nextOp, replacementSupplier);
@@ -354,34 +481,94 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
         };
     }
 
+    @Override
+    public <R> Pipe<R> mapAsync(Function<? super OUT, ? extends R> mapper, int maxConcurrency) {
+        return mapAsync(mapper, maxConcurrency, MapAsyncOp.defaultExecutor());
+    }
+
+    @Override
+    public <R> Pipe<R> mapAsync(Function<? super OUT, ? extends R> mapper, int maxConcurrency, Executor executor) {
+        checkMaxConcurrency(maxConcurrency);
+        return new MapAsyncOp.Ordered<>(this, requireNonNull(mapper), maxConcurrency, requireNonNull(executor));
+    }
+
+    @Override
+    public <R> Pipe<R> mapAsyncUnordered(Function<? super OUT, ? extends R> mapper, int maxConcurrency) {
+        return mapAsyncUnordered(mapper, maxConcurrency, MapAsyncOp.defaultExecutor());
+    }
+
+    @Override
+    public <R> Pipe<R> mapAsyncUnordered(Function<? super OUT, ? extends R> mapper, int maxConcurrency,
+        Executor executor) {
+        checkMaxConcurrency(maxConcurrency);
+        return new MapAsyncOp.Unordered<>(this, requireNonNull(mapper), maxConcurrency, requireNonNull(executor));
+    }
+
+    private static void checkMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException(
+                "max concurrency cannot be less then 1, maxConcurrency: " + maxConcurrency);
+        }
+    }
+
     @Override
     public IntPipe mapToInt(ToIntFunction<? super OUT> intMapper) {
-        throw new IllegalStateException();
+        requireNonNull(intMapper);
+        return new AbstractIntPipe.Head(MappingSpliterators.refToInt(toSpliterator(), intMapper), isParallel(),
+            profiler()).onClose(this::close);
     }
 
     @Override
-    public IntPipe mapToIntOrderly(ToIntFunction<? super OUT> intMapper) {
-        throw new IllegalStateException();
+    public IntPipe mapToIntOrderly(LongBiToIntFunction<? super OUT> intMapper) {
+        requireNonNull(intMapper);
+        return mapToInt(new ToIntFunction<OUT>() {
+            private long index = 0L;
+
+            @Override
+            public int applyAsInt(OUT value) {
+                return intMapper.applyAsInt(index++, value);
+            }
+        });
     }
 
     @Override
     public LongPipe mapToLong(ToLongFunction<? super OUT> longMapper) {
-        throw new IllegalStateException();
+        requireNonNull(longMapper);
+        return new AbstractLongPipe.Head(MappingSpliterators.refToLong(toSpliterator(), longMapper), isParallel(),
+            profiler()).onClose(this::close);
     }
 
     @Override
-    public LongPipe mapToLongOrderly(ToLongFunction<? super OUT> longMapper) {
-        throw new IllegalStateException();
+    public LongPipe mapToLongOrderly(LongBiToLongFunction<? super OUT> longMapper) {
+        requireNonNull(longMapper);
+        return mapToLong(new ToLongFunction<OUT>() {
+            private long index = 0L;
+
+            @Override
+            public long applyAsLong(OUT value) {
+                return longMapper.applyAsLong(index++, value);
+            }
+        });
     }
 
     @Override
     public DoublePipe mapToDouble(ToDoubleFunction<? super OUT> doubleMapper) {
-        throw new IllegalStateException();
+        requireNonNull(doubleMapper);
+        return new AbstractDoublePipe.Head(MappingSpliterators.refToDouble(toSpliterator(), doubleMapper), isParallel(),
+            profiler()).onClose(this::close);
     }
 
     @Override
-    public DoublePipe mapToDoubleOrderly(ToDoubleFunction<? super OUT> longMapper) {
-        throw new IllegalStateException();
+    public DoublePipe mapToDoubleOrderly(LongBiToDoubleFunction<? super OUT> doubleMapper) {
+        requireNonNull(doubleMapper);
+        return mapToDouble(new ToDoubleFunction<OUT>() {
+            private long index = 0L;
+
+            @Override
+            public double applyAsDouble(OUT value) {
+                return doubleMapper.applyAsDouble(index++, value);
+            }
+        });
     }
 
     @Override
@@ -401,43 +588,132 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
 
     @Override
     public IntPipe flatMapToInt(Function<? super OUT, ? extends IntPipe> intPipeMapper) {
-        throw new IllegalStateException();
+        requireNonNull(intPipeMapper);
+        return new AbstractIntPipe.Head(MappingSpliterators.refFlatMapToInt(toSpliterator(), intPipeMapper),
+            isParallel(), profiler()).onClose(this::close);
     }
 
     @Override
     public IntPipe flatMapToIntOrderly(LongBiFunction<? super OUT, ? extends IntPipe> intPipeMapper) {
-        throw new IllegalStateException();
+        return flatMapToInt(orderlyFunction(requireNonNull(intPipeMapper)));
     }
 
     @Override
     public LongPipe flatMapToLong(Function<? super OUT, ? extends LongPipe> longPipeMapper) {
-        throw new IllegalStateException();
+        requireNonNull(longPipeMapper);
+        return new AbstractLongPipe.Head(MappingSpliterators.refFlatMapToLong(toSpliterator(), longPipeMapper),
+            isParallel(), profiler()).onClose(this::close);
     }
 
     @Override
     public LongPipe flatMapToLongOrderly(LongBiFunction<? super OUT, ? extends LongPipe> longPipeMapper) {
-        throw new IllegalStateException();
+        return flatMapToLong(orderlyFunction(requireNonNull(longPipeMapper)));
     }
 
     @Override
     public DoublePipe flatMapToDouble(Function<? super OUT, ? extends DoublePipe> doublePipeMapper) {
-        throw new IllegalStateException();
+        requireNonNull(doublePipeMapper);
+        return new AbstractDoublePipe.Head(MappingSpliterators.refFlatMapToDouble(toSpliterator(), doublePipeMapper),
+            isParallel(), profiler()).onClose(this::close);
     }
 
     @Override
     public DoublePipe flatMapToDoubleOrderly(LongBiFunction<? super OUT, ? extends DoublePipe> doublePipeMapper) {
-        throw new IllegalStateException();
+        return flatMapToDouble(orderlyFunction(requireNonNull(doublePipeMapper)));
+    }
+
+    @Override
+    public <R> Pipe<R> flatMapPush(BiConsumer<? super OUT, ? super Consumer<R>> pusher) {
+        return new FlatMapOp.Push<>(this, requireNonNull(pusher));
+    }
+
+    @Override
+    public IntPipe flatMapPushToInt(BiConsumer<? super OUT, ? super IntConsumer> pusher) {
+        requireNonNull(pusher);
+        return new AbstractIntPipe.Head(MappingSpliterators.refPushToInt(toSpliterator(), pusher), isParallel(),
+            profiler()).onClose(this::close);
+    }
+
+    @Override
+    public LongPipe flatMapPushToLong(BiConsumer<? super OUT, ? super LongConsumer> pusher) {
+        requireNonNull(pusher);
+        return new AbstractLongPipe.Head(MappingSpliterators.refPushToLong(toSpliterator(), pusher), isParallel(),
+            profiler()).onClose(this::close);
+    }
+
+    @Override
+    public DoublePipe flatMapPushToDouble(BiConsumer<? super OUT, ? super DoubleConsumer> pusher) {
+        requireNonNull(pusher);
+        return new AbstractDoublePipe.Head(MappingSpliterators.refPushToDouble(toSpliterator(), pusher), isParallel(),
+            profiler()).onClose(this::close);
+    }
+
+    /**
+     * 将支持访问元素次序的映射方法转换为普通的映射方法，次序从0开始计算。
+     *
+     * @param mapper 支持访问元素次序的映射方法
+     * @param <R> 映射结果类型
+     * @return 普通的映射方法
+     */
+    private static <T, R> Function<T, R> orderlyFunction(LongBiFunction<? super T, ? extends R> mapper) {
+        return new Function<T, R>() {
+            private long index = 0L;
+
+            @Override
+            public R apply(T value) {
+                return mapper.apply(index++, value);
+            }
+        };
     }
 
     @Override
     public <F, S> BiPipe<F, S> extendToTuple(Function<? super OUT, ? extends F> firstMapper,
         Function<? super OUT, ? extends S> secondMapper) {
-        throw new IllegalStateException();
+        requireNonNull(firstMapper);
+        requireNonNull(secondMapper);
+        return new RefBiPipe.Head<OUT, F, S>(this, StatelessOp.Mapper.OP_FLAG, true,
+            nextOp -> new BiOp.Split<OUT, F, S>(nextOp) {
+                @Override
+                public void accept(OUT value) {
+                    nextOp.accept(firstMapper.apply(value), secondMapper.apply(value));
+                }
+            });
     }
 
     @Override
     public BiPipe<OUT, OUT> pairExtend(boolean keepLastIncompletePair) {
-        throw new IllegalStateException();
+        return new RefBiPipe.Head<OUT, OUT, OUT>(this, StatelessOp.Mapper.OP_FLAG | NOT_SIZED, false,
+            nextOp -> new BiOp.Split<OUT, OUT, OUT>(nextOp) {
+                private boolean hasFirst = false;
+
+                private OUT first;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    nextOp.begin(-1);
+                }
+
+                @Override
+                public void accept(OUT value) {
+                    if (hasFirst) {
+                        hasFirst = false;
+                        nextOp.accept(first, value);
+                        first = null;
+                    } else {
+                        hasFirst = true;
+                        first = value;
+                    }
+                }
+
+                @Override
+                public void end() {
+                    if (keepLastIncompletePair && hasFirst && !nextOp.canShortCircuit()) {
+                        nextOp.accept(first, null);
+                    }
+                    first = null;
+                    nextOp.end();
+                }
+            });
     }
 
     @Override
@@ -459,6 +735,29 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
         return new DistinctOp.OrderlyKeyed<>(this, requireNonNull(mapper));
     }
 
+    @Override
+    public Pipe<OUT> distinctByInt(ToIntFunction<? super OUT> mapper) {
+        return new DistinctOp.IntKeyed<>(this, requireNonNull(mapper));
+    }
+
+    @Override
+    public Pipe<OUT> distinctByLong(ToLongFunction<? super OUT> mapper) {
+        return new DistinctOp.LongKeyed<>(this, requireNonNull(mapper));
+    }
+
+    @Override
+    public <K> Pipe<OUT> distinctByApproximately(Function<? super OUT, ? extends K> mapper,
+        double falsePositiveRate) {
+        requireNonNull(mapper);
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("false positive rate must be in (0, 1), rate: " + falsePositiveRate);
+        }
+        if (isStdIdentify(mapper) && isFlagSet(DISTINCT)) {
+            return this;
+        }
+        return new DistinctOp.Approximate<>(this, mapper, falsePositiveRate);
+    }
+
     @Override
     public Pipe<OUT> sort(Comparator<? super OUT> comparator) { // TODO 2023-05-13 00:21 处理null值问题
         if ((isStdNaturalOrder(comparator) && isFlagSet(SORTED) ||
@@ -479,6 +778,15 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
         return new SortOp.Orderly<>(this, naturalOrderIfNull(comparator), mapper);
     }
 
+    @Override
+    public Pipe<OUT> sortExternally(Comparator<? super OUT> comparator, SpillCodec<OUT> codec, int runSize) {
+        requireNonNull(codec);
+        if (runSize < 1) {
+            throw new IllegalArgumentException("run size cannot be less then 1, size: " + runSize);
+        }
+        return new SortOp.External<>(this, naturalOrderIfNull(comparator), codec, runSize);
+    }
+
     @Override
     public Pipe<OUT> selectToFirst(Predicate<? super OUT> select) {
         return new SelectToFirstOrLastOp.ToFirst<>(this, requireNonNull(select));
@@ -519,10 +827,54 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
         return new ShuffleOp<>(this, requireNonNull(random));
     }
 
+    @Override
+    public Pipe<OUT> sample(int size, Random random) {
+        return sample(size, null, random);
+    }
+
+    @Override
+    public Pipe<OUT> sampleWeighted(int size, ToDoubleFunction<? super OUT> weigher, Random random) {
+        return sample(size, requireNonNull(weigher), random);
+    }
+
+    private Pipe<OUT> sample(int size, ToDoubleFunction<? super OUT> weigher, Random random) {
+        if (size < 0) {
+            throw new IllegalArgumentException("sample size cannot be less then 0, size: " + size);
+        }
+        return new SampleOp<>(this, size, weigher, requireNonNull(random));
+    }
+
+    @Override
+    public Pipe<OUT> sampleFraction(double fraction, Random random) {
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("fraction must be in [0, 1], fraction: " + fraction);
+        }
+        requireNonNull(random);
+        if (fraction == 1) {
+            return this;
+        }
+        return new StatelessOp<OUT, OUT>(this, NOT_SIZED) {
+            @Override
+            protected Op<OUT> wrapOp(Op<OUT> nextOp) {
+                // 每次求值以及并行模式下的每个分段都使用由给定生成器派生的独立生成器，避免所有分段争用同一个生成器
+                SplittableRandom splitRandom = new SplittableRandom(random.nextLong());
+                return SimpleOps.takeIfOp(nextOp, value -> splitRandom.nextDouble() < fraction);
+            }
+        };
+    }
+
+    @Override
+    public Pipe<OUT> cache() {
+        if (this instanceof CachedPipe) {
+            return this;
+        }
+        return new CachedPipe<>(this).onClose(this::close);
+    }
+
     @Override
     public Pipe<OUT> peek(Consumer<? super OUT> consumer) {
         requireNonNull(consumer);
-        return new RefPipe<OUT, OUT>(this, EMPTY) {
+        return new StatelessOp<OUT, OUT>(this, EMPTY) {
             @Override
             protected Op<OUT> wrapOp(Op<OUT> nextOp) {
                 return SimpleOps.peekOp(nextOp, consumer);
@@ -626,8 +978,7 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
         requireNonNull(spliterator);
         @SuppressWarnings("unchecked") Spliterator<OUT> finalSpliterator = MoreSpliterators.concat(
             (Spliterator<OUT>) spliterator, toSpliterator());
-        Pipe<OUT> pipe = spliterator(finalSpliterator);
-        return pipe.onClose(this::close);
+        return new PipeHead<>(finalSpliterator, isParallel(), profiler()).onClose(this::close);
     }
 
     @Override
@@ -640,8 +991,7 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
         requireNonNull(spliterator);
         @SuppressWarnings("unchecked") Spliterator<OUT> finalSpliterator = MoreSpliterators.concat(toSpliterator(),
             (Spliterator<OUT>) spliterator);
-        Pipe<OUT> pipe = spliterator(finalSpliterator);
-        return pipe.onClose(this::close);
+        return new PipeHead<>(finalSpliterator, isParallel(), profiler()).onClose(this::close);
     }
 
     @Override
@@ -678,10 +1028,62 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
         return new PartitionOp.PolicyOrderly<>(this, requireNonNull(policyFunction));
     }
 
+    @Override
+    public Pipe<Pipe<OUT>> partitionLazily(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("partition size cannot be less then 1, size: " + size);
+        }
+        return new PipeHead<>(new LazyPartitionSpliterator<>(toSpliterator(), size), isParallel(), profiler()).onClose(
+            this::close);
+    }
+
+    @Override
+    public Pipe<List<OUT>> window(int size, int step) {
+        if (size < 1) {
+            throw new IllegalArgumentException("window size cannot be less then 1, size: " + size);
+        }
+        if (step < 1) {
+            throw new IllegalArgumentException("window step cannot be less then 1, step: " + step);
+        }
+        return new WindowOp.Sized<>(this, size, step);
+    }
+
+    @Override
+    public Pipe<List<OUT>> windowBy(ToLongFunction<? super OUT> timestampExtractor, long duration) {
+        requireNonNull(timestampExtractor);
+        if (duration < 1) {
+            throw new IllegalArgumentException("window duration cannot be less then 1, duration: " + duration);
+        }
+        return new WindowOp.Timed<>(this, timestampExtractor, duration);
+    }
+
     @Override
     public <S> BiPipe<OUT, S> combine(Pipe<S> secondPipe) {
         requireNonNull(secondPipe);
-        throw new IllegalStateException();
+        onClose(secondPipe::close);
+        return new RefBiPipe.Head<OUT, OUT, S>(this, StatelessOp.Mapper.OP_FLAG | NOT_SIZED | IS_SHORT_CIRCUIT, false,
+            nextOp -> new BiOp.Split<OUT, OUT, S>(nextOp) {
+                private Iterator<S> secondIterator;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    secondIterator = secondPipe.toIterator();
+                    nextOp.begin(-1);
+                }
+
+                @Override
+                public void accept(OUT value) {
+                    if (secondIterator.hasNext()) {
+                        nextOp.accept(value, secondIterator.next());
+                    }
+                }
+
+                @Override
+                public boolean canShortCircuit() {
+                    // 第二条流水线耗尽时即结束
+                    return !secondIterator.hasNext() || nextOp.canShortCircuit();
+                }
+            });
     }
 
     @Override
@@ -702,7 +1104,7 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
     @Override
     public void forEach(Consumer<? super OUT> consumer) {
         requireNonNull(consumer);
-        evaluate(SimpleOps.forEachOp(consumer));
+        evaluate(() -> SimpleOps.forEachOp(consumer), (left, right) -> null);
     }
 
     @Override
@@ -711,9 +1113,21 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
         evaluate(SimpleOps.forEachOrderlyOp(consumer));
     }
 
+    @Override
+    public void forEachPartition(int size, Consumer<? super List<OUT>> action) {
+        if (size < 1) {
+            throw new IllegalArgumentException("partition size cannot be less then 1, size: " + size);
+        }
+        requireNonNull(action);
+        evaluate(PartitionOp.forEachPartitionOp(size, action));
+    }
+
     @Override
     public Optional<OUT> reduce(BinaryOperator<OUT> reducer) {
-        return evaluate(SimpleOps.reduceTerminalOp(requireNonNull(reducer)));
+        requireNonNull(reducer);
+        return evaluate(() -> SimpleOps.reduceTerminalOp(reducer),
+            (left, right) -> left.isPresent() && right.isPresent() ?
+                Optional.of(reducer.apply(left.get(), right.get())) : left.isPresent() ? left : right);
     }
 
     @Override
@@ -731,7 +1145,9 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
             isStdReverseOrder(comparator) && isFlagSet(SORTED)) {
             return findLast();
         }
-        return evaluate(SimpleOps.minTerminalOp(naturalOrderIfNull(comparator)));
+        Comparator<? super OUT> finalComparator = naturalOrderIfNull(comparator);
+        return evaluate(() -> SimpleOps.minTerminalOp(finalComparator),
+            (left, right) -> SimpleOps.selectMin(left, right, finalComparator));
     }
 
     @Override
@@ -752,7 +1168,29 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
             isStdReverseOrder(comparator) && isFlagSet(SORTED)) {
             return findFirstLast().swap();
         }
-        return evaluate(SimpleOps.minMaxTerminalOp(naturalOrderIfNull(comparator)));
+        Comparator<? super OUT> finalComparator = naturalOrderIfNull(comparator);
+        return evaluate(() -> SimpleOps.minMaxTerminalOp(finalComparator),
+            (left, right) -> Tuple.of(SimpleOps.selectMin(left.first, right.first, finalComparator),
+                SimpleOps.selectMax(left.second, right.second, finalComparator)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R1, R2> Tuple<R1, R2> fork(PipeTerminal<? super OUT, R1> first, PipeTerminal<? super OUT, R2> second) {
+        List<Object> results = fork(Arrays.<PipeTerminal<? super OUT, ?>>asList(requireNonNull(first),
+            requireNonNull(second)));
+        return Tuple.of((R1) results.get(0), (R2) results.get(1));
+    }
+
+    @Override
+    public List<Object> fork(List<? extends PipeTerminal<? super OUT, ?>> terminals) {
+        if (requireNonNull(terminals).isEmpty()) {
+            throw new IllegalArgumentException("terminals cannot be empty");
+        }
+        for (PipeTerminal<? super OUT, ?> terminal : terminals) {
+            requireNonNull(terminal);
+        }
+        return evaluate(new PipeTerminal.Fork<>(terminals));
     }
 
     @Override
@@ -765,7 +1203,7 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
 
     @Override
     public long count() {
-        return evaluate(SimpleOps.countOp());
+        return evaluate(SimpleOps::countOp, Long::sum);
     }
 
     @Override
@@ -803,12 +1241,14 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
 
     @Override
     public Optional<OUT> findLast() {
-        return evaluate(SimpleOps.findLastTerminalOp());
+        return evaluate(SimpleOps::findLastTerminalOp, (left, right) -> right.isPresent() ? right : left);
     }
 
     @Override
     public Tuple<Optional<OUT>, Optional<OUT>> findFirstLast() {
-        return evaluate(SimpleOps.findFirstLastTerminalOp());
+        return evaluate(SimpleOps::findFirstLastTerminalOp,
+            (left, right) -> Tuple.of(left.first.isPresent() ? left.first : right.first,
+                right.second.isPresent() ? right.second : left.second));
     }
 
     @Override
@@ -825,12 +1265,136 @@ abstract class RefPipe<IN, OUT> implements Pipe<OUT> {
 
     @Override
     public OUT[] toArray(IntFunction<OUT[]> arrayFactory) {
-        return evaluate(new ToArrayTerminalOp<>(arrayFactory));
+        return evaluate(() -> new ToArrayTerminalOp<>(arrayFactory), (left, right) -> {
+            long length = (long) left.length + right.length;
+            MiscUtil.checkArraySize(length);
+            OUT[] result = Arrays.copyOf(left, (int) length);
+            System.arraycopy(right, 0, result, left.length, right.length);
+            return result;
+        });
+    }
+
+    @Override
+    public <R> R reduceTo(Supplier<? extends R> containerSupplier, BiConsumer<? super R, ? super OUT> accumulator,
+        BiConsumer<? super R, ? super R> combiner) {
+        requireNonNull(containerSupplier);
+        requireNonNull(accumulator);
+        requireNonNull(combiner);
+        return evaluate(() -> SimpleOps.reduceToTerminalOp(containerSupplier.get(), accumulator), (left, right) -> {
+            combiner.accept(left, right);
+            return left;
+        });
+    }
+
+    @Override
+    public <K, A> Map<K, A> groupAndAccumulate(Function<? super OUT, ? extends K> classifier,
+        Supplier<? extends A> accumulatorSupplier, BiConsumer<? super A, ? super OUT> accumulator,
+        BiConsumer<? super A, ? super A> combiner) {
+        requireNonNull(classifier);
+        requireNonNull(accumulatorSupplier);
+        requireNonNull(accumulator);
+        requireNonNull(combiner);
+        int shardCount = isParallel() ? GroupShards.parallelShardCount() : 1;
+        Function<K, A> accumulatorFactory = ignored -> accumulatorSupplier.get();
+        return evaluate(() -> SimpleOps.reduceToTerminalOp(new GroupShards<>(shardCount, accumulatorFactory),
+            (GroupShards<K, A> shards, OUT value) -> accumulator.accept(shards.accumulatorOf(classifier.apply(value)),
+                value)), (left, right) -> {
+            left.merge(right, combiner);
+            return left;
+        }).finish();
     }
 
     @Override
     public <K> BiPipe<K, Pipe<OUT>> groupAndExtend(Function<? super OUT, ? extends K> classifier) {
-        throw new IllegalStateException();
+        requireNonNull(classifier);
+        return new RefBiPipe.Head<OUT, K, Pipe<OUT>>(this, StatelessOp.Mapper.OP_FLAG | NOT_SIZED, false,
+            nextOp -> new BiOp.Split<OUT, K, Pipe<OUT>>(nextOp) {
+                private Map<K, List<OUT>> groups;
+
+                private boolean isShortCircuitRequested = false;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    groups = new LinkedHashMap<>();
+                }
+
+                @Override
+                public void accept(OUT value) {
+                    groups.computeIfAbsent(classifier.apply(value), ignored -> new ArrayList<>()).add(value);
+                }
+
+                @Override
+                public boolean canShortCircuit() {
+                    isShortCircuitRequested = true;
+                    return false;
+                }
+
+                @Override
+                public void end() {
+                    nextOp.begin(groups.size());
+                    for (Map.Entry<K, List<OUT>> group : groups.entrySet()) {
+                        if (isShortCircuitRequested && nextOp.canShortCircuit()) {
+                            break;
+                        }
+                        nextOp.accept(group.getKey(), list(group.getValue()));
+                    }
+                    groups = null;
+                    nextOp.end();
+                }
+            });
+    }
+
+    @Override
+    public Pipe<OUT> parallel() {
+        headPipe.setParallel(true);
+        return this;
+    }
+
+    @Override
+    public Pipe<OUT> sequential() {
+        headPipe.setParallel(false);
+        return this;
+    }
+
+    @Override
+    public boolean isParallel() {
+        return headPipe.isParallel();
+    }
+
+    /**
+     * 设置流水线的求值模式，只有头节点持有此状态。
+     *
+     * @param parallel {@code true} - 并行求值。
+     * @implNote 仅头节点可以重写此方法。
+     */
+    void setParallel(boolean parallel) {
+        headPipe.setParallel(parallel);
+    }
+
+    @Override
+    public Pipe<OUT> profile(MetricsSink sink) {
+        headPipe.setProfiler(new PipeProfiler(requireNonNull(sink)));
+        return this;
+    }
+
+    /**
+     * 获取流水线的性能剖析器，只有头节点持有此状态。
+     *
+     * @return 性能剖析器，未开启性能剖析时为{@code null}
+     * @implNote 仅头节点可以重写此方法。
+     */
+    PipeProfiler profiler() {
+        return headPipe.profiler();
+    }
+
+    /**
+     * 设置流水线的性能剖析器，只有头节点持有此状态。
+     *
+     * @param profiler 性能剖析器
+     * @implNote 仅头节点可以重写此方法。
+     */
+    void setProfiler(PipeProfiler profiler) {
+        headPipe.setProfiler(profiler);
     }
 
     @Override
@@ -0,0 +1,141 @@
+package com.oyealex.pipe.basis;
+
+import java.util.Spliterator;
+import java.util.function.Function;
+
+import static com.oyealex.pipe.flag.PipeFlag.EMPTY;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 基于引用流水线的流水线程序实现
+ * <p/>
+ * 编译时以一个没有数据源的模板头节点调用程序定义，得到的节点链即为程序；模板头节点没有任何标记，因此程序中的节点只会做出
+ * 对任意数据源都成立的优化。应用程序时，以{@link Stage}节点接在新数据源的头节点之后，{@link Stage}节点的操作由程序中
+ * 所有节点的操作逐级封装而成，因此应用得到的流水线可以直接复用引用流水线的求值、并行以及短路能力。
+ *
+ * @author oyealex
+ * @see PipeProgram
+ * @since 2023-06-25
+ */
+final class RefPipeProgram<T, R> implements PipeProgram<T, R> {
+    private final Template<T> template;
+
+    /** 程序的尾节点，其头节点为{@link #template} */
+    private final RefPipe<?, R> tailPipe;
+
+    /** 程序中是否均为无状态节点 */
+    private final boolean stateless;
+
+    private RefPipeProgram(Template<T> template, RefPipe<?, R> tailPipe) {
+        this.template = template;
+        this.tailPipe = tailPipe;
+        this.stateless = isAllStateless(tailPipe);
+    }
+
+    /**
+     * 以给定的程序定义编译流水线程序。
+     *
+     * @param definition 程序定义，以模板流水线为参数，返回在其之上追加了中间操作的流水线
+     * @return 流水线程序
+     * @throws IllegalArgumentException 当程序定义返回的流水线不是由模板流水线构造时抛出
+     */
+    @SuppressWarnings("unchecked")
+    static <T, R> PipeProgram<T, R> compile(Function<? super Pipe<T>, ? extends Pipe<R>> definition) {
+        Template<T> template = new Template<>();
+        Pipe<R> result = definition.apply(template);
+        if (!(result instanceof RefPipe) || ((RefPipe<?, ?>) result).headPipe != template) {
+            throw new IllegalArgumentException("pipe program must be defined on the given template pipe");
+        }
+        return new RefPipeProgram<>(template, (RefPipe<?, R>) result);
+    }
+
+    private static boolean isAllStateless(RefPipe<?, ?> tailPipe) {
+        for (RefPipe<?, ?> pipe = tailPipe; pipe != pipe.headPipe; pipe = pipe.prePipe) {
+            if (!pipe.isStateless()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Pipe<R> apply(Spliterator<? extends T> source) {
+        Pipe<R> pipe = new Stage<>(new PipeHead<>(requireNonNull(source)), this);
+        return template.parallel ? pipe.parallel() : pipe;
+    }
+
+    /**
+     * 程序的模板头节点，没有数据源，也不能执行任何终结操作。
+     */
+    private static final class Template<T> extends RefPipe<Void, T> {
+        /** 定义程序时是否要求以并行模式求值 */
+        private boolean parallel = false;
+
+        private Template() {
+            super(EMPTY);
+        }
+
+        @Override
+        protected Spliterator<?> takeDataSource() {
+            throw new UnsupportedOperationException("pipe template has no data source, apply the program instead");
+        }
+
+        @Override
+        protected Op<Void> wrapOp(Op<T> nextOp) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        void setParallel(boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        @Override
+        public boolean isParallel() {
+            return parallel;
+        }
+
+        @Override
+        PipeProfiler profiler() {
+            return null;
+        }
+
+        @Override
+        void setProfiler(PipeProfiler profiler) {
+            throw new UnsupportedOperationException(
+                "pipe template cannot be profiled, profile the applied pipe instead");
+        }
+
+        @Override
+        public Pipe<T> onClose(Runnable closeAction) {
+            throw new UnsupportedOperationException("pipe template cannot register close action");
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * 将程序接在新数据源之后的节点，其操作由程序中所有节点的操作封装而成。
+     */
+    private static final class Stage<T, R> extends RefPipe<T, R> {
+        private final RefPipeProgram<T, R> program;
+
+        private Stage(RefPipe<?, ? extends T> sourcePipe, RefPipeProgram<T, R> program) {
+            // 模板头节点没有任何标记，尾节点的标记即为程序中所有节点的操作标记
+            super(sourcePipe, program.tailPipe.flag);
+            this.program = program;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Op<T> wrapOp(Op<R> nextOp) {
+            return (Op<T>) (Op<?>) program.tailPipe.wrapAllOp(nextOp);
+        }
+
+        @Override
+        boolean isStateless() {
+            return program.stateless;
+        }
+    }
+}
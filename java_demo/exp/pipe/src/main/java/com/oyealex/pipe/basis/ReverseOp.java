@@ -24,22 +24,21 @@ class ReverseOp<T> extends RefPipe<T, T> {
         return new ChainedOp.ToList<T, T>(nextOp) {
             @Override
             public void end() {
-                nextOp.begin(elements.size());
-                if (isShortCircuitRequested) {
-                    for (int i = elements.size() - 1; i >= 0 && !nextOp.canShortCircuit(); i--) {
-                        nextOp.accept(elements.get(i));
-                    }
-                } else {
-                    for (int i = elements.size() - 1; i >= 0; i--) {
-                        nextOp.accept(elements.get(i));
-                    }
-                }
+                nextOp.begin(elements.count());
+                elements.forEachReversed(nextOp, isShortCircuitRequested ? nextOp::canShortCircuit : () -> false);
                 nextOp.end();
                 elements = null;
             }
         };
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Pipe<T> reverse() {
+        // 连续两次逆序相当于没有逆序
+        return (Pipe<T>) prePipe;
+    }
+
     private static int getOpFlag(RefPipe<?, ?> prePipe) {
         int opFlag = EMPTY;
         if (prePipe.isFlagSet(SORTED)) { // 如果已自然有序，则标记自然逆序
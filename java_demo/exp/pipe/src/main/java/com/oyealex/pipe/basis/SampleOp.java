@@ -0,0 +1,212 @@
+package com.oyealex.pipe.basis;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleSupplier;
+import java.util.function.ToDoubleFunction;
+
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SIZED;
+
+/**
+ * 蓄水池抽样节点，以固定的内存从任意数量的元素中随机抽取最多{@code size}个元素，抽取的元素保持原有的遇到顺序。
+ * <p/>
+ * 每个元素被赋予一个随机的键，保留键最大的{@code size}个元素：等概率抽样时键为{@code [0, 1)}中的随机数，
+ * 加权抽样时键为{@code ln(u) / weight}（即A-Res算法中的{@code u^(1/weight)}取对数，避免权重很大时下溢）。
+ * 由于保留的总是键最大的元素，两个分段各自的蓄水池合并之后与整体抽样的分布相同，因此并行求值时每个分段独立抽样后再合并，
+ * 不需要缓存全部元素。并行求值时只从给定的随机数生成器中取一次种子，各个分段使用按照拆分位置由此派生的独立生成器。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+class SampleOp<T> extends RefPipe<T, T> {
+    private final int size;
+
+    /** 元素的权重，为{@code null}时表示等概率抽样 */
+    private final ToDoubleFunction<? super T> weigher;
+
+    private final Random random;
+
+    SampleOp(RefPipe<?, ? extends T> prePipe, int size, ToDoubleFunction<? super T> weigher, Random random) {
+        super(prePipe, NOT_SIZED);
+        this.size = size;
+        this.weigher = weigher;
+        this.random = random;
+    }
+
+    private void offer(DoubleSupplier uniform, Reservoir<T> reservoir, T value) {
+        double key;
+        if (weigher == null) {
+            key = uniform.getAsDouble();
+        } else {
+            double weight = weigher.applyAsDouble(value);
+            if (!(weight > 0)) {
+                // 权重不大于0的元素不会被选中，但仍然占据遇到次序
+                reservoir.seen++;
+                return;
+            }
+            key = Math.log(uniform.getAsDouble()) / weight;
+        }
+        reservoir.offer(value, key);
+    }
+
+    @Override
+    protected Op<T> wrapOp(Op<T> nextOp) {
+        return new ChainedOp.NonShortCircuit<T, T>(nextOp) {
+            private Reservoir<T> reservoir;
+
+            @Override
+            public void begin(long size, long minSize, long maxSize) {
+                reservoir = new Reservoir<>(SampleOp.this.size);
+            }
+
+            @Override
+            public void accept(T value) {
+                offer(random::nextDouble, reservoir, value);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void end() {
+                Object[] elements = reservoir.toArray();
+                reservoir = null;
+                nextOp.begin(elements.length);
+                for (int i = 0; i < elements.length && !(isShortCircuitRequested && nextOp.canShortCircuit()); i++) {
+                    nextOp.accept((T) elements[i]);
+                }
+                nextOp.end();
+            }
+        };
+    }
+
+    @Override
+    Spliterator<Object> evaluateInParallel(Spliterator<Object> dataSource) {
+        // 各个分段使用由给定随机数生成器的种子按照拆分位置派生出的独立随机数生成器，避免所有分段争用同一个生成器
+        Reservoir<T> reservoir = ParallelEvaluator.reduce(prePipe, dataSource, new SplittableRandom(random.nextLong()),
+            splitRandom -> SimpleOps.reduceToTerminalOp(new Reservoir<>(size),
+                (Reservoir<T> res, T value) -> offer(splitRandom::nextDouble, res, value)), Reservoir::merge);
+        return Spliterators.spliterator(reservoir.toArray(), Spliterator.ORDERED);
+    }
+
+    /**
+     * 蓄水池，以键为序的小顶堆保存键最大的若干个元素，同时记录每个元素的遇到次序。
+     */
+    static final class Reservoir<T> {
+        private static final int MIN_CAPACITY = 16;
+
+        private final int capacity;
+
+        private double[] keys;
+
+        private long[] orders;
+
+        private Object[] values;
+
+        private int count;
+
+        /** 已经遇到的元素数量 */
+        long seen;
+
+        Reservoir(int capacity) {
+            this.capacity = capacity;
+            int initCapacity = Math.min(capacity, MIN_CAPACITY);
+            this.keys = new double[initCapacity];
+            this.orders = new long[initCapacity];
+            this.values = new Object[initCapacity];
+        }
+
+        void offer(T value, double key) {
+            offer(value, key, seen++);
+        }
+
+        private void offer(Object value, double key, long order) {
+            if (count < capacity) {
+                if (count == keys.length) {
+                    int newCapacity = (int) Math.min((long) count << 1, capacity);
+                    keys = Arrays.copyOf(keys, newCapacity);
+                    orders = Arrays.copyOf(orders, newCapacity);
+                    values = Arrays.copyOf(values, newCapacity);
+                }
+                siftUp(count++, value, key, order);
+            } else if (count > 0 && key > keys[0]) {
+                siftDown(value, key, order);
+            }
+        }
+
+        /**
+         * 将右侧相邻分段的蓄水池合并到此蓄水池中。
+         *
+         * @param right 右侧相邻分段的蓄水池
+         * @return 此蓄水池
+         */
+        Reservoir<T> merge(Reservoir<T> right) {
+            for (int i = 0; i < right.count; i++) {
+                offer(right.values[i], right.keys[i], right.orders[i] + seen);
+            }
+            seen += right.seen;
+            return this;
+        }
+
+        /**
+         * 按照遇到顺序输出蓄水池中的元素。
+         *
+         * @return 蓄水池中的元素
+         */
+        Object[] toArray() {
+            Integer[] indexes = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                indexes[i] = i;
+            }
+            Arrays.sort(indexes, (left, right) -> Long.compare(orders[left], orders[right]));
+            Object[] result = new Object[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = values[indexes[i]];
+            }
+            return result;
+        }
+
+        private void siftUp(int index, Object value, double key, long order) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                move(parent, index);
+                index = parent;
+            }
+            set(index, value, key, order);
+        }
+
+        private void siftDown(Object value, double key, long order) {
+            int index = 0;
+            int half = count >>> 1;
+            while (index < half) {
+                int child = (index << 1) + 1;
+                int right = child + 1;
+                if (right < count && keys[right] < keys[child]) {
+                    child = right;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                move(child, index);
+                index = child;
+            }
+            set(index, value, key, order);
+        }
+
+        private void move(int from, int to) {
+            keys[to] = keys[from];
+            orders[to] = orders[from];
+            values[to] = values[from];
+        }
+
+        private void set(int index, Object value, double key, long order) {
+            keys[index] = key;
+            orders[index] = order;
+            values[index] = value;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.oyealex.pipe.basis;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Predicate;
 
 import static com.oyealex.pipe.flag.PipeFlag.NOT_REVERSED_SORTED;
@@ -29,39 +27,29 @@ abstract class SelectToFirstOrLastOp<T> extends RefPipe<T, T> {
         @Override
         protected Op<T> wrapOp(Op<T> nextOp) {
             return new ChainedOp.ToList<T, T>(nextOp) {
-                private List<T> selected;
+                private SpinedBuffer<T> selected;
 
                 @Override
-                public void begin(long size) {
-                    super.begin(size);
-                    selected = new ArrayList<>();
+                public void begin(long size, long minSize, long maxSize) {
+                    super.begin(size, minSize, maxSize);
+                    selected = new SpinedBuffer<>();
                 }
 
                 @Override
                 public void accept(T value) {
                     if (select.test(value)) {
-                        selected.add(value);
+                        selected.accept(value);
                     } else {
-                        elements.add(value);
+                        elements.accept(value);
                     }
                 }
 
                 @Override
                 public void end() {
-                    nextOp.begin(selected.size() + elements.size());
+                    nextOp.begin(selected.count() + elements.count());
                     if (isShortCircuitRequested) {
-                        for (T value : selected) {
-                            if (nextOp.canShortCircuit()) {
-                                break;
-                            }
-                            nextOp.accept(value);
-                        }
-                        for (T value : elements) {
-                            if (nextOp.canShortCircuit()) {
-                                break;
-                            }
-                            nextOp.accept(value);
-                        }
+                        selected.forEach(nextOp, nextOp::canShortCircuit);
+                        elements.forEach(nextOp, nextOp::canShortCircuit);
                     } else {
                         selected.forEach(nextOp);
                         elements.forEach(nextOp);
@@ -82,18 +70,18 @@ abstract class SelectToFirstOrLastOp<T> extends RefPipe<T, T> {
         @Override
         protected Op<T> wrapOp(Op<T> nextOp) {
             return new ChainedOp.ShortCircuitRecorded<T, T>(nextOp) {
-                private List<T> selected;
+                private SpinedBuffer<T> selected;
 
                 @Override
-                public void begin(long size) {
-                    nextOp.begin(size);
-                    selected = new ArrayList<>();
+                public void begin(long size, long minSize, long maxSize) {
+                    nextOp.begin(size, minSize, maxSize);
+                    selected = new SpinedBuffer<>();
                 }
 
                 @Override
                 public void accept(T value) {
                     if (select.test(value)) {
-                        selected.add(value);
+                        selected.accept(value);
                     } else {
                         nextOp.accept(value);
                     }
@@ -102,12 +90,7 @@ abstract class SelectToFirstOrLastOp<T> extends RefPipe<T, T> {
                 @Override
                 public void end() {
                     if (isShortCircuitRequested) {
-                        for (T value : selected) {
-                            if (nextOp.canShortCircuit()) {
-                                break;
-                            }
-                            nextOp.accept(value);
-                        }
+                        selected.forEach(nextOp, nextOp::canShortCircuit);
                     } else {
                         selected.forEach(nextOp);
                     }
@@ -24,21 +24,7 @@ class ShuffleOp<T> extends RefPipe<T, T> {
         return new ChainedOp.ListRepeater<T>(nextOp) {
             @Override
             protected void beforeEnd() {
-                shuffle();
-            }
-
-            private void shuffle() {
-                int size = elements.size();
-                for (int index = 0; index < size; index++) {
-                    int swapIndex = index + random.nextInt(size - index);
-                    swap(index, swapIndex);
-                }
-            }
-
-            private void swap(int index, int swapIndex) {
-                T value = elements.get(index);
-                elements.set(index, elements.get(swapIndex));
-                elements.set(swapIndex, value);
+                elements.shuffle(random);
             }
         };
     }
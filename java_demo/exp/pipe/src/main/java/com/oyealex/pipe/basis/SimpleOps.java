@@ -6,8 +6,10 @@ import com.oyealex.pipe.functional.LongBiFunction;
 import com.oyealex.pipe.functional.LongBiPredicate;
 import com.oyealex.pipe.utils.NoInstance;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
@@ -42,8 +44,8 @@ final class SimpleOps extends NoInstance {
     public static <T> Op<T> takeIfOp(Op<T> nextOp, Predicate<? super T> predicate) {
         return new ChainedOp<T, T>(nextOp) {
             @Override
-            public void begin(long size) {
-                nextOp.begin(-1);
+            public void begin(long size, long minSize, long maxSize) {
+                nextOp.begin(-1, 0, maxSize);
             }
 
             @Override
@@ -58,8 +60,8 @@ final class SimpleOps extends NoInstance {
     public static <T> Op<T> takeIfOrderlyOp(Op<T> nextOp, LongBiPredicate<? super T> predicate) {
         return new ChainedOp.Orderly<T, T>(nextOp) {
             @Override
-            public void begin(long size) {
-                nextOp.begin(-1);
+            public void begin(long size, long minSize, long maxSize) {
+                nextOp.begin(-1, 0, maxSize);
             }
 
             @Override
@@ -219,6 +221,39 @@ final class SimpleOps extends NoInstance {
         };
     }
 
+    public static <T, R> TerminalOp<T, R> reduceToTerminalOp(R container, BiConsumer<? super R, ? super T> reducer) {
+        return new TerminalOp.Find<T, R>(container) {
+            @Override
+            public void begin(long size, long minSize, long maxSize) {
+                if (result instanceof ArrayList) {
+                    // 最常见的收集容器，根据元素数量预分配容量
+                    ((ArrayList<?>) result).ensureCapacity(Op.initCapacity(size, minSize, maxSize));
+                }
+            }
+
+            @Override
+            public void accept(T value) {
+                reducer.accept(result, value);
+            }
+        };
+    }
+
+    /**
+     * 选择两个可选值中较小的一个，二者相等时选择左侧的值，用于合并相邻分段的最小值。
+     */
+    static <T> Optional<T> selectMin(Optional<T> left, Optional<T> right, Comparator<? super T> comparator) {
+        return !right.isPresent() || left.isPresent() && comparator.compare(left.get(), right.get()) <= 0 ? left :
+            right;
+    }
+
+    /**
+     * 选择两个可选值中较大的一个，二者相等时选择左侧的值，用于合并相邻分段的最大值。
+     */
+    static <T> Optional<T> selectMax(Optional<T> left, Optional<T> right, Comparator<? super T> comparator) {
+        return !right.isPresent() || left.isPresent() && comparator.compare(left.get(), right.get()) >= 0 ? left :
+            right;
+    }
+
     public static <T> TerminalOp<T, Boolean> anyMatchTerminalOp(Predicate<? super T> predicate) {
         return new TerminalOp.Find<T, Boolean>(Boolean.FALSE) {
             @Override
@@ -299,6 +334,13 @@ final class SimpleOps extends NoInstance {
         return new ChainedOp.ShortCircuitRecorded<T, T>(nextOp) {
             private boolean seen = false;
 
+            @Override
+            public void begin(long size, long minSize, long maxSize) {
+                // 相邻元素之间插入分隔符，n个元素变为2n-1个
+                nextOp.begin(size > 0 ? 2 * size - 1 : size, minSize > 0 ? 2 * minSize - 1 : 0,
+                    maxSize > 0 ? 2 * maxSize - 1 : maxSize);
+            }
+
             @Override
             public void accept(T value) {
                 if (seen) {
@@ -421,17 +463,12 @@ final class SimpleOps extends NoInstance {
             @Override
             public void end() {
                 int count = nullCount;
-                nextOp.begin(elements.size() + count);
+                nextOp.begin(elements.count() + count);
                 if (isShortCircuitRequested) {
                     for (int i = 0; i < count && !nextOp.canShortCircuit(); i++) {
                         nextOp.accept(null);
                     }
-                    for (T value : elements) {
-                        if (nextOp.canShortCircuit()) {
-                            break;
-                        }
-                        nextOp.accept(value);
-                    }
+                    elements.forEach(nextOp, nextOp::canShortCircuit);
                 } else {
                     for (int i = 0; i < count; i++) {
                         nextOp.accept(null);
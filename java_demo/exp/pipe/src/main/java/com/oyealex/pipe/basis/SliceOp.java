@@ -32,12 +32,13 @@ abstract class SliceOp<IN> extends RefPipe<IN, IN> { // TODO 2023-05-31 00:11 
         protected Op<IN> wrapOp(Op<IN> nextOp) {
             return new InternalOp<IN>(nextOp, limit) {
                 @Override
-                public void begin(long size) {
-                    if (size <= 0) {
-                        nextOp.begin(size);
-                    } else {
-                        nextOp.begin(Math.min(Math.max(0, size - skip), limit));
-                    }
+                public void begin(long size, long minSize, long maxSize) {
+                    nextOp.begin(size < 0 ? size : slice(size), slice(minSize),
+                        maxSize < 0 ? (limit == Long.MAX_VALUE ? -1 : limit) : slice(maxSize));
+                }
+
+                private long slice(long count) {
+                    return Math.min(Math.max(0, count - skip), limit);
                 }
 
                 @Override
@@ -65,8 +66,8 @@ abstract class SliceOp<IN> extends RefPipe<IN, IN> { // TODO 2023-05-31 00:11 
         protected Op<IN> wrapOp(Op<IN> nextOp) {
             return new InternalOp<IN>(nextOp, limit) {
                 @Override
-                public void begin(long size) {
-                    nextOp.begin(-1);
+                public void begin(long size, long minSize, long maxSize) {
+                    nextOp.begin(-1, 0, maxSize);
                 }
 
                 @Override
@@ -95,8 +96,8 @@ abstract class SliceOp<IN> extends RefPipe<IN, IN> { // TODO 2023-05-31 00:11 
         protected Op<IN> wrapOp(Op<IN> nextOp) {
             return new InternalOp<IN>(nextOp, limit) {
                 @Override
-                public void begin(long size) {
-                    nextOp.begin(-1);
+                public void begin(long size, long minSize, long maxSize) {
+                    nextOp.begin(-1, 0, maxSize);
                 }
 
                 @Override
@@ -122,8 +123,8 @@ abstract class SliceOp<IN> extends RefPipe<IN, IN> { // TODO 2023-05-31 00:11 
         protected Op<IN> wrapOp(Op<IN> nextOp) {
             return new InternalOp<IN>(nextOp, limit) {
                 @Override
-                public void begin(long size) {
-                    nextOp.begin(-1);
+                public void begin(long size, long minSize, long maxSize) {
+                    nextOp.begin(-1, 0, maxSize);
                 }
 
                 @Override
@@ -1,19 +1,39 @@
 package com.oyealex.pipe.basis;
 
+import com.oyealex.pipe.assist.SpillCodec;
 import com.oyealex.pipe.assist.Tuple;
 import com.oyealex.pipe.functional.LongBiFunction;
+import com.oyealex.pipe.spliterator.MoreSpliterators;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import static com.oyealex.pipe.flag.PipeFlag.IS_REVERSED_SORTED;
 import static com.oyealex.pipe.flag.PipeFlag.IS_SORTED;
 import static com.oyealex.pipe.flag.PipeFlag.NOT_REVERSED_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SIZED;
 import static com.oyealex.pipe.flag.PipeFlag.NOT_SORTED;
-import static com.oyealex.pipe.utils.MiscUtil.checkArraySize;
+import static com.oyealex.pipe.utils.MiscUtil.MAX_ARRAY_LENGTH;
 import static com.oyealex.pipe.utils.MiscUtil.isStdNaturalOrder;
 import static com.oyealex.pipe.utils.MiscUtil.isStdReverseOrder;
+import static com.oyealex.pipe.utils.MiscUtil.naturalOrderIfNull;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterator.SIZED;
 
 /**
  * SortStage
@@ -22,6 +42,16 @@ import static com.oyealex.pipe.utils.MiscUtil.isStdReverseOrder;
  * @since 2023-05-11
  */
 abstract class SortOp<T> extends RefPipe<T, T> {
+    /** 并行排序阈值的系统属性名 */
+    static final String PARALLEL_SORT_THRESHOLD_PROPERTY = "com.oyealex.pipe.parallelSortThreshold";
+
+    /**
+     * 并行排序阈值，元素数量不小于此值时使用fork/join并行归并排序，可以通过系统属性
+     * {@value #PARALLEL_SORT_THRESHOLD_PROPERTY}配置，配置为{@link Integer#MAX_VALUE}时相当于禁用并行排序。
+     */
+    static final int PARALLEL_SORT_THRESHOLD =
+        Math.max(1, Integer.getInteger(PARALLEL_SORT_THRESHOLD_PROPERTY, 1 << 16));
+
     private SortOp(RefPipe<?, ? extends T> prePipe, int opFlag) {
         super(prePipe, opFlag);
     }
@@ -35,6 +65,17 @@ abstract class SortOp<T> extends RefPipe<T, T> {
         return NOT_SORTED | NOT_REVERSED_SORTED;
     }
 
+    /**
+     * 对缓存的元素进行稳定排序，元素数量达到{@link #PARALLEL_SORT_THRESHOLD}时并行排序。
+     */
+    static <T> void sort(SpinedBuffer<T> elements, Comparator<? super T> comparator) {
+        if (elements.count() >= PARALLEL_SORT_THRESHOLD) {
+            elements.parallelSort(comparator);
+        } else {
+            elements.sort(comparator);
+        }
+    }
+
     static class Normal<T> extends SortOp<T> {
         private final Comparator<? super T> comparator;
 
@@ -48,7 +89,159 @@ abstract class SortOp<T> extends RefPipe<T, T> {
             return new ChainedOp.ListRepeater<T>(nextOp) {
                 @Override
                 protected void beforeEnd() {
-                    elements.sort(comparator);
+                    sort(elements, comparator);
+                }
+            };
+        }
+
+        @Override
+        public Pipe<T> sort(Comparator<? super T> comparator) {
+            // 以相同的比较器再次排序不会改变元素的顺序
+            return naturalOrderIfNull(comparator) == this.comparator ? this : super.sort(comparator);
+        }
+
+        @Override
+        public Pipe<T> limit(long size) {
+            // 排序后截取前N个元素时，以有界堆代替全量排序
+            return size > 0 && size < MAX_ARRAY_LENGTH ? new TopK<T>(prePipe, comparator, (int) size) :
+                super.limit(size);
+        }
+
+        @Override
+        public Pipe<T> slice(long startInclusive, long endExclusive) {
+            return startInclusive >= 0 && startInclusive < endExclusive && endExclusive < MAX_ARRAY_LENGTH ?
+                new TopK<T>(prePipe, comparator, (int) endExclusive).skip(startInclusive) :
+                super.slice(startInclusive, endExclusive);
+        }
+    }
+
+    /**
+     * 排序后只保留前{@code limit}个元素，由{@link Normal#limit(long)}融合排序和截取得到。
+     * <p/>
+     * 以容量为{@code limit}的大顶堆保存当前最小的{@code limit}个元素，堆顶为其中最大的元素，新元素小于堆顶时替换堆顶，
+     * 时间复杂度为{@code O(n log k)}，空间复杂度为{@code O(k)}。比较结果相同的元素以流入的先后排序，因此与全量稳定排序后截取的结果一致。
+     */
+    static class TopK<T> extends SortOp<T> {
+        private static final int MIN_HEAP_CAPACITY = 16;
+
+        private final Comparator<? super T> comparator;
+
+        private final int limit;
+
+        TopK(RefPipe<?, ? extends T> prePipe, Comparator<? super T> comparator, int limit) {
+            super(prePipe, parseOpFlag(comparator) | NOT_SIZED);
+            this.comparator = comparator;
+            this.limit = limit;
+        }
+
+        @Override
+        public Pipe<T> limit(long size) {
+            return size > 0 && size < limit ? new TopK<T>(prePipe, comparator, (int) size) : super.limit(size);
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<T> nextOp) {
+            return new ChainedOp.NonShortCircuit<T, T>(nextOp) {
+                /** 大顶堆，按照比较器以及流入次序比较 */
+                private Object[] heap;
+
+                /** 堆中每个元素的流入次序 */
+                private long[] orders;
+
+                private int count;
+
+                private long index;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    int capacity = Math.max(Op.initCapacity(size, minSize, maxSize), MIN_HEAP_CAPACITY);
+                    capacity = Math.min(capacity, limit);
+                    heap = new Object[capacity];
+                    orders = new long[capacity];
+                    count = 0;
+                    index = 0L;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void accept(T value) {
+                    long order = index++;
+                    if (count < limit) {
+                        if (count == heap.length) {
+                            int capacity = (int) Math.min((long) count << 1, limit);
+                            heap = Arrays.copyOf(heap, capacity);
+                            orders = Arrays.copyOf(orders, capacity);
+                        }
+                        siftUp(count++, value, order);
+                    } else if (comparator.compare(value, (T) heap[0]) < 0) {
+                        // 比较结果相同时堆顶先流入，新元素排在其后，所以只有严格小于堆顶时才替换
+                        siftDown(0, count, value, order);
+                    }
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void end() {
+                    // 原地堆排序，排序后为升序
+                    for (int last = count - 1; last > 0; last--) {
+                        T max = (T) heap[0];
+                        long maxOrder = orders[0];
+                        siftDown(0, last, (T) heap[last], orders[last]);
+                        heap[last] = max;
+                        orders[last] = maxOrder;
+                    }
+                    Object[] elements = heap;
+                    int size = count;
+                    heap = null;
+                    orders = null;
+                    nextOp.begin(size);
+                    for (int i = 0; i < size && !(isShortCircuitRequested && nextOp.canShortCircuit()); i++) {
+                        nextOp.accept((T) elements[i]);
+                    }
+                    nextOp.end();
+                }
+
+                /**
+                 * 比较给定元素与堆中指定位置的元素，比较结果相同时以流入次序比较。
+                 */
+                @SuppressWarnings("unchecked")
+                private int compare(T value, long order, int index) {
+                    int result = comparator.compare(value, (T) heap[index]);
+                    return result != 0 ? result : Long.compare(order, orders[index]);
+                }
+
+                private void siftUp(int index, T value, long order) {
+                    while (index > 0) {
+                        int parent = (index - 1) >>> 1;
+                        if (compare(value, order, parent) <= 0) {
+                            break;
+                        }
+                        heap[index] = heap[parent];
+                        orders[index] = orders[parent];
+                        index = parent;
+                    }
+                    heap[index] = value;
+                    orders[index] = order;
+                }
+
+                @SuppressWarnings("unchecked")
+                private void siftDown(int index, int size, T value, long order) {
+                    int half = size >>> 1;
+                    while (index < half) {
+                        int child = (index << 1) + 1;
+                        int right = child + 1;
+                        if (right < size && compare((T) heap[right], orders[right], child) > 0) {
+                            child = right;
+                        }
+                        if (compare(value, order, child) >= 0) {
+                            break;
+                        }
+                        heap[index] = heap[child];
+                        orders[index] = orders[child];
+                        index = child;
+                    }
+                    heap[index] = value;
+                    orders[index] = order;
                 }
             };
         }
@@ -69,28 +262,22 @@ abstract class SortOp<T> extends RefPipe<T, T> {
         @Override
         protected Op<T> wrapOp(Op<T> nextOp) {
             return new ChainedOp.NonShortCircuit<T, T>(nextOp) {
-                private List<Tuple<K, T>> elements;
+                private SpinedBuffer<Tuple<K, T>> elements;
 
                 private int index = 0; // 排序操作无法处理超过数组最大数量的元素，所以次序字段使用int即可
 
                 @Override
-                public void begin(long size) {
-                    checkArraySize(size);
-                    elements = size >= 0 ? new ArrayList<>((int) size) : new ArrayList<>();
+                public void begin(long size, long minSize, long maxSize) {
+                    elements = new SpinedBuffer<>(Op.initCapacity(size, minSize, maxSize));
                 }
 
                 @Override
                 public void end() {
-                    elements.sort(Comparator.comparing(wrap -> wrap.first, comparator));
+                    sort(elements, Comparator.comparing(wrap -> wrap.first, comparator));
                     // 收集并处理完元素之后开始执行后续操作
-                    nextOp.begin(elements.size());
+                    nextOp.begin(elements.count());
                     if (isShortCircuitRequested) {
-                        for (Tuple<K, T> value : elements) {
-                            if (nextOp.canShortCircuit()) {
-                                break;
-                            }
-                            nextOp.accept(value.second);
-                        }
+                        elements.forEach(value -> nextOp.accept(value.second), nextOp::canShortCircuit);
                     } else {
                         elements.forEach(value -> nextOp.accept(value.second));
                     }
@@ -100,9 +287,261 @@ abstract class SortOp<T> extends RefPipe<T, T> {
 
                 @Override
                 public void accept(T value) {
-                    elements.add(Tuple.of(mapper.apply(index++, value), value));
+                    elements.accept(Tuple.of(mapper.apply(index++, value), value));
                 }
             };
         }
     }
+    /**
+     * 外部排序，元素数量超出内存预算时，将已排序的分段通过编解码器溢出到临时文件，结束时惰性地多路归并所有分段。
+     * <p/>
+     * 每个分段最多包含{@code runSize}个元素，分段按照流入的先后归并，比较结果相同时先流入的分段在前，因此排序是稳定的。
+     * 没有发生溢出时与{@link Normal}相同，直接在内存中排序。临时文件在归并结束后删除，
+     * 如果归并未能正常结束，则在关闭流水线时删除。
+     * <p/>
+     * 同时打开的临时文件不超过{@link #MAX_MERGE_WAYS}个：分段过多时先将相邻的分段分组归并为更大的分段并写回临时文件，
+     * 直到剩余的分段可以一次归并为止。
+     */
+    static class External<T> extends SortOp<T> {
+        /** 一次归并最多同时读取的分段数量 */
+        static final int MAX_MERGE_WAYS = 64;
+
+        private final Comparator<? super T> comparator;
+
+        private final SpillCodec<T> codec;
+
+        private final int runSize;
+
+        /** 尚未删除的临时文件 */
+        private final Set<Path> spillFiles = ConcurrentHashMap.newKeySet();
+
+        External(RefPipe<?, ? extends T> prePipe, Comparator<? super T> comparator, SpillCodec<T> codec, int runSize) {
+            super(prePipe, parseOpFlag(comparator));
+            this.comparator = comparator;
+            this.codec = codec;
+            this.runSize = runSize;
+            onClose(this::deleteSpillFiles);
+        }
+
+        private void deleteSpillFiles() {
+            for (Path path : spillFiles) {
+                deleteSpillFile(path);
+            }
+        }
+
+        private void deleteSpillFile(Path path) {
+            try {
+                Files.deleteIfExists(path);
+                spillFiles.remove(path);
+            } catch (IOException ignored) {
+                // 删除失败时保留记录，关闭流水线时再次尝试删除
+            }
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<T> nextOp) {
+            return new ChainedOp.NonShortCircuit<T, T>(nextOp) {
+                private SpinedBuffer<T> elements;
+
+                private List<Run<T>> runs;
+
+                private long count;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    elements = new SpinedBuffer<>(Math.min(Op.initCapacity(size, minSize, maxSize), runSize));
+                    runs = new ArrayList<>();
+                    count = 0L;
+                }
+
+                @Override
+                public void accept(T value) {
+                    elements.accept(value);
+                    count++;
+                    if (elements.count() >= runSize) {
+                        runs.add(spill(elements));
+                        elements = new SpinedBuffer<>(runSize);
+                    }
+                }
+
+                @Override
+                public void end() {
+                    sort(elements, comparator);
+                    if (runs.isEmpty()) {
+                        nextOp.begin(elements.count());
+                        if (isShortCircuitRequested) {
+                            elements.forEach(nextOp, nextOp::canShortCircuit);
+                        } else {
+                            elements.forEach(nextOp);
+                        }
+                        nextOp.end();
+                        elements = null;
+                        return;
+                    }
+                    try {
+                        // 内存中的分段也占用一路，最终归并的路数不超过上限
+                        mergeRunsInPasses(runs, MAX_MERGE_WAYS - 1);
+                        List<Spliterator<? extends T>> sources = new ArrayList<>(runs.size() + 1);
+                        sources.addAll(runs);
+                        // 内存中的分段最后流入，作为最后一个分段参与归并
+                        sources.add(elements.spliterator());
+                        elements = null;
+                        Spliterator<T> merged = MoreSpliterators.mergeSorted(comparator, sources);
+                        nextOp.begin(count);
+                        if (isShortCircuitRequested) {
+                            do {/*noop*/} while (!nextOp.canShortCircuit() && merged.tryAdvance(nextOp));
+                        } else {
+                            merged.forEachRemaining(nextOp);
+                        }
+                        nextOp.end();
+                    } finally {
+                        for (Run<T> run : runs) {
+                            run.close();
+                            deleteSpillFile(run.path);
+                        }
+                        runs = null;
+                    }
+                }
+            };
+        }
+
+        /**
+         * 将相邻的分段分组归并为更大的分段，直到分段数量不超过{@code maxRuns}。
+         * <p/>
+         * 每组最多{@link #MAX_MERGE_WAYS}个分段，归并结果在列表中替换原来的一组分段，因此分段之间的先后顺序不变，
+         * 排序仍然是稳定的，并且列表中始终是尚未删除的全部分段。
+         *
+         * @param runs 全部分段
+         * @param maxRuns 最终剩余的分段数量上限
+         */
+        private void mergeRunsInPasses(List<Run<T>> runs, int maxRuns) {
+            while (runs.size() > maxRuns) {
+                for (int from = 0; from < runs.size(); from++) {
+                    List<Run<T>> group = runs.subList(from, Math.min(from + MAX_MERGE_WAYS, runs.size()));
+                    if (group.size() > 1) {
+                        Run<T> merged = mergeRuns(group);
+                        group.clear();
+                        runs.add(from, merged);
+                    }
+                }
+            }
+        }
+
+        private Run<T> mergeRuns(List<Run<T>> group) {
+            long count = 0L;
+            for (Run<T> run : group) {
+                count += run.estimateSize();
+            }
+            Path path = null;
+            boolean succeeded = false;
+            try {
+                path = Files.createTempFile("pipe-sort-", ".run");
+                spillFiles.add(path);
+                try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(path)))) {
+                    MoreSpliterators.mergeSorted(comparator, new ArrayList<Spliterator<? extends T>>(group))
+                        .forEachRemaining(value -> write(out, value));
+                }
+                succeeded = true;
+                return new Run<>(path, count, codec);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            } finally {
+                // 归并失败时保留输入的分段，由结束归并或者关闭流水线时删除
+                for (Run<T> run : group) {
+                    run.close();
+                    if (succeeded) {
+                        deleteSpillFile(run.path);
+                    }
+                }
+                if (!succeeded && path != null) {
+                    deleteSpillFile(path);
+                }
+            }
+        }
+
+        private Run<T> spill(SpinedBuffer<T> run) {
+            sort(run, comparator);
+            try {
+                Path path = Files.createTempFile("pipe-sort-", ".run");
+                spillFiles.add(path);
+                try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(path)))) {
+                    run.forEach(value -> write(out, value));
+                }
+                return new Run<>(path, run.count(), codec);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        private void write(DataOutputStream out, T value) {
+            try {
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    codec.write(out, value);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    /**
+     * 溢出到临时文件中的有序分段，首次访问时才会打开文件，读取完所有元素或者关闭时关闭文件。
+     */
+    private static final class Run<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Path path;
+
+        private final SpillCodec<T> codec;
+
+        private long remaining;
+
+        private DataInputStream in;
+
+        private Run(Path path, long count, SpillCodec<T> codec) {
+            super(count, ORDERED | SIZED);
+            this.path = path;
+            this.remaining = count;
+            this.codec = codec;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (remaining <= 0) {
+                return false;
+            }
+            T value;
+            try {
+                if (in == null) {
+                    in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+                }
+                value = in.readBoolean() ? codec.read(in) : null;
+                if (--remaining == 0) {
+                    close();
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            action.accept(value);
+            return true;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        private void close() {
+            remaining = 0;
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    // 只读的文件，关闭失败不影响结果
+                }
+                in = null;
+            }
+        }
+    }
 }
@@ -0,0 +1,338 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.utils.MiscUtil;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static com.oyealex.pipe.utils.MiscUtil.MAX_ARRAY_LENGTH;
+
+/**
+ * 多段数组缓存，用于需要先收集全部元素才能继续处理的操作。
+ * <p/>
+ * 元素按顺序存放在多个数组分段中，当前分段写满后新建一个容量翻倍的分段继续写入，扩容时不会拷贝已有的元素。
+ * 数据量已知时，首个分段的容量即为数据量，此时所有元素都在同一个分段中，排序等操作可以直接在分段上原地完成。
+ * <p/>
+ * 非线程安全。
+ *
+ * @param <E> 元素类型
+ * @author oyealex
+ * @since 2023-06-23
+ */
+final class SpinedBuffer<E> implements Consumer<E> {
+    /** 数据量未知时首个分段的容量 */
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    /** 分段数组的初始容量 */
+    private static final int MIN_SPINE_CAPACITY = 8;
+
+    /** 所有分段 */
+    private Object[][] segments;
+
+    /** 每个分段中的元素数量，通过{@link #appendAll(SpinedBuffer)}拼接之后，中间的分段也可能没有写满 */
+    private int[] segmentCounts;
+
+    /** 分段的数量 */
+    private int segmentNum;
+
+    /** 元素总数 */
+    private long count;
+
+    SpinedBuffer() {
+        this(-1);
+    }
+
+    /**
+     * 以预期的元素数量构造缓存。
+     *
+     * @param expectedSize 预期的元素数量，-1表示未知
+     */
+    SpinedBuffer(long expectedSize) {
+        int capacity = expectedSize >= 0 && expectedSize < MAX_ARRAY_LENGTH ? (int) expectedSize :
+            MIN_SEGMENT_CAPACITY;
+        segments = new Object[MIN_SPINE_CAPACITY][];
+        segmentCounts = new int[MIN_SPINE_CAPACITY];
+        segments[0] = new Object[capacity];
+        segmentNum = 1;
+    }
+
+    @Override
+    public void accept(E value) {
+        int last = segmentNum - 1;
+        Object[] segment = segments[last];
+        int segmentCount = segmentCounts[last];
+        if (segmentCount == segment.length) {
+            segment = addSegment(segment.length);
+            last++;
+            segmentCount = 0;
+        }
+        segment[segmentCount] = value;
+        segmentCounts[last] = segmentCount + 1;
+        count++;
+    }
+
+    private Object[] addSegment(int lastCapacity) {
+        if (segmentNum == segments.length) {
+            segments = Arrays.copyOf(segments, segmentNum << 1);
+            segmentCounts = Arrays.copyOf(segmentCounts, segmentNum << 1);
+        }
+        int capacity = (int) Math.min(Math.max((long) lastCapacity << 1, MIN_SEGMENT_CAPACITY), MAX_ARRAY_LENGTH);
+        Object[] segment = new Object[capacity];
+        segments[segmentNum++] = segment;
+        return segment;
+    }
+
+    /**
+     * 将另一个缓存的所有分段追加到此缓存的末尾，不会拷贝元素，追加之后不能再使用另一个缓存。
+     *
+     * @param other 另一个缓存
+     */
+    void appendAll(SpinedBuffer<? extends E> other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            segments = other.segments;
+            segmentCounts = other.segmentCounts;
+            segmentNum = other.segmentNum;
+            count = other.count;
+            return;
+        }
+        int newSegmentNum = segmentNum + other.segmentNum;
+        if (newSegmentNum > segments.length) {
+            int capacity = Math.max(segments.length << 1, newSegmentNum);
+            segments = Arrays.copyOf(segments, capacity);
+            segmentCounts = Arrays.copyOf(segmentCounts, capacity);
+        }
+        System.arraycopy(other.segments, 0, segments, segmentNum, other.segmentNum);
+        System.arraycopy(other.segmentCounts, 0, segmentCounts, segmentNum, other.segmentNum);
+        segmentNum = newSegmentNum;
+        count += other.count;
+    }
+
+    /**
+     * 获取元素数量。
+     *
+     * @return 元素数量
+     */
+    long count() {
+        return count;
+    }
+
+    /**
+     * 按顺序访问所有元素。
+     *
+     * @param action 访问方法
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<? super E> action) {
+        for (int i = 0; i < segmentNum; i++) {
+            Object[] segment = segments[i];
+            for (int j = 0, segmentCount = segmentCounts[i]; j < segmentCount; j++) {
+                action.accept((E) segment[j]);
+            }
+        }
+    }
+
+    /**
+     * 按顺序访问元素，每次访问之前检查是否需要停止。
+     *
+     * @param action 访问方法
+     * @param stopCondition 停止条件，返回{@code true}时停止访问
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<? super E> action, BooleanSupplier stopCondition) {
+        for (int i = 0; i < segmentNum; i++) {
+            Object[] segment = segments[i];
+            for (int j = 0, segmentCount = segmentCounts[i]; j < segmentCount; j++) {
+                if (stopCondition.getAsBoolean()) {
+                    return;
+                }
+                action.accept((E) segment[j]);
+            }
+        }
+    }
+
+    /**
+     * 按逆序访问元素，每次访问之前检查是否需要停止。
+     *
+     * @param action 访问方法
+     * @param stopCondition 停止条件，返回{@code true}时停止访问
+     */
+    @SuppressWarnings("unchecked")
+    void forEachReversed(Consumer<? super E> action, BooleanSupplier stopCondition) {
+        for (int i = segmentNum - 1; i >= 0; i--) {
+            Object[] segment = segments[i];
+            for (int j = segmentCounts[i] - 1; j >= 0; j--) {
+                if (stopCondition.getAsBoolean()) {
+                    return;
+                }
+                action.accept((E) segment[j]);
+            }
+        }
+    }
+
+    /**
+     * 使用给定的比较器对元素进行稳定排序。
+     * <p/>
+     * 如果元素都在同一个分段中，则直接在分段上排序，否则先合并为一个分段再排序。
+     *
+     * @param comparator 比较器
+     */
+    @SuppressWarnings("unchecked")
+    void sort(Comparator<? super E> comparator) {
+        Arrays.sort((E[]) compact(), 0, (int) count, comparator);
+    }
+
+    /**
+     * 使用给定的比较器对元素进行并行的稳定排序，排序基于{@link Arrays#parallelSort(Object[], int, int, Comparator)}。
+     *
+     * @param comparator 比较器
+     */
+    @SuppressWarnings("unchecked")
+    void parallelSort(Comparator<? super E> comparator) {
+        Arrays.parallelSort((E[]) compact(), 0, (int) count, comparator);
+    }
+
+    /**
+     * 随机打乱元素的顺序。
+     *
+     * @param random 随机数生成器
+     */
+    void shuffle(Random random) {
+        Object[] elements = compact();
+        int size = (int) count;
+        for (int index = 0; index < size; index++) {
+            int swapIndex = index + random.nextInt(size - index);
+            Object value = elements[index];
+            elements[index] = elements[swapIndex];
+            elements[swapIndex] = value;
+        }
+    }
+
+    /**
+     * 将所有元素合并到一个数组中。
+     * <p/>
+     * 返回的数组即为此缓存唯一的分段，长度可能大于元素数量，修改数组会影响此缓存。
+     *
+     * @return 包含所有元素的数组
+     */
+    Object[] compact() {
+        if (segmentNum == 1) {
+            return segments[0];
+        }
+        MiscUtil.checkArraySize(count);
+        Object[] elements = new Object[(int) count];
+        int index = 0;
+        for (int i = 0; i < segmentNum; i++) {
+            System.arraycopy(segments[i], 0, elements, index, segmentCounts[i]);
+            index += segmentCounts[i];
+        }
+        Arrays.fill(segments, 1, segmentNum, null);
+        segments[0] = elements;
+        segmentCounts[0] = elements.length;
+        segmentNum = 1;
+        return elements;
+    }
+
+    /**
+     * 获取按顺序访问元素的拆分器，拆分时优先在分段的边界拆分。
+     *
+     * @return 拆分器
+     */
+    Spliterator<E> spliterator() {
+        return new SegmentSpliterator(0, 0, segmentNum - 1, segmentCounts[segmentNum - 1]);
+    }
+
+    /**
+     * 按分段访问元素的拆分器，访问范围为从{@code [segmentIndex][index]}（含）到{@code [lastSegmentIndex][lastFence]}（不含）。
+     */
+    private final class SegmentSpliterator implements Spliterator<E> {
+        private int segmentIndex;
+
+        private int index;
+
+        private final int lastSegmentIndex;
+
+        private final int lastFence;
+
+        SegmentSpliterator(int segmentIndex, int index, int lastSegmentIndex, int lastFence) {
+            this.segmentIndex = segmentIndex;
+            this.index = index;
+            this.lastSegmentIndex = lastSegmentIndex;
+            this.lastFence = lastFence;
+        }
+
+        private int fenceOf(int segment) {
+            return segment == lastSegmentIndex ? lastFence : segmentCounts[segment];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            while (segmentIndex <= lastSegmentIndex) {
+                if (index < fenceOf(segmentIndex)) {
+                    action.accept((E) segments[segmentIndex][index++]);
+                    return true;
+                }
+                segmentIndex++;
+                index = 0;
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            for (; segmentIndex <= lastSegmentIndex; segmentIndex++, index = 0) {
+                Object[] segment = segments[segmentIndex];
+                for (int fence = fenceOf(segmentIndex); index < fence; index++) {
+                    action.accept((E) segment[index]);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            if (segmentIndex < lastSegmentIndex) {
+                // 剩余多个分段时在分段的边界拆分，前半部分交给新的拆分器
+                int splitSegment = segmentIndex + (lastSegmentIndex - segmentIndex) / 2;
+                SegmentSpliterator prefix = new SegmentSpliterator(segmentIndex, index, splitSegment,
+                    segmentCounts[splitSegment]);
+                segmentIndex = splitSegment + 1;
+                index = 0;
+                return prefix;
+            }
+            if (segmentIndex == lastSegmentIndex) {
+                int mid = (index + lastFence) >>> 1;
+                if (mid > index) {
+                    SegmentSpliterator prefix = new SegmentSpliterator(segmentIndex, index, segmentIndex, mid);
+                    index = mid;
+                    return prefix;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            if (segmentIndex > lastSegmentIndex) {
+                return 0;
+            }
+            long size = -index;
+            for (int i = segmentIndex; i <= lastSegmentIndex; i++) {
+                size += fenceOf(i);
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+}
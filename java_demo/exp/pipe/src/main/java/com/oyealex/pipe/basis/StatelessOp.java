@@ -0,0 +1,96 @@
+package com.oyealex.pipe.basis;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.oyealex.pipe.flag.PipeFlag.IS_NONNULL;
+import static com.oyealex.pipe.flag.PipeFlag.NONNULL;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_DISTINCT;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_NONNULL;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_REVERSED_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SIZED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SORTED;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 无状态的流水线节点，节点对每个元素的处理只依赖元素自身，与其他元素以及元素的位置无关。
+ * <p/>
+ * 并行求值时，连续的无状态节点可以在数据源的各个分段上独立执行。
+ *
+ * @author oyealex
+ * @since 2023-06-20
+ */
+abstract class StatelessOp<IN, OUT> extends RefPipe<IN, OUT> {
+    StatelessOp(RefPipe<?, ? extends IN> prePipe, int opFlag) {
+        super(prePipe, opFlag);
+    }
+
+    @Override
+    boolean isStateless() {
+        return true;
+    }
+
+    /**
+     * 过滤节点，紧随其后的过滤节点会与此节点融合为一个节点，融合后的节点以组合的条件过滤元素，
+     * 从而减少操作的封装层数以及元素在操作之间的传递次数。
+     */
+    static class Filter<T> extends StatelessOp<T, T> {
+        private final Predicate<? super T> predicate;
+
+        private final int opFlag;
+
+        Filter(RefPipe<?, ? extends T> prePipe, Predicate<? super T> predicate, int opFlag) {
+            super(prePipe, opFlag);
+            this.predicate = predicate;
+            this.opFlag = opFlag;
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<T> nextOp) {
+            return SimpleOps.takeIfOp(nextOp, predicate);
+        }
+
+        @Override
+        public Pipe<T> takeIf(Predicate<? super T> predicate) {
+            return fuse(requireNonNull(predicate), NOT_SIZED);
+        }
+
+        @Override
+        public Pipe<T> dropNull() {
+            return isFlagSet(NONNULL) ? this : fuse(Objects::nonNull, NOT_SIZED | IS_NONNULL);
+        }
+
+        private Pipe<T> fuse(Predicate<? super T> nextPredicate, int nextOpFlag) {
+            Predicate<? super T> firstPredicate = predicate;
+            return new Filter<T>(prePipe, value -> firstPredicate.test(value) && nextPredicate.test(value),
+                opFlag | nextOpFlag);
+        }
+    }
+
+    /**
+     * 映射节点，紧随其后的映射节点会与此节点融合为一个节点，融合后的节点以组合的映射方法映射元素。
+     */
+    static class Mapper<IN, OUT> extends StatelessOp<IN, OUT> {
+        static final int OP_FLAG = NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | NOT_NONNULL;
+
+        private final Function<? super IN, ? extends OUT> mapper;
+
+        Mapper(RefPipe<?, ? extends IN> prePipe, Function<? super IN, ? extends OUT> mapper) {
+            super(prePipe, OP_FLAG);
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected Op<IN> wrapOp(Op<OUT> nextOp) {
+            return SimpleOps.mapOp(nextOp, mapper);
+        }
+
+        @Override
+        public <R> Pipe<R> map(Function<? super OUT, ? extends R> nextMapper) {
+            requireNonNull(nextMapper);
+            Function<? super IN, ? extends OUT> firstMapper = mapper;
+            return new Mapper<IN, R>(prePipe, value -> nextMapper.apply(firstMapper.apply(value)));
+        }
+    }
+}
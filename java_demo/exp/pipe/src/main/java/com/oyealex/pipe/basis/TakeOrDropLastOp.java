@@ -1,6 +1,5 @@
 package com.oyealex.pipe.basis;
 
-import java.util.ArrayList;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -31,7 +30,11 @@ class TakeOrDropLastOp<T> extends RefPipe<T, T> {
         return new ChainedOp<T, T>(nextOp) {
             private long countBeforeLast;
 
-            private ArrayList<T> buf;
+            /** 元素数量尚未达到{@code count}时，先缓存在多段数组中，避免{@code count}很大时预先分配过大的数组 */
+            private SpinedBuffer<T> buf;
+
+            /** 元素数量达到{@code count}之后，以环形数组缓存最后{@code count}个元素 */
+            private Object[] ring;
 
             private int startIndex;
 
@@ -42,9 +45,15 @@ class TakeOrDropLastOp<T> extends RefPipe<T, T> {
             private Supplier<Boolean> shortCircuitJudge;
 
             @Override
-            public void begin(long size) {
+            public void begin(long size, long minSize, long maxSize) {
                 if (size < 0) {
-                    buf = new ArrayList<>(count);
+                    if (isTake) {
+                        nextOp.begin(-1, Math.min(minSize, count), maxSize < 0 ? count : Math.min(maxSize, count));
+                    } else {
+                        nextOp.begin(-1, Math.max(0, minSize - count), maxSize < 0 ? -1 : Math.max(0, maxSize - count));
+                    }
+                    buf = new SpinedBuffer<>();
+                    ring = null;
                     startIndex = 0;
                     acceptAction = this::acceptOnUnsized;
                     shortCircuitJudge = nextOp::canShortCircuit;
@@ -90,36 +99,48 @@ class TakeOrDropLastOp<T> extends RefPipe<T, T> {
                 return (!isTake && countBeforeLast <= 0) || nextOp.canShortCircuit();
             }
 
+            @SuppressWarnings("unchecked")
             private void acceptOnUnsized(T value) {
-                if (buf.size() < count) {
-                    buf.add(value);
+                if (ring == null) {
+                    buf.accept(value);
+                    if (buf.count() == count) {
+                        ring = buf.compact();
+                        buf = null;
+                    }
                 } else {
                     if (!isTake) {
-                        nextOp.accept(buf.get(startIndex));
+                        nextOp.accept((T) ring[startIndex]);
                     }
-                    buf.set(startIndex, value);
+                    ring[startIndex] = value;
                     if (++startIndex >= count) {
                         startIndex -= count;
                     }
                 }
             }
 
+            @SuppressWarnings("unchecked")
             private void endOnUnsized() {
-                ArrayList<T> data = buf;
-                buf = null;
-                if (isTake) {
-                    for (int i = startIndex; i < data.size(); i++) {
-                        if (nextOp.canShortCircuit()) {
-                            return;
-                        }
-                        nextOp.accept(data.get(i));
+                if (!isTake) {
+                    return;
+                }
+                if (ring == null) {
+                    buf.forEach(nextOp, nextOp::canShortCircuit);
+                    buf = null;
+                    return;
+                }
+                Object[] data = ring;
+                ring = null;
+                for (int i = startIndex; i < count; i++) {
+                    if (nextOp.canShortCircuit()) {
+                        return;
                     }
-                    for (int i = 0; i < startIndex; i++) {
-                        if (nextOp.canShortCircuit()) {
-                            return;
-                        }
-                        nextOp.accept(data.get(i));
+                    nextOp.accept((T) data[i]);
+                }
+                for (int i = 0; i < startIndex; i++) {
+                    if (nextOp.canShortCircuit()) {
+                        return;
                     }
+                    nextOp.accept((T) data[i]);
                 }
             }
         };
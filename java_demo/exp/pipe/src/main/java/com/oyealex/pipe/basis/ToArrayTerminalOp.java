@@ -1,7 +1,5 @@
 package com.oyealex.pipe.basis;
 
-import com.oyealex.pipe.utils.MiscUtil;
-
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -37,9 +35,9 @@ class ToArrayTerminalOp<T> implements TerminalOp<T, T[]> {
     }
 
     @Override
-    public void begin(long size) {
-        MiscUtil.checkArraySize(size);
-        array = arrayFactory.apply(size >= 0 ? (int) size : calcArrayCapacity(0));
+    public void begin(long size, long minSize, long maxSize) {
+        int capacity = Op.initCapacity(size, minSize, maxSize);
+        array = arrayFactory.apply(capacity >= 0 ? capacity : calcArrayCapacity(0));
         fullArrays = new ArrayList<>();
         fullArrays.add(array);
         index = 0;
@@ -125,8 +125,8 @@ abstract class WhileOp<T> extends RefPipe<T, T> {
         }
 
         @Override
-        public void begin(long size) {
-            nextOp.begin(-1);
+        public void begin(long size, long minSize, long maxSize) {
+            nextOp.begin(-1, 0, maxSize);
         }
     }
 }
@@ -0,0 +1,235 @@
+package com.oyealex.pipe.basis;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.ToLongFunction;
+
+import static com.oyealex.pipe.flag.PipeFlag.EMPTY;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_DISTINCT;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_REVERSED_SORTED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SIZED;
+import static com.oyealex.pipe.flag.PipeFlag.NOT_SORTED;
+
+/**
+ * 窗口节点，将上游元素缓存在环形缓冲区中，以缓冲区的只读视图作为窗口向下游传递。
+ * <p/>
+ * 所有窗口共享同一个缓冲区，传递窗口时不会拷贝元素，窗口只在下游处理它的期间有效，下一个窗口到来时其内容即发生变化。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+abstract class WindowOp<T> extends RefPipe<T, List<T>> {
+    private WindowOp(RefPipe<?, ? extends T> prePipe, int opFlag) {
+        super(prePipe, NOT_SORTED | NOT_REVERSED_SORTED | NOT_DISTINCT | opFlag);
+    }
+
+    /**
+     * 固定数量的窗口，每个窗口包含{@code size}个元素，相邻窗口的起点相差{@code step}个元素，不足{@code size}个元素的窗口不会输出。
+     */
+    static class Sized<T> extends WindowOp<T> {
+        private final int size;
+
+        private final int step;
+
+        Sized(RefPipe<?, ? extends T> prePipe, int size, int step) {
+            super(prePipe, NOT_SIZED);
+            this.size = size;
+            this.step = step;
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<List<T>> nextOp) {
+            return new ChainedOp<T, List<T>>(nextOp) {
+                private RingWindow<T> window;
+
+                /** 步长大于窗口大小时，两个窗口之间需要跳过的元素数量 */
+                private int skipCount;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    int capacity = Op.initCapacity(size, minSize, maxSize);
+                    window = new RingWindow<>(capacity < 0 ? Sized.this.size : Math.min(capacity, Sized.this.size));
+                    skipCount = 0;
+                    nextOp.begin(-1);
+                }
+
+                @Override
+                public void accept(T value) {
+                    if (skipCount > 0) {
+                        skipCount--;
+                        return;
+                    }
+                    window.append(value);
+                    if (window.size() < size) {
+                        return;
+                    }
+                    nextOp.accept(window);
+                    if (step >= size) {
+                        window.reset();
+                        skipCount = step - size;
+                    } else {
+                        window.dropFirst(step);
+                    }
+                }
+
+                @Override
+                public void end() {
+                    window = null;
+                    nextOp.end();
+                }
+            };
+        }
+    }
+
+    /**
+     * 时间滑动窗口，每个元素流入时输出以此元素结尾、时间跨度小于{@code duration}的窗口，要求元素的时间戳单调不减。
+     */
+    static class Timed<T> extends WindowOp<T> {
+        private final ToLongFunction<? super T> timestampExtractor;
+
+        private final long duration;
+
+        Timed(RefPipe<?, ? extends T> prePipe, ToLongFunction<? super T> timestampExtractor, long duration) {
+            // 每个元素输出一个窗口，窗口数量与元素数量相同
+            super(prePipe, EMPTY);
+            this.timestampExtractor = timestampExtractor;
+            this.duration = duration;
+        }
+
+        @Override
+        protected Op<T> wrapOp(Op<List<T>> nextOp) {
+            return new ChainedOp<T, List<T>>(nextOp) {
+                private RingWindow<T> window;
+
+                /** 窗口中元素的时间戳，与窗口共享相同的环形下标 */
+                private long[] timestamps;
+
+                private long lastTimestamp;
+
+                @Override
+                public void begin(long size, long minSize, long maxSize) {
+                    window = new RingWindow<>(RingWindow.MIN_CAPACITY);
+                    timestamps = new long[RingWindow.MIN_CAPACITY];
+                    nextOp.begin(size, minSize, maxSize);
+                }
+
+                @Override
+                public void accept(T value) {
+                    long timestamp = timestampExtractor.applyAsLong(value);
+                    if (!window.isEmpty() && timestamp < lastTimestamp) {
+                        throw new IllegalStateException(
+                            "timestamp cannot decrease, previous: " + lastTimestamp + ", current: " + timestamp);
+                    }
+                    lastTimestamp = timestamp;
+                    int expired = 0;
+                    while (expired < window.size() && timestamp - timestamps[window.indexOf(expired)] >= duration) {
+                        expired++;
+                    }
+                    window.dropFirst(expired);
+                    if (window.isFull()) {
+                        timestamps = window.grow(timestamps);
+                    }
+                    timestamps[window.indexOf(window.size())] = timestamp;
+                    window.append(value);
+                    nextOp.accept(window);
+                }
+
+                @Override
+                public void end() {
+                    window = null;
+                    timestamps = null;
+                    nextOp.end();
+                }
+            };
+        }
+    }
+
+    /**
+     * 基于环形缓冲区的只读列表，作为窗口的视图向下游传递。
+     */
+    static final class RingWindow<T> extends AbstractList<T> implements RandomAccess {
+        static final int MIN_CAPACITY = 16;
+
+        private Object[] elements;
+
+        /** 第一个元素的下标 */
+        private int head;
+
+        private int count;
+
+        RingWindow(int capacity) {
+            this.elements = new Object[Math.max(capacity, 1)];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("index: " + index + ", size: " + count);
+            }
+            return (T) elements[indexOf(index)];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        /**
+         * 获取窗口中第{@code index}个元素在环形缓冲区中的下标。
+         */
+        int indexOf(int index) {
+            int position = head + index;
+            return position >= elements.length ? position - elements.length : position;
+        }
+
+        boolean isFull() {
+            return count == elements.length;
+        }
+
+        void append(T value) {
+            if (isFull()) {
+                grow(null);
+            }
+            elements[indexOf(count++)] = value;
+        }
+
+        void dropFirst(int removeCount) {
+            for (int i = 0; i < removeCount; i++) {
+                elements[head] = null;
+                head = indexOf(1);
+            }
+            count -= removeCount;
+        }
+
+        void reset() {
+            Arrays.fill(elements, null);
+            head = 0;
+            count = 0;
+        }
+
+        /**
+         * 将环形缓冲区扩容为原来的两倍，同时按照相同的环形下标迁移伴随的数组{@code companion}。
+         *
+         * @param companion 与缓冲区共享环形下标的数组，可以为{@code null}
+         * @return 迁移之后的伴随数组
+         */
+        long[] grow(long[] companion) {
+            int capacity = elements.length;
+            Object[] newElements = new Object[capacity << 1];
+            long[] newCompanion = companion == null ? null : new long[capacity << 1];
+            for (int i = 0; i < count; i++) {
+                int index = indexOf(i);
+                newElements[i] = elements[index];
+                if (companion != null) {
+                    newCompanion[i] = companion[index];
+                }
+            }
+            elements = newElements;
+            head = 0;
+            return newCompanion;
+        }
+    }
+}
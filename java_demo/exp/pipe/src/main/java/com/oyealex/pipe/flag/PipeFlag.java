@@ -32,7 +32,12 @@ public enum PipeFlag { // TODO 2023-05-20 01:02 重新审视所有标记使用
      */
     SORTED(1),
 
-    // offset = 2 for Spliterator.ORDERED
+    /**
+     * 标记流水线中的数据是否存在确定的遇到顺序，并行求值时需要按照此顺序合并各个分段的结果
+     *
+     * @see Spliterator#ORDERED
+     */
+    ORDERED(2),
 
     /**
      * 标记原始数据源的数据数量是否准确
@@ -78,6 +83,12 @@ public enum PipeFlag { // TODO 2023-05-20 01:02 重新审视所有标记使用
     /** 数据非自然有序 */
     public static final int NOT_SORTED = SORTED.clearBit;
 
+    /** 数据存在确定的遇到顺序 */
+    public static final int IS_ORDERED = ORDERED.setBit;
+
+    /** 数据不存在确定的遇到顺序 */
+    public static final int NOT_ORDERED = ORDERED.clearBit;
+
     /** 数据数据有界 */
     public static final int IS_SIZED = SIZED.setBit;
 
@@ -95,8 +106,8 @@ public enum PipeFlag { // TODO 2023-05-20 01:02 重新审视所有标记使用
 
     public static final int NOT_REVERSED_SORTED = REVERSED_SORTED.clearBit;
 
-    public static final int SPLIT_MASK = Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.SIZED |
-        Spliterator.NONNULL;
+    public static final int SPLIT_MASK = Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED |
+        Spliterator.SIZED | Spliterator.NONNULL;
 
     private static final int SET_BIT = 0B01;
 
@@ -0,0 +1,13 @@
+package com.oyealex.pipe.functional;
+
+/**
+ * 接收两个参数的返回基本类型int的函数接口，其中第一个参数为基本类型long
+ *
+ * @param <T> 第二个参数的类型
+ * @author oyealex
+ * @since 2023-06-21
+ */
+@FunctionalInterface
+public interface LongBiToIntFunction<T> {
+    int applyAsInt(long longValue, T value);
+}
@@ -0,0 +1,12 @@
+package com.oyealex.pipe.functional;
+
+/**
+ * 接收两个参数的返回布尔值的函数接口，第一个参数为基本类型long，第二个参数为基本类型double
+ *
+ * @author oyealex
+ * @since 2023-06-21
+ */
+@FunctionalInterface
+public interface LongDoublePredicate {
+    boolean test(long longVar, double doubleVar);
+}
@@ -0,0 +1,17 @@
+package com.oyealex.pipe.profile;
+
+/**
+ * 流水线运行报告的接收方，可以将报告输出到日志或者对接到指标系统。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+@FunctionalInterface
+public interface MetricsSink {
+    /**
+     * 接收流水线一次求值的运行报告，在求值结束后调用，每次求值最多调用一次。
+     *
+     * @param profile 运行报告
+     */
+    void report(PipeProfile profile);
+}
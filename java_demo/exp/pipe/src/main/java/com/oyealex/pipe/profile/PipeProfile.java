@@ -0,0 +1,53 @@
+package com.oyealex.pipe.profile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 流水线一次求值的运行报告，按照从上游到下游的顺序包含每个节点的运行指标。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+public final class PipeProfile {
+    private final List<StageMetrics> stages;
+
+    public PipeProfile(List<StageMetrics> stages) {
+        this.stages = Collections.unmodifiableList(new ArrayList<>(stages));
+    }
+
+    /**
+     * 获取所有节点的运行指标，按照从上游到下游的顺序排列。
+     *
+     * @return 不可修改的节点运行指标列表
+     */
+    public List<StageMetrics> getStages() {
+        return stages;
+    }
+
+    /**
+     * 获取自身耗时最多的节点。
+     *
+     * @return 自身耗时最多的节点，没有任何节点时返回{@code null}
+     */
+    public StageMetrics getSlowestStage() {
+        StageMetrics slowest = null;
+        for (StageMetrics stage : stages) {
+            if (slowest == null || stage.getSelfNanos() > slowest.getSelfNanos()) {
+                slowest = stage;
+            }
+        }
+        return slowest;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(System.lineSeparator());
+        for (StageMetrics stage : stages) {
+            joiner.add(stage.toString());
+        }
+        return joiner.toString();
+    }
+}
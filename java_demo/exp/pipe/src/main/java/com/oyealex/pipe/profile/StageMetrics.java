@@ -0,0 +1,85 @@
+package com.oyealex.pipe.profile;
+
+/**
+ * 流水线中单个节点的运行指标。
+ * <p/>
+ * 时间均以纳秒计：{@link #getTotalNanos()}为节点及其所有下游处理元素的总耗时，{@link #getSelfNanos()}为扣除下游耗时之后节点自身的耗时。
+ * 并行求值时为所有数据分段的累计值。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+public final class StageMetrics {
+    private final String stage;
+
+    private final long elementsIn;
+
+    private final long elementsOut;
+
+    private final long totalNanos;
+
+    private final long selfNanos;
+
+    private final long shortCircuitAt;
+
+    private final long bufferPeak;
+
+    /**
+     * 构造节点的运行指标。
+     *
+     * @param stage 节点名称
+     * @param elementsIn 流入节点的元素数量
+     * @param elementsOut 从节点流出的元素数量
+     * @param totalNanos 节点及其下游的总耗时
+     * @param selfNanos 节点自身的耗时
+     * @param shortCircuitAt 节点请求短路时已流入的元素数量，-1表示没有请求短路
+     * @param bufferPeak 节点缓存元素数量的峰值，-1表示节点不缓存元素
+     */
+    public StageMetrics(String stage, long elementsIn, long elementsOut, long totalNanos, long selfNanos,
+        long shortCircuitAt, long bufferPeak) {
+        this.stage = stage;
+        this.elementsIn = elementsIn;
+        this.elementsOut = elementsOut;
+        this.totalNanos = totalNanos;
+        this.selfNanos = selfNanos;
+        this.shortCircuitAt = shortCircuitAt;
+        this.bufferPeak = bufferPeak;
+    }
+
+    /** 节点名称，为节点实现类在包内的名称，例如{@code SortOp.Normal} */
+    public String getStage() {
+        return stage;
+    }
+
+    public long getElementsIn() {
+        return elementsIn;
+    }
+
+    public long getElementsOut() {
+        return elementsOut;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getSelfNanos() {
+        return selfNanos;
+    }
+
+    /** 节点请求短路时已流入的元素数量，-1表示没有请求短路 */
+    public long getShortCircuitAt() {
+        return shortCircuitAt;
+    }
+
+    /** 节点缓存元素数量的峰值，-1表示节点不缓存元素 */
+    public long getBufferPeak() {
+        return bufferPeak;
+    }
+
+    @Override
+    public String toString() {
+        return stage + "{in=" + elementsIn + ", out=" + elementsOut + ", totalNanos=" + totalNanos + ", selfNanos=" +
+            selfNanos + ", shortCircuitAt=" + shortCircuitAt + ", bufferPeak=" + bufferPeak + "}";
+    }
+}
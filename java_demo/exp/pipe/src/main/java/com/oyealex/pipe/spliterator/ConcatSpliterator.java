@@ -1,103 +1,144 @@
 package com.oyealex.pipe.spliterator;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Spliterator;
 import java.util.function.Consumer;
 
 /**
- * 将两个拆分器拼接起来。
+ * 将多个拆分器按顺序拼接起来。
+ * <p/>
+ * 所有拆分器平铺在同一个数组中，无论拼接多少个拆分器，遍历时都只会访问当前的拆分器，不会因为拼接层数过深而导致栈溢出。
+ * 拼接的拆分器本身也是拼接拆分器时，会直接展开其中剩余的拆分器。拆分时从剩余拆分器的中间拆分，拆分得到的两部分共享同一个数组。
  *
  * @author oyealex
  * @since 2023-05-06
  */
-class ConcatSpliterator<T, S extends Spliterator<T>> implements Spliterator<T> {
-    /** 首先使用的拆分器 */
-    private S head;
+class ConcatSpliterator<T> implements Spliterator<T> {
+    /** 所有拆分器，访问范围为{@code [index, fence)} */
+    private final Spliterator<? extends T>[] spliterators;
 
-    /** 随后使用的拆分器 */
-    private S tail;
+    /** 当前使用的拆分器的下标 */
+    private int index;
+
+    private final int fence;
 
     /** 标记在拆分之前，此组合拆分器是否无边界 */
     private final boolean isUnSizedBeforeSplit;
 
-    ConcatSpliterator(S head, S tail) {
-        this.head = head;
-        this.tail = tail;
-        this.isUnSizedBeforeSplit = head.estimateSize() + tail.estimateSize() < 0;
+    private ConcatSpliterator(Spliterator<? extends T>[] spliterators, int index, int fence,
+        boolean isUnSizedBeforeSplit) {
+        this.spliterators = spliterators;
+        this.index = index;
+        this.fence = fence;
+        this.isUnSizedBeforeSplit = isUnSizedBeforeSplit;
+    }
+
+    /**
+     * 拼接给定的拆分器。
+     *
+     * @param spliterators 需要拼接的拆分器，不能为{@code null}
+     * @param <T> 元素类型
+     * @return 拼接后的拆分器
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> ConcatSpliterator<T> of(List<? extends Spliterator<? extends T>> spliterators) {
+        List<Spliterator<? extends T>> flatten = new ArrayList<>(spliterators.size());
+        for (Spliterator<? extends T> spliterator : spliterators) {
+            if (spliterator instanceof ConcatSpliterator) {
+                ConcatSpliterator<? extends T> concat = (ConcatSpliterator<? extends T>) spliterator;
+                for (int i = concat.index; i < concat.fence; i++) {
+                    flatten.add(concat.spliterators[i]);
+                }
+            } else {
+                flatten.add(spliterator);
+            }
+        }
+        Spliterator<? extends T>[] array = flatten.toArray(new Spliterator[0]);
+        return new ConcatSpliterator<>(array, 0, array.length, sumSize(array, 0, array.length) < 0);
+    }
+
+    private static long sumSize(Spliterator<?>[] spliterators, int from, int to) {
+        long size = 0L;
+        for (int i = from; i < to; i++) {
+            size += spliterators[i].estimateSize();
+            if (size < 0) {
+                return -1L;
+            }
+        }
+        return size;
     }
 
     @Override
     @SuppressWarnings("unchecked")
-    public S trySplit() {
-        if (head != null) {
-            S result = head;
-            head = null;
-            return result;
+    public Spliterator<T> trySplit() {
+        int remaining = fence - index;
+        if (remaining > 1) {
+            // 在剩余拆分器的中间拆分，前半部分交给新的拆分器
+            int mid = index + (remaining >>> 1);
+            Spliterator<T> prefix;
+            if (mid - index == 1) {
+                prefix = (Spliterator<T>) spliterators[index];
+                spliterators[index] = null;
+            } else {
+                prefix = new ConcatSpliterator<>(spliterators, index, mid, isUnSizedBeforeSplit);
+            }
+            index = mid;
+            return prefix;
         }
-        if (tail != null) {
-            return (S) tail.trySplit();
+        if (remaining == 1) {
+            return (Spliterator<T>) spliterators[index].trySplit();
         }
         return null;
     }
 
     @Override
     public boolean tryAdvance(Consumer<? super T> consumer) {
-        if (head != null) {
-            if (head.tryAdvance(consumer)) {
-                return true;
-            } else {
-                head = null;
-            }
-        }
-        if (tail != null) {
-            if (tail.tryAdvance(consumer)) {
+        while (index < fence) {
+            if (spliterators[index].tryAdvance(consumer)) {
                 return true;
-            } else {
-                tail = null;
             }
+            spliterators[index++] = null;
         }
         return false;
     }
 
     @Override
     public void forEachRemaining(Consumer<? super T> consumer) {
-        if (head != null) {
-            head.forEachRemaining(consumer);
-        }
-        if (tail != null) {
-            tail.forEachRemaining(consumer);
+        for (; index < fence; index++) {
+            spliterators[index].forEachRemaining(consumer);
+            spliterators[index] = null;
         }
     }
 
     @Override
     public long estimateSize() {
-        if (head != null) {
-            long size = head.estimateSize() + tail.estimateSize();
-            return (size >= 0) ? size : Long.MAX_VALUE;
-        }
-        if (tail != null) {
-            return tail.estimateSize();
-        }
-        return 0L;
+        long size = sumSize(spliterators, index, fence);
+        return size >= 0 ? size : Long.MAX_VALUE;
     }
 
     @Override
     public int characteristics() {
-        if (head != null) {
-            return head.characteristics() & tail.characteristics() &
-                ~(DISTINCT | SORTED | (isUnSizedBeforeSplit ? SIZED | SUBSIZED : 0));
+        if (fence - index == 1) {
+            return spliterators[index].characteristics();
         }
-        if (tail != null) {
-            return tail.characteristics();
+        if (index >= fence) {
+            return 0;
         }
-        return 0;
+        int characteristics = ~0;
+        for (int i = index; i < fence; i++) {
+            characteristics &= spliterators[i].characteristics();
+        }
+        return characteristics & ~(DISTINCT | SORTED | (isUnSizedBeforeSplit ? SIZED | SUBSIZED : 0));
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Comparator<? super T> getComparator() {
-        if (head != null) {
+        if (fence - index != 1) {
             throw new IllegalStateException();
         }
-        return tail.getComparator();
+        return (Comparator<? super T>) spliterators[index].getComparator();
     }
 }
@@ -0,0 +1,148 @@
+package com.oyealex.pipe.spliterator;
+
+import com.oyealex.pipe.assist.RecordDecoder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 基于内存映射文件的记录拆分器，记录之间以解码器给定的分隔符分隔。
+ * <p/>
+ * 拆分器负责文件中{@code [position, fence)}范围内的记录，范围的边界总是位于文件的起止处或者分隔符之后，因此每个记录都完整地属于一个拆分器。
+ * 拆分时从剩余范围的中间向后寻找分隔符，在分隔符之后拆分，拆分得到的两部分共享同一个文件通道，可以并行读取。
+ * <p/>
+ * 文件按照窗口逐段映射，单个记录超出窗口时会扩大窗口重新映射，记录直接从映射的缓冲区中解码，不经过额外的字符缓存。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+class MappedRecordSpliterator<T> implements Spliterator<T> {
+    /** 默认的映射窗口大小 */
+    private static final int WINDOW_SIZE = 1 << 24;
+
+    /** 剩余字节数小于此值时不再拆分 */
+    private static final long MIN_SPLIT_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+
+    private final RecordDecoder<? extends T> decoder;
+
+    private final byte delimiter;
+
+    /** 下一个记录的起始位置 */
+    private long position;
+
+    private final long fence;
+
+    /** 当前映射的窗口 */
+    private MappedByteBuffer window;
+
+    /** 当前窗口在文件中的起始位置 */
+    private long windowStart;
+
+    MappedRecordSpliterator(FileChannel channel, RecordDecoder<? extends T> decoder, long position, long fence) {
+        this.channel = channel;
+        this.decoder = decoder;
+        this.delimiter = decoder.delimiter();
+        this.position = position;
+        this.fence = fence;
+    }
+
+    private MappedByteBuffer map(long start, long size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size, fence - start));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private int indexOfDelimiter(MappedByteBuffer buffer, int from) {
+        for (int i = from, limit = buffer.limit(); i < limit; i++) {
+            if (buffer.get(i) == delimiter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (position >= fence) {
+            return false;
+        }
+        if (window == null || position >= windowStart + window.limit()) {
+            windowStart = position;
+            window = map(position, WINDOW_SIZE);
+        }
+        int from = (int) (position - windowStart);
+        int end = indexOfDelimiter(window, from);
+        while (end < 0 && windowStart + window.limit() < fence) {
+            // 记录超出了当前窗口，从记录的起始位置以更大的窗口重新映射
+            long size = Math.max((long) window.limit() - from, WINDOW_SIZE) << 1;
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("record is too large, position: " + position);
+            }
+            int searched = window.limit() - from;
+            windowStart = position;
+            window = map(position, size);
+            from = 0;
+            end = indexOfDelimiter(window, searched);
+        }
+        T value;
+        if (end < 0) {
+            // 文件末尾没有分隔符的最后一个记录
+            value = decoder.decode(window, from, window.limit() - from);
+            position = fence;
+        } else {
+            value = decoder.decode(window, from, end - from);
+            position = windowStart + end + 1;
+        }
+        action.accept(value);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        do { /*noop*/ } while (tryAdvance(action));
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        long remaining = fence - position;
+        if (remaining < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        long mid = position + (remaining >>> 1);
+        MappedByteBuffer probe = map(mid, WINDOW_SIZE);
+        int index = indexOfDelimiter(probe, 0);
+        if (index < 0) {
+            return null;
+        }
+        long split = mid + index + 1;
+        if (split >= fence) {
+            return null;
+        }
+        Spliterator<T> prefix = new MappedRecordSpliterator<>(channel, decoder, position, split);
+        position = split;
+        window = null;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+}
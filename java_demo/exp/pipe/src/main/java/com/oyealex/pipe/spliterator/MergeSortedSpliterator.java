@@ -0,0 +1,166 @@
+package com.oyealex.pipe.spliterator;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static com.oyealex.pipe.utils.MiscUtil.isStdNaturalOrder;
+
+/**
+ * 多路有序归并拆分器，将多个已按照同一比较器排序的拆分器归并为一个有序的拆分器。
+ * <p/>
+ * 每个拆分器预读一个元素，以小顶堆维护所有拆分器的预读元素，每次流出堆顶的元素后从对应的拆分器补充下一个元素，
+ * 每个元素的时间复杂度为{@code O(log k)}，{@code k}为拆分器的数量。比较结果相同的元素按照拆分器的先后顺序流出。
+ * <p/>
+ * 首次访问元素时才会从各个拆分器预读元素，之后每次只会从一个拆分器读取一个元素，因此可以在任意位置短路。
+ *
+ * @author oyealex
+ * @since 2023-06-25
+ */
+class MergeSortedSpliterator<T> implements Spliterator<T> {
+    private final Spliterator<? extends T>[] spliterators;
+
+    private final Comparator<? super T> comparator;
+
+    /** 每个拆分器预读的元素 */
+    private final Object[] heads;
+
+    /** 以拆分器下标表示的小顶堆 */
+    private final int[] heap;
+
+    private int heapSize;
+
+    private boolean started;
+
+    /** 正在读取元素的拆分器的下标 */
+    private int reading;
+
+    /** 将读取到的元素保存到预读位置的方法，复用以避免每次读取都构造新的方法对象 */
+    private final Consumer<T> headSaver;
+
+    MergeSortedSpliterator(Spliterator<? extends T>[] spliterators, Comparator<? super T> comparator) {
+        this.spliterators = spliterators;
+        this.comparator = comparator;
+        this.heads = new Object[spliterators.length];
+        this.heap = new int[spliterators.length];
+        this.headSaver = value -> heads[reading] = value;
+    }
+
+    private void start() {
+        started = true;
+        for (int i = 0; i < spliterators.length; i++) {
+            if (read(i)) {
+                siftUp(heapSize++, i);
+            }
+        }
+    }
+
+    private boolean read(int index) {
+        reading = index;
+        if (spliterators[index].tryAdvance(headSaver)) {
+            return true;
+        }
+        spliterators[index] = null;
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (!started) {
+            start();
+        }
+        if (heapSize == 0) {
+            return false;
+        }
+        int top = heap[0];
+        T value = (T) heads[top];
+        if (read(top)) {
+            siftDown(0, top);
+        } else {
+            heads[top] = null;
+            int last = heap[--heapSize];
+            if (heapSize > 0) {
+                siftDown(0, last);
+            }
+        }
+        action.accept(value);
+        return true;
+    }
+
+    /**
+     * 比较两个拆分器的预读元素，比较结果相同时下标小的拆分器在前。
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(int left, int right) {
+        int result = comparator.compare((T) heads[left], (T) heads[right]);
+        return result != 0 ? result : Integer.compare(left, right);
+    }
+
+    private void siftUp(int index, int spliteratorIndex) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compare(spliteratorIndex, heap[parent]) >= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = spliteratorIndex;
+    }
+
+    private void siftDown(int index, int spliteratorIndex) {
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+            if (right < heapSize && compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (compare(spliteratorIndex, heap[child]) <= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = spliteratorIndex;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = started ? heapSize : 0L;
+        for (Spliterator<? extends T> spliterator : spliterators) {
+            if (spliterator != null) {
+                size += spliterator.estimateSize();
+                if (size < 0) {
+                    return Long.MAX_VALUE;
+                }
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        int characteristics = SIZED | NONNULL | IMMUTABLE;
+        for (Spliterator<? extends T> spliterator : spliterators) {
+            if (spliterator != null) {
+                characteristics &= spliterator.characteristics();
+            }
+        }
+        if ((characteristics & SIZED) != 0 && estimateSize() == Long.MAX_VALUE) {
+            characteristics &= ~SIZED;
+        }
+        return characteristics | ORDERED | SORTED;
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        return isStdNaturalOrder(comparator) ? null : comparator;
+    }
+}
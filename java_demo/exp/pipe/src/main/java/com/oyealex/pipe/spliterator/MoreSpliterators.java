@@ -1,13 +1,20 @@
 package com.oyealex.pipe.spliterator;
 
+import com.oyealex.pipe.assist.RecordDecoder;
 import com.oyealex.pipe.utils.NoInstance;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 
+import static com.oyealex.pipe.utils.MiscUtil.naturalOrderIfNull;
 import static java.lang.Long.MAX_VALUE;
 import static java.util.Objects.requireNonNull;
 import static java.util.Spliterator.IMMUTABLE;
@@ -29,7 +36,50 @@ public final class MoreSpliterators extends NoInstance {
     }
 
     public static <T, S extends Spliterator<T>> Spliterator<T> concat(S head, S tail) {
-        return new ConcatSpliterator<>(head, tail);
+        return ConcatSpliterator.of(Arrays.asList(head, tail));
+    }
+
+    /**
+     * 按顺序拼接给定的拆分器，嵌套的拼接拆分器会被展开，无论拼接多少次，遍历的深度都不会增加。
+     *
+     * @param spliterators 需要拼接的拆分器。
+     * @param <T> 元素类型。
+     * @return 拼接后的拆分器。
+     */
+    public static <T> Spliterator<T> concat(List<? extends Spliterator<? extends T>> spliterators) {
+        return ConcatSpliterator.of(spliterators);
+    }
+
+    /**
+     * 将多个已按照给定比较器排序的拆分器归并为一个有序的拆分器，比较结果相同的元素按照拆分器的先后顺序流出。
+     *
+     * @param comparator 各个拆分器排序所使用的比较器，为{@code null}时使用自然顺序。
+     * @param spliterators 需要归并的拆分器。
+     * @param <T> 元素类型。
+     * @return 归并后的拆分器。
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Spliterator<T> mergeSorted(Comparator<? super T> comparator,
+        List<? extends Spliterator<? extends T>> spliterators) {
+        Spliterator<? extends T>[] array = spliterators.toArray(new Spliterator[0]);
+        for (Spliterator<? extends T> spliterator : array) {
+            requireNonNull(spliterator);
+        }
+        return new MergeSortedSpliterator<>(array, naturalOrderIfNull(comparator));
+    }
+
+    /**
+     * 基于内存映射文件构造记录拆分器，记录之间以解码器给定的分隔符分隔，拆分器可以在记录的边界处拆分。
+     *
+     * @param channel 可读的文件通道，由调用者负责关闭。
+     * @param decoder 记录解码器。
+     * @param <T> 记录类型。
+     * @return 记录拆分器。
+     * @throws IOException 获取文件大小失败时抛出。
+     */
+    public static <T> Spliterator<T> mappedRecords(FileChannel channel, RecordDecoder<? extends T> decoder)
+        throws IOException {
+        return new MappedRecordSpliterator<>(requireNonNull(channel), requireNonNull(decoder), 0L, channel.size());
     }
 
     public static <T> Spliterator<T> generate(Supplier<? extends T> supplier) {
@@ -0,0 +1,211 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.PipeTestFixture;
+import com.oyealex.pipe.assist.Tuple;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.oyealex.pipe.basis.Pipe.list;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 针对两元组流水线系列API的测试。
+ *
+ * @author oyealex
+ * @see Pipe#extendToTuple(Function, Function)
+ * @see Pipe#pairExtend(boolean)
+ * @see Pipe#combine(Pipe)
+ * @see Pipe#groupAndExtend(Function)
+ * @see BiPipe
+ * @since 2023-06-25
+ */
+class PipeBiPipeTest extends PipeTestFixture {
+    @Test
+    @DisplayName("能够正确地扩展为两元组流水线并执行中间操作")
+    void should_extend_to_tuple_and_operate_rightly() {
+        List<String> sample = genIntegerStrList();
+        List<Tuple<String, Integer>> expected = sample.stream()
+            .map(value -> Tuple.of(value, Integer.parseInt(value)))
+            .collect(toList());
+        assertAll(
+            () -> assertEquals(expected, list(sample).extendToTuple(Integer::parseInt).toTuples().toList()),
+            () -> assertEquals(sample.stream().map(value -> value + "!").collect(toList()),
+                list(sample).extendToTuple(Integer::parseInt).mapFirst(value -> value + "!").firsts().toList()),
+            () -> assertEquals(sample.stream().map(value -> Integer.parseInt(value) * 2).collect(toList()),
+                list(sample).extendToTuple(Integer::parseInt).mapSecond(value -> value * 2).seconds().toList()),
+            () -> assertEquals(expected.stream().filter(tuple -> isOdd(tuple.second)).collect(toList()),
+                list(sample).extendToTuple(Integer::parseInt).takeIfSecond(PipeTestFixture::isOdd).toTuples()
+                    .toList()),
+            () -> assertEquals(expected.stream().filter(tuple -> !isOdd(tuple.second)).collect(toList()),
+                list(sample).extendToTuple(Integer::parseInt).dropIf((first, second) -> isOdd(second)).toTuples()
+                    .toList()),
+            () -> assertEquals(expected.stream().map(tuple -> Tuple.of(tuple.second, tuple.first)).collect(toList()),
+                list(sample).extendToTuple(Integer::parseInt).swap().toTuples().toList()),
+            () -> assertEquals(expected.subList(0, 5), list(sample).extendToTuple(Integer::parseInt).limit(5)
+                .toTuples().toList()),
+            () -> assertEquals(sample.stream().map(value -> value + Integer.parseInt(value)).collect(toList()),
+                list(sample).extendToTuple(Integer::parseInt).map((first, second) -> first + second).toList()));
+    }
+
+    @Test
+    @DisplayName("能够正确地按键合并两元组")
+    void should_reduce_by_key_rightly() {
+        List<Integer> sample = genIntegerList();
+        Map<Boolean, Integer> expected = sample.stream()
+            .collect(toMap(PipeTestFixture::isOdd, Function.identity(), Integer::sum, LinkedHashMap::new));
+        assertAll(
+            () -> assertEquals(new ArrayList<>(expected.entrySet()),
+                list(sample).extendToTuple(PipeTestFixture::isOdd, Function.identity())
+                    .reduceByKey(Integer::sum)
+                    .map(Tuple::of)
+                    .map(tuple -> (Map.Entry<Boolean, Integer>) new HashMap.SimpleEntry<>(tuple.first, tuple.second))
+                    .toList()),
+            () -> assertEquals(1, list(sample).extendToTuple(PipeTestFixture::isOdd, Function.identity())
+                .reduceByKey(Integer::sum).limit(1).count()));
+    }
+
+    @Test
+    @DisplayName("能够正确地执行两元组流水线的终结操作")
+    void should_evaluate_terminal_op_rightly() {
+        List<String> sample = genIntegerStrList();
+        Map<String, Integer> expected = sample.stream().collect(toMap(Function.identity(), Integer::parseInt));
+        List<String> visited = new ArrayList<>();
+        list(sample).extendToTuple(Integer::parseInt).forEach((first, second) -> visited.add(first + second));
+        AtomicInteger peeked = new AtomicInteger();
+        boolean matched = list(sample).extendToTuple(Integer::parseInt)
+            .peek((first, second) -> peeked.incrementAndGet())
+            .anyMatch((first, second) -> second == 3);
+        assertAll(
+            () -> assertEquals(sample.stream().map(value -> value + value).collect(toList()), visited),
+            () -> assertEquals(expected, list(sample).extendToTuple(Integer::parseInt).toMap()),
+            () -> assertEquals(new TreeMap<>(expected),
+                list(sample).extendToTuple(Integer::parseInt).toMap(TreeMap::new)),
+            () -> assertEquals(sample.size(), list(sample).extendToTuple(Integer::parseInt).count()),
+            () -> assertTrue(matched),
+            () -> assertEquals(4, peeked.get()),
+            () -> assertTrue(list(sample).extendToTuple(Integer::parseInt).allMatch((first, second) -> second >= 0)),
+            () -> assertTrue(list(sample).extendToTuple(Integer::parseInt).noneMatch((first, second) -> second < 0)),
+            () -> assertFalse(list(sample).extendToTuple(Integer::parseInt).anyMatch((first, second) -> second < 0)),
+            () -> assertEquals(Optional.of(Tuple.of("0", 0)),
+                list(sample).extendToTuple(Integer::parseInt).findFirst()),
+            () -> assertEquals(Optional.empty(), Pipe.<String>empty().extendToTuple(Integer::parseInt).findFirst()));
+    }
+
+    @Test
+    @DisplayName("能够正确地将元素逐对扩展为两元组")
+    void should_pair_extend_rightly() {
+        List<Integer> sample = Arrays.asList(0, 1, 2, 3, 4);
+        assertAll(
+            () -> assertEquals(Arrays.asList(Tuple.of(0, 1), Tuple.of(2, 3)),
+                list(sample).pairExtend(false).toTuples().toList()),
+            () -> assertEquals(Arrays.asList(Tuple.of(0, 1), Tuple.of(2, 3), Tuple.of(4, null)),
+                list(sample).pairExtend(true).toTuples().toList()),
+            () -> assertEquals(Arrays.asList(Tuple.of(0, 1), Tuple.of(2, 3)),
+                list(sample.subList(0, 4)).pairExtend(true).toTuples().toList()),
+            () -> assertEquals(1, infiniteIntegerPipe().pairExtend(false).limit(1).count()));
+    }
+
+    @Test
+    @DisplayName("能够正确地合并两条流水线，并在较短的流水线结束时结束")
+    void should_combine_rightly() {
+        List<Integer> sample = genIntegerList();
+        List<String> second = genIntegerStrList().subList(0, 5);
+        AtomicInteger closed = new AtomicInteger();
+        BiPipe<Integer, String> combined = list(sample).combine(list(second).onClose(closed::incrementAndGet));
+        combined.count();
+        combined.close();
+        AtomicInteger visited = new AtomicInteger();
+        long count = list(sample).peek(value -> visited.incrementAndGet()).combine(list(second)).count();
+        assertAll(
+            () -> assertEquals(IntStream.range(0, 5).mapToObj(index -> Tuple.of(sample.get(index), second.get(index)))
+                .collect(toList()), list(sample).combine(list(second)).toTuples().toList()),
+            () -> assertEquals(IntStream.range(0, 5).mapToObj(index -> Tuple.of(second.get(index), index))
+                .collect(toList()), list(second).combine(infiniteIntegerPipe()).toTuples().toList()),
+            () -> assertEquals(5, count),
+            () -> assertEquals(5, visited.get()),
+            () -> assertEquals(1, closed.get()));
+    }
+
+    @Test
+    @DisplayName("能够正确地分组并扩展为两元组")
+    void should_group_and_extend_rightly() {
+        List<Integer> sample = genIntegerList();
+        Map<Integer, List<Integer>> expected = sample.stream()
+            .collect(groupingBy(value -> value % 3, LinkedHashMap::new, toList()));
+        assertAll(
+            () -> assertEquals(expected, list(sample).groupAndExtend(value -> value % 3)
+                .mapSecond(Pipe::toList)
+                .toMap(LinkedHashMap::new)),
+            () -> assertEquals(new ArrayList<>(expected.keySet()),
+                list(sample).groupAndExtend(value -> value % 3).firsts().toList()));
+    }
+
+    @Test
+    @DisplayName("能够正确地从映射中生成两元组流水线")
+    void should_create_from_map_entries_rightly() {
+        Map<String, Integer> sample = list(genIntegerStrList()).toMap(Function.identity(), Integer::parseInt);
+        assertAll(
+            () -> assertEquals(sample, BiPipe.entries(sample).toMap()),
+            () -> assertEquals(sample.keySet().stream().filter(key -> isOdd(sample.get(key))).collect(toList()),
+                Pipe.keys(sample, PipeTestFixture::isOdd).toList()),
+            () -> assertEquals(sample.keySet().stream().filter(key -> key.length() > 1).map(sample::get)
+                .collect(toList()), Pipe.values(sample, key -> key.length() > 1).toList()));
+    }
+
+    @Test
+    @DisplayName("并行求值两元组流水线时，能够得到与串行求值相同的结果")
+    void should_get_same_result_as_sequential_when_evaluate_in_parallel() {
+        List<Integer> sample = IntStream.range(0, 10_000).boxed().collect(toList());
+        List<Integer> expected = sample.stream().filter(value -> value % 3 == 0).map(value -> value * 2)
+            .collect(toList());
+        assertAll(
+            () -> assertEquals(expected, list(sample).parallel()
+                .extendToTuple(value -> value % 3, Function.identity())
+                .takeIfFirst(value -> value == 0)
+                .mapSecond(value -> value * 2)
+                .seconds()
+                .toList()),
+            () -> assertEquals(expected.size(), list(sample).parallel()
+                .extendToTuple(value -> value % 3, Function.identity())
+                .takeIfFirst(value -> value == 0)
+                .count()));
+    }
+
+    // exception test
+
+    @Test
+    @DisplayName("两元组流水线的参数不合法时能够正确抛出异常")
+    void should_throw_exception_when_argument_is_invalid_rightly() {
+        List<Integer> sample = genIntegerList();
+        assertAll(
+            () -> assertThrowsExactly(NullPointerException.class, () -> list(sample).extendToTuple(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> list(sample).combine(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> list(sample).groupAndExtend(null)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> list(sample).pairExtend(false).mapFirst(null)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> list(sample).pairExtend(false).takeIf(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> BiPipe.entries(null)),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> list(sample).pairExtend(false).limit(-1)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.PipeTestFixture;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.oyealex.pipe.basis.Pipe.list;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+/**
+ * 针对缓存流水线的测试用例。
+ *
+ * @author oyealex
+ * @see Pipe#cache()
+ * @see IntPipe#cache()
+ * @see LongPipe#cache()
+ * @see DoublePipe#cache()
+ * @since 2023-06-25
+ */
+class PipeCacheTest extends PipeTestFixture {
+    @Test
+    @DisplayName("能够只执行一次上游流水线而反复执行终结操作")
+    void should_replay_cached_elements_rightly() {
+        List<Integer> sample = genIntegerList();
+        AtomicInteger mapped = new AtomicInteger();
+        Pipe<Integer> cached = list(sample).map(value -> {
+            mapped.incrementAndGet();
+            return value * 2;
+        }).cache();
+        List<Integer> expected = sample.stream().map(value -> value * 2).collect(toList());
+        assertAll(() -> assertEquals(0, mapped.get()),
+            () -> assertEquals(expected, cached.toList()),
+            () -> assertEquals(expected.size(), cached.count()),
+            () -> assertEquals(expected.stream().filter(PipeTestFixture::isOdd).collect(toList()),
+                cached.takeIf(PipeTestFixture::isOdd).toList()),
+            () -> assertEquals(expected.stream().sorted().limit(3).collect(toList()),
+                cached.sort().limit(3).toList()),
+            () -> assertEquals(expected, Pipe.spliterator(cached.toSpliterator()).toList()),
+            () -> assertEquals(sample.size(), mapped.get()),
+            () -> assertSame(cached, cached.cache()),
+            () -> assertEquals(Collections.emptyList(), Pipe.<Integer>empty().cache().toList()),
+            () -> assertEquals(5, infiniteIntegerPipe().limit(5).cache().count()));
+    }
+
+    @Test
+    @DisplayName("能够以并行模式缓存和读取元素，并在关闭时关闭上游流水线")
+    void should_cache_in_parallel_and_close_upstream_rightly() {
+        List<Integer> sample = IntStream.range(0, 10_000).boxed().collect(toList());
+        List<Integer> expected = sample.stream().filter(PipeTestFixture::isEven).map(value -> value + 1)
+            .collect(toList());
+        AtomicInteger closed = new AtomicInteger();
+        Pipe<Integer> cached = list(sample).onClose(closed::incrementAndGet)
+            .parallel()
+            .takeIf(PipeTestFixture::isEven)
+            .map(value -> value + 1)
+            .cache();
+        assertAll(() -> assertEquals(expected, cached.toList()),
+            () -> assertEquals(expected, cached.sequential().toList()),
+            () -> assertEquals(expected.stream().map(value -> value * 3).collect(toList()),
+                cached.parallel().map(value -> value * 3).toList()));
+        cached.close();
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    @DisplayName("能够缓存基本类型流水线中的元素")
+    void should_cache_primitive_pipes_rightly() {
+        int[] sample = IntStream.range(0, 100).map(value -> (value * 37) % 53).toArray();
+        AtomicInteger visited = new AtomicInteger();
+        IntPipe cachedInt = IntPipe.of(sample).peek(value -> visited.incrementAndGet()).sort().cache();
+        LongPipe cachedLong = IntPipe.of(sample).asLongPipe().map(value -> value * 3).cache();
+        DoublePipe cachedDouble = IntPipe.of(sample).asDoublePipe().map(value -> value / 2).cache();
+        assertAll(() -> assertArrayEquals(IntStream.of(sample).sorted().toArray(), cachedInt.toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).sorted().distinct().toArray(), cachedInt.distinct().toArray()),
+            () -> assertEquals(IntStream.of(sample).sum(), cachedInt.sum()),
+            () -> assertEquals(sample.length, visited.get()),
+            () -> assertArrayEquals(IntStream.of(sample).asLongStream().map(value -> value * 3).toArray(),
+                cachedLong.toArray()),
+            () -> assertEquals(sample.length, cachedLong.count()),
+            () -> assertArrayEquals(IntStream.of(sample).asDoubleStream().map(value -> value / 2).toArray(),
+                cachedDouble.toArray()),
+            () -> assertEquals(sample.length, cachedDouble.count()),
+            () -> assertSame(cachedInt, cachedInt.cache()));
+    }
+
+    // exception test
+
+    @Test
+    @DisplayName("首次执行上游流水线失败时抛出原始异常，之后的终结操作抛出以原始异常为原因的异常")
+    void should_report_upstream_failure_when_cache_failed() {
+        AtomicInteger evaluated = new AtomicInteger();
+        IllegalArgumentException cause = new IllegalArgumentException("upstream failed");
+        Pipe<Integer> cached = list(genIntegerList()).peek(value -> {
+            evaluated.incrementAndGet();
+            throw cause;
+        }).cache();
+        IntPipe cachedInt = IntPipe.of(1, 2, 3).peek(value -> {
+            throw cause;
+        }).cache();
+        LongPipe cachedLong = IntPipe.of(1, 2, 3).asLongPipe().peek(value -> {
+            throw cause;
+        }).cache();
+        DoublePipe cachedDouble = IntPipe.of(1, 2, 3).asDoublePipe().peek(value -> {
+            throw cause;
+        }).cache();
+        assertAll(() -> assertSame(cause, assertThrowsExactly(IllegalArgumentException.class, cached::toList)),
+            () -> assertSame(cause, assertThrowsExactly(IllegalStateException.class, cached::count).getCause()),
+            () -> assertSame(cause, assertThrowsExactly(IllegalStateException.class,
+                () -> cached.map(value -> value + 1).toList()).getCause()),
+            () -> assertEquals(1, evaluated.get()),
+            () -> assertSame(cause, assertThrowsExactly(IllegalArgumentException.class, cachedInt::toArray)),
+            () -> assertSame(cause, assertThrowsExactly(IllegalStateException.class, cachedInt::sum).getCause()),
+            () -> assertSame(cause, assertThrowsExactly(IllegalArgumentException.class, cachedLong::toArray)),
+            () -> assertSame(cause, assertThrowsExactly(IllegalStateException.class, cachedLong::sum).getCause()),
+            () -> assertSame(cause, assertThrowsExactly(IllegalArgumentException.class, cachedDouble::toArray)),
+            () -> assertSame(cause, assertThrowsExactly(IllegalStateException.class, cachedDouble::sum).getCause()));
+    }
+}
@@ -15,6 +15,8 @@ import java.util.Vector;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.oyealex.pipe.basis.Pipe.constant;
 import static com.oyealex.pipe.basis.Pipe.list;
@@ -78,6 +80,24 @@ class PipeCollectTest extends PipeTestFixture {
         assertEquals(sample, asList(list(sample).toArray(String[]::new)));
     }
 
+    @Test
+    @DisplayName("元素数量只有上下界时，能够正确将流水线元素收集到数组和列表中")
+    void should_collect_pipe_elements_with_size_bounds_only_rightly() {
+        List<String> sample = genRandomStrList();
+        List<String> filtered = sample.stream().filter(value -> value.length() > 5).collect(Collectors.toList());
+        List<String> dispersed = sample.stream()
+            .limit(5)
+            .flatMap(value -> Stream.of(SOME_STR, value))
+            .skip(1)
+            .collect(Collectors.toList());
+        assertAll(() -> assertEquals(filtered,
+                asList(list(sample).takeIf(value -> value.length() > 5).toArray(String[]::new))),
+            () -> assertEquals(filtered, list(sample).takeIf(value -> value.length() > 5).toList()),
+            () -> assertEquals(filtered.subList(0, Math.min(3, filtered.size())),
+                list(sample).takeIf(value -> value.length() > 5).limit(3).toList()),
+            () -> assertEquals(dispersed, asList(list(sample).limit(5).disperse(SOME_STR).toArray(String[]::new))));
+    }
+
     @Test
     @DisplayName("能够正确将流水线元素收集到列表中")
     void should_collect_pipe_elements_to_list_rightly() {
@@ -1,21 +1,42 @@
 package com.oyealex.pipe.basis;
 
 import com.oyealex.pipe.PipeTestFixture;
+import com.oyealex.pipe.assist.RecordDecoder;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.oyealex.pipe.basis.Pipe.empty;
+import static com.oyealex.pipe.basis.Pipe.list;
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.reverseOrder;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 
 /**
@@ -36,6 +57,9 @@ import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
  * @see Pipe#values(Map, Predicate)
  * @see Pipe#generate(Supplier)
  * @see Pipe#concat(Pipe[])
+ * @see Pipe#mergeSorted(Comparator, Pipe[])
+ * @see Pipe#lines(Path)
+ * @see Pipe#records(Path, RecordDecoder)
  * @see Pipe#stream(Stream)
  * @see Pipe#iterate(Object, UnaryOperator)
  * @see Pipe#list(List)
@@ -48,6 +72,177 @@ import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
  */
 class PipeConstructTest extends PipeTestFixture {
     // TODO 2023-06-15 01:16 continue
+    @Test
+    @DisplayName("能够正确拼接大量流水线，拼接的深度不会导致栈溢出，并且能够得到准确的元素数量")
+    void should_concat_lots_of_pipes_rightly() {
+        List<List<Integer>> shards = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            shards.add(Arrays.asList(i, -i));
+        }
+        List<Integer> expected = shards.stream().flatMap(List::stream).collect(toList());
+        assertAll(() -> assertEquals(expected, Pipe.concat(toPipes(shards)).toList()),
+            () -> assertEquals(expected.size(), Pipe.concat(toPipes(shards)).toSpliterator().getExactSizeIfKnown()),
+            () -> assertEquals(expected, Pipe.concat(toPipes(shards)).parallel().map(value -> value).toList()),
+            () -> {
+                Pipe<Integer> appended = empty();
+                for (List<Integer> shard : shards) {
+                    appended = appended.append(list(shard));
+                }
+                assertEquals(expected, appended.toList());
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Pipe<Integer>[] toPipes(List<List<Integer>> shards) {
+        return shards.stream().map(Pipe::list).toArray(Pipe[]::new);
+    }
+
+    @Test
+    @DisplayName("能够关闭拼接或归并的大量流水线，关闭的深度不会导致栈溢出，并且某个关闭失败时仍会关闭其余流水线")
+    void should_close_lots_of_concatenated_pipes_rightly() {
+        int count = 50_000;
+        AtomicInteger closed = new AtomicInteger();
+        Pipe<Integer>[] pipes = toPipes(IntStream.range(0, count).mapToObj(Arrays::asList).collect(toList()));
+        for (Pipe<Integer> pipe : pipes) {
+            pipe.onClose(closed::incrementAndGet);
+        }
+        Pipe.concat(pipes).close();
+        Pipe.mergeSorted(null, toPipes(IntStream.range(0, count).mapToObj(Arrays::asList).collect(toList())))
+            .onClose(closed::incrementAndGet)
+            .close();
+        Pipe<Integer> failing = Pipe.concat(Pipe.<Integer>empty().onClose(() -> {
+            throw new IllegalStateException("first");
+        }), Pipe.<Integer>empty().onClose(closed::incrementAndGet), Pipe.<Integer>empty().onClose(() -> {
+            throw new IllegalArgumentException("second");
+        }));
+        IllegalStateException exception = assertThrowsExactly(IllegalStateException.class, failing::close);
+        assertAll(() -> assertEquals(count + 2, closed.get()),
+            () -> assertEquals(1, exception.getSuppressed().length),
+            () -> assertEquals(IllegalArgumentException.class, exception.getSuppressed()[0].getClass()));
+    }
+
+    @Test
+    @DisplayName("能够正确归并多个有序流水线")
+    void should_merge_sorted_pipes_rightly() {
+        Random random = new Random(31);
+        List<List<Integer>> shards = new ArrayList<>();
+        for (int i = 0; i < 37; i++) {
+            shards.add(random.ints(random.nextInt(50), -100, 100).sorted().boxed().collect(toList()));
+        }
+        List<Integer> expected = shards.stream().flatMap(List::stream).sorted().collect(toList());
+        List<Integer> reversed = shards.stream().flatMap(List::stream).sorted(reverseOrder()).collect(toList());
+        assertAll(() -> assertEquals(expected, Pipe.mergeSorted(null, toPipes(shards)).toList()),
+            () -> assertEquals(expected, Pipe.mergeSorted(naturalOrder(), toPipes(shards)).toList()),
+            () -> assertEquals(expected.size(),
+                Pipe.mergeSorted(null, toPipes(shards)).toSpliterator().getExactSizeIfKnown()),
+            () -> assertEquals(reversed, Pipe.mergeSorted(reverseOrder(),
+                shards.stream().map(shard -> list(shard).sort(reverseOrder())).toArray(Pipe[]::new)).toList()),
+            () -> assertEquals(emptyList(), Pipe.mergeSorted(null).toList()));
+    }
+
+    @Test
+    @DisplayName("归并有序流水线时，比较结果相同的元素按照流水线的先后顺序流出")
+    void should_merge_sorted_pipes_stably() {
+        Comparator<String> comparator = comparing(String::length);
+        assertEquals(Arrays.asList("a", "c", "e", "bb", "dd", "fff"),
+            Pipe.mergeSorted(comparator, Pipe.of("a", "bb"), Pipe.of("c", "dd", "fff"), Pipe.of("e")).toList());
+    }
+
+    @Test
+    @DisplayName("能够惰性归并无限长的有序流水线")
+    void should_merge_infinite_sorted_pipes_lazily() {
+        Pipe<Integer> merged = Pipe.mergeSorted(null, Pipe.iterate(0, value -> value + 3),
+            Pipe.iterate(1, value -> value + 3), Pipe.iterate(2, value -> value + 3));
+        assertEquals(IntStream.range(0, 100).boxed().collect(toList()), merged.limit(100).toList());
+    }
+
+    @Test
+    @DisplayName("自然顺序或逆自然顺序归并的结果被标记为有序，后续相同顺序的排序会被省略")
+    void should_mark_merged_pipe_as_sorted() {
+        Pipe<Integer> natural = Pipe.mergeSorted(null, list(Arrays.asList(1, 3)), list(Arrays.asList(2, 4)));
+        Pipe<Integer> reversed = Pipe.mergeSorted(reverseOrder(), list(Arrays.asList(3, 1)), list(Arrays.asList(4, 2)));
+        assertAll(() -> assertSame(natural, natural.sort()),
+            () -> assertSame(reversed, reversed.sort(reverseOrder())),
+            () -> assertEquals(Arrays.asList(4, 3, 2, 1), reversed.toList()));
+    }
+
+    @Test
+    @DisplayName("能够正确从文件中逐行读取元素，并且能够在行的边界处拆分并行读取")
+    void should_read_lines_from_file_rightly(@TempDir Path dir) throws IOException {
+        Path small = Files.write(dir.resolve("small.txt"), "a\r\n\nbc\nd".getBytes(StandardCharsets.UTF_8));
+        Path empty = Files.write(dir.resolve("empty.txt"), new byte[0]);
+        List<String> sample = IntStream.range(0, 50_000).mapToObj(index -> SOME_STR + index).collect(toList());
+        Path large = Files.write(dir.resolve("large.txt"), sample, StandardCharsets.UTF_8);
+        assertAll(() -> assertEquals(Arrays.asList("a", "", "bc", "d"), readLines(small, UnaryOperator.identity())),
+            () -> assertEquals(emptyList(), readLines(empty, UnaryOperator.identity())),
+            () -> assertEquals(sample, readLines(large, UnaryOperator.identity())),
+            () -> assertEquals(sample, readLines(large, pipe -> pipe.parallel().map(value -> value))),
+            () -> assertEquals(sample.subList(0, 10), readLines(large, pipe -> pipe.limit(10))));
+    }
+
+    @Test
+    @DisplayName("能够正确读取跨越映射窗口边界的行，以及超出映射窗口大小的记录")
+    void should_read_records_across_mapped_windows_rightly(@TempDir Path dir) throws IOException {
+        // 每行100字节，映射窗口的边界（16MB）位于某一行的中间
+        List<String> sample = IntStream.range(0, 200_000).mapToObj(index -> String.format("%099d", index))
+            .collect(toList());
+        Path lines = Files.write(dir.resolve("lines.txt"), sample, StandardCharsets.US_ASCII);
+        // 中间的记录比映射窗口更大，需要扩大窗口重新映射
+        byte[] bytes = new byte[(1 << 24) + (1 << 23) + 8];
+        Arrays.fill(bytes, (byte) 'x');
+        bytes[2] = ',';
+        bytes[bytes.length - 4] = ',';
+        Path records = Files.write(dir.resolve("records.txt"), bytes);
+        RecordDecoder<Integer> lengthDecoder = new RecordDecoder<Integer>() {
+            @Override
+            public Integer decode(ByteBuffer buffer, int offset, int length) {
+                return length;
+            }
+
+            @Override
+            public byte delimiter() {
+                return ',';
+            }
+        };
+        assertAll(() -> assertEquals(sample, readLines(lines, UnaryOperator.identity())),
+            () -> assertEquals(sample, readLines(lines, pipe -> pipe.parallel().map(value -> value))),
+            () -> {
+                try (Pipe<Integer> pipe = Pipe.records(records, lengthDecoder)) {
+                    assertEquals(Arrays.asList(2, bytes.length - 7, 3), pipe.toList());
+                }
+            });
+    }
+
+    private static List<String> readLines(Path path, UnaryOperator<Pipe<String>> operator) {
+        try (Pipe<String> pipe = Pipe.lines(path)) {
+            return operator.apply(pipe).toList();
+        }
+    }
+
+    @Test
+    @DisplayName("能够正确以给定的解码器从文件中读取记录")
+    void should_read_records_from_file_rightly(@TempDir Path dir) throws IOException {
+        Path path = Files.write(dir.resolve("records.txt"), "1,22,333,".getBytes(StandardCharsets.US_ASCII));
+        RecordDecoder<Long> decoder = new RecordDecoder<Long>() {
+            @Override
+            public Long decode(ByteBuffer buffer, int offset, int length) {
+                long value = 0L;
+                for (int i = offset; i < offset + length; i++) {
+                    value = value * 10 + buffer.get(i) - '0';
+                }
+                return value;
+            }
+
+            @Override
+            public byte delimiter() {
+                return ',';
+            }
+        };
+        try (Pipe<Long> pipe = Pipe.records(path, decoder)) {
+            assertEquals(Arrays.asList(1L, 22L, 333L), pipe.toList());
+        }
+    }
+
     // optimization test
 
     // exception test
@@ -6,13 +6,17 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
 
 import static com.oyealex.pipe.basis.Pipe.list;
 import static java.util.Comparator.reverseOrder;
@@ -22,6 +26,7 @@ import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -38,6 +43,11 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  * @see Pipe#reverse()
  * @see Pipe#shuffle()
  * @see Pipe#shuffle(Random)
+ * @see Pipe#sample(int)
+ * @see Pipe#sample(int, Random)
+ * @see Pipe#sampleWeighted(int, ToDoubleFunction, Random)
+ * @see Pipe#sampleFraction(double)
+ * @see Pipe#sampleFraction(double, Random)
  * @since 2023-06-01
  */
 class PipeDisplaceTest extends PipeTestFixture {
@@ -110,6 +120,15 @@ class PipeDisplaceTest extends PipeTestFixture {
         assertEquals(sample.stream().sorted().collect(toList()), list(sample).sortReversely().reverse().toList());
     }
 
+    @Test
+    @DisplayName("连续两次逆序时不会真正执行逆序")
+    void should_not_reverse_actually_when_reverse_twice() {
+        List<String> sample = genRandomStrList();
+        Pipe<String> pipe = list(sample).takeIf(val -> true);
+        assertAll(() -> assertSame(pipe, pipe.reverse().reverse()),
+            () -> assertEquals(sample, list(sample).reverse().reverse().toList()));
+    }
+
     @Test
     @DisplayName("能够正确打乱元素顺序")
     void should_shuffle_elements_in_different_order() {
@@ -133,6 +152,138 @@ class PipeDisplaceTest extends PipeTestFixture {
                 list(sample).shuffle(new Random(0L)).toList()));
     }
 
+    @Test
+    @DisplayName("能够正确按照遇到顺序抽取指定数量的元素")
+    void should_sample_elements_in_encounter_order_rightly() {
+        List<Integer> sample = IntStream.range(0, 1000).boxed().collect(toList());
+        List<Integer> sampled = list(sample).sample(10, new Random(0L)).toList();
+        assertAll(() -> assertEquals(10, sampled.size()),
+            () -> assertEquals(sampled.stream().sorted().distinct().collect(toList()), sampled),
+            () -> assertTrue(sample.containsAll(sampled)),
+            () -> assertEquals(sampled, list(sample).sample(10, new Random(0L)).toList()),
+            () -> assertEquals(sample, list(sample).sample(1000).toList()),
+            () -> assertEquals(sample, list(sample).sample(2000).toList()),
+            () -> assertEquals(0, list(sample).sample(0).count()),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> list(sample).sample(-1)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> list(sample).sample(1, null)));
+    }
+
+    @Test
+    @DisplayName("并行模式下能够正确合并各分段的抽样结果")
+    void should_sample_elements_in_parallel_rightly() {
+        List<Integer> sample = IntStream.range(0, 10000).boxed().collect(toList());
+        List<Integer> sampled = list(sample).parallel().map(value -> value * 2).sample(100).map(value -> value / 2)
+            .toList();
+        assertAll(() -> assertEquals(100, sampled.size()),
+            () -> assertEquals(sampled.stream().sorted().distinct().collect(toList()), sampled),
+            () -> assertEquals(sample, list(sample).parallel().sample(20000).toList()));
+    }
+
+    @Test
+    @DisplayName("并行模式下各分段使用由给定随机数生成器派生的独立生成器，抽样仍然是等概率的")
+    void should_sample_with_independent_random_per_split_in_parallel_rightly() {
+        AtomicInteger drawn = new AtomicInteger();
+        Random random = new Random(0L) {
+            private static final long serialVersionUID = 2968430157915637914L;
+
+            @Override
+            protected int next(int bits) {
+                drawn.incrementAndGet();
+                return super.next(bits);
+            }
+        };
+        List<Integer> sample = IntStream.range(0, 100_000).boxed().collect(toList());
+        List<Integer> sampled = list(sample).parallel().sample(100, random).toList();
+        int[] counts = new int[10];
+        for (int i = 0; i < 10000; i++) {
+            list(IntStream.range(0, 10).boxed().collect(toList())).parallel()
+                .sample(1, random)
+                .forEach(value -> counts[value]++);
+        }
+        assertAll(() -> assertEquals(100, sampled.size()),
+            () -> assertEquals(sampled.stream().sorted().distinct().collect(toList()), sampled),
+            // 每次并行抽样只从给定的生成器中取一个long作为种子
+            () -> assertEquals(2 * 10001, drawn.get()),
+            () -> assertTrue(IntStream.of(counts).allMatch(count -> count > 800 && count < 1200),
+                () -> "counts: " + Arrays.toString(counts)));
+    }
+
+    @Test
+    @DisplayName("并行模式下使用相同种子的随机数生成器抽样时，结果可以复现")
+    void should_sample_reproducibly_with_seeded_random_in_parallel() {
+        List<Integer> sample = IntStream.range(0, 100_000).boxed().collect(toList());
+        List<Integer> expected = list(sample).parallel().sample(5, new Random(1L)).toList();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected, list(sample).parallel().sample(5, new Random(1L)).toList());
+            assertEquals(expected, list(sample).parallel().map(value -> value).sample(5, new Random(1L)).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("每个元素被抽取的概率相同")
+    void should_sample_every_element_with_same_probability() {
+        Random random = new Random(0L);
+        int[] counts = new int[10];
+        for (int i = 0; i < 10000; i++) {
+            list(IntStream.range(0, 10).boxed().collect(toList())).sample(1, random).forEach(value -> counts[value]++);
+        }
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1200, "count: " + count);
+        }
+    }
+
+    @Test
+    @DisplayName("能够正确按照权重抽取元素")
+    void should_sample_elements_by_weight_rightly() {
+        List<Integer> sample = IntStream.range(0, 1000).boxed().collect(toList());
+        assertAll(() -> assertTrue(list(sample).sampleWeighted(100, value -> isEven(value) ? 1 : 0, new Random())
+                .allMatch(PipeTestFixture::isEven)),
+            () -> assertEquals(500, list(sample).sampleWeighted(1000, value -> isOdd(value) ? 1 : -1, new Random())
+                .count()),
+            () -> assertEquals(Collections.singletonList(999),
+                list(sample).sampleWeighted(1, value -> value == 999 ? 1e300 : 1e-300, new Random()).toList()),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> list(sample).sampleWeighted(1, null, new Random())));
+    }
+
+    @Test
+    @DisplayName("能够正确按照概率保留元素")
+    void should_sample_elements_by_fraction_rightly() {
+        List<Integer> sample = IntStream.range(0, 10000).boxed().collect(toList());
+        List<Integer> sampled = list(sample).sampleFraction(0.1).toList();
+        Pipe<Integer> pipe = list(sample);
+        assertAll(() -> assertTrue(sampled.size() > 800 && sampled.size() < 1200, "size: " + sampled.size()),
+            () -> assertEquals(sampled.stream().sorted().distinct().collect(toList()), sampled),
+            () -> assertEquals(list(sample).sampleFraction(0.5, new Random(0L)).toList(),
+                list(sample).sampleFraction(0.5, new Random(0L)).toList()),
+            () -> assertEquals(0, list(sample).sampleFraction(0).count()),
+            () -> assertSame(pipe, pipe.sampleFraction(1)),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> list(sample).sampleFraction(1.5)),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> list(sample).sampleFraction(Double.NaN)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> list(sample).sampleFraction(0.5, null)));
+    }
+
+    @Test
+    @DisplayName("并行模式下按照概率保留元素时，各分段使用由给定随机数生成器派生的独立生成器")
+    void should_sample_elements_by_fraction_with_independent_random_per_split_in_parallel_rightly() {
+        AtomicInteger drawn = new AtomicInteger();
+        Random random = new Random(1L) {
+            private static final long serialVersionUID = -5402368790415329462L;
+
+            @Override
+            protected int next(int bits) {
+                drawn.incrementAndGet();
+                return super.next(bits);
+            }
+        };
+        List<Integer> sample = IntStream.range(0, 200_000).boxed().collect(toList());
+        List<Integer> sampled = list(sample).parallel().sampleFraction(0.5, random).toList();
+        assertAll(() -> assertTrue(sampled.size() > 98_000 && sampled.size() < 102_000, "size: " + sampled.size()),
+            () -> assertEquals(sampled.stream().sorted().distinct().collect(toList()), sampled),
+            // 每个分段只从给定的生成器中取一个long作为种子，而不是为每个元素取随机数
+            () -> assertTrue(drawn.get() < 10_000, "drawn: " + drawn.get()));
+    }
+
     // optimization test
 
     @Test
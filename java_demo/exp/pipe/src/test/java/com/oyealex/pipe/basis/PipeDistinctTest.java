@@ -11,10 +11,13 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 import static com.oyealex.pipe.basis.Pipe.list;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -73,6 +76,87 @@ class PipeDistinctTest extends PipeTestFixture {
             list(duplicated).distinctByOrderly((order, val) -> null).toList());
     }
 
+    @Test
+    @DisplayName("能够正确根据int映射结果对元素去重")
+    void should_distinct_by_int_rightly() {
+        List<String> duplicated = duplicateList(genRandomStrList());
+        Set<Integer> seen = new HashSet<>();
+        assertEquals(duplicated.stream().filter(val -> seen.add(val.hashCode() % 64)).collect(toList()),
+            list(duplicated).distinctByInt(val -> val.hashCode() % 64).toList());
+    }
+
+    @Test
+    @DisplayName("能够正确根据long映射结果对元素去重")
+    void should_distinct_by_long_rightly() {
+        List<String> duplicated = duplicateList(genIntegerStrList());
+        ToLongFunction<String> mapper = val -> Long.parseLong(val) - Long.MAX_VALUE;
+        Set<Long> seen = new HashSet<>();
+        assertEquals(duplicated.stream().filter(val -> seen.add(mapper.applyAsLong(val))).collect(toList()),
+            list(duplicated).distinctByLong(mapper).toList());
+    }
+
+    @Test
+    @DisplayName("能够正确近似去重，误判率足够低时与精确去重结果一致")
+    void should_distinct_approximately_rightly() {
+        List<String> duplicated = duplicateList(genIntegerStrList());
+        assertAll(() -> assertEquals(duplicated.stream().distinct().collect(toList()),
+                list(duplicated).distinctApproximately(1e-9).toList()),
+            () -> assertEquals(list(duplicated).distinctBy(String::length).toList(),
+                list(duplicated).distinctByApproximately(String::length, 1e-9).toList()));
+    }
+
+    @Test
+    @DisplayName("近似去重的结果中不会包含重复元素，并且只会误判少量元素")
+    void should_never_keep_duplicates_when_distinct_approximately() {
+        List<Integer> values = Pipe.iterate(0, val -> val + 1).limit(100000).toList();
+        List<Integer> result = list(duplicateList(values)).distinctApproximately(0.01).toList();
+        assertAll(() -> assertEquals(result.size(), new HashSet<>(result).size()),
+            () -> assertTrue(result.size() >= values.size() * 0.98));
+    }
+
+    @Test
+    @DisplayName("近似去重时，哈希码相同但内容不同的整数和字符串不会被当作重复元素")
+    void should_not_treat_hash_code_collisions_as_duplicates_when_distinct_approximately() {
+        // 这些long的哈希码都是0
+        List<Long> longs = Pipe.iterate(1L, val -> val + 1).limit(1000).map(val -> val << 32 | val).toList();
+        // "Aa"与"BB"的哈希码相同，由它们拼接而成的等长字符串的哈希码都相同
+        List<String> collided = Pipe.of("AaAaAa", "AaAaBB", "AaBBAa", "AaBBBB", "BBAaAa", "BBAaBB", "BBBBAa", "BBBBBB")
+            .toList();
+        List<Long> duplicatedLongs = duplicateList(longs);
+        List<String> duplicatedStrings = duplicateList(collided);
+        assertAll(() -> assertEquals(1, new HashSet<>(list(longs).map(Object::hashCode).toList()).size()),
+            () -> assertEquals(1, new HashSet<>(list(collided).map(Object::hashCode).toList()).size()),
+            () -> assertEquals(duplicatedLongs.stream().distinct().collect(toList()),
+                list(duplicatedLongs).distinctApproximately(1e-6).toList()),
+            () -> assertEquals(duplicatedStrings.stream().distinct().collect(toList()),
+                list(duplicatedStrings).distinctApproximately(1e-6).toList()));
+    }
+
+    @Test
+    @DisplayName("上游元素数量很大但大量重复时也能正确去重，去重集合按需扩容而不按上游数量预分配")
+    void should_distinct_huge_sized_pipe_with_lots_of_duplicates_rightly() {
+        int count = 10_000_000;
+        int distinctCount = 1 << 18; // 超过预分配容量的上限，去重集合需要扩容
+        List<Integer> distinctValues = Pipe.iterate(0, val -> val + 1).limit(distinctCount).toList();
+        assertAll(() -> assertEquals(singletonList("a"), Pipe.constant("a", count).distinct().toList()),
+            () -> assertEquals(singletonList("a"), Pipe.constant("a", count).distinctByInt(String::length).toList()),
+            () -> assertEquals(singletonList("a"), Pipe.constant("a", count).distinctByLong(String::length).toList()),
+            () -> assertEquals(singletonList("a"), Pipe.constant("a", count).distinctApproximately(0.01).toList()),
+            () -> assertEquals(distinctCount, list(distinctValues).distinct().count()),
+            () -> assertEquals(distinctCount, list(distinctValues).distinctByInt(Integer::intValue).count()),
+            () -> assertEquals(distinctCount, list(distinctValues).distinctByLong(Integer::longValue).count()),
+            () -> assertArrayEquals(new int[] {1},
+                Pipe.constant("a", count).mapToInt(String::length).distinct().toArray()),
+            () -> assertArrayEquals(new long[] {1},
+                Pipe.constant("a", count).mapToLong(String::length).distinct().toArray()),
+            () -> assertArrayEquals(new double[] {1},
+                Pipe.constant("a", count).mapToDouble(String::length).distinct().toArray()),
+            () -> assertEquals(distinctCount, list(distinctValues).mapToInt(Integer::intValue).distinct().count()),
+            () -> assertEquals(distinctCount, list(distinctValues).mapToLong(Integer::longValue).distinct().count()),
+            () -> assertEquals(distinctCount,
+                list(distinctValues).mapToDouble(Integer::doubleValue).distinct().count()));
+    }
+
     // optimization test
 
     @Test
@@ -94,7 +178,22 @@ class PipeDistinctTest extends PipeTestFixture {
     @DisplayName("当不能为null的参数为null时抛出异常")
     void should_throw_exception_when_required_non_null_param_is_null() {
         assertAll(() -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().distinctBy(null)),
-            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().distinctByOrderly(null)));
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().distinctByOrderly(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().distinctByInt(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().distinctByLong(null)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> infiniteIntegerPipe().distinctByApproximately(null, 0.01)));
+    }
+
+    @Test
+    @DisplayName("当近似去重的误判率不在(0, 1)之间时抛出异常")
+    void should_throw_exception_when_false_positive_rate_is_out_of_range() {
+        assertAll(() -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> infiniteIntegerPipe().distinctApproximately(0)),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> infiniteIntegerPipe().distinctApproximately(1)),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> infiniteIntegerPipe().distinctApproximately(Double.NaN)));
     }
 
     private static class DistinctTestDouble {
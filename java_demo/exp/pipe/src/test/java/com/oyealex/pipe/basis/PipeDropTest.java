@@ -6,6 +6,7 @@ import com.oyealex.pipe.functional.LongBiPredicate;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
@@ -116,6 +117,15 @@ class PipeDropTest extends PipeTestFixture {
         assertEquals(emptyList(), infiniteIntegerStrPipe().limit(10).dropLast(20).toList());
     }
 
+    @Test
+    @DisplayName("元素数量未知时丢弃最后N个元素，后续需要收集全部元素的操作能够正常执行")
+    void should_drop_last_N_elements_on_unsized_pipe_before_stateful_op_rightly() {
+        List<String> sample = genRandomStrList();
+        List<String> expected = new ArrayList<>(sample.subList(0, sample.size() - 5));
+        expected.sort(null);
+        assertEquals(expected, list(sample).takeIf(value -> true).dropLast(5).sort().toList());
+    }
+
     @Test
     @DisplayName("当尝试丢弃最后0个元素时得到所有元素")
     void should_get_all_elements_when_try_to_get_last_zero_elements() {
@@ -5,12 +5,19 @@ import com.oyealex.pipe.assist.Tuple;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
+import static com.oyealex.pipe.basis.Pipe.collection;
 import static com.oyealex.pipe.basis.Pipe.list;
 import static java.util.Optional.of;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * 针对流水线搜索系列API的测试。
@@ -44,5 +51,25 @@ class PipeFindTest extends PipeTestFixture {
     }
     // optimization test
 
+    @Test
+    @DisplayName("分块驱动可短路的流水线时，短路之后的元素不会再流入下游")
+    void should_short_circuit_chunked_driving_rightly() {
+        List<Integer> sample = IntStream.range(0, 100_000).boxed().collect(toList());
+        int target = ChunkedDriver.CHUNK_SIZE * 3 + 7;
+        AtomicInteger visited = new AtomicInteger();
+        Optional<Integer> found = list(sample).peek(value -> visited.incrementAndGet())
+            .takeIf(value -> value >= target)
+            .findFirst();
+        AtomicInteger iteratorVisited = new AtomicInteger();
+        Optional<Integer> foundInIterator = collection(new LinkedList<>(sample)).peek(
+            value -> iteratorVisited.incrementAndGet()).takeIf(value -> value >= target).findFirst();
+        assertAll(() -> assertEquals(of(target), found),
+            () -> assertEquals(target + 1, visited.get()),
+            () -> assertEquals(of(target), foundInIterator),
+            () -> assertEquals(target + 1, iteratorVisited.get()),
+            () -> assertEquals(sample.subList(0, 5000), list(sample).limit(5000).toList()),
+            () -> assertTrue(list(sample).anyMatch(value -> value == sample.size() - 1)));
+    }
+
     // exception test
 }
@@ -3,18 +3,27 @@ package com.oyealex.pipe.basis;
 import com.oyealex.pipe.PipeTestFixture;
 import com.oyealex.pipe.assist.IntBox;
 import com.oyealex.pipe.functional.LongBiFunction;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static com.oyealex.pipe.basis.Pipe.list;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 
@@ -32,6 +41,10 @@ import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
  * @see Pipe#flatMapToLongOrderly(LongBiFunction)
  * @see Pipe#flatMapToDouble(Function)
  * @see Pipe#flatMapToDoubleOrderly(LongBiFunction)
+ * @see Pipe#flatMapPush(BiConsumer)
+ * @see Pipe#flatMapPushToInt(BiConsumer)
+ * @see Pipe#flatMapPushToLong(BiConsumer)
+ * @see Pipe#flatMapPushToDouble(BiConsumer)
  * @since 2023-05-27
  */
 class PipeFlatMapTest extends PipeTestFixture {
@@ -80,8 +93,70 @@ class PipeFlatMapTest extends PipeTestFixture {
 
     @Test
     @DisplayName("能正确将元素扁平映射为基础类型流水线")
-    @Disabled("扁平映射为基础类型的流水线API尚未实现")
-    void should_flat_map_to_pipe_with_primitive_element_type() {}
+    void should_flat_map_to_pipe_with_primitive_element_type() {
+        List<Integer> sample = genIntegerList();
+        assertAll(() -> assertArrayEquals(sample.stream().flatMapToInt(value -> IntStream.range(0, value)).toArray(),
+                list(sample).flatMapToInt(value -> IntPipe.range(0, value)).toArray()),
+            () -> assertArrayEquals(
+                sample.stream().flatMapToLong(value -> LongStream.of(value, (long) value * value)).toArray(),
+                list(sample).flatMapToLong(value -> LongPipe.of(value, (long) value * value)).toArray()),
+            () -> assertArrayEquals(sample.stream()
+                    .flatMapToDouble(value -> value % 2 == 0 ? DoubleStream.of(value / 2D) : null)
+                    .filter(value -> value > 0)
+                    .toArray(),
+                list(sample).flatMapToDouble(value -> value % 2 == 0 ? DoublePipe.of(value / 2D) : null)
+                    .takeIf(value -> value > 0)
+                    .toArray()),
+            () -> assertArrayEquals(
+                sample.stream().flatMapToInt(value -> IntStream.range(0, value)).limit(30).toArray(),
+                list(sample).flatMapToInt(value -> IntPipe.range(0, value)).limit(30).toArray()),
+            () -> assertArrayEquals(LongStream.range(0, sample.size()).toArray(),
+                list(sample).flatMapToLongOrderly((order, value) -> LongPipe.of(order)).toArray()));
+    }
+
+    @Test
+    @DisplayName("能够正确将元素推送展开到下游")
+    void should_flat_map_push_elements_rightly() {
+        List<Integer> sample = genIntegerList();
+        List<Integer> expected = sample.stream()
+            .flatMap(value -> value % 3 == 0 ? Stream.empty() : Stream.of(value, -value))
+            .collect(toList());
+        BiConsumer<Integer, Consumer<Integer>> pusher = (value, downstream) -> {
+            if (value % 3 != 0) {
+                downstream.accept(value);
+                downstream.accept(-value);
+            }
+        };
+        IntBox pushed = IntBox.box();
+        List<Integer> limited = infiniteIntegerPipe().flatMapPush((Integer value, Consumer<Integer> downstream) -> {
+            for (int i = 0; i < 3; i++) {
+                pushed.getAndIncrement();
+                downstream.accept(value);
+            }
+        }).limit(4).toList();
+        assertAll(() -> assertEquals(expected, list(sample).flatMapPush(pusher).toList()),
+            () -> assertEquals(expected, list(sample).parallel().flatMapPush(pusher).toList()),
+            () -> assertEquals(Arrays.asList(0, 0, 0, 1), limited),
+            () -> assertEquals(6, pushed.get()),
+            () -> assertArrayEquals(sample.stream().flatMapToInt(value -> IntStream.range(0, value)).toArray(),
+                list(sample).flatMapPushToInt((Integer value, IntConsumer downstream) -> {
+                    for (int i = 0; i < value; i++) {
+                        downstream.accept(i);
+                    }
+                }).toArray()),
+            () -> assertArrayEquals(
+                sample.stream().flatMapToLong(value -> LongStream.of(value, (long) value * value)).limit(7).toArray(),
+                list(sample).flatMapPushToLong((Integer value, LongConsumer downstream) -> {
+                    downstream.accept(value);
+                    downstream.accept((long) value * value);
+                }).limit(7).toArray()),
+            () -> assertArrayEquals(sample.stream().filter(value -> value % 2 == 0).mapToDouble(value -> value / 2D)
+                .toArray(), list(sample).flatMapPushToDouble((Integer value, DoubleConsumer downstream) -> {
+                if (value % 2 == 0) {
+                    downstream.accept(value / 2D);
+                }
+            }).toArray()));
+    }
 
     // exception test
 
@@ -90,6 +165,14 @@ class PipeFlatMapTest extends PipeTestFixture {
     void should_throw_exception_when_required_non_null_param_is_null() {
         assertAll(() -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMap(null)),
             () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMapOrderly(null)),
-            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMapCollection(null)));
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMapCollection(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMapToInt(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMapToLong(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMapToDouble(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMapPush(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMapPushToInt(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().flatMapPushToLong(null)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> infiniteIntegerPipe().flatMapPushToDouble(null)));
     }
 }
@@ -0,0 +1,112 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.PipeTestFixture;
+import com.oyealex.pipe.assist.Tuple;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.oyealex.pipe.basis.Pipe.list;
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+/**
+ * 针对单次遍历执行多个终结操作的测试用例。
+ *
+ * @author oyealex
+ * @see Pipe#fork(PipeTerminal, PipeTerminal)
+ * @see Pipe#fork(List)
+ * @see PipeTerminal
+ * @since 2023-06-25
+ */
+class PipeForkTest extends PipeTestFixture {
+    @Test
+    @DisplayName("能够只遍历一次流水线而同时得到多个终结操作的结果")
+    void should_fork_multiple_terminals_in_single_pass_rightly() {
+        List<Integer> sample = genIntegerList();
+        AtomicInteger visited = new AtomicInteger();
+        List<Object> results = list(sample).peek(value -> visited.incrementAndGet())
+            .fork(Arrays.<PipeTerminal<? super Integer, ?>>asList(PipeTerminal.count(), PipeTerminal.minMax(null),
+                PipeTerminal.groupAndCount(PipeTestFixture::isOdd), PipeTerminal.toList(),
+                PipeTerminal.max(Comparator.<Integer>naturalOrder()), PipeTerminal.reduce(0, Integer::sum),
+                PipeTerminal.collect(mapping(String::valueOf, joining(",")))));
+        Map<Boolean, Long> expectedGroups = sample.stream().collect(groupingBy(PipeTestFixture::isOdd, counting()));
+        Tuple<Long, Optional<Integer>> pair = list(sample).fork(PipeTerminal.count(), PipeTerminal.min(null));
+        assertAll(() -> assertEquals(sample.size(), visited.get()),
+            () -> assertEquals((long) sample.size(), results.get(0)),
+            () -> assertEquals(Tuple.of(sample.stream().min(Comparator.naturalOrder()),
+                sample.stream().max(Comparator.naturalOrder())), results.get(1)),
+            () -> assertEquals(expectedGroups, results.get(2)),
+            () -> assertEquals(sample, results.get(3)),
+            () -> assertEquals(sample.stream().max(Comparator.naturalOrder()), results.get(4)),
+            () -> assertEquals(sample.stream().mapToInt(Integer::intValue).sum(), results.get(5)),
+            () -> assertEquals(sample.stream().map(String::valueOf).collect(joining(",")), results.get(6)),
+            () -> assertEquals(Tuple.of((long) sample.size(), sample.stream().min(Comparator.naturalOrder())), pair),
+            () -> assertEquals(Tuple.of(0L, Collections.emptyList()),
+                Pipe.<Integer>empty().fork(PipeTerminal.count(), PipeTerminal.toList())));
+    }
+
+    @Test
+    @DisplayName("只有所有的终结操作都可以短路时才能提前结束遍历")
+    void should_short_circuit_only_when_all_terminals_satisfied_rightly() {
+        AtomicInteger visited = new AtomicInteger();
+        Tuple<Boolean, Optional<Integer>> shortCircuited = infiniteIntegerPipe()
+            .peek(value -> visited.incrementAndGet())
+            .fork(PipeTerminal.anyMatch(value -> value >= 10), PipeTerminal.findFirst());
+        List<Integer> sample = IntStream.range(0, 100).boxed().collect(toList());
+        List<Integer> received = new ArrayList<>();
+        Tuple<Boolean, Void> mixed = list(sample).fork(PipeTerminal.allMatch(value -> value < 5),
+            PipeTerminal.forEach(received::add));
+        assertAll(() -> assertEquals(Tuple.of(true, Optional.of(0)), shortCircuited),
+            () -> assertEquals(11, visited.get()),
+            () -> assertEquals(false, mixed.first),
+            () -> assertEquals(sample, received));
+    }
+
+    @Test
+    @DisplayName("能够以并行模式执行多个终结操作")
+    void should_fork_multiple_terminals_in_parallel_rightly() {
+        List<Integer> sample = IntStream.range(0, 10_000).boxed().collect(toList());
+        Function<Pipe<Integer>, List<Object>> forking = pipe -> pipe.map(value -> value * 3)
+            .takeIf(PipeTestFixture::isEven)
+            .fork(Arrays.<PipeTerminal<? super Integer, ?>>asList(PipeTerminal.count(), PipeTerminal.toList(),
+                PipeTerminal.findFirst()));
+        assertEquals(forking.apply(list(sample)), forking.apply(list(sample).parallel()));
+    }
+
+    // exception test
+
+    @Test
+    @DisplayName("终结操作不合法时能够正确抛出异常")
+    void should_throw_exception_when_terminals_are_invalid() {
+        List<Integer> sample = genIntegerList();
+        assertAll(() -> assertThrowsExactly(NullPointerException.class,
+                () -> list(sample).fork(null, PipeTerminal.count())),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> list(sample).fork(PipeTerminal.count(), null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> list(sample).fork(null)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> list(sample).fork(Arrays.<PipeTerminal<? super Integer, ?>>asList(PipeTerminal.count(), null))),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> list(sample).fork(Collections.emptyList())),
+            () -> assertThrowsExactly(NullPointerException.class, () -> PipeTerminal.forEach(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> PipeTerminal.anyMatch(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> PipeTerminal.collect(null)));
+    }
+}
@@ -4,10 +4,26 @@ import com.oyealex.pipe.PipeTestFixture;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
 
 import static com.oyealex.pipe.basis.Pipe.empty;
+import static com.oyealex.pipe.basis.Pipe.list;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.collectingAndThen;
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.summarizingLong;
+import static java.util.stream.Collectors.summingDouble;
+import static java.util.stream.Collectors.summingLong;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 
 /**
@@ -17,10 +33,55 @@ import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
  * @see Pipe#groupValues(Function)
  * @see Pipe#groupFlatValues(Function)
  * @see Pipe#group(Function)
+ * @see Pipe#groupAndCount(Function)
+ * @see Pipe#groupAndSumLong(Function, ToLongFunction)
+ * @see Pipe#groupAndSummarizeLong(Function, ToLongFunction)
  * @since 2023-06-15
  */
 class PipeGroupTest extends PipeTestFixture {
     // TODO 2023-06-15 01:16 continue
+    @Test
+    @DisplayName("能够正确对元素分组并累加，并行执行时能够得到与串行执行一致的结果")
+    void should_group_and_accumulate_elements_rightly() {
+        List<Integer> sample = IntStream.range(0, 200000).map(value -> (value * 7919) % 200000).boxed()
+            .collect(toList());
+        Function<Integer, Integer> classifier = value -> value % 10007;
+        Map<Integer, List<Integer>> expectedGroups = sample.stream().collect(groupingBy(classifier));
+        Map<Integer, Long> expectedCounts = sample.stream().collect(groupingBy(classifier, counting()));
+        Map<Integer, Long> expectedSums = sample.stream().collect(groupingBy(classifier, summingLong(value -> value)));
+        Map<Integer, Double> expectedDoubleSums = sample.stream()
+            .collect(groupingBy(classifier, summingDouble(value -> value)));
+        Map<Integer, String> expectedStatistics = sample.stream()
+            .collect(groupingBy(classifier, collectingAndThen(summarizingLong(value -> value), Object::toString)));
+        assertAll(() -> assertEquals(expectedGroups, list(sample).group(classifier)),
+            () -> assertEquals(expectedGroups, list(sample).parallel().group(classifier)),
+            () -> assertEquals(expectedCounts, list(sample).groupAndCount(classifier)),
+            () -> assertEquals(expectedCounts, list(sample).parallel().groupAndCount(classifier)),
+            () -> assertEquals(expectedSums, list(sample).groupAndSumLong(classifier, value -> value)),
+            () -> assertEquals(expectedSums, list(sample).parallel().groupAndSumLong(classifier, value -> value)),
+            () -> assertEquals(expectedDoubleSums,
+                list(sample).parallel().groupAndSumDouble(classifier, value -> value)),
+            () -> assertEquals(expectedStatistics,
+                toStringValues(list(sample).parallel().groupAndSummarizeLong(classifier, value -> value))),
+            () -> assertEquals(expectedGroups.keySet().stream().collect(toMap(identity(), key -> key * 2)),
+                list(sample).parallel().groupAndThen(classifier, (key, values) -> key * 2)));
+    }
+
+    @Test
+    @DisplayName("分类结果为null时也能够正确分组")
+    void should_group_elements_rightly_even_if_classifier_get_null_result() {
+        List<String> sample = genRandomStrList();
+        Map<Object, Long> expected = new HashMap<>();
+        expected.put(null, (long) sample.size());
+        assertEquals(expected, list(sample).groupAndCount(ignored -> null));
+    }
+
+    private static <K, V> Map<K, String> toStringValues(Map<K, V> map) {
+        Map<K, String> result = new HashMap<>();
+        map.forEach((key, value) -> result.put(key, value.toString()));
+        return result;
+    }
+
     // optimization test
 
     // exception test
@@ -28,6 +89,11 @@ class PipeGroupTest extends PipeTestFixture {
     @Test
     @DisplayName("当不能为null的参数为null时抛出异常")
     void should_throw_exception_when_required_non_null_param_is_null() {
-        assertAll(() -> assertThrowsExactly(NullPointerException.class, () -> empty().peek(null)));
+        assertAll(() -> assertThrowsExactly(NullPointerException.class, () -> empty().peek(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> empty().groupAndCount(null)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> empty().groupAndSumLong(identity(), null)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> empty().groupAndAccumulate(identity(), null, (left, right) -> {}, (left, right) -> {})));
     }
 }
@@ -6,9 +6,15 @@ import com.oyealex.pipe.functional.LongBiFunction;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -17,6 +23,7 @@ import static com.oyealex.pipe.basis.Pipe.list;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -35,6 +42,10 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  * @see Pipe#mapIfNull(Object)
  * @see Pipe#mapIfNull(Supplier)
  * @see Pipe#mapIfNonNull(Function)
+ * @see Pipe#mapAsync(Function, int)
+ * @see Pipe#mapAsync(Function, int, Executor)
+ * @see Pipe#mapAsyncUnordered(Function, int)
+ * @see Pipe#mapAsyncUnordered(Function, int, Executor)
  * @since 2023-04-28
  */
 class PipeMapTest extends PipeTestFixture {
@@ -46,6 +57,17 @@ class PipeMapTest extends PipeTestFixture {
             list(sample).map(String::valueOf).toList());
     }
 
+    @Test
+    @DisplayName("连续的映射节点会被融合为一个节点，并且能够正确映射元素")
+    void should_fuse_adjacent_mappers_and_map_elements_rightly() {
+        List<Integer> sample = genIntegerList();
+        Pipe<Integer> head = list(sample);
+        Pipe<Integer> fused = head.map(String::valueOf).map(String::length);
+        assertAll(() -> assertSame(head, ((RefPipe<?, ?>) fused).prePipe),
+            () -> assertEquals(sample.stream().map(String::valueOf).map(String::length).collect(toList()),
+                fused.toList()));
+    }
+
     @Test
     @DisplayName("能够正确映射元素为null")
     void should_map_to_null_rightly() {
@@ -136,6 +158,159 @@ class PipeMapTest extends PipeTestFixture {
             list(sample).mapIfNonNull(Integer::valueOf).toList());
     }
 
+    @Test
+    @DisplayName("能够并发映射元素，并按照原有次序或者完成次序输出")
+    void should_map_async_rightly() throws InterruptedException {
+        List<Integer> sample = genIntegerList();
+        List<String> expected = sample.stream().map(String::valueOf).collect(toList());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Function<Integer, String> slowMapper = value -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                // 越早的元素映射越慢，使得完成次序与原有次序不同
+                TimeUnit.MILLISECONDS.sleep(sample.size() - value);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return String.valueOf(value);
+        };
+        try {
+            List<String> ordered = list(sample).mapAsync(slowMapper, 4, executor).toList();
+            int orderedMaxRunning = maxRunning.getAndSet(0);
+            List<String> unordered = list(sample).mapAsyncUnordered(slowMapper, 4, executor).toList();
+            assertAll(() -> assertEquals(expected, ordered),
+                () -> assertTrue(orderedMaxRunning <= 4),
+                () -> assertEquals(new HashSet<>(expected), new HashSet<>(unordered)),
+                () -> assertEquals(expected.size(), unordered.size()),
+                () -> assertTrue(maxRunning.get() <= 4),
+                () -> assertEquals(expected, list(sample).mapAsync(String::valueOf, 3).toList()),
+                () -> assertEquals(new HashSet<>(expected),
+                    new HashSet<>(list(sample).mapAsyncUnordered(String::valueOf, 3).toList())));
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("并发映射的下游短路时，能够停止接收元素并取消剩余的映射任务")
+    void should_cancel_outstanding_tasks_when_map_async_short_circuit_rightly() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger submitted = new AtomicInteger();
+        try {
+            Optional<Integer> first = infiniteIntegerPipe().peek(ignored -> submitted.incrementAndGet())
+                .mapAsync(value -> value * 2, 4, executor)
+                .findFirst();
+            Optional<Integer> any = infiniteIntegerPipe().mapAsyncUnordered(value -> value * 2, 4, executor)
+                .takeIf(value -> value > 10)
+                .findFirst();
+            assertAll(() -> assertEquals(Optional.of(0), first),
+                () -> assertTrue(submitted.get() <= 5),
+                () -> assertTrue(any.isPresent() && any.get() > 10));
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("通过迭代器拉取并发映射的结果时，放弃迭代并关闭流水线能够取消剩余的映射任务")
+    void should_cancel_outstanding_tasks_when_close_abandoned_map_async_iterator() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        try {
+            Pipe<Integer> pipe = infiniteIntegerPipe().mapAsync(value -> {
+                if (value == 0) {
+                    return value;
+                }
+                started.incrementAndGet();
+                running.incrementAndGet();
+                try {
+                    TimeUnit.SECONDS.sleep(30);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                return value;
+            }, 4, executor);
+            assertEquals(0, pipe.toIterator().next());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            // 等待阻塞的映射任务开始执行，再放弃迭代并关闭流水线
+            while (started.get() == 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            pipe.close();
+            while (running.get() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertAll(() -> assertTrue(started.get() > 0), () -> assertEquals(0, running.get()));
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("并发映射默认的执行器能够同时执行maxConcurrency个映射任务")
+    void should_run_max_concurrency_tasks_on_default_executor_rightly() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> result = infiniteIntegerPipe().limit(16).mapAsync(value -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return value;
+        }, 8).toList();
+        assertAll(() -> assertEquals(infiniteIntegerPipe().limit(16).toList(), result),
+            () -> assertEquals(8, maxRunning.get()));
+    }
+
+    @Test
+    @DisplayName("并发映射的上游或者下游抛出异常时，能够取消剩余的映射任务")
+    void should_cancel_outstanding_tasks_when_map_async_failed_rightly() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger completed = new AtomicInteger();
+        Function<Integer, Integer> blockingMapper = value -> {
+            if (value == 0) {
+                return value;
+            }
+            try {
+                TimeUnit.SECONDS.sleep(10);
+                completed.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        };
+        try {
+            assertThrowsExactly(IllegalStateException.class,
+                () -> infiniteIntegerPipe().limit(8).mapAsync(blockingMapper, 4, executor).peek(value -> {
+                    throw new IllegalStateException("downstream failed");
+                }).toList());
+            assertThrowsExactly(IllegalStateException.class, () -> infiniteIntegerPipe().limit(8).peek(value -> {
+                if (value == 4) {
+                    throw new IllegalStateException("upstream failed");
+                }
+            }).mapAsyncUnordered(blockingMapper, 8, executor).toList());
+        } finally {
+            executor.shutdown();
+        }
+        // 在途的映射任务被取消，执行器无需等待映射完成即可结束
+        assertAll(() -> assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS)),
+            () -> assertEquals(0, completed.get()));
+    }
+
     // exception test
 
     @Test
@@ -159,6 +334,30 @@ class PipeMapTest extends PipeTestFixture {
             () -> assertThrowsExactly(NullPointerException.class, () -> infiniteRandomStrPipe().mapIfNonNull(null)));
     }
 
+    @Test
+    @DisplayName("并发映射的参数不合法或者映射方法抛出异常时，能够正确抛出异常")
+    void should_throw_exception_when_map_async_with_invalid_param_or_mapper_failed() {
+        List<Integer> sample = genIntegerList();
+        Function<Integer, Integer> failedMapper = value -> {
+            if (value == 3) {
+                throw new IllegalStateException(SOME_STR);
+            }
+            return value;
+        };
+        assertAll(() -> assertThrowsExactly(NullPointerException.class, () -> list(sample).mapAsync(null, 1)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> list(sample).mapAsync(Function.identity(), 1, null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> list(sample).mapAsyncUnordered(null, 1)),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> list(sample).mapAsync(Function.identity(), 0)),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> list(sample).mapAsyncUnordered(Function.identity(), 0)),
+            () -> assertEquals(SOME_STR, assertThrowsExactly(IllegalStateException.class,
+                () -> list(sample).mapAsync(failedMapper, 2).run()).getMessage()),
+            () -> assertEquals(SOME_STR, assertThrowsExactly(IllegalStateException.class,
+                () -> list(sample).mapAsyncUnordered(failedMapper, 2).run()).getMessage()));
+    }
+
     @Test
     @DisplayName("当mapNull使用的supplier返回null时，运行中的流水线会抛出异常")
     void should_throw_exception_while_pipe_is_running_when_map_null_with_supplier_which_return_null() {
@@ -1,23 +1,81 @@
 package com.oyealex.pipe.basis;
 
 import com.oyealex.pipe.PipeTestFixture;
-import org.junit.jupiter.api.Disabled;
+import com.oyealex.pipe.functional.LongBiToDoubleFunction;
+import com.oyealex.pipe.functional.LongBiToIntFunction;
+import com.oyealex.pipe.functional.LongBiToLongFunction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.ToDoubleFunction;
 import java.util.function.ToIntFunction;
 import java.util.function.ToLongFunction;
+import java.util.stream.LongStream;
+
+import static com.oyealex.pipe.basis.Pipe.list;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * 针对流水线{@code mapTo}系列API的测试用例。
  *
  * @author oyealex
  * @see Pipe#mapToInt(ToIntFunction)
- * @see Pipe#mapToIntOrderly(ToIntFunction)
+ * @see Pipe#mapToIntOrderly(LongBiToIntFunction)
  * @see Pipe#mapToLong(ToLongFunction)
- * @see Pipe#mapToLongOrderly(ToLongFunction)
+ * @see Pipe#mapToLongOrderly(LongBiToLongFunction)
  * @see Pipe#mapToDouble(ToDoubleFunction)
- * @see Pipe#mapToDoubleOrderly(ToDoubleFunction)
+ * @see Pipe#mapToDoubleOrderly(LongBiToDoubleFunction)
  * @since 2023-05-26
  */
-@Disabled("mapTo系列API尚未实现")
-class PipeMapToTest extends PipeTestFixture {}
+class PipeMapToTest extends PipeTestFixture {
+    @Test
+    @DisplayName("能够正确将元素映射为基本类型")
+    void should_map_to_primitive_elements_rightly() {
+        List<String> sample = genRandomStrList();
+        assertAll(() -> assertArrayEquals(sample.stream().mapToInt(String::length).toArray(),
+                list(sample).mapToInt(String::length).toArray()),
+            () -> assertArrayEquals(sample.stream().mapToLong(String::hashCode).toArray(),
+                list(sample).mapToLong(String::hashCode).toArray()),
+            () -> assertArrayEquals(sample.stream().mapToDouble(value -> value.length() / 3D).toArray(),
+                list(sample).mapToDouble(value -> value.length() / 3D).toArray()));
+    }
+
+    @Test
+    @DisplayName("能够根据次序正确将元素映射为基本类型")
+    void should_map_to_primitive_elements_orderly_rightly() {
+        List<Integer> sample = genIntegerList();
+        long[] orders = LongStream.range(0, sample.size()).toArray();
+        assertAll(() -> assertArrayEquals(LongStream.of(orders).mapToInt(order -> (int) order * 2).toArray(),
+                list(sample).mapToIntOrderly((order, value) -> (int) order + value).toArray()),
+            () -> assertArrayEquals(orders, list(sample).mapToLongOrderly((order, value) -> order).toArray()),
+            () -> assertArrayEquals(LongStream.of(orders).asDoubleStream().toArray(),
+                list(sample).mapToDoubleOrderly((order, value) -> order).toArray()));
+    }
+
+    @Test
+    @DisplayName("关闭映射得到的基本类型流水线时能够关闭原流水线")
+    void should_close_source_pipe_when_close_mapped_primitive_pipe() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        list(genIntegerList()).onClose(() -> closed.set(true)).mapToInt(Integer::intValue).close();
+        assertTrue(closed.get());
+    }
+
+    // exception test
+
+    @Test
+    @DisplayName("当不能为null的参数为null时抛出异常")
+    void should_throw_exception_when_required_non_null_param_is_null() {
+        assertAll(() -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().mapToInt(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().mapToIntOrderly(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().mapToLong(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().mapToLongOrderly(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> infiniteIntegerPipe().mapToDouble(null)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> infiniteIntegerPipe().mapToDoubleOrderly(null)));
+    }
+}
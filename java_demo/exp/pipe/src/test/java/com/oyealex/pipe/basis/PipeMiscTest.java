@@ -5,10 +5,14 @@ import com.oyealex.pipe.assist.Box;
 import com.oyealex.pipe.assist.LongBox;
 import com.oyealex.pipe.assist.Tuple;
 import com.oyealex.pipe.functional.LongBiConsumer;
+import com.oyealex.pipe.profile.MetricsSink;
+import com.oyealex.pipe.profile.PipeProfile;
+import com.oyealex.pipe.profile.StageMetrics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -34,6 +38,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  * @see Pipe#count()
  * @see Pipe#chain(Function)
  * @see Pipe#close()
+ * @see Pipe#profile(MetricsSink)
  * @since 2023-05-30
  */
 class PipeMiscTest extends PipeTestFixture {
@@ -113,6 +118,58 @@ class PipeMiscTest extends PipeTestFixture {
         assertTrue(mark.get());
     }
 
+    @Test
+    @DisplayName("开启性能剖析后，能够正确输出每个节点的运行报告")
+    void should_report_stage_metrics_when_profile_enabled() {
+        List<String> sample = genRandomStrList();
+        List<String> filtered = sample.stream().filter(value -> value.length() > 5).collect(toList());
+        List<PipeProfile> profiles = new ArrayList<>();
+        List<String> result = list(sample).takeIf(value -> value.length() > 5)
+            .sort()
+            .map(String::trim)
+            .profile(profiles::add)
+            .toList();
+        assertEquals(filtered.stream().sorted().collect(toList()), result);
+        assertEquals(1, profiles.size());
+        List<StageMetrics> stages = profiles.get(0).getStages();
+        assertAll(() -> assertEquals(Arrays.asList("StatelessOp.Filter", "SortOp.Normal", "StatelessOp.Mapper"),
+                stages.stream().map(StageMetrics::getStage).collect(toList())),
+            () -> assertEquals(sample.size(), stages.get(0).getElementsIn()),
+            () -> assertEquals(filtered.size(), stages.get(0).getElementsOut()),
+            () -> assertEquals(filtered.size(), stages.get(1).getBufferPeak()),
+            () -> assertEquals(-1L, stages.get(0).getBufferPeak()),
+            () -> assertEquals(filtered.size(), stages.get(2).getElementsOut()),
+            () -> assertTrue(stages.stream().allMatch(stage -> stage.getSelfNanos() <= stage.getTotalNanos())));
+    }
+
+    @Test
+    @DisplayName("开启性能剖析后，转换元素类型或追加元素得到的流水线仍然能够输出运行报告")
+    void should_keep_profiler_when_derive_new_pipe_head() {
+        List<String> sample = genRandomStrList();
+        List<PipeProfile> profiles = new ArrayList<>();
+        List<Integer> result = list(sample).profile(profiles::add)
+            .mapToInt(String::length)
+            .mapToObj(Integer::valueOf)
+            .append(0)
+            .map(value -> value + 1)
+            .toList();
+        assertAll(() -> assertEquals(sample.size() + 1, result.size()), () -> assertEquals(1, profiles.size()));
+    }
+
+    @Test
+    @DisplayName("开启性能剖析后，能够正确记录短路的位置")
+    void should_report_short_circuit_point_when_profile_enabled() {
+        List<String> sample = genRandomStrList();
+        List<PipeProfile> profiles = new ArrayList<>();
+        list(sample).map(String::trim).profile(profiles::add).limit(3).toList();
+        List<StageMetrics> stages = profiles.get(0).getStages();
+        assertAll(() -> assertEquals(Arrays.asList("StatelessOp.Mapper", "SliceOp.Normal"),
+                stages.stream().map(StageMetrics::getStage).collect(toList())),
+            () -> assertEquals(3L, stages.get(0).getElementsIn()),
+            () -> assertEquals(3L, stages.get(1).getShortCircuitAt()),
+            () -> assertEquals(3L, stages.get(1).getElementsOut()));
+    }
+
     // optimization test
 
     // exception test
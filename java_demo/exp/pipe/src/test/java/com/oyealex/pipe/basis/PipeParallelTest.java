@@ -0,0 +1,168 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.PipeTestFixture;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static com.oyealex.pipe.assist.Tuple.of;
+import static com.oyealex.pipe.basis.Pipe.list;
+import static com.oyealex.pipe.basis.Pipe.set;
+import static java.util.Comparator.comparingInt;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 针对流水线{@code parallel}系列API的测试用例。
+ *
+ * @author oyealex
+ * @see Pipe#parallel()
+ * @see Pipe#sequential()
+ * @see Pipe#isParallel()
+ * @see Pipe#reduceTo(Supplier, BiConsumer, BiConsumer)
+ * @since 2023-06-20
+ */
+class PipeParallelTest extends PipeTestFixture {
+    private static final int LARGE_SIZE = 100_000;
+
+    private static List<Integer> genLargeIntegerList() {
+        return IntStream.range(0, LARGE_SIZE).map(value -> (value * 7919) % LARGE_SIZE).boxed().collect(toList());
+    }
+
+    @Test
+    @DisplayName("能够正确切换流水线的求值模式")
+    void should_switch_evaluation_mode_rightly() {
+        Pipe<Integer> pipe = list(genIntegerList());
+        assertFalse(pipe.isParallel());
+        Pipe<String> mapped = pipe.parallel().map(String::valueOf);
+        assertAll(() -> assertTrue(pipe.isParallel()), () -> assertTrue(mapped.isParallel()));
+        mapped.sequential();
+        assertAll(() -> assertFalse(pipe.isParallel()), () -> assertFalse(mapped.isParallel()));
+    }
+
+    @Test
+    @DisplayName("由流水线派生出新的头节点时，能够保留原流水线的求值模式")
+    void should_keep_evaluation_mode_when_derive_new_pipe_head() {
+        List<Integer> sample = genIntegerList();
+        assertAll(() -> assertTrue(list(sample).parallel().append(1).isParallel()),
+            () -> assertTrue(list(sample).parallel().prepend(1).isParallel()),
+            () -> assertTrue(list(sample).parallel().partitionLazily(2).isParallel()),
+            () -> assertTrue(
+                list(sample).parallel().mapToInt(Integer::intValue).mapToObj(Integer::valueOf).isParallel()),
+            () -> assertTrue(list(sample).parallel()
+                .mapToLong(Integer::longValue)
+                .mapToDouble(value -> value)
+                .mapToInt(value -> (int) value)
+                .mapToObj(Integer::valueOf)
+                .isParallel()),
+            () -> assertTrue(list(sample).parallel()
+                .flatMapToInt(value -> IntPipe.of(value, value))
+                .cache()
+                .mapToObj(Integer::valueOf)
+                .isParallel()),
+            () -> assertFalse(
+                list(sample).append(1).mapToInt(Integer::intValue).mapToObj(Integer::valueOf).isParallel()),
+            () -> assertEquals(sample.size() + 1,
+                list(sample).parallel().mapToInt(Integer::intValue).mapToObj(Integer::valueOf).append(1).count()));
+    }
+
+    @Test
+    @DisplayName("并行执行无状态操作和可合并的终结操作时能够得到与串行执行一致的结果")
+    void should_get_same_result_as_sequential_when_evaluate_stateless_pipe_in_parallel() {
+        List<Integer> sample = genLargeIntegerList();
+        Function<Integer, String> mapper = value -> value % 3 == 0 ? "A" + value : "B" + value;
+        List<String> expected = sample.stream().filter(value -> value % 2 == 0).map(mapper).collect(toList());
+        assertAll(() -> assertEquals(expected,
+                list(sample).parallel().takeIf(value -> value % 2 == 0).map(mapper).toList()),
+            () -> assertEquals(expected.size(),
+                list(sample).parallel().takeIf(value -> value % 2 == 0).map(mapper).count()),
+            () -> assertEquals(sample.stream().reduce(Integer::sum), list(sample).parallel().reduce(Integer::sum)),
+            () -> assertEquals(expected.stream().collect(groupingBy(value -> value.charAt(0))),
+                list(expected).parallel().group(value -> value.charAt(0))),
+            () -> assertEquals(expected.stream().collect(groupingBy(value -> value.charAt(0), counting())),
+                list(expected).parallel().groupAndCount(value -> value.charAt(0))),
+            () -> assertArrayEquals(expected.toArray(new String[0]),
+                list(expected).parallel().toArray(String[]::new)),
+            () -> assertEquals(of(Optional.of(expected.get(0)), Optional.of(expected.get(expected.size() - 1))),
+                list(expected).parallel().findFirstLast()),
+            () -> assertEquals(new HashSet<>(expected), set(new HashSet<>(expected)).parallel().toSet()));
+    }
+
+    @Test
+    @DisplayName("并行求极值时，相等的元素能够与串行执行一样保留遇到顺序中靠前的元素")
+    void should_keep_encounter_order_for_equal_elements_when_evaluate_min_max_in_parallel() {
+        List<String> sample = list(genLargeIntegerList()).map(String::valueOf).toList();
+        Comparator<String> comparator = comparingInt(String::length);
+        assertAll(() -> assertEquals(list(sample).minMax(comparator), list(sample).parallel().minMax(comparator)),
+            () -> assertEquals(list(sample).min(comparator), list(sample).parallel().min(comparator)),
+            () -> assertEquals(list(sample).max(comparator), list(sample).parallel().max(comparator)));
+    }
+
+    @Test
+    @DisplayName("并行执行包含有状态操作的流水线时能够得到与串行执行一致的结果")
+    void should_get_same_result_as_sequential_when_evaluate_stateful_pipe_in_parallel() {
+        List<Integer> sample = genLargeIntegerList();
+        List<Long> orders = new ArrayList<>();
+        assertAll(() -> assertEquals(sample.stream().map(value -> value / 10).distinct().sorted().collect(toList()),
+                list(sample).parallel().map(value -> value / 10).distinct().sort().toList()),
+            () -> assertEquals(sample.stream().map(value -> value * 2).reduce(0, Integer::sum),
+                list(sample).parallel().map(value -> value * 2).reduce(0, Integer::sum)),
+            () -> {
+                list(sample).parallel().map(identity()).forEachOrderly((order, value) -> orders.add(order));
+                assertEquals(LongStream.range(0, sample.size()).boxed().collect(toList()), orders);
+            });
+    }
+
+    @Test
+    @DisplayName("并行执行时给定的操作能够处理所有元素")
+    void should_process_all_elements_when_evaluate_in_parallel() {
+        List<Integer> sample = genLargeIntegerList();
+        AtomicLong counter = new AtomicLong();
+        list(sample).parallel().peek(value -> counter.incrementAndGet()).forEach(value -> counter.incrementAndGet());
+        assertEquals(sample.size() * 2L, counter.get());
+    }
+
+    @Test
+    @DisplayName("并行执行包含短路操作的流水线时能够得到与串行执行一致的结果")
+    void should_get_same_result_as_sequential_when_evaluate_short_circuit_pipe_in_parallel() {
+        List<Integer> sample = genLargeIntegerList();
+        BinaryOperator<Integer> reducer = Integer::sum;
+        assertAll(() -> assertEquals(sample.stream().filter(value -> value > 100).findFirst(),
+                list(sample).parallel().takeIf(value -> value > 100).findFirst()),
+            () -> assertEquals(sample.stream().limit(100).reduce(reducer),
+                list(sample).parallel().limit(100).reduce(reducer)),
+            () -> assertTrue(list(sample).parallel().anyMatch(value -> value == LARGE_SIZE - 1)));
+    }
+
+    @Test
+    @DisplayName("并行收集元素时能够正确合并各个分段的容器")
+    void should_combine_containers_of_each_part_rightly_when_reduce_to_container_in_parallel() {
+        List<Integer> sample = genLargeIntegerList();
+        Map<Boolean, List<Integer>> expected = sample.stream().collect(groupingBy(value -> value % 2 == 0));
+        assertAll(
+            () -> assertEquals(sample, list(sample).parallel().reduceTo(ArrayList::new, List::add, List::addAll)),
+            () -> assertEquals(expected, list(sample).parallel().group(value -> value % 2 == 0)),
+            () -> assertEquals(sample.stream().collect(groupingBy(value -> value % 2 == 0, counting())),
+                list(sample).parallel().groupAndCount(value -> value % 2 == 0)));
+    }
+}
@@ -8,16 +8,23 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.Vector;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 import static com.oyealex.pipe.basis.Pipe.list;
 import static com.oyealex.pipe.policy.PartitionPolicy.IN;
+import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
@@ -29,6 +36,10 @@ import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
  * @see Pipe#partition(int)
  * @see Pipe#partition(Function)
  * @see Pipe#partitionOrderly(LongBiFunction)
+ * @see Pipe#partitionLazily(int)
+ * @see Pipe#forEachPartition(int, Consumer)
+ * @see Pipe#window(int, int)
+ * @see Pipe#windowBy(ToLongFunction, long)
  * @see Pipe#partitionToList(int)
  * @see Pipe#partitionToList(Function)
  * @see Pipe#partitionToList(int, Supplier)
@@ -53,6 +64,21 @@ class PipePartitionTest extends PipeTestFixture {
             () -> assertEquals(partition(sample, size + 1), list(sample).partition(size + 1).chain(this::toList)));
     }
 
+    @Test
+    @DisplayName("元素数量只有上界时，能够根据固定大小正确对流水线元素分区")
+    void should_partition_elements_with_max_size_only_by_fixed_size_rightly() {
+        List<String> sample = genRandomStrList();
+        List<String> filtered = new ArrayList<>(sample);
+        filtered.removeIf(value -> value.length() <= 5);
+        int size = sample.size();
+        assertAll(() -> assertEquals(partition(filtered, 3),
+                list(sample).takeIf(value -> value.length() > 5).partition(3).chain(this::toList)),
+            () -> assertEquals(partition(filtered, size + 1),
+                list(sample).takeIf(value -> value.length() > 5).partition(size + 1).chain(this::toList)),
+            () -> assertEquals(partition(sample.subList(0, 7), 5),
+                list(sample).limit(7).partition(5).chain(this::toList)));
+    }
+
     @Test
     @DisplayName("能够正确根据策略对元素分区")
     void should_partition_elements_by_policy_rightly() {
@@ -89,6 +115,108 @@ class PipePartitionTest extends PipeTestFixture {
                 list(sample).partitionToCollection(getPolicyRoundly(), Vector::new).toList()));
     }
 
+    @Test
+    @DisplayName("能够根据固定大小正确对流水线元素惰性分区")
+    void should_partition_elements_lazily_by_fixed_size_rightly() {
+        List<String> sample = genRandomStrList();
+        int size = sample.size();
+        assertAll(() -> assertEquals(partition(sample, 5), list(sample).partitionLazily(5).chain(this::toList)),
+            () -> assertEquals(partition(sample, 1), list(sample).partitionLazily(1).chain(this::toList)),
+            () -> assertEquals(partition(sample, size), list(sample).partitionLazily(size).chain(this::toList)),
+            () -> assertEquals(partition(sample, size + 1),
+                list(sample).partitionLazily(size + 1).chain(this::toList)),
+            () -> assertEquals(partition(sample.subList(0, 7), 5),
+                list(sample).limit(7).partitionLazily(5).chain(this::toList)),
+            () -> assertEquals(emptyList(), Pipe.<String>empty().partitionLazily(5).chain(this::toList)));
+    }
+
+    @Test
+    @DisplayName("惰性分区能够处理无限流水线，并且获取下一个分区时会跳过上一个分区中未访问的元素")
+    void should_partition_infinite_pipe_lazily_and_skip_unvisited_elements() {
+        List<String> sample = genRandomStrList();
+        List<String> firsts = new ArrayList<>();
+        for (int i = 0; i < sample.size(); i += 5) {
+            firsts.add(sample.get(i));
+        }
+        assertAll(() -> assertEquals(partition(sample.subList(0, 12), 3),
+                list(sample).append(infiniteRandomStrPipe()).partitionLazily(3).limit(4).chain(this::toList)),
+            () -> assertEquals(firsts,
+                list(sample).partitionLazily(5).map(partition -> partition.findFirst().orElse(null)).toList()));
+    }
+
+    @Test
+    @DisplayName("能够根据窗口大小和步长正确输出滑动窗口")
+    void should_slide_windows_by_size_and_step_rightly() {
+        List<String> sample = genRandomStrList();
+        int size = sample.size();
+        assertAll(() -> assertEquals(window(sample, 3, 1), list(sample).window(3, 1).map(ArrayList::new).toList()),
+            () -> assertEquals(window(sample, 5, 2), list(sample).window(5, 2).map(ArrayList::new).toList()),
+            () -> assertEquals(window(sample, 4, 4), list(sample).window(4, 4).map(ArrayList::new).toList()),
+            () -> assertEquals(window(sample, 2, 5), list(sample).window(2, 5).map(ArrayList::new).toList()),
+            () -> assertEquals(window(sample, size, 1), list(sample).window(size, 1).map(ArrayList::new).toList()),
+            () -> assertEquals(emptyList(), list(sample).window(size + 1, 1).map(ArrayList::new).toList()),
+            () -> assertEquals(window(sample.subList(0, 12), 3, 1),
+                list(sample).append(infiniteRandomStrPipe()).window(3, 1).limit(10).map(ArrayList::new).toList()));
+    }
+
+    @Test
+    @DisplayName("所有窗口复用同一个只读的缓冲区")
+    void should_reuse_the_same_read_only_buffer_for_all_windows() {
+        Set<List<String>> windows = Collections.newSetFromMap(new IdentityHashMap<>());
+        list(genRandomStrList()).window(3, 1).forEach(windows::add);
+        List<String> window = windows.iterator().next();
+        assertAll(() -> assertEquals(1, windows.size()),
+            () -> assertThrowsExactly(UnsupportedOperationException.class, () -> window.add("")),
+            () -> assertThrowsExactly(UnsupportedOperationException.class, () -> window.set(0, "")),
+            () -> assertThrowsExactly(UnsupportedOperationException.class, () -> window.remove(0)));
+    }
+
+    @Test
+    @DisplayName("能够根据时间跨度正确输出滑动窗口")
+    void should_slide_windows_by_duration_rightly() {
+        List<Long> sample = new ArrayList<>();
+        for (long i = 0, timestamp = 0; i < 100; i++, timestamp += i % 7) {
+            sample.add(timestamp);
+        }
+        List<List<Long>> expected = new ArrayList<>();
+        for (int i = 0; i < sample.size(); i++) {
+            List<Long> window = new ArrayList<>();
+            for (int j = 0; j <= i; j++) {
+                if (sample.get(i) - sample.get(j) < 10) {
+                    window.add(sample.get(j));
+                }
+            }
+            expected.add(window);
+        }
+        assertAll(() -> assertEquals(expected, list(sample).windowBy(Long::longValue, 10).map(ArrayList::new).toList()),
+            () -> assertThrowsExactly(IllegalStateException.class,
+                () -> list(Arrays.asList(1L, 2L, 1L)).windowBy(Long::longValue, 10).run()),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> list(sample).windowBy(Long::longValue, 0)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> list(sample).windowBy(null, 10)),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> infiniteRandomStrPipe().window(0, 1)),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> infiniteRandomStrPipe().window(1, 0)));
+    }
+
+    @Test
+    @DisplayName("能够根据固定大小正确访问复用缓存的分区列表")
+    void should_visit_partitions_with_reused_buffer_by_fixed_size_rightly() {
+        List<String> sample = genRandomStrList();
+        List<List<String>> partitions = new ArrayList<>();
+        Set<List<String>> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        list(sample).forEachPartition(5, partition -> {
+            partitions.add(new ArrayList<>(partition));
+            buffers.add(partition);
+        });
+        List<List<String>> filteredPartitions = new ArrayList<>();
+        list(sample).takeIf(value -> value.length() > 5)
+            .forEachPartition(3, partition -> filteredPartitions.add(new ArrayList<>(partition)));
+        List<String> filtered = new ArrayList<>(sample);
+        filtered.removeIf(value -> value.length() <= 5);
+        assertAll(() -> assertEquals(partition(sample, 5), partitions), () -> assertEquals(1, buffers.size()),
+            () -> assertEquals(partition(filtered, 3), filteredPartitions));
+    }
+
     private Function<String, PartitionPolicy> getPolicyRoundly() {
         IntBox counter = IntBox.box(0);
         return ignored -> PartitionPolicy.values()[counter.getAndIncrementRound(3)];
@@ -112,6 +240,14 @@ class PipePartitionTest extends PipeTestFixture {
         return partitions;
     }
 
+    private <T> List<List<T>> window(List<T> list, int size, int step) {
+        List<List<T>> windows = new ArrayList<>();
+        for (int index = 0; index + size <= list.size(); index += step) {
+            windows.add(new ArrayList<>(list.subList(index, index + size)));
+        }
+        return windows;
+    }
+
     private <T> List<List<T>> partition(List<T> list, int... sizes) {
         int index = 0;
         List<List<T>> partitions = new ArrayList<>(sizes.length + 1);
@@ -187,7 +323,11 @@ class PipePartitionTest extends PipeTestFixture {
             () -> assertThrowsExactly(IllegalArgumentException.class,
                 () -> infiniteRandomStrPipe().partitionToCollection(-1, ArrayList::new)),
             () -> assertThrowsExactly(IllegalArgumentException.class,
-                () -> infiniteRandomStrPipe().partitionToCollection(0, ArrayList::new)));
+                () -> infiniteRandomStrPipe().partitionToCollection(0, ArrayList::new)),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> infiniteRandomStrPipe().partitionLazily(0)),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> infiniteRandomStrPipe().forEachPartition(0, ignored -> {})));
     }
 
     @Test
@@ -212,7 +352,9 @@ class PipePartitionTest extends PipeTestFixture {
             () -> assertThrowsExactly(NullPointerException.class,
                 () -> infiniteRandomStrPipe().partitionToCollection(5, null)),
             () -> assertThrowsExactly(NullPointerException.class,
-                () -> infiniteRandomStrPipe().partitionToCollection(null, ArrayList::new)));
+                () -> infiniteRandomStrPipe().partitionToCollection(null, ArrayList::new)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> infiniteRandomStrPipe().forEachPartition(5, null)));
     }
 
     @Test
@@ -0,0 +1,259 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.PipeTestFixture;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.LongSummaryStatistics;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 针对基本类型流水线{@link IntPipe}、{@link LongPipe}以及{@link DoublePipe}的测试用例。
+ *
+ * @author oyealex
+ * @see IntPipe
+ * @see LongPipe
+ * @see DoublePipe
+ * @since 2023-06-22
+ */
+class PipePrimitiveTest extends PipeTestFixture {
+    private static int[] genIntArray() {
+        return IntStream.range(0, NORMAL_SIZE * 10).map(value -> (value * 37) % 101 - 50).toArray();
+    }
+
+    private static Stream<int[]> slide(int[] sample, int size) {
+        return IntStream.rangeClosed(0, sample.length - size).mapToObj(index -> Arrays.copyOfRange(sample, index,
+            index + size));
+    }
+
+    @Test
+    @DisplayName("int流水线的中间操作能够得到与IntStream一致的结果")
+    void should_get_same_result_as_int_stream_when_execute_intermediate_ops() {
+        int[] sample = genIntArray();
+        assertAll(() -> assertArrayEquals(IntStream.of(sample).filter(value -> value > 0).map(value -> value * 3)
+                    .toArray(),
+                IntPipe.of(sample).takeIf(value -> value > 0).map(value -> value * 3).toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).sorted().toArray(), IntPipe.of(sample).sort().toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).distinct().toArray(), IntPipe.of(sample).distinct().toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).sorted().distinct().toArray(),
+                IntPipe.of(sample).sort().distinct().toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).skip(7).limit(11).toArray(),
+                IntPipe.of(sample).skip(7).limit(11).toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).flatMap(value -> IntStream.of(value, -value)).toArray(),
+                IntPipe.of(sample).flatMap(value -> IntPipe.of(value, -value)).toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).sorted().limit(5).toArray(),
+                IntPipe.of(sample).sort().limit(5).toArray()),
+            () -> assertArrayEquals(IntStream.range(0, sample.length).filter(index -> index % 3 == 0)
+                    .map(index -> sample[index]).toArray(),
+                IntPipe.of(sample).takeIfOrderly((order, value) -> order % 3 == 0).toArray()));
+    }
+
+    @Test
+    @DisplayName("int流水线的终结操作能够得到与IntStream一致的结果")
+    void should_get_same_result_as_int_stream_when_execute_terminal_ops() {
+        int[] sample = genIntArray();
+        IntSummaryStatistics expected = IntStream.of(sample).summaryStatistics();
+        IntSummaryStatistics actual = IntPipe.of(sample).summaryStatistics();
+        assertAll(() -> assertEquals(IntStream.of(sample).asLongStream().sum(), IntPipe.of(sample).sum()),
+            () -> assertEquals(IntStream.of(sample).count(), IntPipe.of(sample).count()),
+            () -> assertEquals(IntStream.of(sample).min(), IntPipe.of(sample).min()),
+            () -> assertEquals(IntStream.of(sample).max(), IntPipe.of(sample).max()),
+            () -> assertEquals(IntStream.of(sample).min(), IntPipe.of(sample).sort().min()),
+            () -> assertEquals(IntStream.of(sample).max(), IntPipe.of(sample).sort().max()),
+            () -> assertEquals(IntStream.of(sample).average(), IntPipe.of(sample).average()),
+            () -> assertEquals(expected.toString(), actual.toString()),
+            () -> assertEquals(IntStream.of(sample).reduce(1, (left, right) -> left * 31 + right),
+                IntPipe.of(sample).reduce(1, (left, right) -> left * 31 + right)),
+            () -> assertEquals(IntStream.of(sample).reduce(Integer::sum), IntPipe.of(sample).reduce(Integer::sum)),
+            () -> assertTrue(IntPipe.of(sample).anyMatch(value -> value == 0)),
+            () -> assertFalse(IntPipe.of(sample).allMatch(value -> value > 0)),
+            () -> assertTrue(IntPipe.of(sample).noneMatch(value -> value > 100)),
+            () -> assertEquals(IntStream.of(sample).findFirst(), IntPipe.of(sample).findFirst()),
+            () -> assertEquals(sample[sample.length - 1], IntPipe.of(sample).findLast().getAsInt()),
+            () -> assertFalse(IntPipe.empty().findLast().isPresent()),
+            () -> assertFalse(IntPipe.empty().average().isPresent()));
+    }
+
+    @Test
+    @DisplayName("int流水线的短路操作能够提前结束遍历")
+    void should_stop_traversal_early_when_execute_short_circuit_ops() {
+        AtomicInteger counter = new AtomicInteger();
+        assertAll(() -> assertTrue(IntPipe.range(0, Integer.MAX_VALUE)
+                .peek(value -> counter.incrementAndGet())
+                .anyMatch(value -> value == 9)),
+            () -> assertEquals(10, counter.get()),
+            () -> assertArrayEquals(new int[] {0, 1, 2}, IntPipe.range(0, Integer.MAX_VALUE).limit(3).toArray()));
+    }
+
+    @Test
+    @DisplayName("能够正确统计int流水线的直方图")
+    void should_calc_histogram_of_int_pipe_rightly() {
+        int[] sample = genIntArray();
+        long[] expected = new long[4];
+        IntStream.of(sample)
+            .filter(value -> value >= -40 && value < 40)
+            .forEach(value -> expected[(value + 40) / 20]++);
+        assertAll(() -> assertArrayEquals(expected, IntPipe.of(sample).histogram(-40, 40, 4)),
+            () -> assertArrayEquals(new long[] {1, 1, 1},
+                IntPipe.of(Integer.MIN_VALUE, 0, Integer.MAX_VALUE - 1).histogram(Integer.MIN_VALUE, Integer.MAX_VALUE,
+                    3)));
+    }
+
+    @Test
+    @DisplayName("long流水线能够得到与LongStream一致的结果")
+    void should_get_same_result_as_long_stream() {
+        long[] sample = IntStream.of(genIntArray()).asLongStream().map(value -> value * Integer.MAX_VALUE).toArray();
+        LongSummaryStatistics expected = LongStream.of(sample).summaryStatistics();
+        assertAll(() -> assertArrayEquals(LongStream.of(sample).sorted().distinct().toArray(),
+                LongPipe.of(sample).sort().distinct().toArray()),
+            () -> assertArrayEquals(LongStream.of(sample).distinct().toArray(),
+                LongPipe.of(sample).distinct().toArray()),
+            () -> assertEquals(LongStream.of(sample).sum(), LongPipe.of(sample).sum()),
+            () -> assertEquals(LongStream.of(sample).min(), LongPipe.of(sample).min()),
+            () -> assertEquals(LongStream.of(sample).max(), LongPipe.of(sample).sort().max()),
+            () -> assertEquals(expected.toString(), LongPipe.of(sample).summaryStatistics().toString()),
+            () -> assertArrayEquals(LongStream.range(-5, 5).toArray(), LongPipe.range(-5, 5).toArray()),
+            () -> assertArrayEquals(new long[] {2, 1, 1}, LongPipe.of(-10, -9, -1, 0, 5, 10).histogram(-10, 5, 3)),
+            () -> assertArrayEquals(LongStream.of(sample).mapToInt(value -> (int) value).toArray(),
+                LongPipe.of(sample).mapToInt(value -> (int) value).toArray()));
+    }
+
+    @Test
+    @DisplayName("double流水线能够得到与DoubleStream一致的结果")
+    void should_get_same_result_as_double_stream() {
+        double[] sample = IntStream.of(genIntArray()).mapToDouble(value -> value / 7D).toArray();
+        DoubleSummaryStatistics expected = DoubleStream.of(sample).summaryStatistics();
+        assertAll(() -> assertArrayEquals(DoubleStream.of(sample).sorted().distinct().toArray(),
+                DoublePipe.of(sample).sort().distinct().toArray()),
+            () -> assertArrayEquals(DoubleStream.of(0D, -0D, Double.NaN, Double.NaN, 0D).distinct().toArray(),
+                DoublePipe.of(0D, -0D, Double.NaN, Double.NaN, 0D).distinct().toArray()),
+            () -> assertEquals(DoubleStream.of(sample).sum(), DoublePipe.of(sample).sum(), 1e-9),
+            () -> assertEquals(DoubleStream.of(1D, 1e-16, 1e-16, 1e-16, 1e-16, 1e-16, 1e-16, 1e-16, 1e-16).sum(),
+                DoublePipe.of(1D, 1e-16, 1e-16, 1e-16, 1e-16, 1e-16, 1e-16, 1e-16, 1e-16).sum()),
+            () -> assertEquals(Double.POSITIVE_INFINITY, DoublePipe.of(1D, Double.POSITIVE_INFINITY, 2D).sum()),
+            () -> assertEquals(DoubleStream.of(sample).min(), DoublePipe.of(sample).min()),
+            () -> assertEquals(DoubleStream.of(sample).max(), DoublePipe.of(sample).max()),
+            () -> assertEquals(expected.getCount(), DoublePipe.of(sample).summaryStatistics().getCount()),
+            () -> assertEquals(expected.getAverage(), DoublePipe.of(sample).average().getAsDouble(), 1e-9),
+            () -> assertArrayEquals(new long[] {1, 2}, DoublePipe.of(0D, 0.5, 0.9, 1D, Double.NaN).histogram(0D, 1D, 2)),
+            () -> assertArrayEquals(DoubleStream.of(sample).mapToLong(Math::round).toArray(),
+                DoublePipe.of(sample).mapToLong(Math::round).toArray()));
+    }
+
+    @Test
+    @DisplayName("基本类型流水线能够与其他类型的流水线正确转换")
+    void should_convert_between_pipes_rightly() {
+        int[] sample = genIntArray();
+        assertAll(() -> assertEquals(IntStream.of(sample).boxed().collect(toList()),
+                IntPipe.of(sample).boxed().toList()),
+            () -> assertArrayEquals(IntStream.of(sample).asLongStream().toArray(),
+                IntPipe.of(sample).asLongPipe().toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).asDoubleStream().toArray(),
+                IntPipe.of(sample).asDoublePipe().toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).sorted().mapToObj(String::valueOf).toArray(),
+                IntPipe.of(sample).sort().mapToObj(String::valueOf).toList().toArray()),
+            () -> assertArrayEquals(IntStream.of(sample).filter(value -> value > 0).asLongStream().sorted().toArray(),
+                IntPipe.of(sample).takeIf(value -> value > 0).asLongPipe().sort().toArray()));
+    }
+
+    @Test
+    @DisplayName("能够将基本类型流水线转换为拆分器和迭代器")
+    void should_convert_primitive_pipe_to_spliterator_and_iterator_rightly() {
+        int[] sample = genIntArray();
+        int[] expected = IntStream.of(sample).flatMap(value -> IntStream.of(value, value)).sorted().toArray();
+        PrimitiveIterator.OfInt iterator = IntPipe.of(sample).flatMap(value -> IntPipe.of(value, value)).sort()
+            .toIterator();
+        int[] actual = new int[expected.length];
+        for (int i = 0; i < actual.length; i++) {
+            actual[i] = iterator.nextInt();
+        }
+        IntPipe partiallyConsumed = IntPipe.spliterator(IntPipe.of(sample).takeIf(value -> value > 0).toSpliterator());
+        PrimitiveIterator.OfInt another = partiallyConsumed.toIterator();
+        int first = another.nextInt();
+        int[] remaining = IntPipe.spliterator(IntPipe.of(sample).takeIf(value -> value > 0).skip(1).toSpliterator())
+            .toArray();
+        assertAll(() -> assertArrayEquals(expected, actual), () -> assertFalse(iterator.hasNext()),
+            () -> assertEquals(IntStream.of(sample).filter(value -> value > 0).findFirst().getAsInt(), first),
+            () -> assertArrayEquals(IntStream.of(sample).filter(value -> value > 0).skip(1).toArray(), remaining));
+    }
+
+    @Test
+    @DisplayName("滑动窗口的和、平均值以及最值能够得到与逐个窗口计算一致的结果")
+    void should_get_same_result_as_each_window_when_execute_sliding_aggregations() {
+        int[] sample = genIntArray();
+        double[] doubles = IntStream.of(sample).mapToDouble(value -> value / 3.0).toArray();
+        int size = 7;
+        assertAll(() -> assertArrayEquals(slide(sample, size).mapToLong(window -> IntStream.of(window).sum()).toArray(),
+                IntPipe.of(sample).slidingSum(size).toArray()),
+            () -> assertArrayEquals(slide(sample, size).mapToDouble(window -> IntStream.of(window).average()
+                .getAsDouble()).toArray(), IntPipe.of(sample).slidingAverage(size).toArray(), 1e-9),
+            () -> assertArrayEquals(slide(sample, size).mapToInt(window -> IntStream.of(window).min().getAsInt())
+                .toArray(), IntPipe.of(sample).slidingMin(size).toArray()),
+            () -> assertArrayEquals(slide(sample, size).mapToInt(window -> IntStream.of(window).max().getAsInt())
+                .toArray(), IntPipe.of(sample).slidingMax(size).toArray()),
+            () -> assertArrayEquals(slide(sample, size).mapToLong(window -> IntStream.of(window).min().getAsInt())
+                .toArray(), IntPipe.of(sample).asLongPipe().slidingMin(size).toArray()),
+            () -> assertArrayEquals(slide(sample, size).mapToLong(window -> IntStream.of(window).max().getAsInt())
+                .toArray(), IntPipe.of(sample).asLongPipe().slidingMax(size).toArray()),
+            () -> assertArrayEquals(slide(sample, 1).mapToInt(window -> window[0]).toArray(),
+                IntPipe.of(sample).slidingMax(1).toArray()),
+            () -> assertArrayEquals(new long[0], IntPipe.of(sample).slidingSum(sample.length + 1).toArray()),
+            () -> assertArrayEquals(slide(sample, size).mapToDouble(window -> IntStream.of(window)
+                .mapToDouble(value -> value / 3.0).sum()).toArray(), DoublePipe.of(doubles).slidingSum(size).toArray(),
+                1e-9),
+            () -> assertArrayEquals(slide(sample, size).mapToDouble(window -> IntStream.of(window).min().getAsInt() /
+                3.0).toArray(), DoublePipe.of(doubles).slidingMin(size).toArray()),
+            () -> assertArrayEquals(slide(sample, size).mapToDouble(window -> IntStream.of(window).max().getAsInt() /
+                3.0).toArray(), DoublePipe.of(doubles).slidingMax(size).toArray()),
+            () -> assertArrayEquals(new double[] {Double.NaN, Double.NaN, 3.0, 4.0},
+                DoublePipe.of(1.0, Double.NaN, 2.0, 3.0, 4.0).slidingMax(2).toArray()),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> IntPipe.of(1).slidingSum(0)),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> LongPipe.of(1).slidingAverage(0)),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> DoublePipe.of(1).slidingMin(-1)));
+    }
+
+    @Test
+    @DisplayName("窗口中存在无穷或者NaN时，滑动窗口的和与平均值只受窗口内元素的影响")
+    void should_get_right_sliding_sum_when_window_contains_non_finite_values() {
+        double inf = Double.POSITIVE_INFINITY;
+        assertAll(() -> assertArrayEquals(new double[] {inf, 6.0, 9.0, 12.0, 15.0},
+                DoublePipe.of(inf, 1, 2, 3, 4, 5, 6).slidingSum(3).toArray()),
+            () -> assertArrayEquals(new double[] {inf, 2.0, 3.0, 4.0, 5.0},
+                DoublePipe.of(inf, 1, 2, 3, 4, 5, 6).slidingAverage(3).toArray()),
+            () -> assertArrayEquals(new double[] {Double.NaN, Double.NaN, 5.0, 7.0},
+                DoublePipe.of(1, Double.NaN, 2, 3, 4).slidingSum(2).toArray()),
+            () -> assertArrayEquals(new double[] {Double.NaN, -inf, -inf, 1.0},
+                DoublePipe.of(inf, -inf, -inf, 0, 1).slidingSum(2).toArray()),
+            () -> assertArrayEquals(new double[] {inf, inf, inf, 5.0},
+                DoublePipe.of(inf, 1, inf, 2, 3).slidingSum(2).toArray()));
+    }
+
+    // exception test
+
+    @Test
+    @DisplayName("当参数不合法时抛出异常")
+    void should_throw_exception_when_param_is_invalid() {
+        assertAll(() -> assertThrowsExactly(IllegalArgumentException.class, () -> IntPipe.of(1).limit(-1)),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> LongPipe.of(1).skip(-1)),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> IntPipe.of(1).histogram(1, 1, 1)),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> DoublePipe.of(1).histogram(0, 1, 0)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> IntPipe.of(1).takeIf(null)),
+            () -> assertThrowsExactly(NullPointerException.class, () -> DoublePipe.of(1).map(null)));
+    }
+}
@@ -0,0 +1,151 @@
+package com.oyealex.pipe.basis;
+
+import com.oyealex.pipe.PipeTestFixture;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.oyealex.pipe.basis.Pipe.list;
+import static com.oyealex.pipe.policy.PartitionPolicy.END;
+import static com.oyealex.pipe.policy.PartitionPolicy.IN;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 针对流水线程序的测试用例。
+ *
+ * @author oyealex
+ * @see Pipe#compile(Function)
+ * @see PipeProgram
+ * @since 2023-06-25
+ */
+class PipeProgramTest extends PipeTestFixture {
+    private static List<String> expectedOf(List<Integer> sample) {
+        return sample.stream()
+            .filter(PipeTestFixture::isOdd)
+            .map(value -> value % 7)
+            .distinct()
+            .sorted(Collections.reverseOrder())
+            .limit(3)
+            .map(String::valueOf)
+            .collect(toList());
+    }
+
+    private static PipeProgram<Integer, String> compileProgram() {
+        return Pipe.compile(pipe -> pipe.takeIf(PipeTestFixture::isOdd)
+            .map(value -> value % 7)
+            .distinct()
+            .sortReversely()
+            .limit(3)
+            .map(String::valueOf));
+    }
+
+    @Test
+    @DisplayName("能够将同一个流水线程序反复应用到不同的数据源上")
+    void should_apply_program_repeatedly_rightly() {
+        PipeProgram<Integer, String> program = compileProgram();
+        List<Integer> sample = genIntegerList();
+        List<Integer> another = IntStream.range(100, 200).boxed().collect(toList());
+        AtomicInteger built = new AtomicInteger();
+        PipeProgram<Integer, Integer> counting = Pipe.compile(pipe -> {
+            built.incrementAndGet();
+            return pipe.map(value -> value + 1);
+        });
+        assertAll(() -> assertEquals(expectedOf(sample), program.apply(sample).toList()),
+            () -> assertEquals(expectedOf(another), program.apply(another).toList()),
+            () -> assertEquals(expectedOf(sample), program.apply(sample.spliterator()).toList()),
+            () -> assertEquals(Collections.emptyList(), program.apply(Collections.emptyList()).toList()),
+            () -> assertEquals(sample.size(), counting.apply(sample).count()),
+            () -> assertEquals(sample.size(), counting.apply(sample).count()),
+            () -> assertEquals(1, built.get()),
+            () -> assertEquals(sample, Pipe.<Integer, Integer>compile(Function.identity()).apply(sample).toList()),
+            () -> assertEquals("6,5", program.apply(sample).limit(2).join(",")),
+            () -> assertTrue(program.apply(sample).anyMatch("5"::equals)));
+    }
+
+    @Test
+    @DisplayName("能够在多个线程中同时应用同一个流水线程序，以及以并行模式求值")
+    void should_apply_program_concurrently_and_in_parallel_rightly() throws Exception {
+        PipeProgram<Integer, String> program = compileProgram();
+        PipeProgram<Integer, Integer> parallelProgram = Pipe.compile(pipe -> pipe.parallel()
+            .takeIf(PipeTestFixture::isEven)
+            .map(value -> value * 3));
+        List<Integer> sample = IntStream.range(0, 10_000).boxed().collect(toList());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                List<Integer> source = sample.subList(i, sample.size() - i);
+                results.add(executor.submit(() -> program.apply(source).toList()));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(expectedOf(sample.subList(i, sample.size() - i)), results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        assertAll(() -> assertTrue(parallelProgram.apply(sample).isParallel()),
+            () -> assertFalse(program.apply(sample).isParallel()),
+            () -> assertEquals(sample.stream().filter(PipeTestFixture::isEven).map(value -> value * 3)
+                .collect(toList()), parallelProgram.apply(sample).toList()));
+    }
+
+    @Test
+    @DisplayName("多次应用带有状态节点的同一个流水线程序时，各次应用的结果互不影响")
+    void should_apply_stateful_program_repeatedly_rightly() {
+        List<Integer> sample = Arrays.asList(1, 2, 3, 4);
+        PipeProgram<Integer, Long> partitioned = Pipe.compile(
+            pipe -> pipe.partitionOrderly((index, value) -> index < 2 ? IN : END).map(Pipe::count));
+        List<Function<Pipe<Integer>, Pipe<String>>> definitions = Arrays.asList(
+            pipe -> pipe.mapOrderly((index, value) -> index + ":" + value),
+            pipe -> pipe.takeWhileOrderly((index, value) -> index < 3).map(String::valueOf),
+            pipe -> pipe.skip(1).limit(2).map(String::valueOf),
+            pipe -> pipe.window(2, 1).map(String::valueOf),
+            pipe -> pipe.dropLast(1).reverse().map(String::valueOf),
+            pipe -> pipe.map(value -> value % 2).distinct().sort().map(String::valueOf));
+        for (Function<Pipe<Integer>, Pipe<String>> definition : definitions) {
+            PipeProgram<Integer, String> program = Pipe.compile(definition);
+            List<String> expected = definition.apply(list(sample)).toList();
+            assertAll(() -> assertEquals(expected, program.apply(sample).toList()),
+                () -> assertEquals(expected, program.apply(sample).toList()));
+        }
+        assertAll(() -> assertEquals(Arrays.asList(3L, 1L), partitioned.apply(sample).toList()),
+            () -> assertEquals(Arrays.asList(3L, 1L), partitioned.apply(sample).toList()));
+    }
+
+    // exception test
+
+    @Test
+    @DisplayName("程序定义不合法时能够正确抛出异常")
+    void should_throw_exception_when_program_definition_is_invalid() {
+        List<Integer> sample = genIntegerList();
+        assertAll(() -> assertThrowsExactly(NullPointerException.class, () -> Pipe.compile(null)),
+            () -> assertThrowsExactly(NullPointerException.class,
+                () -> compileProgram().apply((List<Integer>) null)),
+            () -> assertThrowsExactly(IllegalArgumentException.class,
+                () -> Pipe.<Integer, Integer>compile(pipe -> list(sample))),
+            () -> assertThrowsExactly(UnsupportedOperationException.class,
+                () -> Pipe.<Integer, Integer>compile(pipe -> {
+                    pipe.run();
+                    return pipe;
+                })),
+            () -> assertThrowsExactly(UnsupportedOperationException.class,
+                () -> Pipe.<Integer, Integer>compile(pipe -> pipe.onClose(() -> {}))));
+    }
+}
@@ -2,25 +2,36 @@ package com.oyealex.pipe.basis;
 
 import com.oyealex.pipe.PipeTestFixture;
 import com.oyealex.pipe.assist.IntBox;
+import com.oyealex.pipe.assist.SpillCodec;
 import com.oyealex.pipe.functional.LongBiFunction;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.oyealex.pipe.basis.Pipe.empty;
 import static com.oyealex.pipe.basis.Pipe.list;
+import static java.util.Collections.emptyList;
 import static java.util.Comparator.comparing;
 import static java.util.Comparator.comparingInt;
 import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
 import static java.util.Comparator.reverseOrder;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -36,6 +47,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  * @see Pipe#sortBy(Function, Comparator)
  * @see Pipe#sortByOrderly(LongBiFunction)
  * @see Pipe#sortByOrderly(LongBiFunction, Comparator)
+ * @see Pipe#sortExternally(Comparator, SpillCodec, int)
+ * @see Pipe#takeMin(int, Comparator)
+ * @see Pipe#takeMax(int, Comparator)
  * @since 2023-05-27
  */
 class PipeSortTest extends PipeTestFixture {
@@ -61,6 +75,73 @@ class PipeSortTest extends PipeTestFixture {
             list(sample).sort(comparingInt(String::length)).toList());
     }
 
+    @Test
+    @DisplayName("元素数量超过并行排序阈值时，能够得到与串行稳定排序相同的结果")
+    void should_sort_elements_stably_when_element_count_exceeds_parallel_sort_threshold() {
+        List<String> sample = infiniteRandomStrPipe().limit(SortOp.PARALLEL_SORT_THRESHOLD + 1000L).toList();
+        Comparator<String> byLength = comparingInt(String::length);
+        int[] ints = sample.stream().mapToInt(String::hashCode).toArray();
+        assertAll(() -> assertEquals(sample.stream().sorted(byLength).collect(toList()),
+                list(sample).sort(byLength).toList()),
+            () -> assertEquals(sample.stream().sorted(byLength).collect(toList()),
+                list(sample).takeIf(value -> true).sort(byLength).toList()),
+            () -> assertEquals(sample.stream().sorted(byLength.reversed()).collect(toList()),
+                list(sample).sortByOrderly((order, value) -> value.length(), reverseOrder()).toList()),
+            () -> assertArrayEquals(IntStream.of(ints).sorted().toArray(), IntPipe.of(ints).sort().toArray()));
+    }
+
+    @Test
+    @DisplayName("以相同的比较器连续排序时只会排序一次")
+    void should_sort_only_once_when_sort_twice_with_the_same_comparator() {
+        List<String> sample = genRandomStrList();
+        IntBox counter = IntBox.box();
+        Comparator<String> byLength = (left, right) -> {
+            counter.getAndIncrement();
+            return Integer.compare(left.length(), right.length());
+        };
+        List<String> sorted = list(sample).sort(byLength).toList();
+        int comparedCount = counter.getValue();
+        assertAll(() -> assertEquals(sorted, list(sample).sort(byLength).sort(byLength).toList()),
+            () -> assertEquals(comparedCount * 2, counter.getValue()));
+    }
+
+    @Test
+    @DisplayName("排序后截取前N个元素时，能够得到与全量排序后截取相同的结果")
+    void should_get_same_elements_as_full_sort_when_limit_after_sort() {
+        List<String> sample = infiniteRandomStrPipe().limit(500).toList();
+        Comparator<String> byLength = comparingInt(String::length);
+        assertAll(() -> assertEquals(sample.stream().sorted().limit(10).collect(toList()),
+                list(sample).sort().limit(10).toList()),
+            () -> assertEquals(sample.stream().sorted(byLength).limit(37).collect(toList()),
+                list(sample).sort(byLength).limit(37).toList()),
+            () -> assertEquals(sample.stream().sorted(byLength).skip(5).limit(20).collect(toList()),
+                list(sample).sort(byLength).slice(5, 25).toList()),
+            () -> assertEquals(sample.stream().sorted(byLength).limit(3).collect(toList()),
+                list(sample).sort(byLength).limit(30).limit(3).toList()),
+            () -> assertEquals(sample.stream().sorted(byLength).collect(toList()),
+                list(sample).sort(byLength).limit(1000).toList()),
+            () -> assertEquals(sample.stream().sorted(byLength).limit(5).collect(toList()),
+                list(sample).takeIf(value -> true).sort(byLength).takeFirst(5).toList()),
+            () -> assertEquals(emptyList(), list(sample).sort(byLength).limit(0).toList()),
+            () -> assertEquals(emptyList(), empty().sort().limit(3).toList()));
+    }
+
+    @Test
+    @DisplayName("能够正确保留最小或最大的N个元素")
+    void should_take_min_or_max_N_elements_rightly() {
+        List<String> sample = infiniteRandomStrPipe().limit(500).toList();
+        Comparator<String> byLength = comparingInt(String::length);
+        assertAll(() -> assertEquals(sample.stream().sorted().limit(7).collect(toList()),
+                list(sample).takeMin(7).toList()),
+            () -> assertEquals(sample.stream().sorted(reverseOrder()).limit(7).collect(toList()),
+                list(sample).takeMax(7).toList()),
+            () -> assertEquals(sample.stream().sorted(byLength).limit(7).collect(toList()),
+                list(sample).takeMin(7, byLength).toList()),
+            () -> assertEquals(sample.stream().sorted(byLength.reversed()).limit(7).collect(toList()),
+                list(sample).takeMax(7, byLength).toList()),
+            () -> assertThrowsExactly(IllegalArgumentException.class, () -> list(sample).takeMin(-1)));
+    }
+
     @Test
     @DisplayName("当给定的比较器为null时按照自然顺序排序")
     void should_sort_elements_by_natural_order_when_given_comparator_is_null() {
@@ -137,6 +218,66 @@ class PipeSortTest extends PipeTestFixture {
             .collect(toList()), list(sample).sortByOrderly((order, value) -> order, null).toList());
     }
 
+    @Test
+    @DisplayName("能够正确对元素进行外部排序，排序结果稳定，并且不会遗留临时文件")
+    void should_sort_elements_externally_rightly() throws IOException {
+        List<String> sample = genRandomStrList();
+        List<String> large = IntStream.range(0, 10_000).mapToObj(index -> SOME_STR + (index * 7919 % 10_000))
+            .collect(toList());
+        List<String> withNull = new ArrayList<>(sample);
+        withNull.add(null);
+        withNull.add(0, null);
+        long spilledBefore = countSpillFiles();
+        assertAll(() -> assertEquals(sample.stream().sorted().collect(toList()),
+                list(sample).sortExternally(null, SpillCodec.ofString(), 3).toList()),
+            () -> assertEquals(sample.stream().sorted().collect(toList()),
+                list(sample).sortExternally(null, SpillCodec.ofString(), sample.size()).toList()),
+            () -> assertEquals(sample.stream().sorted(comparingInt(String::length)).collect(toList()),
+                list(sample).sortExternally(comparingInt(String::length), SpillCodec.ofString(), 2).toList()),
+            () -> assertEquals(large.stream().sorted(reverseOrder()).collect(toList()),
+                list(large).sortExternally(reverseOrder(), SpillCodec.ofString(), 1000).toList()),
+            () -> assertEquals(large.stream().sorted().limit(10).collect(toList()),
+                list(large).sortExternally(null, SpillCodec.ofString(), 1000).limit(10).toList()),
+            () -> assertEquals(withNull.stream().sorted(nullsFirst(naturalOrder())).collect(toList()),
+                list(withNull).sortExternally(nullsFirst(naturalOrder()), SpillCodec.ofString(), 4).toList()));
+        assertEquals(spilledBefore, countSpillFiles());
+    }
+
+    @Test
+    @DisplayName("外部排序的分段数量超出一次归并的上限时，能够分多轮归并并且保持稳定")
+    void should_sort_externally_in_multiple_merge_passes_rightly() throws IOException {
+        // 分段数量超过一次归并的上限的平方，需要多轮归并
+        List<Integer> large = IntStream.range(0, 10_000).map(index -> index * 7919 % 10_000).boxed()
+            .collect(toList());
+        long spilledBefore = countSpillFiles();
+        assertAll(() -> assertEquals(large.stream().sorted().collect(toList()),
+                list(large).sortExternally(null, SpillCodec.ofInteger(), 2).toList()),
+            () -> assertEquals(large.stream().sorted(comparingInt(value -> value % 10)).collect(toList()),
+                list(large).sortExternally(comparingInt(value -> value % 10), SpillCodec.ofInteger(), 3).toList()),
+            () -> assertEquals(large.stream().sorted().limit(10).collect(toList()),
+                list(large).sortExternally(null, SpillCodec.ofInteger(), 7).limit(10).toList()));
+        assertEquals(spilledBefore, countSpillFiles());
+    }
+
+    @Test
+    @DisplayName("外部排序的下游抛出异常时，关闭流水线能够删除临时文件")
+    void should_delete_spill_files_when_pipe_closed_after_failure() throws IOException {
+        long spilledBefore = countSpillFiles();
+        Pipe<Integer> pipe = list(IntStream.range(0, 100).boxed().collect(toList()))
+            .sortExternally(reverseOrder(), SpillCodec.ofInteger(), 10);
+        assertThrowsExactly(IllegalStateException.class, () -> pipe.forEach(value -> {
+            throw new IllegalStateException();
+        }));
+        pipe.close();
+        assertEquals(spilledBefore, countSpillFiles());
+    }
+
+    private static long countSpillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(path -> path.getFileName().toString().startsWith("pipe-sort-")).count();
+        }
+    }
+
     // optimization test
 
     @Test
@@ -172,6 +313,14 @@ class PipeSortTest extends PipeTestFixture {
         assertAll(() -> assertThrowsExactly(NullPointerException.class, () -> empty().sortBy(null)),
             () -> assertThrowsExactly(NullPointerException.class, () -> empty().sortBy(null, naturalOrder())),
             () -> assertThrowsExactly(NullPointerException.class, () -> empty().sortByOrderly(null)),
-            () -> assertThrowsExactly(NullPointerException.class, () -> empty().sortByOrderly(null, naturalOrder())));
+            () -> assertThrowsExactly(NullPointerException.class, () -> empty().sortByOrderly(null, naturalOrder())),
+            () -> assertThrowsExactly(NullPointerException.class, () -> empty().sortExternally(null, null, 1)));
+    }
+
+    @Test
+    @DisplayName("外部排序的分段大小小于1时抛出异常")
+    void should_throw_exception_when_external_sort_run_size_is_less_than_one() {
+        assertThrowsExactly(IllegalArgumentException.class,
+            () -> Pipe.<String>empty().sortExternally(null, SpillCodec.ofString(), 0));
     }
 }
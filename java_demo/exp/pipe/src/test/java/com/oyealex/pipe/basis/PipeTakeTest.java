@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Predicate;
 
 import static com.oyealex.pipe.basis.Pipe.empty;
@@ -17,6 +18,7 @@ import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 
 /**
@@ -51,6 +53,20 @@ class PipeTakeTest extends PipeTestFixture {
         assertEquals(sample.stream().filter(predicate).collect(toList()), list(sample).filter(predicate).toList());
     }
 
+    @Test
+    @DisplayName("连续的过滤节点会被融合为一个节点，并且能够正确过滤元素")
+    void should_fuse_adjacent_filters_and_take_elements_rightly() {
+        List<String> sample = genIntegerStrList();
+        Predicate<String> longer = val -> val.length() > 3;
+        Predicate<String> odd = val -> (val.charAt(val.length() - 1) - '0') % 2 == 1;
+        Pipe<String> head = list(sample);
+        Pipe<String> fused = head.takeIf(longer).takeIf(odd).dropNull();
+        assertAll(() -> assertSame(head, ((RefPipe<?, ?>) fused).prePipe),
+            () -> assertEquals(sample.stream().filter(longer).filter(odd).collect(toList()), fused.toList()),
+            () -> assertEquals(oddIntegerWithNullsPipe().toList().stream().filter(Objects::nonNull).collect(toList()),
+                oddIntegerWithNullsPipe().takeIf(val -> true).dropNull().toList()));
+    }
+
     @Test
     @DisplayName("能够正确根据有序断言保留元素")
     void should_take_elements_as_predicate_with_order_rightly() {